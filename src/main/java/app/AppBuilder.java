@@ -1,14 +1,22 @@
 package app;
 
 import java.awt.CardLayout;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.WindowConstants;
 
+import dataaccess.CachingUserRepository;
 import dataaccess.FireBaseUserDataAccessObject;
 import dataaccess.FirebaseClientProvider;
 import dataaccess.FirestoreUserRepository;
+import dataaccess.MappedMessageRepository;
+import dataaccess.PersistentChatRepository;
+import dataaccess.PersistentMessageRepository;
 import entity.UserFactory;
 import entity.ports.ChatRepository;
 import entity.ports.MessageRepository;
@@ -138,17 +146,21 @@ public class AppBuilder {
     private final JPanel cardPanel = new JPanel();
     private final CardLayout cardLayout = new CardLayout();
 
+    // Chats and messages of the last session, kept under the user's home directory
+    private static final Path LOCAL_STORE = Paths.get(System.getProperty("user.home"), ".gochat");
+
     // ChatRepository and MessageRepository.
-    private final ChatRepository chatRepository = new InMemoryChatRepository();
-    private final MessageRepository messageRepository = new InMemoryMessageRepository();
+    private final ChatRepository chatRepository = openChatRepository();
+    private final MessageRepository messageRepository = openMessageRepository();
 
     private final UserFactory userFactory = new UserFactory();
     private final ViewManagerModel viewManagerModel = new ViewManagerModel();
 
-    private final UserRepository userRepository = new FirestoreUserRepository(
+    // Cached so sending a message does not read the sender's document every time
+    private final UserRepository userRepository = new CachingUserRepository(new FirestoreUserRepository(
             FirebaseClientProvider.getFirestore(),
             userFactory
-    );
+    ));
 
     // DAO version using a shared external database.
     private final FireBaseUserDataAccessObject userDataAccessObject =
@@ -321,7 +333,8 @@ public class AppBuilder {
         );
 
         final LogoutInputBoundary logoutInteractor =
-                new LogoutInteractor(userDataAccessObject, logoutOutputBoundary, chatRepository);
+                new LogoutInteractor(userDataAccessObject, logoutOutputBoundary, chatRepository,
+                        messageRepository);
 
         final LogoutController logoutController = new LogoutController(logoutInteractor);
 
@@ -342,6 +355,13 @@ public class AppBuilder {
     public JFrame build() {
         final JFrame application = new JFrame("GoChat");
         application.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+        // Firestore and the local stores are written in the background; finish those
+        // writes before exiting
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            userDataAccessObject.close();
+            closeQuietly(chatRepository);
+            closeQuietly(messageRepository);
+        }, "pending-writes-close"));
 
         application.add(cardPanel);
 
@@ -747,4 +767,50 @@ public class AppBuilder {
 
         return this;
     }
+
+    /**
+     * Helper function that closes a repository if it keeps files open.
+     */
+    private static void closeQuietly(Object repository) {
+        if (repository instanceof Closeable) {
+            try {
+                ((Closeable) repository).close();
+            }
+            catch (IOException ex) {
+                System.err.println("Could not close the local store: " + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Helper function that opens the local chat store, or keeps chats in memory only if it
+     * cannot be opened, for example while another copy of the app holds it.
+     */
+    private static ChatRepository openChatRepository() {
+        try {
+            return new PersistentChatRepository(LOCAL_STORE.resolve("chats.log"));
+        }
+        catch (IOException ex) {
+            System.err.println("Keeping chats in memory only: " + ex.getMessage());
+            return new InMemoryChatRepository();
+        }
+    }
+
+    /**
+     * Helper function that opens the local message store, or keeps messages in memory only
+     * if it cannot be opened. Running with {@code -Dgochat.mappedMessages=true} keeps every
+     * message in memory-mapped files instead, for very large histories.
+     */
+    private static MessageRepository openMessageRepository() {
+        try {
+            if (Boolean.getBoolean("gochat.mappedMessages")) {
+                return new MappedMessageRepository(LOCAL_STORE.resolve("messages"));
+            }
+            return new PersistentMessageRepository(LOCAL_STORE.resolve("messages.log"));
+        }
+        catch (IOException ex) {
+            System.err.println("Keeping messages in memory only: " + ex.getMessage());
+            return new InMemoryMessageRepository();
+        }
+    }
 }
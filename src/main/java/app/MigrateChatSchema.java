@@ -0,0 +1,23 @@
+package app;
+
+import dataaccess.ChatSchemaMigration;
+import dataaccess.FirebaseClientProvider;
+
+/**
+ * One-off migration that replaces the message-ID list on every chat document with a
+ * message count and last-message ID. Safe to run more than once.
+ */
+public final class MigrateChatSchema {
+
+    private MigrateChatSchema() {
+    }
+
+    /**
+     * Runs the migration against the configured Firestore project.
+     * @param args command line arguments (unused)
+     */
+    public static void main(String[] args) {
+        final int migrated = ChatSchemaMigration.migrate(FirebaseClientProvider.getFirestore());
+        System.out.println("Migrated " + migrated + " chat document(s).");
+    }
+}
@@ -0,0 +1,23 @@
+package app;
+
+import dataaccess.FirebaseClientProvider;
+import dataaccess.UserSearchIndex;
+
+/**
+ * One-off migration that adds the case-folded username field used by user search
+ * to every existing user document. Safe to run more than once.
+ */
+public final class MigrateUserSearchIndex {
+
+    private MigrateUserSearchIndex() {
+    }
+
+    /**
+     * Runs the backfill against the configured Firestore project.
+     * @param args command line arguments (unused)
+     */
+    public static void main(String[] args) {
+        final int updated = UserSearchIndex.backfill(FirebaseClientProvider.getFirestore());
+        System.out.println("Backfilled " + updated + " user document(s).");
+    }
+}
@@ -0,0 +1,311 @@
+package dataaccess;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * A key-value store kept in one file that is only ever appended to.
+ *
+ * <p>
+ * Every put or delete is written as a record at the end of the file; an in-memory
+ * index maps each live key to its latest record. Opening the file reads it once from
+ * start to end to rebuild the index. A record that was only partly written when the
+ * program stopped fails its checksum and is cut off, so a crash loses at most the
+ * last write.
+ *
+ * <p>
+ * Overwritten and deleted records stay in the file until {@link #compact(Predicate)}
+ * copies the live ones to a new file and swaps it in. The whole file is read into
+ * memory when it is opened, so it is meant for stores of a few megabytes that are
+ * compacted as they grow.
+ *
+ * <p>
+ * Record layout: body length (int), CRC-32 of the body (int), then the body: the
+ * operation (byte), the key (modified UTF-8) and, for a put, the value bytes.
+ */
+public class AppendOnlyLog implements Closeable {
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int HEADER_BYTES = 8;
+
+    private final Path file;
+    private RandomAccessFile data;
+    // Key to {offset, record length}, in file order
+    private final Map<String, long[]> index = new LinkedHashMap<>();
+    private long length;
+    private long liveLength;
+
+    /**
+     * Opens the log at the given path, creating it and its directory if needed. The file
+     * stays locked against other processes until the log is closed.
+     *
+     * @param file the log file
+     * @throws IOException if the file cannot be opened or read
+     */
+    public AppendOnlyLog(Path file) throws IOException {
+        this.file = file;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        open();
+    }
+
+    private void open() throws IOException {
+        data = new RandomAccessFile(file.toFile(), "rw");
+        if (data.getChannel().tryLock() == null) {
+            data.close();
+            throw new IOException(file + " is in use by another process");
+        }
+        index.clear();
+        liveLength = 0;
+        final long fileLength = data.length();
+        length = fileLength;
+        final long end = scan((offset, body) -> {
+            final long recordLength = HEADER_BYTES + body.length;
+            final String key = keyOf(body);
+            unindex(key);
+            if (body[0] == PUT) {
+                index.put(key, new long[] {offset, recordLength});
+                liveLength += recordLength;
+            }
+        });
+        if (end < fileLength) {
+            // Drop the torn record left by a crash so later writes follow the last good one
+            data.setLength(end);
+        }
+        length = end;
+    }
+
+    /**
+     * Helper function that reads the file from the start in one go, handing each intact
+     * record to the visitor, and stops at the first one that is cut short or fails its
+     * checksum.
+     *
+     * @return the offset just past the last intact record
+     */
+    private long scan(RecordVisitor visitor) throws IOException {
+        if (length > Integer.MAX_VALUE - HEADER_BYTES) {
+            throw new IOException(file + " is too large to open");
+        }
+        final byte[] bytes = new byte[(int) length];
+        data.seek(0);
+        data.readFully(bytes);
+        final ByteBuffer records = ByteBuffer.wrap(bytes);
+        int offset = 0;
+        while (offset + HEADER_BYTES <= bytes.length) {
+            final int bodyLength = records.getInt(offset);
+            final int checksum = records.getInt(offset + 4);
+            if (bodyLength < 3 || bodyLength > bytes.length - offset - HEADER_BYTES) {
+                break;
+            }
+            final byte[] body = Arrays.copyOfRange(bytes, offset + HEADER_BYTES, offset + HEADER_BYTES + bodyLength);
+            if (checksum(body) != checksum || 3 + keyLength(body) > bodyLength) {
+                break;
+            }
+            visitor.visit(offset, body);
+            offset += HEADER_BYTES + bodyLength;
+        }
+        return offset;
+    }
+
+    /**
+     * Stores a value under a key, replacing any earlier value.
+     *
+     * @param key   the key
+     * @param value the value bytes
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized void put(String key, byte[] value) throws IOException {
+        final long recordLength = append(PUT, key, value);
+        unindex(key);
+        index.put(key, new long[] {length - recordLength, recordLength});
+        liveLength += recordLength;
+    }
+
+    /**
+     * Removes the value stored under a key, if there is one.
+     *
+     * @param key the key
+     * @throws IOException if the record cannot be written
+     */
+    public synchronized void delete(String key) throws IOException {
+        if (index.containsKey(key)) {
+            append(DELETE, key, new byte[0]);
+            unindex(key);
+        }
+    }
+
+    /**
+     * Removes every value and empties the file.
+     *
+     * @throws IOException if the file cannot be truncated
+     */
+    public synchronized void clear() throws IOException {
+        data.setLength(0);
+        index.clear();
+        length = 0;
+        liveLength = 0;
+    }
+
+    /**
+     * Reads every live value in the order it was last written.
+     *
+     * @param consumer receives each key and its value
+     * @throws IOException if the file cannot be read
+     */
+    public synchronized void replay(BiConsumer<String, byte[]> consumer) throws IOException {
+        scan((offset, body) -> {
+            final String key = keyOf(body);
+            final long[] live = index.get(key);
+            // Skip records that a later put or delete replaced
+            if (live != null && live[0] == offset) {
+                consumer.accept(key, Arrays.copyOfRange(body, 3 + keyLength(body), body.length));
+            }
+        });
+    }
+
+    /**
+     * Rewrites the file with only the latest values of the keys to keep, then swaps it
+     * in place of the old one. The rewrite goes to a temporary file first, so the old
+     * file stays intact if it fails.
+     *
+     * @param keep decides which keys survive; the others are dropped
+     * @throws IOException if the new file cannot be written or moved into place
+     */
+    public synchronized void compact(Predicate<String> keep) throws IOException {
+        final Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(compacted))) {
+            for (Map.Entry<String, long[]> entry : index.entrySet()) {
+                if (keep.test(entry.getKey())) {
+                    final byte[] body = readBody(entry.getValue());
+                    final DataOutputStream record = new DataOutputStream(out);
+                    record.writeInt(body.length);
+                    record.writeInt(checksum(body));
+                    record.write(body);
+                }
+            }
+        }
+        data.close();
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        open();
+    }
+
+    /**
+     * Returns the keys that currently have a value, in the order they were last written.
+     *
+     * @return the live keys
+     */
+    public synchronized List<String> keys() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    /**
+     * Returns the number of keys that currently have a value.
+     *
+     * @return the live key count
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns the size of the file, including overwritten and deleted records.
+     *
+     * @return the file length in bytes
+     */
+    public synchronized long length() {
+        return length;
+    }
+
+    /**
+     * Returns the bytes taken by the latest record of each live key, which is how
+     * small the file would be right after compacting it with every key kept.
+     *
+     * @return the live length in bytes
+     */
+    public synchronized long liveLength() {
+        return liveLength;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        data.close();
+    }
+
+    private long append(byte op, String key, byte[] value) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream(3 + key.length() + value.length);
+        final DataOutputStream out = new DataOutputStream(body);
+        out.writeByte(op);
+        out.writeUTF(key);
+        out.write(value);
+        final byte[] bytes = body.toByteArray();
+
+        final ByteArrayOutputStream record = new ByteArrayOutputStream(HEADER_BYTES + bytes.length);
+        final DataOutputStream header = new DataOutputStream(record);
+        header.writeInt(bytes.length);
+        header.writeInt(checksum(bytes));
+        header.write(bytes);
+
+        data.seek(length);
+        // One write call, so a crash leaves either the whole record or a torn tail
+        data.write(record.toByteArray());
+        length += record.size();
+        return record.size();
+    }
+
+    private byte[] readBody(long[] position) throws IOException {
+        final byte[] body = new byte[(int) position[1] - HEADER_BYTES];
+        data.seek(position[0] + HEADER_BYTES);
+        data.readFully(body);
+        return body;
+    }
+
+    private void unindex(String key) {
+        final long[] old = index.remove(key);
+        if (old != null) {
+            liveLength -= old[1];
+        }
+    }
+
+    private static String keyOf(byte[] body) throws IOException {
+        return new DataInputStream(new ByteArrayInputStream(body, 1, body.length - 1)).readUTF();
+    }
+
+    private static int keyLength(byte[] body) {
+        // The unsigned length that writeUTF puts before the key
+        return (body[1] & 0xff) << 8 | body[2] & 0xff;
+    }
+
+    private static int checksum(byte[] body) {
+        final CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Receives the records found by a scan of the file.
+     */
+    private interface RecordVisitor {
+        void visit(long offset, byte[] body) throws IOException;
+    }
+}
@@ -0,0 +1,281 @@
+package dataaccess;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import entity.User;
+import entity.ports.UserRepository;
+
+/**
+ * Caches the users read from another repository for a limited time.
+ *
+ * <p>
+ * A lookup is answered from the cache while the entry is younger than its time to
+ * live, and read through to the underlying repository otherwise. Unknown names are
+ * cached too, for a shorter time, so repeated lookups of a name that does not exist
+ * do not each cost a read. At most {@code maxSize} names are kept, dropping the ones
+ * used longest ago.
+ *
+ * <p>
+ * Saving a user through this repository replaces its entry. Changes made to the
+ * store by other means must be announced with {@link #evict(String)}.
+ */
+public class CachingUserRepository implements UserRepository {
+
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    public static final long DEFAULT_NEGATIVE_TTL_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    public static final int DEFAULT_MAX_SIZE = 1_000;
+
+    private final UserRepository delegate;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final int maxSize;
+    private final LongSupplier clock;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hitCount;
+    private long missCount;
+    private long loadCount;
+    private long totalLoadNanos;
+    private long evictionCount;
+    private long expirationCount;
+
+    /**
+     * Constructs a cache with the default limits.
+     *
+     * @param delegate the repository that is read on a miss
+     */
+    public CachingUserRepository(UserRepository delegate) {
+        this(delegate, DEFAULT_TTL_MILLIS, DEFAULT_NEGATIVE_TTL_MILLIS, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructs a cache with the given limits.
+     *
+     * @param delegate            the repository that is read on a miss
+     * @param ttlMillis           how long a found user is kept
+     * @param negativeTtlMillis   how long an unknown name is remembered
+     * @param maxSize             the most names kept
+     */
+    public CachingUserRepository(UserRepository delegate, long ttlMillis, long negativeTtlMillis, int maxSize) {
+        this(delegate, ttlMillis, negativeTtlMillis, maxSize, System::nanoTime);
+    }
+
+    CachingUserRepository(UserRepository delegate, long ttlMillis, long negativeTtlMillis, int maxSize,
+                          LongSupplier clock) {
+        this.delegate = delegate;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+        this.maxSize = Math.max(1, maxSize);
+        this.clock = clock;
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        Optional<User> result = null;
+        synchronized (this) {
+            final Entry entry = entries.get(username);
+            if (entry != null && entry.expiresAt - clock.getAsLong() > 0) {
+                hitCount++;
+                result = Optional.ofNullable(entry.user);
+            }
+            else {
+                if (entry != null) {
+                    entries.remove(username);
+                    expirationCount++;
+                }
+                missCount++;
+            }
+        }
+
+        if (result == null) {
+            // Read outside the lock so one slow read does not hold up every other lookup
+            final long start = clock.getAsLong();
+            result = delegate.findByUsername(username);
+            final long loaded = clock.getAsLong();
+            synchronized (this) {
+                loadCount++;
+                totalLoadNanos += loaded - start;
+                put(username, result.orElse(null), loaded);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Answers what it can from the cache and reads all the other names from the
+     * underlying repository in one call.
+     */
+    @Override
+    public Map<String, User> findAllByUsernames(Collection<String> usernames) {
+        final Map<String, Entry> cached = new HashMap<>();
+        final Set<String> misses = new LinkedHashSet<>();
+        synchronized (this) {
+            final long now = clock.getAsLong();
+            for (String username : usernames) {
+                if (!cached.containsKey(username) && !misses.contains(username)) {
+                    final Entry entry = entries.get(username);
+                    if (entry != null && entry.expiresAt - now > 0) {
+                        hitCount++;
+                        cached.put(username, entry);
+                    }
+                    else {
+                        if (entry != null) {
+                            entries.remove(username);
+                            expirationCount++;
+                        }
+                        missCount++;
+                        misses.add(username);
+                    }
+                }
+            }
+        }
+
+        Map<String, User> loaded = Map.of();
+        if (!misses.isEmpty()) {
+            final long start = clock.getAsLong();
+            loaded = delegate.findAllByUsernames(misses);
+            final long end = clock.getAsLong();
+            synchronized (this) {
+                loadCount++;
+                totalLoadNanos += end - start;
+                for (String username : misses) {
+                    put(username, loaded.get(username), end);
+                }
+            }
+        }
+
+        final Map<String, User> found = new LinkedHashMap<>();
+        for (String username : usernames) {
+            final Entry entry = cached.get(username);
+            final User user = entry == null ? loaded.get(username) : entry.user;
+            if (user != null) {
+                found.put(username, user);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Saves the user to the underlying repository and caches the saved user.
+     */
+    @Override
+    public User save(User user) {
+        evict(user.getName());
+        final User saved = delegate.save(user);
+        synchronized (this) {
+            put(saved.getName(), saved, clock.getAsLong());
+        }
+        return saved;
+    }
+
+    /**
+     * Drops the cached entry for a name, so the next lookup reads the underlying repository.
+     */
+    @Override
+    public synchronized void evict(String username) {
+        entries.remove(username);
+    }
+
+    private void put(String username, User user, long now) {
+        entries.put(username, new Entry(user, now + (user == null ? negativeTtlNanos : ttlNanos)));
+        final Iterator<Entry> oldestFirst = entries.values().iterator();
+        while (entries.size() > maxSize) {
+            oldestFirst.next();
+            oldestFirst.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the hit count
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups read from the underlying repository.
+     *
+     * @return the miss count
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the share of lookups answered from the cache.
+     *
+     * @return the hit ratio, or 0 before the first lookup
+     */
+    public synchronized double getHitRatio() {
+        final long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Returns the average time a read from the underlying repository took.
+     *
+     * @return the average load time in milliseconds, or 0 before the first load
+     */
+    public synchronized double getAverageLoadMillis() {
+        return loadCount == 0 ? 0 : totalLoadNanos / 1e6 / loadCount;
+    }
+
+    /**
+     * Returns the number of names dropped to stay within the size limit.
+     *
+     * @return the eviction count
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of entries found expired on lookup.
+     *
+     * @return the expiration count
+     */
+    public synchronized long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * Returns the number of names currently cached.
+     *
+     * @return the size
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d hits, %d misses (%.0f%% hit ratio), average load %.1f ms, "
+                        + "%d evicted, %d expired",
+                hitCount, missCount, getHitRatio() * 100, getAverageLoadMillis(), evictionCount, expirationCount);
+    }
+
+    /**
+     * A cached lookup result; a null user records that the name does not exist.
+     */
+    private static final class Entry {
+        private final User user;
+        private final long expiresAt;
+
+        private Entry(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package dataaccess;
+
+/**
+ * Storage for chat documents that can apply a {@link DocumentUpdate} atomically.
+ */
+public interface ChatDocumentStore {
+
+    /**
+     * Applies an update to a chat document in a single write.
+     *
+     * @param chatId the ID of the chat document
+     * @param update the changes to apply
+     * @return false if the chat document does not exist
+     */
+    boolean update(String chatId, DocumentUpdate update);
+
+    /**
+     * Applies an update to a chat document only if a numeric field is missing or below
+     * a value, reading the field and writing the update in one transaction.
+     *
+     * @param chatId the ID of the chat document
+     * @param field  the numeric field to compare
+     * @param value  the value the field must be below
+     * @param update the changes to apply
+     * @return false if the chat document does not exist
+     */
+    boolean updateIfLater(String chatId, String field, long value, DocumentUpdate update);
+}
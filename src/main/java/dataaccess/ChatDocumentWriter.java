@@ -0,0 +1,108 @@
+package dataaccess;
+
+import java.time.Instant;
+
+/**
+ * Writes membership and message-counter changes to chat documents.
+ *
+ * <p>
+ * Every operation is one write carrying only the changed element or a counter delta,
+ * never a read-modify-write of the whole document, so members sending or joining at
+ * the same time cannot lose each other's updates. Chat documents do not list their
+ * messages; membership comes from the {@code chatId} field of each message.
+ *
+ * <p>
+ * The one exception is the chat's latest message. Its ID and time are only written
+ * when the message is later than the one already recorded, checked in the same
+ * transaction, so a sender whose write lands last cannot move the chat back in the
+ * recent chats list.
+ */
+public class ChatDocumentWriter {
+
+    static final String PARTICIPANTS = "participants";
+    static final String MESSAGE_COUNT = "messageCount";
+    static final String LAST_MESSAGE_ID = "lastMessageId";
+    static final String RECENT = "recent";
+
+    private final ChatDocumentStore store;
+
+    /**
+     * Constructs a {@code ChatDocumentWriter}.
+     *
+     * @param store the store holding the chat documents
+     */
+    public ChatDocumentWriter(ChatDocumentStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Counts a new message on a chat and records it as the chat's latest, unless a
+     * later message is already recorded.
+     *
+     * @param chatId    the ID of the chat
+     * @param messageId the ID of the new message
+     * @param timestamp the time the message was sent
+     * @return false if the chat does not exist
+     */
+    public boolean appendMessage(String chatId, String messageId, Instant timestamp) {
+        return store.update(chatId, messageCounted())
+                && store.updateIfLater(chatId, RECENT, timestamp.toEpochMilli(), latestMessage(messageId, timestamp));
+    }
+
+    /**
+     * Builds the update that counts a new message on a chat, for callers that send it themselves.
+     *
+     * @return the update to apply to the chat document
+     */
+    static DocumentUpdate messageCounted() {
+        return new DocumentUpdate().increment(MESSAGE_COUNT, 1);
+    }
+
+    /**
+     * Builds the update that records a message as a chat's latest. It is meant for
+     * {@link ChatDocumentStore#updateIfLater}, keyed on the {@link #RECENT} field.
+     *
+     * @param messageId the ID of the message
+     * @param timestamp the time the message was sent
+     * @return the update to apply to the chat document
+     */
+    static DocumentUpdate latestMessage(String messageId, Instant timestamp) {
+        return new DocumentUpdate()
+                .set(LAST_MESSAGE_ID, messageId)
+                .set(RECENT, timestamp.toEpochMilli());
+    }
+
+    /**
+     * Uncounts a deleted message. The last-message fields are left as they are; readers
+     * treat a last message ID that no longer resolves as a deleted message.
+     *
+     * @param chatId    the ID of the chat
+     * @param messageId the ID of the deleted message
+     * @return false if the chat does not exist
+     */
+    public boolean removeMessage(String chatId, String messageId) {
+        return store.update(chatId, new DocumentUpdate().increment(MESSAGE_COUNT, -1));
+    }
+
+    /**
+     * Adds a participant to a chat.
+     *
+     * @param chatId the ID of the chat
+     * @param userId the user to add
+     * @return false if the chat does not exist
+     */
+    public boolean addParticipant(String chatId, String userId) {
+        return store.update(chatId, new DocumentUpdate().arrayUnion(PARTICIPANTS, userId));
+    }
+
+    /**
+     * Removes a participant from a chat.
+     *
+     * @param chatId the ID of the chat
+     * @param userId the user to remove
+     * @return false if the chat does not exist
+     */
+    public boolean removeParticipant(String chatId, String userId) {
+        return store.update(chatId, new DocumentUpdate().arrayRemove(PARTICIPANTS, userId));
+    }
+}
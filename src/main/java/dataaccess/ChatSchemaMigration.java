@@ -0,0 +1,90 @@
+package dataaccess;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+
+/**
+ * Moves chat documents from the message-ID list schema to the counter schema.
+ *
+ * <p>
+ * For each chat the message count and latest message are recomputed from the
+ * {@code messages} collection, written as {@code messageCount} and
+ * {@code lastMessageId}, and the {@code messageIds} list is deleted. Running it again
+ * only recomputes the counters.
+ */
+public final class ChatSchemaMigration {
+
+    private static final String COLLECTION_CHAT = "chats";
+    private static final String COLLECTION_MESSAGE = "messages";
+    private static final String LEGACY_MESSAGE_IDS = "messageIds";
+    private static final String MESSAGE_CHAT_ID = "chatId";
+    private static final String MESSAGE_TIME = "timestamp";
+    private static final int PAGE_SIZE = 200;
+
+    private ChatSchemaMigration() {
+    }
+
+    /**
+     * Migrates every chat document.
+     *
+     * @param db the Firestore instance
+     * @return the number of chat documents migrated
+     * @throws RuntimeException if a read or write fails
+     */
+    public static int migrate(Firestore db) {
+        int migrated = 0;
+        String lastId = null;
+        boolean more = true;
+        try {
+            while (more) {
+                // Only document names are needed from the chats themselves
+                Query page = db.collection(COLLECTION_CHAT)
+                        .select(FieldPath.documentId())
+                        .orderBy(FieldPath.documentId())
+                        .limit(PAGE_SIZE);
+                if (lastId != null) {
+                    page = page.startAfter(lastId);
+                }
+                final List<QueryDocumentSnapshot> chats = page.get().get().getDocuments();
+
+                final WriteBatch batch = db.batch();
+                for (QueryDocumentSnapshot chat : chats) {
+                    final Query messages = db.collection(COLLECTION_MESSAGE)
+                            .whereEqualTo(MESSAGE_CHAT_ID, chat.getId());
+                    final long count = messages.count().get().get().getCount();
+                    final List<QueryDocumentSnapshot> latest = messages
+                            .orderBy(MESSAGE_TIME, Query.Direction.DESCENDING)
+                            .select(FieldPath.documentId())
+                            .limit(1)
+                            .get().get().getDocuments();
+                    String lastMessageId = null;
+                    if (!latest.isEmpty()) {
+                        lastMessageId = latest.get(0).getId();
+                    }
+
+                    batch.update(chat.getReference(),
+                            ChatDocumentWriter.MESSAGE_COUNT, count,
+                            ChatDocumentWriter.LAST_MESSAGE_ID, lastMessageId,
+                            LEGACY_MESSAGE_IDS, FieldValue.delete());
+                }
+                if (!chats.isEmpty()) {
+                    batch.commit().get();
+                    migrated += chats.size();
+                    lastId = chats.get(chats.size() - 1).getId();
+                }
+                more = chats.size() == PAGE_SIZE;
+            }
+        }
+        catch (InterruptedException | ExecutionException ex) {
+            throw new RuntimeException("Failed to migrate chat documents", ex);
+        }
+        return migrated;
+    }
+}
@@ -0,0 +1,17 @@
+package dataaccess;
+
+import java.util.List;
+
+/**
+ * Storage that can commit several document writes as one atomic batch.
+ */
+public interface DocumentBatchStore {
+
+    /**
+     * Commits the writes together, in order. Either all of them are applied or none is.
+     *
+     * @param writes the writes to commit
+     * @throws RuntimeException if the batch is rejected
+     */
+    void commit(List<DocumentWrite> writes);
+}
@@ -0,0 +1,247 @@
+package dataaccess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.cloud.firestore.FieldValue;
+
+/**
+ * A set of field changes to apply to one document in a single write.
+ *
+ * <p>
+ * Array changes are expressed as server-side transforms rather than whole lists, so
+ * the payload does not grow with the array and concurrent writers cannot overwrite
+ * each other's elements.
+ */
+public class DocumentUpdate {
+
+    private final Map<String, Object> values = new LinkedHashMap<>();
+    private final Map<String, List<Object>> unions = new LinkedHashMap<>();
+    private final Map<String, List<Object>> removals = new LinkedHashMap<>();
+    private final Map<String, Long> increments = new LinkedHashMap<>();
+    private final Set<String> deletes = new LinkedHashSet<>();
+
+    /**
+     * Overwrites a field with a value. Dotted field names address nested map entries.
+     *
+     * @param field the field name
+     * @param value the new value
+     * @return this update
+     */
+    public DocumentUpdate set(String field, Object value) {
+        deletes.remove(field);
+        values.put(field, value);
+        return this;
+    }
+
+    /**
+     * Removes a field. Dotted field names address nested map entries.
+     *
+     * @param field the field name
+     * @return this update
+     */
+    public DocumentUpdate delete(String field) {
+        values.remove(field);
+        deletes.add(field);
+        return this;
+    }
+
+    /**
+     * Adds an element to an array field unless it is already present.
+     *
+     * @param field the array field name
+     * @param value the element to add
+     * @return this update
+     */
+    public DocumentUpdate arrayUnion(String field, Object value) {
+        unions.computeIfAbsent(field, key -> new ArrayList<>()).add(value);
+        return this;
+    }
+
+    /**
+     * Removes every occurrence of an element from an array field.
+     *
+     * @param field the array field name
+     * @param value the element to remove
+     * @return this update
+     */
+    public DocumentUpdate arrayRemove(String field, Object value) {
+        removals.computeIfAbsent(field, key -> new ArrayList<>()).add(value);
+        return this;
+    }
+
+    /**
+     * Adds a delta to a numeric field, treating a missing field as zero.
+     *
+     * @param field the numeric field name
+     * @param delta the amount to add, negative to subtract
+     * @return this update
+     */
+    public DocumentUpdate increment(String field, long delta) {
+        increments.merge(field, delta, Long::sum);
+        return this;
+    }
+
+    /**
+     * Folds a later update to the same document into this one, so both are sent as one
+     * write. A later set or delete of a field replaces whatever was pending for it;
+     * increments add up and array changes of the same kind are concatenated.
+     *
+     * <p>
+     * Nothing is changed when the two updates touch a field in ways one write cannot
+     * express, such as an array union followed by a removal.
+     *
+     * @param later the update made after this one
+     * @return false if the updates could not be combined
+     */
+    public boolean mergeFrom(DocumentUpdate later) {
+        boolean mergeable = true;
+        for (String field : fieldsOf(later)) {
+            final boolean overwritten = later.values.containsKey(field) || later.deletes.contains(field);
+            final boolean pending = values.containsKey(field) || deletes.contains(field);
+            if (!overwritten) {
+                if (later.increments.containsKey(field)) {
+                    mergeable = !pending && !unions.containsKey(field) && !removals.containsKey(field)
+                            || values.get(field) instanceof Number;
+                }
+                else if (later.unions.containsKey(field)) {
+                    mergeable = !pending && !removals.containsKey(field) && !increments.containsKey(field);
+                }
+                else {
+                    mergeable = !pending && !unions.containsKey(field) && !increments.containsKey(field);
+                }
+            }
+            if (!mergeable) {
+                break;
+            }
+        }
+
+        if (mergeable) {
+            for (String field : fieldsOf(later)) {
+                if (later.values.containsKey(field) || later.deletes.contains(field)) {
+                    unions.remove(field);
+                    removals.remove(field);
+                    increments.remove(field);
+                }
+            }
+            for (Map.Entry<String, Object> entry : later.values.entrySet()) {
+                set(entry.getKey(), entry.getValue());
+            }
+            for (String field : later.deletes) {
+                delete(field);
+            }
+            for (Map.Entry<String, List<Object>> entry : later.unions.entrySet()) {
+                unions.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).addAll(entry.getValue());
+            }
+            for (Map.Entry<String, List<Object>> entry : later.removals.entrySet()) {
+                removals.computeIfAbsent(entry.getKey(), key -> new ArrayList<>()).addAll(entry.getValue());
+            }
+            for (Map.Entry<String, Long> entry : later.increments.entrySet()) {
+                final Object current = values.get(entry.getKey());
+                if (current instanceof Number) {
+                    values.put(entry.getKey(), ((Number) current).longValue() + entry.getValue());
+                }
+                else {
+                    increment(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return mergeable;
+    }
+
+    private static Set<String> fieldsOf(DocumentUpdate update) {
+        final Set<String> fields = new LinkedHashSet<>(update.values.keySet());
+        fields.addAll(update.deletes);
+        fields.addAll(update.unions.keySet());
+        fields.addAll(update.removals.keySet());
+        fields.addAll(update.increments.keySet());
+        return fields;
+    }
+
+    /**
+     * Converts this update into the map accepted by {@code DocumentReference.update}.
+     *
+     * @return the Firestore field updates
+     */
+    public Map<String, Object> toFirestore() {
+        final Map<String, Object> updates = new LinkedHashMap<>(values);
+        for (String field : deletes) {
+            updates.put(field, FieldValue.delete());
+        }
+        for (Map.Entry<String, List<Object>> entry : unions.entrySet()) {
+            updates.put(entry.getKey(), FieldValue.arrayUnion(entry.getValue().toArray()));
+        }
+        for (Map.Entry<String, List<Object>> entry : removals.entrySet()) {
+            updates.put(entry.getKey(), FieldValue.arrayRemove(entry.getValue().toArray()));
+        }
+        for (Map.Entry<String, Long> entry : increments.entrySet()) {
+            updates.put(entry.getKey(), FieldValue.increment(entry.getValue()));
+        }
+        return updates;
+    }
+
+    /**
+     * Applies this update to a document held in memory, with the same semantics
+     * as the server-side transforms.
+     *
+     * @param document the document fields, modified in place
+     */
+    @SuppressWarnings("unchecked")
+    public void applyTo(Map<String, Object> document) {
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            final String[] path = entry.getKey().split("\\.");
+            parentOf(document, path).put(path[path.length - 1], entry.getValue());
+        }
+        for (String field : deletes) {
+            final String[] path = field.split("\\.");
+            parentOf(document, path).remove(path[path.length - 1]);
+        }
+        for (Map.Entry<String, List<Object>> entry : unions.entrySet()) {
+            final List<Object> array = new ArrayList<>(
+                    (List<Object>) document.getOrDefault(entry.getKey(), List.of()));
+            for (Object value : entry.getValue()) {
+                if (!array.contains(value)) {
+                    array.add(value);
+                }
+            }
+            document.put(entry.getKey(), array);
+        }
+        for (Map.Entry<String, List<Object>> entry : removals.entrySet()) {
+            final List<Object> array = new ArrayList<>(
+                    (List<Object>) document.getOrDefault(entry.getKey(), List.of()));
+            array.removeAll(entry.getValue());
+            document.put(entry.getKey(), array);
+        }
+        for (Map.Entry<String, Long> entry : increments.entrySet()) {
+            final Number current = (Number) document.getOrDefault(entry.getKey(), 0L);
+            document.put(entry.getKey(), current.longValue() + entry.getValue());
+        }
+    }
+
+    /**
+     * Helper function that finds the map holding the last segment of a dotted field path,
+     * copying nested maps on the way so shared maps are never modified.
+     *
+     * @param document the document fields
+     * @param path     the field path split at its dots
+     * @return the map that holds the addressed field
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parentOf(Map<String, Object> document, String[] path) {
+        Map<String, Object> parent = document;
+        for (int i = 0; i < path.length - 1; i++) {
+            final Object child = parent.get(path[i]);
+            final Map<String, Object> copy = new LinkedHashMap<>();
+            if (child instanceof Map) {
+                copy.putAll((Map<String, Object>) child);
+            }
+            parent.put(path[i], copy);
+            parent = copy;
+        }
+        return parent;
+    }
+}
@@ -0,0 +1,197 @@
+package dataaccess;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One pending write to a document: a full set, a field update or a delete.
+ *
+ * <p>
+ * Writes to the same document queued one after another are folded into a single
+ * write where the result is the same, and the callers of every folded write wait
+ * on the write that carries their change. A write may name a related document, such
+ * as the chat of a message, so that the queue keeps it in order with the writes to
+ * that chat and its other messages.
+ */
+public class DocumentWrite {
+
+    /**
+     * The kind of write.
+     */
+    public enum Kind {
+        SET, UPDATE, DELETE
+    }
+
+    private final String collection;
+    private final String documentId;
+    private Kind kind;
+    private Map<String, Object> data;
+    private DocumentUpdate update;
+    private int operations = 1;
+    private long group;
+    private String relatedPath;
+    private final List<CompletableFuture<Void>> waiters = new ArrayList<>();
+
+    private DocumentWrite(String collection, String documentId, Kind kind,
+                          Map<String, Object> data, DocumentUpdate update) {
+        this.collection = collection;
+        this.documentId = documentId;
+        this.kind = kind;
+        this.data = data;
+        this.update = update;
+        this.relatedPath = collection + "/" + documentId;
+    }
+
+    /**
+     * Marks this write as related to another document. Writes with the same related
+     * document keep their queue order: one is never folded into an earlier write past
+     * another. By default a write is related only to its own document.
+     *
+     * @param relatedCollection the collection of the related document
+     * @param relatedId         the ID of the related document
+     * @return this write
+     */
+    public DocumentWrite relatedTo(String relatedCollection, String relatedId) {
+        this.relatedPath = relatedCollection + "/" + relatedId;
+        return this;
+    }
+
+    /**
+     * Creates a write that replaces the whole document.
+     *
+     * @param collection the collection of the document
+     * @param documentId the ID of the document
+     * @param data       the document fields
+     * @return the write
+     */
+    public static DocumentWrite set(String collection, String documentId, Map<String, Object> data) {
+        return new DocumentWrite(collection, documentId, Kind.SET, new LinkedHashMap<>(data), null);
+    }
+
+    /**
+     * Creates a write that changes some fields of an existing document.
+     *
+     * @param collection the collection of the document
+     * @param documentId the ID of the document
+     * @param update     the changes to apply
+     * @return the write
+     */
+    public static DocumentWrite update(String collection, String documentId, DocumentUpdate update) {
+        return new DocumentWrite(collection, documentId, Kind.UPDATE, null, update);
+    }
+
+    /**
+     * Creates a write that deletes the document.
+     *
+     * @param collection the collection of the document
+     * @param documentId the ID of the document
+     * @return the write
+     */
+    public static DocumentWrite delete(String collection, String documentId) {
+        return new DocumentWrite(collection, documentId, Kind.DELETE, null, null);
+    }
+
+    /**
+     * Folds a later write to the same document into this one.
+     *
+     * <p>
+     * A later set or delete replaces this write. A later update is applied to the
+     * fields of a pending set, or merged with a pending update when one write can
+     * carry both. An update after a delete is never folded, so it still fails the
+     * way it would have on its own. Nothing is folded into or out of an atomic group,
+     * so a write never joins a group it was not submitted with, or fails with it.
+     *
+     * @param later the write queued after this one
+     * @return false if the later write has to be sent separately
+     */
+    boolean absorb(DocumentWrite later) {
+        boolean absorbed = true;
+        if (group != 0 || later.group != 0) {
+            absorbed = false;
+        }
+        else if (later.kind == Kind.UPDATE) {
+            if (kind == Kind.SET) {
+                later.update.applyTo(data);
+            }
+            else if (kind == Kind.UPDATE) {
+                absorbed = update.mergeFrom(later.update);
+            }
+            else {
+                absorbed = false;
+            }
+        }
+        else {
+            kind = later.kind;
+            data = later.data;
+            update = null;
+        }
+
+        if (absorbed) {
+            operations += later.operations;
+            waiters.addAll(later.waiters);
+        }
+        return absorbed;
+    }
+
+    /**
+     * Returns the atomic group this write belongs to.
+     *
+     * @return the group number, or 0 if the write stands alone
+     */
+    long getGroup() {
+        return group;
+    }
+
+    void setGroup(long group) {
+        this.group = group;
+    }
+
+    String path() {
+        return collection + "/" + documentId;
+    }
+
+    String relatedPath() {
+        return relatedPath;
+    }
+
+    int getOperations() {
+        return operations;
+    }
+
+    List<CompletableFuture<Void>> getWaiters() {
+        return waiters;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public String getDocumentId() {
+        return documentId;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the document fields of a set.
+     *
+     * @return the fields, or null if this is not a set
+     */
+    public Map<String, Object> getData() {
+        return data;
+    }
+
+    /**
+     * Returns the changes of an update.
+     *
+     * @return the changes, or null if this is not an update
+     */
+    public DocumentUpdate getUpdate() {
+        return update;
+    }
+}
@@ -6,17 +6,32 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import javax.swing.SwingUtilities;
 
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.StatusCode;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.firestore.*;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.cloud.FirestoreClient;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
 import entity.Chat;
 import entity.Message;
 import entity.User;
@@ -34,6 +49,8 @@ import usecase.login.LoginUserDataAccessInterface;
 import usecase.logout.LogoutUserDataAccessInterface;
 import usecase.messaging.deletemessage.DeleteMessageDataAccessInterface;
 import usecase.messaging.sendmessage.SendMessageDataAccessInterface;
+import usecase.messaging.view_history.ChatHistoryListener;
+import usecase.messaging.view_history.HistoryCursor;
 import usecase.messaging.view_history.ViewChatHistoryDataAccessInterface;
 import usecase.recent_chat.RecentChatsUserDataAccessInterface;
 import usecase.search_user.SearchUserDataAccessInterface;
@@ -56,14 +73,19 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
         RemoveUserDataAccessInterface,
         ChangeGroupNameDataAccessInterface,
         RecentChatsUserDataAccessInterface,
-        AccessChatDataAccessInterface {
+        AccessChatDataAccessInterface,
+        MessageChangeFeed,
+        DocumentBatchStore,
+        ChatDocumentStore {
 
     private static final String COLLECTION_NAME = "users";
     private static final String NAME_PASSWORD = "password";
     private static final String COLLECTION_CHAT = "chats";
     private static final String CHAT_NAME = "Groupname";
     private static final String CHAT_USERS = "participants";
-    private static final String CHAT_MESSAGE = "messageIds";
+    private static final String CHAT_KEY = "participantKey";
+    private static final String CHAT_MESSAGE_COUNT = "messageCount";
+    private static final String CHAT_LAST_MESSAGE = "lastMessageId";
     private static final String CHAT_COLOR = "colorhex";
     private static final String CHAT_RECENT = "recent";
     private static final String COLLECTION_MESSAGE = "messages";
@@ -73,10 +95,16 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
     private static final String MESSAGE_TIME = "timestamp";
     private static final String MESSAGE_REPLY_ID = "repliedId";
     private static final String MESSAGE_REACTION = "reactions";
+    // Field mask keeps legacy message-ID lists from being downloaded
+    private static final String[] CHAT_FIELDS = {CHAT_NAME, CHAT_USERS, CHAT_KEY, CHAT_COLOR, CHAT_RECENT,
+            CHAT_MESSAGE_COUNT, CHAT_LAST_MESSAGE};
 
     // Error messages extracted to constants to avoid MultipleStringLiterals checkstyle error
     private static final String ERR_CHAT_NOT_FOUND = "Chat document not found";
     private static final String ERR_LOAD_CHAT = "Failed to load chat";
+    private static final String ERR_LOAD_MESSAGES = "Failed to load chat messages";
+    private static final String ERR_SAVE_MESSAGE = "Failed to save message";
+    private static final String ERR_BATCH = "Failed to commit batched writes";
     private static final String ERR_DB_SEARCH = "Database error during searchUsers operation.";
 
     private static Firestore db;
@@ -85,6 +113,10 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
     private final UserRepository userRepository;
     private final ChatRepository chatRepository;
     private final MessageRepository messageRepository;
+    private final LiveMessageSync liveMessageSync;
+    private final ChatDocumentWriter chatWriter;
+    private final WriteBehindQueue writeQueue;
+    private final Map<String, ListenerRegistration> messageListeners = new HashMap<>();
 
     /**
      * Constructs the DAO and initializes the Firebase Admin SDK.
@@ -104,6 +136,9 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
         this.chatRepository = chatRepository;
         this.messageRepository = messageRepository;
         this.userFactory = userFactory;
+        this.liveMessageSync = new LiveMessageSync(this, messageRepository);
+        this.chatWriter = new ChatDocumentWriter(this);
+        this.writeQueue = new WriteBehindQueue(this);
         try {
             // 1. Initialize Firebase App
             final FileInputStream serviceAccount = new FileInputStream(serviceAccountKeyPath);
@@ -129,6 +164,22 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
         }
     }
 
+    /**
+     * Commits every write still waiting in the write-behind queue and stops its thread.
+     * Called once when the app exits.
+     */
+    public void close() {
+        writeQueue.close();
+    }
+
+    /**
+     * Returns the write-behind queue, for its write and batch counts.
+     * @return the queue the message, reaction and chat writes go through.
+     */
+    public WriteBehindQueue getWriteQueue() {
+        return writeQueue;
+    }
+
     /**
      * Saves a new user to the 'users' collection using the username as the document ID.
      * @param user The User entity to save.
@@ -136,7 +187,8 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
     @Override
     public void save(User user) {
         // Prepare the data to be saved
-        final UserDocument documentData = new UserDocument(user.getPassword());
+        final UserDocument documentData = new UserDocument(user.getPassword(),
+                UserSearchIndex.normalize(user.getName()));
 
         // Get a reference to the document using the username as the ID
         final DocumentReference docRef = db.collection(COLLECTION_NAME).document(user.getName());
@@ -147,6 +199,7 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
         try {
             // Block until the write is complete
             future.get();
+            userRepository.evict(user.getName());
         }
         catch (InterruptedException | ExecutionException ex) {
             throw new RuntimeException("Database error during save operation.", ex);
@@ -209,6 +262,7 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
         try {
             // Wait for the update to complete
             future.get();
+            userRepository.evict(user.getName());
         }
         catch (InterruptedException | ExecutionException ex) {
             throw new RuntimeException("Database error during changePassword operation.", ex);
@@ -216,30 +270,35 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
     }
 
     /**
-     * Searches for usernames containing the query string.
+     * Searches for usernames starting with the query string, ignoring case.
+     * Runs as a range query on the indexed case-folded username field, so only the
+     * requested page of documents is read.
      * @param userId The current user's ID.
      * @param query The search string.
+     * @param startAfter The last username of the previous page, or null for the first page.
+     * @param limit The maximum number of usernames to return.
      * @return A list of matching usernames.
      */
     @Override
-    public List<String> searchUsers(String userId, String query) {
-        final String lowerCaseQuery = query.toLowerCase();
+    public List<String> searchUsers(String userId, String query, String startAfter, int limit) {
+        final String prefix = UserSearchIndex.normalize(query);
         final List<String> matchingUsers = new ArrayList<>();
 
-        // Get all documents in the collection
-        final CollectionReference collection = db.collection(COLLECTION_NAME);
-        final ApiFuture<QuerySnapshot> queryFuture = collection.get();
+        Query search = db.collection(COLLECTION_NAME)
+                .whereGreaterThanOrEqualTo(UserSearchIndex.FIELD, prefix)
+                .whereLessThan(UserSearchIndex.FIELD, UserSearchIndex.prefixEnd(prefix))
+                .orderBy(UserSearchIndex.FIELD)
+                .orderBy(FieldPath.documentId());
+        if (startAfter != null) {
+            search = search.startAfter(UserSearchIndex.normalize(startAfter), startAfter);
+        }
+        // One extra document in case the current user is on this page
+        search = search.limit(limit + 1);
 
         try {
-            final List<QueryDocumentSnapshot> documents = queryFuture.get().getDocuments();
-
-            // Filter in-memory (Document ID is the username)
-            for (QueryDocumentSnapshot document : documents) {
+            for (QueryDocumentSnapshot document : search.get().get().getDocuments()) {
                 final String username = document.getId();
-                if (username.equals(userId)) {
-                    continue;
-                }
-                if (username.toLowerCase().contains(lowerCaseQuery)) {
+                if (!username.equals(userId) && matchingUsers.size() < limit) {
                     matchingUsers.add(username);
                 }
             }
@@ -266,80 +325,216 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
 
     @Override
     public boolean loadToEntity(String username) {
-        boolean success = false;
-        if (username != null) {
-            final User user = get(username);
-            userRepository.save(user);
-            success = true;
-        }
-        return success;
+        return username != null && loadAllToEntity(List.of(username)).contains(username);
     }
 
+    /**
+     * Looks up several users in one read. The user repository reads Firestore itself,
+     * fetching every user it does not hold with a single getAll, so nothing is copied
+     * back into it.
+     * @param usernames The usernames to load.
+     * @return The usernames that exist.
+     */
+    @Override
+    public Set<String> loadAllToEntity(Collection<String> usernames) {
+        return new HashSet<>(userRepository.findAllByUsernames(usernames).keySet());
+    }
+
+    /**
+     * Loads every chat the user participates in into the chat repository.
+     * Uses the participants array index, so only the user's own chats are read.
+     * @param username The user whose chats are loaded.
+     */
     @Override
     public void updateChatRepository(String username) {
-        // Get all documents in the collection
-        final CollectionReference collection = db.collection(COLLECTION_CHAT);
-        final ApiFuture<QuerySnapshot> future = collection.get();
+        loadChats(username, null, 0);
+    }
+
+    /**
+     * Loads one page of the user's chats, most recent first, into the chat repository.
+     * Needs the composite index (participants array-contains, recent desc, __name__ desc).
+     * @param userId The user whose chats are loaded.
+     * @param olderThan The oldest chat of the previous page, or null for the first page.
+     * @param limit The maximum number of chats to load.
+     * @return The number of chats loaded.
+     */
+    @Override
+    public int loadRecentChats(String userId, Chat olderThan, int limit) {
+        return loadChats(userId, olderThan, limit);
+    }
 
+    /**
+     * Loads one page of the user's chats without blocking the caller.
+     * The chats are saved and the future completes on the Swing event thread.
+     * @param userId The user whose chats are loaded.
+     * @param olderThan The oldest chat of the previous page, or null for the first page.
+     * @param limit The maximum number of chats to load.
+     * @return A future completed with the number of chats loaded.
+     */
+    @Override
+    public CompletableFuture<Integer> loadRecentChatsAsync(String userId, Chat olderThan, int limit) {
+        final Instant asked = Instant.now();
+        return onEventThread(chatQuery(userId, olderThan, limit).get(), ERR_DB_SEARCH)
+                .thenApply(snapshot -> saveChatPage(snapshot.getDocuments(), olderThan, limit, asked));
+    }
+
+    private int loadChats(String username, Chat olderThan, int limit) {
+        final Instant asked = Instant.now();
         try {
-            final List<QueryDocumentSnapshot> documents = future.get().getDocuments();
-
-            // Filter in-memory (Document ID is the username)
-            for (QueryDocumentSnapshot document : documents) {
-                final String chatId = document.getId();
-                final String groupName = document.getString(CHAT_NAME);
-                final String colorHex = document.getString(CHAT_COLOR);
-                final Color chatColor;
-                if (colorHex != null) {
-                    chatColor = Color.decode(colorHex);
-                }
-                else {
-                    chatColor = Color.WHITE;
-                }
+            return saveChatPage(chatQuery(username, olderThan, limit).get().get().getDocuments(),
+                    olderThan, limit, asked);
+        }
+        catch (InterruptedException | ExecutionException ex) {
+            throw new RuntimeException(ERR_DB_SEARCH, ex);
+        }
+    }
 
-                final Long timeMs = document.getLong(CHAT_RECENT);
-                final Instant timestamp;
-                if (timeMs != null) {
-                    timestamp = Instant.ofEpochMilli(timeMs);
-                }
-                else {
-                    timestamp = Instant.now();
-                }
+    private Query chatQuery(String username, Chat olderThan, int limit) {
+        Query query = db.collection(COLLECTION_CHAT)
+                .whereArrayContains(CHAT_USERS, username)
+                .select(CHAT_FIELDS)
+                .orderBy(CHAT_RECENT, Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+        if (olderThan != null && olderThan.getLastMessage() != null) {
+            query = query.startAfter(olderThan.getLastMessage().toEpochMilli(), olderThan.getId());
+        }
+        if (limit > 0) {
+            query = query.limit(limit);
+        }
+        return query;
+    }
 
-                final List<String> participants = (List<String>) document.get(CHAT_USERS);
-                if (participants != null && participants.contains(username)) {
-                    final Chat chat = new Chat(chatId, groupName, chatColor, timestamp);
-                    final List<String> messageIds = (List<String>) document.get(CHAT_MESSAGE);
-                    for (String participant : participants) {
-                        chat.addParticipant(participant);
-                    }
-                    if (messageIds != null) {
-                        for (String messageId : messageIds) {
-                            chat.addMessage(messageId);
-                        }
-                    }
-                    chatRepository.save(chat);
-                }
-            }
+    /**
+     * Loads the chats with exactly the given participants with one equality query on
+     * the participant key, instead of every chat of the user.
+     * @param username The user creating the chat.
+     * @param participantIds The participant user IDs, including the user.
+     */
+    @Override
+    public void loadChatsWithParticipants(String username, Collection<String> participantIds) {
+        final Query query = db.collection(COLLECTION_CHAT)
+                .whereEqualTo(CHAT_KEY, Chat.participantKey(participantIds))
+                .select(CHAT_FIELDS);
+        try {
+            saveChats(query.get().get().getDocuments());
         }
         catch (InterruptedException | ExecutionException ex) {
             throw new RuntimeException(ERR_DB_SEARCH, ex);
         }
     }
 
+    /**
+     * Helper function that saves one page of the user's chats and, for the first page,
+     * removes the stored chats it should have returned but did not: chats the user left
+     * or was removed from, and deleted chats. A complete first page should have returned
+     * every chat; a full one every chat more recent than its oldest. Chats saved since
+     * the query was sent, such as one just created, are kept.
+     * @param documents the chat documents of the page.
+     * @param olderThan the oldest chat of the previous page, or null for the first page.
+     * @param limit the page size the query asked for, or 0 for no limit.
+     * @param asked when the query was sent.
+     * @return the number of chats loaded.
+     */
+    private int saveChatPage(List<QueryDocumentSnapshot> documents, Chat olderThan, int limit, Instant asked) {
+        final int loaded = saveChats(documents);
+        if (olderThan != null) {
+            return loaded;
+        }
+        final Set<String> returned = new HashSet<>();
+        Instant oldest = null;
+        for (QueryDocumentSnapshot document : documents) {
+            returned.add(document.getId());
+            final Long timeMs = document.getLong(CHAT_RECENT);
+            if (timeMs != null && (oldest == null || timeMs < oldest.toEpochMilli())) {
+                oldest = Instant.ofEpochMilli(timeMs);
+            }
+        }
+        final boolean complete = limit <= 0 || documents.size() < limit;
+        for (Chat chat : chatRepository.findAll()) {
+            final Instant last = chat.getLastMessage();
+            if (returned.contains(chat.getId()) || last != null && last.isAfter(asked)) {
+                continue;
+            }
+            if (complete || last != null && oldest != null && last.isAfter(oldest)) {
+                chatRepository.deleteById(chat.getId());
+            }
+        }
+        return loaded;
+    }
+
+    private int saveChats(List<QueryDocumentSnapshot> documents) {
+        for (QueryDocumentSnapshot document : documents) {
+            final Chat chat = toChat(document);
+            chatRepository.save(chat);
+            if (!chat.getParticipantKey().equals(document.getString(CHAT_KEY))) {
+                // Chats saved before the key existed get it the first time they are read
+                writeQueue.update(COLLECTION_CHAT, chat.getId(),
+                                new DocumentUpdate().set(CHAT_KEY, chat.getParticipantKey()))
+                        .exceptionally(ex -> {
+                            System.err.println("Failed to index chat participants: " + ex.getMessage());
+                            return null;
+                        });
+            }
+        }
+        return documents.size();
+    }
+
+    /**
+     * Helper function that builds a Chat entity from its Firestore document.
+     * @param document the chat document.
+     * @return the Chat entity.
+     */
+    private Chat toChat(DocumentSnapshot document) {
+        final String chatId = document.getId();
+        final String groupName = document.getString(CHAT_NAME);
+        final String colorHex = document.getString(CHAT_COLOR);
+        final Color chatColor;
+        if (colorHex != null) {
+            chatColor = Color.decode(colorHex);
+        }
+        else {
+            chatColor = Color.WHITE;
+        }
+
+        final Long timeMs = document.getLong(CHAT_RECENT);
+        final Instant timestamp;
+        if (timeMs != null) {
+            timestamp = Instant.ofEpochMilli(timeMs);
+        }
+        else {
+            timestamp = Instant.now();
+        }
+
+        final Chat chat = new Chat(chatId, groupName, chatColor, timestamp);
+        final List<String> participants = (List<String>) document.get(CHAT_USERS);
+        if (participants != null) {
+            for (String participant : participants) {
+                chat.addParticipant(participant);
+            }
+        }
+        final Long messageCount = document.getLong(CHAT_MESSAGE_COUNT);
+        if (messageCount != null) {
+            chat.setMessageCount(messageCount);
+        }
+        chat.setLastMessageId(document.getString(CHAT_LAST_MESSAGE));
+        chat.setMessageIdLoader(() -> findMessageIds(chatId));
+        return chat;
+    }
+
     @Override
     public void saveChat(Chat chat) {
         try {
             final Map<String, Object> data = new HashMap<>();
             data.put(CHAT_NAME, chat.getGroupName());
             data.put(CHAT_USERS, chat.getParticipantUserIds());
-            data.put(CHAT_MESSAGE, chat.getMessageIds());
+            data.put(CHAT_KEY, chat.getParticipantKey());
             data.put(CHAT_COLOR, colorToHex(chat.getBackgroundColor()));
             data.put(CHAT_RECENT, chat.getLastMessage().toEpochMilli());
 
+            // Merge so the message counter and last-message fields kept by updateChat survive
             final CollectionReference col = db.collection(COLLECTION_CHAT);
             final DocumentReference doc = col.document(chat.getId());
-            final ApiFuture<WriteResult> future = doc.set(data);
+            final ApiFuture<WriteResult> future = doc.set(data, SetOptions.merge());
             future.get();
 
             // Only save to repository AFTER successful Firebase write
@@ -360,17 +555,221 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
         return String.format("#%02x%02x%02x", color.getRed(), color.getGreen(), color.getBlue());
     }
 
+    /**
+     * Lists the IDs of a chat's messages in send order, read from the messages
+     * collection's chatId index. Only document names are transferred.
+     * Needs the composite index (chatId, timestamp).
+     * @param chatId The ID of the chat.
+     * @return The message IDs.
+     */
+    private List<String> findMessageIds(String chatId) {
+        final Query query = db.collection(COLLECTION_MESSAGE)
+                .whereEqualTo(MESSAGE_CHAT_ID, chatId)
+                .orderBy(MESSAGE_TIME)
+                .select(FieldPath.documentId());
+        try {
+            final List<String> ids = new ArrayList<>();
+            for (QueryDocumentSnapshot document : query.get().get().getDocuments()) {
+                ids.add(document.getId());
+            }
+            return ids;
+        }
+        catch (InterruptedException | ExecutionException ex) {
+            throw new RuntimeException("Failed to load chat messages", ex);
+        }
+    }
+
+    /**
+     * Loads one page of a chat's history, newest first, into the message repository.
+     * Needs the composite index (chatId, timestamp desc, __name__ desc).
+     * @param chatId The ID of the chat.
+     * @param userIds If not empty, only messages sent by these users are kept.
+     * @param before The cursor of the previous page, or null for the newest page.
+     * @param limit The maximum number of messages to read.
+     * @return The cursor of the oldest message read, or null if the history has no more messages.
+     */
     @Override
-    public void findChatMessages(String chatId, List<String> userIds, List<String> messageIds) {
-        this.messageRepository.clear();
+    public HistoryCursor loadHistoryPage(String chatId, List<String> userIds, HistoryCursor before, int limit) {
+        try {
+            final List<QueryDocumentSnapshot> documents = historyQuery(chatId, before, limit).get().get().getDocuments();
+            return saveHistoryPage(documents, userIds, limit);
+        }
+        catch (InterruptedException | ExecutionException ex) {
+            throw new RuntimeException(ERR_LOAD_MESSAGES, ex);
+        }
+    }
 
-        List<Message> messages = findByChatId(chatId);
+    /**
+     * Loads one page of a chat's history without blocking the caller.
+     * The messages are saved and the future completes on the Swing event thread.
+     * @param chatId The ID of the chat.
+     * @param userIds If not empty, only messages sent by these users are kept.
+     * @param before The cursor of the previous page, or null for the newest page.
+     * @param limit The maximum number of messages to read.
+     * @return A future completed with the cursor of the oldest message read, or null if there are no more.
+     */
+    @Override
+    public CompletableFuture<HistoryCursor> loadHistoryPageAsync(String chatId, List<String> userIds,
+                                                                 HistoryCursor before, int limit) {
+        return onEventThread(historyQuery(chatId, before, limit).get(), ERR_LOAD_MESSAGES)
+                .thenApply(snapshot -> saveHistoryPage(snapshot.getDocuments(), userIds, limit));
+    }
 
-        for (Message msg : messages) {
-            if (userIds == null || userIds.isEmpty() || userIds.contains(msg.getSenderUserId())) {
-                this.messageRepository.save(msg);
+    private Query historyQuery(String chatId, HistoryCursor before, int limit) {
+        Query query = db.collection(COLLECTION_MESSAGE)
+                .whereEqualTo(MESSAGE_CHAT_ID, chatId)
+                .orderBy(MESSAGE_TIME, Query.Direction.DESCENDING)
+                .orderBy(FieldPath.documentId(), Query.Direction.DESCENDING);
+        if (before != null) {
+            query = query.startAfter(before.getTimestamp().toEpochMilli(), before.getMessageId());
+        }
+        return query.limit(limit);
+    }
+
+    private HistoryCursor saveHistoryPage(List<QueryDocumentSnapshot> documents, List<String> userIds, int limit) {
+        Message oldest = null;
+        for (QueryDocumentSnapshot document : documents) {
+            final Message message = toMessage(document);
+            if (userIds == null || userIds.isEmpty() || userIds.contains(message.getSenderUserId())) {
+                messageRepository.save(message);
             }
+            oldest = message;
         }
+
+        HistoryCursor cursor = null;
+        if (oldest != null && documents.size() == limit) {
+            cursor = new HistoryCursor(oldest.getTimestamp(), oldest.getId());
+        }
+        return cursor;
+    }
+
+    /**
+     * Reads the given messages with a single getAll, without saving them to the message
+     * repository.
+     * @param messageIds The IDs of the messages.
+     * @return The messages that exist, by ID.
+     */
+    @Override
+    public Map<String, Message> loadMessages(Collection<String> messageIds) {
+        if (messageIds.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            return toMessages(db.getAll(messageRefs(messageIds)).get());
+        }
+        catch (InterruptedException | ExecutionException ex) {
+            throw new RuntimeException(ERR_LOAD_MESSAGES, ex);
+        }
+    }
+
+    /**
+     * Reads the given messages with a single getAll without blocking the caller.
+     * The future completes on the Swing event thread.
+     * @param messageIds The IDs of the messages.
+     * @return A future completed with the messages that exist, by ID.
+     */
+    @Override
+    public CompletableFuture<Map<String, Message>> loadMessagesAsync(Collection<String> messageIds) {
+        if (messageIds.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        return onEventThread(db.getAll(messageRefs(messageIds)), ERR_LOAD_MESSAGES)
+                .thenApply(this::toMessages);
+    }
+
+    private DocumentReference[] messageRefs(Collection<String> messageIds) {
+        final List<DocumentReference> refs = new ArrayList<>();
+        for (String messageId : new LinkedHashSet<>(messageIds)) {
+            refs.add(db.collection(COLLECTION_MESSAGE).document(messageId));
+        }
+        return refs.toArray(new DocumentReference[0]);
+    }
+
+    private Map<String, Message> toMessages(List<DocumentSnapshot> documents) {
+        final Map<String, Message> messages = new HashMap<>();
+        for (DocumentSnapshot document : documents) {
+            if (document.exists()) {
+                messages.put(document.getId(), toMessage(document));
+            }
+        }
+        return messages;
+    }
+
+    @Override
+    public void subscribeToChat(String chatId, List<String> userIds, HistoryCursor from,
+                                ChatHistoryListener listener) {
+        Instant since = null;
+        if (from != null) {
+            since = from.getTimestamp();
+        }
+        liveMessageSync.start(chatId, userIds, since, listener);
+    }
+
+    @Override
+    public void unsubscribeFromChat(String chatId) {
+        liveMessageSync.stop(chatId);
+    }
+
+    /**
+     * Registers a Firestore snapshot listener on the messages of a chat.
+     * Snapshots are delivered on the Swing event thread, which is the only thread
+     * that reads and writes the repositories.
+     * @param chatId The ID of the chat.
+     * @param from The earliest send time to listen to, or null for the whole chat.
+     * @param consumer Receives the document changes of each snapshot.
+     */
+    @Override
+    public void listen(String chatId, Instant from, Consumer<List<MessageChange>> consumer) {
+        stopListening(chatId);
+
+        Query query = db.collection(COLLECTION_MESSAGE)
+                .whereEqualTo(MESSAGE_CHAT_ID, chatId);
+        if (from != null) {
+            query = query.whereGreaterThanOrEqualTo(MESSAGE_TIME, from.toEpochMilli());
+        }
+
+        final ListenerRegistration registration = query.addSnapshotListener(SwingUtilities::invokeLater,
+                (snapshot, error) -> {
+                    if (error != null) {
+                        System.err.println("Message listener failed for chat " + chatId + ": " + error.getMessage());
+                    }
+                    else if (snapshot != null) {
+                        final List<MessageChange> changes = new ArrayList<>();
+                        for (DocumentChange change : snapshot.getDocumentChanges()) {
+                            changes.add(new MessageChange(toChangeType(change.getType()),
+                                    toMessage(change.getDocument())));
+                        }
+                        consumer.accept(changes);
+                    }
+                });
+        messageListeners.put(chatId, registration);
+    }
+
+    @Override
+    public void stopListening(String chatId) {
+        final ListenerRegistration registration = messageListeners.remove(chatId);
+        if (registration != null) {
+            registration.remove();
+        }
+    }
+
+    /**
+     * Helper function that maps a Firestore document change type to a message change type.
+     * @param type is the Firestore change type.
+     * @return the matching message change type.
+     */
+    private MessageChange.Type toChangeType(DocumentChange.Type type) {
+        final MessageChange.Type result;
+        if (type == DocumentChange.Type.REMOVED) {
+            result = MessageChange.Type.REMOVED;
+        }
+        else if (type == DocumentChange.Type.MODIFIED) {
+            result = MessageChange.Type.MODIFIED;
+        }
+        else {
+            result = MessageChange.Type.ADDED;
+        }
+        return result;
     }
 
     /**
@@ -416,67 +815,109 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
     @Override
     public Message sendMessage(Message message) {
         try {
-            final Map<String, Object> data = new HashMap<>();
-            data.put(MESSAGE_CHAT_ID, message.getChatId());
-            data.put(MESSAGE_SENDER, message.getSenderUserId());
-            data.put(MESSAGE_REPLY_ID, message.getRepliedMessageId());
-            data.put(MESSAGE_REACTION, message.getReactions());
-            data.put(MESSAGE_CONTENT, message.getContent());
-            data.put(MESSAGE_TIME, message.getTimestamp().toEpochMilli());
-
-            final CollectionReference col = db.collection(COLLECTION_MESSAGE);
-
-            final ApiFuture<?> future;
-            if (message.getId() == null || message.getId().isEmpty()) {
-                // Auto-generate ID
-                future = col.add(data);
-            }
-            else {
-                final DocumentReference doc = col.document(message.getId());
-                future = doc.set(data);
-            }
-            future.get();
+            writeMessage(message).join();
             messageRepository.save(message);
         }
-        catch (InterruptedException | ExecutionException ex) {
-            throw new RuntimeException("Failed to save message", ex);
+        catch (CompletionException ex) {
+            throw new RuntimeException(ERR_SAVE_MESSAGE, ex.getCause());
         }
         return message;
     }
 
+    /**
+     * Persists a message without blocking the caller.
+     * The message is saved to the repository and the future completes on the Swing event thread.
+     * @param message The message to persist.
+     * @return A future completed with the saved message.
+     */
     @Override
-    public void updateChat(String chatId, String messageId, Instant timestamp) {
-        try {
-            final DocumentReference doc = db.collection(COLLECTION_CHAT).document(chatId);
+    public CompletableFuture<Message> sendMessageAsync(Message message) {
+        return onEventThread(writeMessage(message), ERR_SAVE_MESSAGE)
+                .thenApply(written -> {
+                    messageRepository.save(message);
+                    return message;
+                });
+    }
 
-            final ApiFuture<DocumentSnapshot> future = doc.get();
-            final DocumentSnapshot snapshot = future.get();
+    /**
+     * Persists a message, counts it on its chat and records it as the chat's latest
+     * unless a later one already is, all in one transaction, so a failed send writes
+     * nothing. The future completes on the Swing event thread.
+     * @param message The message to persist.
+     * @return A future completed with the saved message.
+     */
+    @Override
+    public CompletableFuture<Message> postMessageAsync(Message message) {
+        return onEventThread(appendToChat(message.getChatId(), messageWrite(message),
+                        message.getId(), message.getTimestamp()), ERR_SAVE_MESSAGE)
+                .thenApply(done -> {
+                    messageRepository.save(message);
+                    return message;
+                });
+    }
 
-            if (snapshot.exists()) {
-                final Map<String, Object> data = snapshot.getData();
-                if (data != null) {
-                    final List<String> messages = (List<String>) data.get(CHAT_MESSAGE);
-                    if (messages != null) {
-                        messages.add(messageId);
-                        // Create a Map with the field to update
-                        final Map<String, Object> updates = new HashMap<>();
-                        updates.put(CHAT_MESSAGE, messages);
-                        updates.put(CHAT_RECENT, timestamp.toEpochMilli());
-                        // Asynchronously update the document
-                        final ApiFuture<WriteResult> futures = doc.update(updates);
-                        futures.get();
-                    }
-                }
-            }
-            else {
-                System.err.println(ERR_CHAT_NOT_FOUND);
-            }
+    private CompletableFuture<Void> writeMessage(Message message) {
+        return writeQueue.submit(messageWrite(message));
+    }
+
+    private DocumentWrite messageWrite(Message message) {
+        final Map<String, Object> data = new HashMap<>();
+        data.put(MESSAGE_CHAT_ID, message.getChatId());
+        data.put(MESSAGE_SENDER, message.getSenderUserId());
+        data.put(MESSAGE_REPLY_ID, message.getRepliedMessageId());
+        data.put(MESSAGE_REACTION, new HashMap<>(message.getReactions()));
+        data.put(MESSAGE_CONTENT, message.getContent());
+        data.put(MESSAGE_TIME, message.getTimestamp().toEpochMilli());
+
+        String messageId = message.getId();
+        if (messageId == null || messageId.isEmpty()) {
+            // Auto-generate ID
+            messageId = db.collection(COLLECTION_MESSAGE).document().getId();
         }
-        catch (InterruptedException | ExecutionException ex) {
-            throw new RuntimeException(ERR_LOAD_CHAT, ex);
+        return DocumentWrite.set(COLLECTION_MESSAGE, messageId, data)
+                .relatedTo(COLLECTION_CHAT, message.getChatId());
+    }
+
+    /**
+     * Helper function that builds an update of a message, kept in order with the writes
+     * to its chat when the cached copy says which chat that is.
+     */
+    private DocumentWrite messageUpdate(String messageId, DocumentUpdate update) {
+        final DocumentWrite write = DocumentWrite.update(COLLECTION_MESSAGE, messageId, update);
+        messageRepository.findById(messageId)
+                .ifPresent(message -> write.relatedTo(COLLECTION_CHAT, message.getChatId()));
+        return write;
+    }
+
+    @Override
+    public void updateChat(String chatId, String messageId, Instant timestamp) {
+        if (!chatWriter.appendMessage(chatId, messageId, timestamp)) {
+            System.err.println(ERR_CHAT_NOT_FOUND);
         }
     }
 
+    /**
+     * Counts a new message on its chat without blocking the caller.
+     * The future completes on the Swing event thread.
+     * @param chatId The ID of the chat.
+     * @param messageId The ID of the new message.
+     * @param timestamp The time the message was sent.
+     * @return A future completed once the chat document is updated.
+     */
+    @Override
+    public CompletableFuture<Void> updateChatAsync(String chatId, String messageId, Instant timestamp) {
+        return onEventThread(appendToChat(chatId, null, messageId, timestamp), ERR_LOAD_CHAT)
+                .handle((done, error) -> {
+                    if (error != null) {
+                        if (!isNotFound(error)) {
+                            throw new CompletionException(error);
+                        }
+                        System.err.println(ERR_CHAT_NOT_FOUND);
+                    }
+                    return null;
+                });
+    }
+
     @Override
     public void changeGroupName(String chatId, String groupName) {
         final DocumentReference docRef = db.collection(COLLECTION_CHAT).document(chatId);
@@ -506,7 +947,8 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
     @Override
     public String getUserIdByUsername(String username) {
         String result = null;
-        if (username != null && !username.trim().isEmpty() && existsByName(username.trim())) {
+        if (username != null && !username.trim().isEmpty()
+                && userRepository.findByUsername(username.trim()).isPresent()) {
             result = username.trim();
         }
         return result;
@@ -514,64 +956,209 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
 
     @Override
     public void addUser(String chatId, String userId) {
-        try {
-            final DocumentReference doc = db.collection(COLLECTION_CHAT).document(chatId);
+        if (!chatWriter.addParticipant(chatId, userId)) {
+            System.err.println(ERR_CHAT_NOT_FOUND);
+        }
+    }
 
-            final ApiFuture<DocumentSnapshot> future = doc.get();
-            final DocumentSnapshot snapshot = future.get();
+    @Override
+    public void removeUser(String chatId, String userId) {
+        if (!chatWriter.removeParticipant(chatId, userId)) {
+            System.err.println(ERR_CHAT_NOT_FOUND);
+        }
+    }
 
-            if (snapshot.exists()) {
-                final Map<String, Object> data = snapshot.getData();
-                if (data != null) {
-                    final List<String> participants = (List<String>) data.get(CHAT_USERS);
-                    if (participants != null) {
-                        participants.add(userId);
-                        // Create a Map with the field to update
-                        final Map<String, Object> updates = Map.of(CHAT_USERS, participants);
-                        // Asynchronously update the document
-                        final ApiFuture<WriteResult> futures = doc.update(updates);
-                        futures.get();
-                    }
-                }
+    /**
+     * Applies field updates to a chat document in one write. Array changes are sent as
+     * server-side transforms, so the document is never read first. The write goes through
+     * the write-behind queue so it stays in order with the chat's message writes.
+     * @param chatId The ID of the chat document.
+     * @param update The changes to apply.
+     * @return false if the chat document does not exist.
+     */
+    @Override
+    public boolean update(String chatId, DocumentUpdate update) {
+        boolean found = true;
+        try {
+            writeQueue.update(COLLECTION_CHAT, chatId, update).join();
+        }
+        catch (CompletionException ex) {
+            if (isNotFound(ex)) {
+                found = false;
             }
             else {
-                System.err.println(ERR_CHAT_NOT_FOUND);
+                throw new RuntimeException(ERR_LOAD_CHAT, ex.getCause());
             }
         }
+        return found;
+    }
+
+    /**
+     * Applies field updates to a chat document only if a numeric field is missing or
+     * below a value. The field is read in the same transaction that writes the update,
+     * so this bypasses the write-behind queue; the field can only move forward, which
+     * keeps the result independent of the order the writes land in.
+     * @param chatId The ID of the chat document.
+     * @param field The numeric field to compare.
+     * @param value The value the field must be below.
+     * @param update The changes to apply.
+     * @return false if the chat document does not exist.
+     */
+    @Override
+    public boolean updateIfLater(String chatId, String field, long value, DocumentUpdate update) {
+        try {
+            return updateChatIfLater(chatId, field, value, update).get();
+        }
         catch (InterruptedException | ExecutionException ex) {
             throw new RuntimeException(ERR_LOAD_CHAT, ex);
         }
     }
 
+    /**
+     * Helper function that runs the transaction behind {@link #updateIfLater}.
+     * @return a future completed with false if the chat document does not exist.
+     */
+    private ApiFuture<Boolean> updateChatIfLater(String chatId, String field, long value, DocumentUpdate update) {
+        final DocumentReference doc = db.collection(COLLECTION_CHAT).document(chatId);
+        return db.runTransaction(transaction -> {
+            final DocumentSnapshot snapshot = transaction.get(doc).get();
+            if (snapshot.exists()) {
+                final Long current = snapshot.getLong(field);
+                if (current == null || current < value) {
+                    transaction.update(doc, update.toFirestore());
+                }
+            }
+            return snapshot.exists();
+        });
+    }
+
+    /**
+     * Helper function that counts a new message on its chat in one transaction that reads
+     * the chat first, so the message becomes the chat's latest only if it is later than
+     * the one recorded. The message itself is written in the same transaction when given.
+     * The transaction bypasses the write-behind queue: the counter is an increment and the
+     * latest message only moves forward, so the order of other chat writes does not matter.
+     * @param chatId The ID of the chat.
+     * @param message The write of the message, or null if it is already stored.
+     * @param messageId The ID of the message.
+     * @param timestamp The time the message was sent.
+     * @return a future that fails with NOT_FOUND if the chat does not exist.
+     */
+    private ApiFuture<Void> appendToChat(String chatId, DocumentWrite message, String messageId, Instant timestamp) {
+        final DocumentReference chatDoc = db.collection(COLLECTION_CHAT).document(chatId);
+        return db.runTransaction(transaction -> {
+            final DocumentSnapshot snapshot = transaction.get(chatDoc).get();
+            if (!snapshot.exists()) {
+                throw Status.NOT_FOUND.withDescription(ERR_CHAT_NOT_FOUND).asRuntimeException();
+            }
+            final DocumentUpdate update = ChatDocumentWriter.messageCounted();
+            final Long recent = snapshot.getLong(ChatDocumentWriter.RECENT);
+            if (recent == null || recent < timestamp.toEpochMilli()) {
+                update.mergeFrom(ChatDocumentWriter.latestMessage(messageId, timestamp));
+            }
+            if (message != null) {
+                transaction.set(db.collection(message.getCollection()).document(message.getDocumentId()),
+                        message.getData());
+            }
+            transaction.update(chatDoc, update.toFirestore());
+            return null;
+        });
+    }
+
+    /**
+     * Commits queued writes as one Firestore batch.
+     * @param writes The writes to commit, in order.
+     */
     @Override
-    public void removeUser(String chatId, String userId) {
+    public void commit(List<DocumentWrite> writes) {
+        final WriteBatch batch = db.batch();
+        for (DocumentWrite write : writes) {
+            final DocumentReference doc = db.collection(write.getCollection()).document(write.getDocumentId());
+            switch (write.getKind()) {
+                case SET:
+                    batch.set(doc, write.getData());
+                    break;
+                case UPDATE:
+                    batch.update(doc, write.getUpdate().toFirestore());
+                    break;
+                default:
+                    batch.delete(doc);
+                    break;
+            }
+        }
         try {
-            final DocumentReference doc = db.collection(COLLECTION_CHAT).document(chatId);
+            batch.commit().get();
+        }
+        catch (InterruptedException | ExecutionException ex) {
+            throw new RuntimeException(ERR_BATCH, ex);
+        }
+    }
 
-            final ApiFuture<DocumentSnapshot> future = doc.get();
-            final DocumentSnapshot snapshot = future.get();
+    /**
+     * Helper function that adapts a Firestore future to a CompletableFuture completed on the Swing
+     * event thread, where the repositories are read and written.
+     * @param future the Firestore future.
+     * @param errorMessage the message of the exception the result fails with.
+     * @param <T> the type of the result.
+     * @return the adapted future.
+     */
+    private static <T> CompletableFuture<T> onEventThread(ApiFuture<T> future, String errorMessage) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        ApiFutures.addCallback(future, new ApiFutureCallback<T>() {
+            @Override
+            public void onFailure(Throwable cause) {
+                result.completeExceptionally(new RuntimeException(errorMessage, cause));
+            }
 
-            if (snapshot.exists()) {
-                final Map<String, Object> data = snapshot.getData();
-                if (data != null) {
-                    final List<String> participants = (List<String>) data.get(CHAT_USERS);
-                    if (participants != null) {
-                        participants.remove(userId);
-                        // Create a Map with the field to update
-                        final Map<String, Object> updates = Map.of(CHAT_USERS, participants);
-                        // Asynchronously update the document
-                        final ApiFuture<WriteResult> futures = doc.update(updates);
-                        futures.get();
-                    }
-                }
+            @Override
+            public void onSuccess(T value) {
+                result.complete(value);
+            }
+        }, SwingUtilities::invokeLater);
+        return result;
+    }
+
+    /**
+     * Helper function that moves the completion of a queued write onto the Swing event thread.
+     * @param future the future of the queued write.
+     * @param errorMessage the message of the exception the result fails with.
+     * @param <T> the type of the result.
+     * @return the adapted future.
+     */
+    private static <T> CompletableFuture<T> onEventThread(CompletableFuture<T> future, String errorMessage) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenComplete((value, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                result.completeExceptionally(new RuntimeException(errorMessage, error));
             }
             else {
-                System.err.println(ERR_CHAT_NOT_FOUND);
+                result.complete(value);
             }
+        }));
+        return result;
+    }
+
+    /**
+     * Helper function that tells whether a failed write was rejected because the document is missing.
+     * @param error the failure, possibly wrapped.
+     * @return true if the document does not exist.
+     */
+    private static boolean isNotFound(Throwable error) {
+        boolean notFound = false;
+        Throwable cause = error;
+        while (cause != null && !notFound) {
+            if (cause instanceof FirestoreException) {
+                notFound = ((FirestoreException) cause).getStatus().getCode() == Status.Code.NOT_FOUND;
+            }
+            else if (cause instanceof ApiException) {
+                notFound = ((ApiException) cause).getStatusCode().getCode() == StatusCode.Code.NOT_FOUND;
+            }
+            else if (cause instanceof StatusRuntimeException) {
+                notFound = ((StatusRuntimeException) cause).getStatus().getCode() == Status.Code.NOT_FOUND;
+            }
+            cause = cause.getCause();
         }
-        catch (InterruptedException | ExecutionException ex) {
-            throw new RuntimeException(ERR_LOAD_CHAT, ex);
-        }
+        return notFound;
     }
 
     /**
@@ -611,25 +1198,24 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
     public void deleteMessageById(String messageId) {
         try {
             final DocumentReference msgRef = db.collection(COLLECTION_MESSAGE).document(messageId);
-            final DocumentSnapshot msgSnap = msgRef.get().get();
 
-            String chatId = null;
-            if (msgSnap.exists()) {
-                chatId = msgSnap.getString(MESSAGE_CHAT_ID);
+            // The cached copy already knows its chat; only read the document if it isn't cached
+            String chatId = messageRepository.findById(messageId).map(Message::getChatId).orElse(null);
+            if (chatId == null) {
+                final DocumentSnapshot msgSnap = msgRef.get().get();
+                if (msgSnap.exists()) {
+                    chatId = msgSnap.getString(MESSAGE_CHAT_ID);
+                }
             }
 
-            msgRef.delete().get();
-
+            final DocumentWrite delete = DocumentWrite.delete(COLLECTION_MESSAGE, messageId);
             if (chatId != null) {
-                final DocumentReference chatRef = db.collection(COLLECTION_CHAT).document(chatId);
-                final DocumentSnapshot chatSnap = chatRef.get().get();
+                delete.relatedTo(COLLECTION_CHAT, chatId);
+            }
+            writeQueue.submit(delete).join();
 
-                if (chatSnap.exists()) {
-                    final List<String> ids = (List<String>) chatSnap.get(CHAT_MESSAGE);
-                    if (ids != null && ids.remove(messageId)) {
-                        chatRef.update(CHAT_MESSAGE, ids).get();
-                    }
-                }
+            if (chatId != null) {
+                chatWriter.removeMessage(chatId, messageId);
             }
 
             messageRepository.deleteById(messageId);
@@ -638,62 +1224,65 @@ public class FireBaseUserDataAccessObject implements SignupUserDataAccessInterfa
         catch (InterruptedException | ExecutionException ex) {
             throw new RuntimeException("Failed to delete message " + messageId, ex);
         }
+        catch (CompletionException ex) {
+            throw new RuntimeException("Failed to delete message " + messageId, ex.getCause());
+        }
     }
 
     // Inner class moved to the end to comply with InnerTypeLast checkstyle rule
     private static class UserDocument {
         private String password;
+        private String usernameLower;
 
         UserDocument() {
         }
 
-        UserDocument(String password) {
+        UserDocument(String password, String usernameLower) {
             this.password = password;
+            this.usernameLower = usernameLower;
         }
 
         public String getPassword() {
             return password;
         }
+
+        public String getUsernameLower() {
+            return usernameLower;
+        }
     }
 
     /**
-     * Adds a reaction to a message in Firebase.
+     * Adds a reaction to a message in Firebase. The write is queued and sent with
+     * other pending writes; failures are reported on standard error.
      *
      * @param messageId the message ID
      * @param userId the user ID who is reacting
      * @param emoji the emoji reaction
      */
     public void addReactionToMessage(String messageId, String userId, String emoji) {
-        try {
-            final DocumentReference messageRef = db
-                    .collection("messages")
-                    .document(messageId);
-
-            // Update the reactions map in Firebase
-            messageRef.update("reactions." + userId, emoji).get();
-
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to add reaction to Firebase: " + e.getMessage(), e);
-        }
+        final DocumentUpdate update = new DocumentUpdate()
+                .set(MESSAGE_REACTION + "." + userId, emoji);
+        writeQueue.submit(messageUpdate(messageId, update))
+                .exceptionally(ex -> {
+                    System.err.println("Failed to add reaction to Firebase: " + ex.getMessage());
+                    return null;
+                });
     }
 
     /**
-     * Removes a reaction from a message in Firebase.
+     * Removes a reaction from a message in Firebase. The write is queued; removing a
+     * reaction added moments ago is folded into that pending write.
      *
      * @param messageId the message ID
      * @param userId the user ID whose reaction to remove
      */
     public void removeReactionFromMessage(String messageId, String userId) {
-        try {
-            final DocumentReference messageRef = db
-                    .collection("messages")
-                    .document(messageId);
-
-            // Remove the user's reaction from Firebase
-            messageRef.update("reactions." + userId, FieldValue.delete()).get();
-
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to remove reaction from Firebase: " + e.getMessage(), e);
-        }
+        final DocumentUpdate update = new DocumentUpdate()
+                .delete(MESSAGE_REACTION + "." + userId);
+        writeQueue.submit(messageUpdate(messageId, update))
+                .exceptionally(ex -> {
+                    System.err.println("Failed to remove reaction from Firebase: " + ex.getMessage());
+                    return null;
+                });
     }
 }
@@ -7,8 +7,14 @@ import entity.UserFactory;
 import entity.ports.UserRepository;
 
 import java.util.concurrent.ExecutionException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Map;
+import java.util.Set;
 
 public class FirestoreUserRepository implements UserRepository {
 
@@ -41,11 +47,47 @@ public class FirestoreUserRepository implements UserRepository {
         }
     }
 
+    /**
+     * Reads every requested user document in a single getAll request.
+     */
+    @Override
+    public Map<String, User> findAllByUsernames(Collection<String> usernames) {
+        Map<String, User> found = new LinkedHashMap<>();
+        Set<String> distinct = new LinkedHashSet<>(usernames);
+        distinct.remove(null);
+        if (distinct.isEmpty()) {
+            return found;
+        }
+
+        List<DocumentReference> refs = new ArrayList<>();
+        for (String username : distinct) {
+            refs.add(db.collection(COLLECTION_NAME).document(username));
+        }
+        try {
+            Map<String, User> byId = new LinkedHashMap<>();
+            for (DocumentSnapshot document : db.getAll(refs.toArray(new DocumentReference[0])).get()) {
+                if (document.exists()) {
+                    byId.put(document.getId(), userFactory.create(document.getId(), document.getString("password")));
+                }
+            }
+            // Keep the order the names were asked for, whatever order the documents arrive in
+            for (String username : distinct) {
+                if (byId.containsKey(username)) {
+                    found.put(username, byId.get(username));
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            System.err.println("ERROR retrieving users from Firestore: " + e.getMessage());
+        }
+        return found;
+    }
+
     @Override
     public User save(User user) {
         try {
             DocumentReference docRef = db.collection(COLLECTION_NAME).document(user.getName());
-            Map<String, Object> data = Map.of("password", user.getPassword());
+            Map<String, Object> data = Map.of("password", user.getPassword(),
+                    UserSearchIndex.FIELD, UserSearchIndex.normalize(user.getName()));
             ApiFuture<WriteResult> future = docRef.set(data);
             future.get();
             return user;
@@ -0,0 +1,82 @@
+package dataaccess;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import entity.Message;
+
+/**
+ * In-process implementation of {@link MessageChangeFeed} that publishes changes
+ * synchronously to its listeners. This implementation does NOT talk to Firestore
+ * and is meant for running the live history pipeline offline.
+ */
+public class InMemoryMessageFeed implements MessageChangeFeed {
+
+    private final Map<String, Message> messages = new LinkedHashMap<>();
+    private final Map<String, Consumer<List<MessageChange>>> listeners = new HashMap<>();
+    private final Map<String, Instant> listenFrom = new HashMap<>();
+
+    @Override
+    public void listen(String chatId, Instant from, Consumer<List<MessageChange>> consumer) {
+        listeners.put(chatId, consumer);
+        listenFrom.put(chatId, from);
+        final List<MessageChange> initial = new ArrayList<>();
+        for (Message message : messages.values()) {
+            if (message.getChatId().equals(chatId) && inRange(message, from)) {
+                initial.add(new MessageChange(MessageChange.Type.ADDED, message));
+            }
+        }
+        consumer.accept(initial);
+    }
+
+    @Override
+    public void stopListening(String chatId) {
+        listeners.remove(chatId);
+        listenFrom.remove(chatId);
+    }
+
+    /**
+     * Adds or replaces a message and notifies the listener of its chat.
+     *
+     * @param message the message to publish
+     */
+    public void publish(Message message) {
+        final MessageChange.Type type;
+        if (messages.containsKey(message.getId())) {
+            type = MessageChange.Type.MODIFIED;
+        }
+        else {
+            type = MessageChange.Type.ADDED;
+        }
+        messages.put(message.getId(), message);
+        notify(message.getChatId(), new MessageChange(type, message));
+    }
+
+    /**
+     * Removes a message and notifies the listener of its chat.
+     *
+     * @param messageId the ID of the message to remove
+     */
+    public void remove(String messageId) {
+        final Message removed = messages.remove(messageId);
+        if (removed != null) {
+            notify(removed.getChatId(), new MessageChange(MessageChange.Type.REMOVED, removed));
+        }
+    }
+
+    private void notify(String chatId, MessageChange change) {
+        final Consumer<List<MessageChange>> consumer = listeners.get(chatId);
+        if (consumer != null && inRange(change.getMessage(), listenFrom.get(chatId))) {
+            consumer.accept(List.of(change));
+        }
+    }
+
+    private static boolean inRange(Message message, Instant from) {
+        return from == null || !message.getTimestamp().isBefore(from);
+    }
+}
@@ -1,5 +1,6 @@
 package dataaccess;
 
+import entity.Chat;
 import entity.User;
 import usecase.accesschat.AccessChatDataAccessInterface;
 import usecase.change_password.ChangePasswordUserDataAccessInterface;
@@ -61,4 +62,10 @@ public class InMemoryUserDataAccessObject implements SignupUserDataAccessInterfa
     public void updateChatRepository(String userId) {
         // do nothing because chatRepository is manually updated for tests
     }
+
+    @Override
+    public int loadRecentChats(String userId, Chat olderThan, int limit) {
+        // do nothing because chatRepository is manually updated for tests
+        return 0;
+    }
 }
@@ -0,0 +1,144 @@
+package dataaccess;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import entity.Message;
+import entity.ports.MessageRepository;
+import usecase.messaging.view_history.ChatHistoryListener;
+
+/**
+ * Applies the batches of a {@link MessageChangeFeed} to the {@link MessageRepository}.
+ *
+ * <p>
+ * The listener is told about a batch only if it changed the repository, so echoes of
+ * our own writes and snapshots with nothing new do not cause a refresh. The initial
+ * batch of a subscription is always reported so the view can render the history.
+ *
+ * <p>
+ * The repository may still hold messages of the chat from an earlier visit. The initial
+ * batch is the whole subscribed range, so cached messages in that range missing from it
+ * were deleted in the meantime and are dropped.
+ */
+public class LiveMessageSync {
+
+    private final MessageChangeFeed feed;
+    private final MessageRepository messageRepository;
+
+    /**
+     * Constructs a {@code LiveMessageSync}.
+     *
+     * @param feed              the feed to subscribe to
+     * @param messageRepository the repository the changes are applied to
+     */
+    public LiveMessageSync(MessageChangeFeed feed, MessageRepository messageRepository) {
+        this.feed = feed;
+        this.messageRepository = messageRepository;
+    }
+
+    /**
+     * Starts applying the changes of a chat to the repository.
+     *
+     * @param chatId   the ID of the chat
+     * @param userIds  if not empty, only messages sent by these users are kept
+     * @param from     only messages sent at or after this time are applied; null for the whole chat
+     * @param listener notified after a batch changed the repository
+     */
+    public void start(String chatId, List<String> userIds, Instant from, ChatHistoryListener listener) {
+        final boolean[] initial = {true};
+        feed.listen(chatId, from, changes -> {
+            boolean changed = false;
+            if (initial[0]) {
+                changed = dropMissing(chatId, from, changes);
+            }
+            changed |= apply(changes, userIds);
+            if (changed || initial[0]) {
+                initial[0] = false;
+                listener.onHistoryChanged(chatId);
+            }
+        });
+    }
+
+    /**
+     * Stops applying the changes of a chat.
+     *
+     * @param chatId the ID of the chat
+     */
+    public void stop(String chatId) {
+        feed.stopListening(chatId);
+    }
+
+    /**
+     * Applies a batch of changes to the repository.
+     *
+     * @param changes the changes to apply
+     * @param userIds if not empty, only messages sent by these users are kept
+     * @return true if the repository was modified
+     */
+    boolean apply(List<MessageChange> changes, List<String> userIds) {
+        boolean changed = false;
+        for (MessageChange change : changes) {
+            final Message incoming = change.getMessage();
+            final Optional<Message> existing = messageRepository.findById(incoming.getId());
+
+            if (change.getType() == MessageChange.Type.REMOVED) {
+                if (existing.isPresent()) {
+                    messageRepository.deleteById(incoming.getId());
+                    changed = true;
+                }
+            }
+            else if (userIds == null || userIds.isEmpty() || userIds.contains(incoming.getSenderUserId())) {
+                if (existing.isEmpty() || !sameMessage(existing.get(), incoming)) {
+                    messageRepository.save(incoming);
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Removes cached messages of the range that the initial batch no longer contains.
+     *
+     * @param chatId  the ID of the chat
+     * @param from    the start of the subscribed range, or null for the whole chat
+     * @param initial the initial batch of the subscription
+     * @return true if the repository was modified
+     */
+    boolean dropMissing(String chatId, Instant from, List<MessageChange> initial) {
+        final Set<String> present = new HashSet<>();
+        for (MessageChange change : initial) {
+            present.add(change.getMessage().getId());
+        }
+
+        boolean changed = false;
+        for (Message cached : messageRepository.findByChatIdBetween(chatId, from, null)) {
+            if (!present.contains(cached.getId())) {
+                messageRepository.deleteById(cached.getId());
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private static boolean sameMessage(Message first, Message second) {
+        return Objects.equals(first.getContent(), second.getContent())
+                && Objects.equals(first.getRepliedMessageId(), second.getRepliedMessageId())
+                && sameMillisecond(first.getTimestamp(), second.getTimestamp())
+                && Objects.equals(first.getReactions(), second.getReactions());
+    }
+
+    /**
+     * Helper function that compares timestamps at the millisecond precision Firestore
+     * stores, since a copy saved before it was written may carry nanoseconds.
+     */
+    private static boolean sameMillisecond(Instant first, Instant second) {
+        return first == null || second == null
+                ? first == second
+                : first.toEpochMilli() == second.toEpochMilli();
+    }
+}
@@ -0,0 +1,76 @@
+package dataaccess;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Helper functions shared by the encoders of the local chat and message stores.
+ */
+final class LocalStoreCodec {
+
+    private LocalStoreCodec() {
+    }
+
+    /**
+     * Decodes one stored value.
+     */
+    interface Reader {
+        void read(String key, byte[] bytes) throws IOException;
+    }
+
+    /**
+     * Helper function that hands every value in the log to the reader. If any value cannot
+     * be decoded the log is emptied, since the store is only a cache of Firestore.
+     *
+     * @return whether every value was read
+     */
+    static boolean replay(AppendOnlyLog log, Reader reader) throws IOException {
+        final IOException[] failure = new IOException[1];
+        log.replay((key, bytes) -> {
+            if (failure[0] == null) {
+                try {
+                    reader.read(key, bytes);
+                }
+                catch (IOException ex) {
+                    failure[0] = ex;
+                }
+            }
+        });
+        if (failure[0] != null) {
+            System.err.println("Discarding unreadable local store: " + failure[0].getMessage());
+            log.clear();
+        }
+        return failure[0] == null;
+    }
+
+    /**
+     * Helper function that writes a string of any length, or null, as its UTF-8 byte
+     * count (-1 for null) followed by the bytes.
+     */
+    static void writeNullable(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        }
+        else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Helper function that reads a string written by {@link #writeNullable}.
+     */
+    static String readNullable(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        String value = null;
+        if (length >= 0) {
+            final byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+}
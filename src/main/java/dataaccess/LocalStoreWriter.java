@@ -0,0 +1,99 @@
+package dataaccess;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the disk writes of a local store on a background thread, one at a time and in
+ * the order they were submitted, so saving a chat or message on the event thread does
+ * not wait for the file or for a compaction.
+ */
+final class LocalStoreWriter {
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final ExecutorService executor;
+
+    /**
+     * A disk operation.
+     */
+    interface Task {
+        void run() throws IOException;
+    }
+
+    /**
+     * Constructs a writer with its own background thread.
+     *
+     * @param name the name of the thread
+     */
+    LocalStoreWriter(String name) {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a write. A failure is reported and otherwise ignored, since the store is
+     * only a cache of Firestore.
+     *
+     * @param failure what could not be done, for the report
+     * @param task    the write
+     */
+    void write(String failure, Task task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            }
+            catch (IOException ex) {
+                System.err.println(failure + ": " + ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Runs a task after every write queued before it and waits for it to finish.
+     *
+     * @param task the task
+     * @throws IOException if the task fails
+     */
+    void await(Task task) throws IOException {
+        final Future<?> done = executor.submit(() -> {
+            task.run();
+            return null;
+        });
+        try {
+            done.get();
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new RuntimeException(ex.getCause());
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the local store", ex);
+        }
+    }
+
+    /**
+     * Finishes the queued writes and stops the background thread.
+     */
+    void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Gave up waiting for the local store writes to finish");
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,698 @@
+package dataaccess;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+import entity.Message;
+import entity.ports.MessageRepository;
+
+/**
+ * Keeps messages off the Java heap, in one memory-mapped, append-only segment file per
+ * chat, for users whose histories are too large to hold as {@link Message} objects.
+ *
+ * <p>
+ * Each message is one binary record in its chat's segment. The heap only holds, per
+ * chat, the record offsets in timestamp order (4 bytes a message), a hash table from
+ * message ID to offset (about 8 bytes a message) and a sparse index with the timestamp
+ * of every {@value #SPARSE_INTERVAL}th message. A time range is found by a binary search
+ * of the sparse index and then of one block of records.
+ *
+ * <p>
+ * Lookups return lists that decode a message from its record only when it is read, so
+ * showing part of a long history only ever creates the messages on screen. A returned
+ * message is a copy: changes to it are kept only once it is saved again. The lists
+ * read a snapshot of the chat's order and are safe to read while messages are saved.
+ *
+ * <p>
+ * Saving a message that is already stored appends a new record and marks the old one
+ * dead; deleting only marks it dead. Dead records stay in the file. Records reach the
+ * disk when the operating system writes the mapped pages back, not on every save, so a
+ * crash of the machine can lose the latest messages; the live message sync restores them.
+ */
+public class MappedMessageRepository implements MessageRepository, Closeable {
+
+    /**
+     * Number of messages between two entries of the sparse timestamp index.
+     */
+    public static final int SPARSE_INTERVAL = 64;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int MAGIC = 0x474D5347;
+    // Magic number, then the offset where the next record goes
+    private static final int HEADER_BYTES = 8;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    // Record layout: length (int), flags (byte), timestamp in epoch nanoseconds (long), then the fields
+    private static final int FLAGS = 4;
+    private static final int TIME = 5;
+    private static final int FIELDS = 13;
+    private static final byte DEAD = 1;
+    // The fixed part of a record with empty fields and no reactions
+    private static final int MIN_RECORD_BYTES = FIELDS + 2 + 2 + 2 + 4 + 2;
+    private static final int NULL_SHORT = 0xFFFF;
+
+    // Free and deleted slots of the ID tables; record offsets are never this small
+    private static final int EMPTY = 0;
+    private static final int REMOVED = 1;
+
+    private final Path dir;
+    private final Map<String, Segment> segments = new ConcurrentHashMap<>();
+
+    /**
+     * Opens the store in the given directory, creating it if needed, and indexes every
+     * chat segment already in it.
+     *
+     * @param dir the directory of the segment files
+     * @throws IOException if the directory or a segment cannot be read
+     */
+    public MappedMessageRepository(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                final Segment segment = new Segment(chatIdOf(file), file);
+                segments.put(segment.chatId, segment);
+            }
+        }
+    }
+
+    @Override
+    public synchronized Optional<Message> findById(String id) {
+        final byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        for (Segment segment : segments.values()) {
+            final int offset = segment.offsetOf(id, idBytes);
+            if (offset != EMPTY) {
+                return Optional.of(segment.decode(offset));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public synchronized Message save(Message message) {
+        final byte[] idBytes = message.getId().getBytes(StandardCharsets.UTF_8);
+        for (Segment segment : segments.values()) {
+            // A message moved to another chat leaves its old one
+            if (!segment.chatId.equals(message.getChatId())
+                    && segment.offsetOf(message.getId(), idBytes) != EMPTY) {
+                segment.delete(message.getId(), idBytes);
+            }
+        }
+        try {
+            segment(message.getChatId()).save(message, idBytes);
+        }
+        catch (IOException ex) {
+            throw new RuntimeException("Failed to store message " + message.getId(), ex);
+        }
+        return message;
+    }
+
+    /**
+     * Returns the chat's messages, oldest first, as a list that decodes each message
+     * when it is read.
+     */
+    @Override
+    public synchronized List<Message> findByChatId(String chatId) {
+        final Segment segment = segments.get(chatId);
+        if (segment == null) {
+            return new ArrayList<>();
+        }
+        final Rows rows = segment.rows;
+        return new RowView(segment, rows, 0, rows.size);
+    }
+
+    /**
+     * Returns the chat's messages sent in a time range, oldest first, found through the
+     * sparse timestamp index and decoded when they are read.
+     */
+    @Override
+    public synchronized List<Message> findByChatIdBetween(String chatId, Instant from, Instant to) {
+        final Segment segment = segments.get(chatId);
+        if (segment == null) {
+            return new ArrayList<>();
+        }
+        final Rows rows = segment.rows;
+        final int start = from == null ? 0 : segment.lowerBound(rows, timeKey(from), null);
+        final int end = to == null ? rows.size : segment.lowerBound(rows, timeKey(to), null);
+        return new RowView(segment, rows, start, Math.max(start, end));
+    }
+
+    @Override
+    public synchronized void deleteById(String id) {
+        final byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        for (Segment segment : segments.values()) {
+            segment.delete(id, idBytes);
+        }
+    }
+
+    /**
+     * Removes every message and deletes the segment files. Each segment is emptied and
+     * closed first: the mapping of a file can only be released by the garbage collector,
+     * and lists read earlier may still use it, so on systems that refuse to delete a
+     * mapped file the emptied file is left behind and reset when it is next opened.
+     */
+    @Override
+    public synchronized void clear() {
+        try {
+            for (Segment segment : segments.values()) {
+                segment.wipe();
+            }
+            for (Segment segment : segments.values()) {
+                try {
+                    Files.deleteIfExists(segment.file);
+                }
+                catch (IOException ex) {
+                    System.err.println("Left an emptied message segment behind: " + ex.getMessage());
+                }
+            }
+            segments.clear();
+        }
+        catch (IOException ex) {
+            throw new RuntimeException("Failed to clear the message store", ex);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+    }
+
+    /**
+     * Returns the number of messages stored across all chats.
+     *
+     * @return the message count
+     */
+    public synchronized int getMessageCount() {
+        int count = 0;
+        for (Segment segment : segments.values()) {
+            count += segment.rows.size;
+        }
+        return count;
+    }
+
+    private Segment segment(String chatId) throws IOException {
+        Segment segment = segments.get(chatId);
+        if (segment == null) {
+            segment = new Segment(chatId, dir.resolve(fileNameOf(chatId)));
+            segments.put(chatId, segment);
+        }
+        return segment;
+    }
+
+    /**
+     * Helper function that names a chat's segment after the hex digits of its ID, so any
+     * chat ID makes a valid file name.
+     */
+    private static String fileNameOf(String chatId) {
+        final StringBuilder name = new StringBuilder();
+        for (byte b : chatId.getBytes(StandardCharsets.UTF_8)) {
+            name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return name.append(SEGMENT_SUFFIX).toString();
+    }
+
+    private static String chatIdOf(Path file) {
+        final String name = file.getFileName().toString();
+        final byte[] bytes = new byte[(name.length() - SEGMENT_SUFFIX.length()) / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(name.substring(2 * i, 2 * i + 2), 16);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Helper function that turns a send time into one sortable number: nanoseconds since
+     * the epoch, which covers the years 1677 to 2262.
+     */
+    private static long timeKey(Instant time) {
+        return time.getEpochSecond() * 1_000_000_000L + time.getNano();
+    }
+
+    /**
+     * The live record offsets of one chat in timestamp order, with the sparse index over
+     * them. Appending writes past {@code size} into the same arrays, so older snapshots
+     * never see it; inserting before the end or removing copies the arrays.
+     */
+    private static final class Rows {
+        private final int[] offsets;
+        private final long[] sparse;
+        private final int size;
+
+        private Rows(int[] offsets, long[] sparse, int size) {
+            this.offsets = offsets;
+            this.sparse = sparse;
+            this.size = size;
+        }
+    }
+
+    /**
+     * One chat's segment file and its indexes. Only changed under the repository lock.
+     */
+    private static final class Segment {
+        private final String chatId;
+        private final Path file;
+        private final FileChannel channel;
+        private volatile MappedByteBuffer buffer;
+        private volatile Rows rows = new Rows(new int[16], new long[1], 0);
+        private int end = HEADER_BYTES;
+        // Open addressing from message ID to record offset
+        private int[] ids = new int[32];
+        private int idsUsed;
+
+        private Segment(String chatId, Path file) throws IOException {
+            this.chatId = chatId;
+            this.file = file;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            final long length = channel.size();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(length, INITIAL_CAPACITY));
+            if (length == 0 || buffer.getInt(0) != MAGIC) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, HEADER_BYTES);
+            }
+            load(buffer.getInt(4));
+        }
+
+        /**
+         * Helper function that rebuilds the indexes from the records written so far. A
+         * record whose length is too short or runs past the end, as a torn write would
+         * leave, ends the scan; it and anything after it are overwritten by later saves.
+         */
+        private void load(int written) {
+            final int limit = Math.min(Math.max(written, HEADER_BYTES), buffer.capacity());
+            final List<Integer> live = new ArrayList<>();
+            int offset = HEADER_BYTES;
+            while (offset + MIN_RECORD_BYTES <= limit) {
+                final int length = buffer.getInt(offset);
+                if (length < MIN_RECORD_BYTES || length > limit - offset) {
+                    break;
+                }
+                if (buffer.get(offset + FLAGS) != DEAD) {
+                    live.add(offset);
+                    final String id = idAt(offset);
+                    putId(id, id.getBytes(StandardCharsets.UTF_8), offset);
+                }
+                offset += length;
+            }
+            end = offset;
+            buffer.putInt(4, end);
+
+            final Integer[] sorted = live.toArray(new Integer[0]);
+            Arrays.sort(sorted, (a, b) -> {
+                final int byTime = Long.compare(timeAt(a), timeAt(b));
+                return byTime != 0 ? byTime : idAt(a).compareTo(idAt(b));
+            });
+            final int[] offsets = new int[Math.max(16, sorted.length)];
+            for (int i = 0; i < sorted.length; i++) {
+                offsets[i] = sorted[i];
+            }
+            rows = new Rows(offsets, sparseOf(offsets, sorted.length), sorted.length);
+        }
+
+        private void save(Message message, byte[] idBytes) throws IOException {
+            final byte[] record = encode(message, idBytes);
+            ensureCapacity(end + record.length);
+            final int offset = end;
+            final ByteBuffer target = buffer.duplicate();
+            target.position(offset);
+            target.put(record);
+            end += record.length;
+            buffer.putInt(4, end);
+
+            final int old = offsetOf(message.getId(), idBytes);
+            putId(message.getId(), idBytes, offset);
+            if (old != EMPTY) {
+                buffer.put(old + FLAGS, DEAD);
+                final int row = rowOf(old);
+                if (timeAt(old) == timeAt(offset)) {
+                    // Same place in the order, so the new record takes the old one's row in a
+                    // copy; lists read earlier share the current array
+                    final Rows current = rows;
+                    final int[] offsets = current.offsets.clone();
+                    offsets[row] = offset;
+                    rows = new Rows(offsets, current.sparse, current.size);
+                    return;
+                }
+                removeRow(row);
+            }
+            insertRow(offset, timeAt(offset), message.getId());
+        }
+
+        /**
+         * Helper function that overwrites every record and the header with zeros, writes
+         * them to disk and closes the file, so no message is left in it.
+         */
+        private void wipe() throws IOException {
+            final MappedByteBuffer data = buffer;
+            final byte[] zeros = new byte[Math.min(end, INITIAL_CAPACITY)];
+            final ByteBuffer target = data.duplicate();
+            target.position(0);
+            for (int written = 0; written < end; written += zeros.length) {
+                target.put(zeros, 0, Math.min(zeros.length, end - written));
+            }
+            data.force();
+            rows = new Rows(new int[16], new long[1], 0);
+            ids = new int[32];
+            idsUsed = 0;
+            end = HEADER_BYTES;
+            channel.close();
+        }
+
+        private void delete(String id, byte[] idBytes) {
+            final int offset = offsetOf(id, idBytes);
+            if (offset != EMPTY) {
+                buffer.put(offset + FLAGS, DEAD);
+                removeRow(rowOf(offset));
+                ids[slotOf(id, idBytes)] = REMOVED;
+            }
+        }
+
+        private void insertRow(int offset, long time, String id) {
+            final Rows current = rows;
+            final int row = lowerBound(current, time, id);
+            if (row == current.size && current.size < current.offsets.length) {
+                // The usual case of a new message: append without copying
+                current.offsets[row] = offset;
+                long[] sparse = current.sparse;
+                if (row % SPARSE_INTERVAL == 0) {
+                    if (row / SPARSE_INTERVAL >= sparse.length) {
+                        sparse = Arrays.copyOf(sparse, 2 * sparse.length);
+                    }
+                    sparse[row / SPARSE_INTERVAL] = time;
+                }
+                rows = new Rows(current.offsets, sparse, current.size + 1);
+                return;
+            }
+            final int[] offsets = new int[Math.max(16, current.size + 1 + current.size / 2)];
+            System.arraycopy(current.offsets, 0, offsets, 0, row);
+            offsets[row] = offset;
+            System.arraycopy(current.offsets, row, offsets, row + 1, current.size - row);
+            rows = new Rows(offsets, sparseOf(offsets, current.size + 1), current.size + 1);
+        }
+
+        private void removeRow(int row) {
+            final Rows current = rows;
+            final int[] offsets = new int[current.offsets.length];
+            System.arraycopy(current.offsets, 0, offsets, 0, row);
+            System.arraycopy(current.offsets, row + 1, offsets, row, current.size - row - 1);
+            rows = new Rows(offsets, sparseOf(offsets, current.size - 1), current.size - 1);
+        }
+
+        private long[] sparseOf(int[] offsets, int size) {
+            final long[] sparse = new long[Math.max(1, (offsets.length + SPARSE_INTERVAL - 1) / SPARSE_INTERVAL)];
+            for (int row = 0; row < size; row += SPARSE_INTERVAL) {
+                sparse[row / SPARSE_INTERVAL] = timeAt(offsets[row]);
+            }
+            return sparse;
+        }
+
+        /**
+         * Returns the first row not ordered before the given time and ID; a null ID is
+         * ordered before every message sent at that time.
+         */
+        private int lowerBound(Rows rows, long time, String id) {
+            // Find the last sparse entry ordered before the target, then search its block
+            int low = 0;
+            int high = (rows.size + SPARSE_INTERVAL - 1) / SPARSE_INTERVAL - 1;
+            int block = -1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (compare(rows, mid * SPARSE_INTERVAL, rows.sparse[mid], time, id) < 0) {
+                    block = mid;
+                    low = mid + 1;
+                }
+                else {
+                    high = mid - 1;
+                }
+            }
+            if (block < 0) {
+                return 0;
+            }
+            low = block * SPARSE_INTERVAL + 1;
+            high = Math.min(rows.size, (block + 1) * SPARSE_INTERVAL);
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (compare(rows, mid, timeAt(rows.offsets[mid]), time, id) < 0) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int compare(Rows rows, int row, long rowTime, long time, String id) {
+            if (rowTime != time) {
+                return Long.compare(rowTime, time);
+            }
+            return id == null ? 1 : idAt(rows.offsets[row]).compareTo(id);
+        }
+
+        private int rowOf(int offset) {
+            final Rows current = rows;
+            int row = lowerBound(current, timeAt(offset), idAt(offset));
+            while (current.offsets[row] != offset) {
+                row++;
+            }
+            return row;
+        }
+
+        private void ensureCapacity(int needed) throws IOException {
+            if (needed > buffer.capacity()) {
+                long capacity = buffer.capacity();
+                while (capacity < needed) {
+                    capacity *= 2;
+                }
+                if (capacity > Integer.MAX_VALUE) {
+                    throw new IOException("Message segment of chat " + chatId + " is full");
+                }
+                // The old mapping stays valid for readers still holding it
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            }
+        }
+
+        private int offsetOf(String id, byte[] idBytes) {
+            final int slot = slotOf(id, idBytes);
+            return ids[slot] == REMOVED ? EMPTY : ids[slot];
+        }
+
+        /**
+         * Returns the slot holding the ID, or the empty slot where it would go.
+         */
+        private int slotOf(String id, byte[] idBytes) {
+            final int mask = ids.length - 1;
+            int slot = spread(id.hashCode()) & mask;
+            while (ids[slot] != EMPTY && (ids[slot] == REMOVED || !idEquals(ids[slot], idBytes))) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void putId(String id, byte[] idBytes, int offset) {
+            final int slot = slotOf(id, idBytes);
+            if (ids[slot] == EMPTY) {
+                // Rehash before the table is half full of entries and removals
+                if (2 * (idsUsed + 1) > ids.length) {
+                    rehash();
+                    putId(id, idBytes, offset);
+                    return;
+                }
+                idsUsed++;
+            }
+            ids[slot] = offset;
+        }
+
+        private void rehash() {
+            final int[] old = ids;
+            int live = 0;
+            for (int offset : old) {
+                if (offset > REMOVED) {
+                    live++;
+                }
+            }
+            int length = 32;
+            while (length < 4 * (live + 1)) {
+                length *= 2;
+            }
+            ids = new int[length];
+            idsUsed = live;
+            for (int offset : old) {
+                if (offset > REMOVED) {
+                    final String id = idAt(offset);
+                    int slot = spread(id.hashCode()) & (length - 1);
+                    while (ids[slot] != EMPTY) {
+                        slot = (slot + 1) & (length - 1);
+                    }
+                    ids[slot] = offset;
+                }
+            }
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        private boolean idEquals(int offset, byte[] idBytes) {
+            final MappedByteBuffer data = buffer;
+            final int length = data.getShort(offset + FIELDS) & NULL_SHORT;
+            if (length != idBytes.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (data.get(offset + FIELDS + 2 + i) != idBytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long timeAt(int offset) {
+            return buffer.getLong(offset + TIME);
+        }
+
+        private String idAt(int offset) {
+            final ByteBuffer data = buffer.duplicate();
+            data.position(offset + FIELDS);
+            return readShortString(data);
+        }
+
+        private Message decode(int offset) {
+            final ByteBuffer data = buffer.duplicate();
+            final long time = data.getLong(offset + TIME);
+            data.position(offset + FIELDS);
+            final String id = readShortString(data);
+            final String sender = readShortString(data);
+            final String repliedTo = readShortString(data);
+            final int contentLength = data.getInt();
+            String content = null;
+            if (contentLength >= 0) {
+                content = readString(data, contentLength);
+            }
+            final Message message = new Message(id, chatId, sender, repliedTo, content,
+                    Instant.ofEpochSecond(Math.floorDiv(time, 1_000_000_000L), Math.floorMod(time, 1_000_000_000L)));
+            final int reactions = data.getShort() & NULL_SHORT;
+            for (int i = 0; i < reactions; i++) {
+                message.addReaction(readShortString(data), readShortString(data));
+            }
+            return message;
+        }
+
+        private static byte[] encode(Message message, byte[] idBytes) {
+            final byte[] sender = utf8(message.getSenderUserId());
+            final byte[] repliedTo = utf8(message.getRepliedMessageId());
+            final byte[] content = utf8(message.getContent());
+            final List<byte[]> reactions = new ArrayList<>();
+            int length = FIELDS + 2 + idBytes.length + shortLength(sender) + shortLength(repliedTo)
+                    + 4 + (content == null ? 0 : content.length) + 2;
+            for (Map.Entry<String, String> reaction : message.getReactions().entrySet()) {
+                final byte[] user = utf8(reaction.getKey());
+                final byte[] emoji = utf8(reaction.getValue());
+                reactions.add(user);
+                reactions.add(emoji);
+                length += shortLength(user) + shortLength(emoji);
+            }
+
+            final ByteBuffer record = ByteBuffer.allocate(length);
+            record.putInt(length);
+            record.put((byte) 0);
+            record.putLong(timeKey(message.getTimestamp()));
+            putShortString(record, idBytes);
+            putShortString(record, sender);
+            putShortString(record, repliedTo);
+            if (content == null) {
+                record.putInt(-1);
+            }
+            else {
+                record.putInt(content.length);
+                record.put(content);
+            }
+            record.putShort((short) (reactions.size() / 2));
+            for (byte[] value : reactions) {
+                putShortString(record, value);
+            }
+            return record.array();
+        }
+
+        private static byte[] utf8(String value) {
+            return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static int shortLength(byte[] value) {
+            return 2 + (value == null ? 0 : value.length);
+        }
+
+        private static void putShortString(ByteBuffer record, byte[] value) {
+            if (value == null) {
+                record.putShort((short) NULL_SHORT);
+            }
+            else {
+                if (value.length >= NULL_SHORT) {
+                    throw new IllegalArgumentException("Message field too long: " + value.length + " bytes");
+                }
+                record.putShort((short) value.length);
+                record.put(value);
+            }
+        }
+
+        private static String readShortString(ByteBuffer data) {
+            final int length = data.getShort() & NULL_SHORT;
+            return length == NULL_SHORT ? null : readString(data, length);
+        }
+
+        private static String readString(ByteBuffer data, int length) {
+            final byte[] bytes = new byte[length];
+            data.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * A range of one snapshot of a chat's order, decoding each message when it is read.
+     */
+    private static final class RowView extends AbstractList<Message> implements RandomAccess {
+        private final Segment segment;
+        private final Rows rows;
+        private final int from;
+        private final int to;
+
+        private RowView(Segment segment, Rows rows, int from, int to) {
+            this.segment = segment;
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Message get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of " + (to - from));
+            }
+            return segment.decode(rows.offsets[from + index]);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
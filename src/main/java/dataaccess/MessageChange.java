@@ -0,0 +1,40 @@
+package dataaccess;
+
+import entity.Message;
+
+/**
+ * A single added, modified or removed message reported by a {@link MessageChangeFeed}.
+ */
+public class MessageChange {
+
+    /**
+     * The kind of change applied to the message document.
+     */
+    public enum Type {
+        ADDED,
+        MODIFIED,
+        REMOVED
+    }
+
+    private final Type type;
+    private final Message message;
+
+    /**
+     * Constructs a {@code MessageChange}.
+     *
+     * @param type    what happened to the message
+     * @param message the message after the change, or its last known state if removed
+     */
+    public MessageChange(Type type, Message message) {
+        this.type = type;
+        this.message = message;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,30 @@
+package dataaccess;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A real-time stream of the message changes of a chat.
+ */
+public interface MessageChangeFeed {
+
+    /**
+     * Starts delivering the changes of a chat's messages sent at or after a given time.
+     * The first batch contains every such message as {@link MessageChange.Type#ADDED};
+     * later batches contain only what changed. Listening again to the same chat replaces
+     * the previous consumer.
+     *
+     * @param chatId   the ID of the chat
+     * @param from     the earliest send time to deliver, or null for the whole chat
+     * @param consumer receives each batch of changes
+     */
+    void listen(String chatId, Instant from, Consumer<List<MessageChange>> consumer);
+
+    /**
+     * Stops delivering the changes of a chat. Does nothing if the chat is not listened to.
+     *
+     * @param chatId the ID of the chat
+     */
+    void stopListening(String chatId);
+}
@@ -0,0 +1,152 @@
+package dataaccess;
+
+import java.awt.Color;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import entity.Chat;
+import entity.ports.ChatRepository;
+import entity.repo.InMemoryChatRepository;
+
+/**
+ * Keeps chats in memory and writes them through to an {@link AppendOnlyLog} on disk, so
+ * the chat list of the last session is available as soon as the app starts.
+ *
+ * <p>
+ * The disk copy is a cache of Firestore, not a source of truth: the recent chats sync
+ * saves every chat it loads, which replaces the stored one, and removes the chats its
+ * first page no longer returns. Disk writes and compaction run on a background thread,
+ * so saving on the event thread only updates memory. A failed disk write is reported
+ * and otherwise ignored, leaving the chat in memory only. Chats restored from disk have
+ * no message ID loader; the sync replaces them before a chat is opened.
+ */
+public class PersistentChatRepository implements ChatRepository, Closeable {
+
+    // Compact once the file is more than twice what its live records need
+    private static final long MIN_COMPACTION_BYTES = 256L * 1024;
+
+    private final InMemoryChatRepository chats = new InMemoryChatRepository();
+    private final AppendOnlyLog log;
+    private final LocalStoreWriter writer = new LocalStoreWriter("local-chat-store");
+
+    /**
+     * Opens the chat store in the given file and loads every chat saved in it.
+     *
+     * @param file the log file, created if missing
+     * @throws IOException if the file cannot be opened or read
+     */
+    public PersistentChatRepository(Path file) throws IOException {
+        log = new AppendOnlyLog(file);
+        if (!LocalStoreCodec.replay(log, (chatId, bytes) -> chats.save(decode(chatId, bytes)))) {
+            // Written in a format this version cannot read; start over from the sync
+            chats.clear();
+        }
+    }
+
+    @Override
+    public synchronized Chat save(Chat chat) {
+        chats.save(chat);
+        final String failure = "Could not store chat " + chat.getId() + " locally";
+        try {
+            // Encoded now, since the chat may change before the write runs
+            final byte[] bytes = encode(chat);
+            writer.write(failure, () -> {
+                log.put(chat.getId(), bytes);
+                if (log.length() > MIN_COMPACTION_BYTES && log.length() > 2 * log.liveLength()) {
+                    log.compact(chatId -> true);
+                }
+            });
+        }
+        catch (IOException ex) {
+            System.err.println(failure + ": " + ex.getMessage());
+        }
+        return chat;
+    }
+
+    @Override
+    public Optional<Chat> findById(String chatId) {
+        return chats.findById(chatId);
+    }
+
+    @Override
+    public List<Chat> findByParticipants(Collection<String> participantIds) {
+        return chats.findByParticipants(participantIds);
+    }
+
+    @Override
+    public List<Chat> findAll() {
+        return chats.findAll();
+    }
+
+    @Override
+    public synchronized void deleteById(String chatId) {
+        chats.deleteById(chatId);
+        writer.write("Could not delete chat " + chatId + " locally", () -> log.delete(chatId));
+    }
+
+    /**
+     * Removes every chat from memory and from disk, waiting for the file to be emptied.
+     */
+    @Override
+    public synchronized void clear() {
+        chats.clear();
+        try {
+            writer.await(log::clear);
+        }
+        catch (IOException ex) {
+            throw new RuntimeException("Failed to clear the local chat store", ex);
+        }
+    }
+
+    /**
+     * Finishes the pending disk writes and closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+        log.close();
+    }
+
+    private static byte[] encode(Chat chat) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        LocalStoreCodec.writeNullable(out, chat.getGroupName());
+        out.writeInt(chat.getBackgroundColor() == null ? Color.WHITE.getRGB() : chat.getBackgroundColor().getRGB());
+        out.writeLong(chat.getLastMessage() == null ? Long.MIN_VALUE : chat.getLastMessage().toEpochMilli());
+        out.writeLong(chat.getMessageCount());
+        LocalStoreCodec.writeNullable(out, chat.getLastMessageId());
+        final List<String> participants = chat.getParticipantUserIds();
+        out.writeInt(participants.size());
+        for (String participant : participants) {
+            out.writeUTF(participant);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Chat decode(String chatId, byte[] bytes) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        final String groupName = LocalStoreCodec.readNullable(in);
+        final Color color = new Color(in.readInt(), true);
+        final long lastMessage = in.readLong();
+        final Chat chat = new Chat(chatId, groupName, color,
+                lastMessage == Long.MIN_VALUE ? null : Instant.ofEpochMilli(lastMessage));
+        chat.setMessageCount(in.readLong());
+        chat.setLastMessageId(LocalStoreCodec.readNullable(in));
+        final int participants = in.readInt();
+        for (int i = 0; i < participants; i++) {
+            chat.addParticipant(in.readUTF());
+        }
+        return chat;
+    }
+}
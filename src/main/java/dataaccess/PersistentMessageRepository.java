@@ -0,0 +1,185 @@
+package dataaccess;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import entity.Message;
+import entity.ports.MessageRepository;
+import entity.repo.InMemoryMessageRepository;
+
+/**
+ * Keeps messages in an {@link InMemoryMessageRepository} and writes them through to an
+ * {@link AppendOnlyLog} on disk, so the chats read in the last session show their
+ * history as soon as they are opened, before the live message sync has answered.
+ *
+ * <p>
+ * The disk copy holds the same messages as the memory cache: when compacting, messages
+ * the cache has evicted are dropped from the file too, so it stays within a small
+ * multiple of the cache limits. The live message sync reconciles restored messages
+ * with Firestore when their chat is opened. Disk writes and compaction run on a
+ * background thread, so saving on the event thread only updates memory. A failed disk
+ * write is reported and otherwise ignored, leaving the message in memory only.
+ */
+public class PersistentMessageRepository implements MessageRepository, Closeable {
+
+    private static final long MIN_COMPACTION_BYTES = 1024L * 1024;
+
+    private final InMemoryMessageRepository messages;
+    private final AppendOnlyLog log;
+    private final LocalStoreWriter writer = new LocalStoreWriter("local-message-store");
+
+    /**
+     * Opens the message store in the given file with a default-sized memory cache.
+     *
+     * @param file the log file, created if missing
+     * @throws IOException if the file cannot be opened or read
+     */
+    public PersistentMessageRepository(Path file) throws IOException {
+        this(file, new InMemoryMessageRepository());
+    }
+
+    /**
+     * Opens the message store in the given file and loads the messages saved in it
+     * into the given cache.
+     *
+     * @param file     the log file, created if missing
+     * @param messages the memory cache that answers every lookup
+     * @throws IOException if the file cannot be opened or read
+     */
+    public PersistentMessageRepository(Path file, InMemoryMessageRepository messages) throws IOException {
+        this.messages = messages;
+        log = new AppendOnlyLog(file);
+        if (!LocalStoreCodec.replay(log, (id, bytes) -> messages.save(decode(id, bytes)))) {
+            messages.clear();
+        }
+    }
+
+    @Override
+    public Optional<Message> findById(String id) {
+        return messages.findById(id);
+    }
+
+    @Override
+    public synchronized Message save(Message message) {
+        messages.save(message);
+        final String failure = "Could not store message " + message.getId() + " locally";
+        try {
+            // Encoded now, since reactions may change before the write runs
+            final byte[] bytes = encode(message);
+            writer.write(failure, () -> {
+                log.put(message.getId(), bytes);
+                compactIfNeeded();
+            });
+        }
+        catch (IOException ex) {
+            System.err.println(failure + ": " + ex.getMessage());
+        }
+        return message;
+    }
+
+    @Override
+    public List<Message> findByChatId(String chatId) {
+        return messages.findByChatId(chatId);
+    }
+
+    @Override
+    public List<Message> findByChatIdBetween(String chatId, Instant from, Instant to) {
+        return messages.findByChatIdBetween(chatId, from, to);
+    }
+
+    @Override
+    public synchronized void deleteById(String id) {
+        messages.deleteById(id);
+        writer.write("Could not delete message " + id + " locally", () -> log.delete(id));
+    }
+
+    /**
+     * Removes every message from memory and from disk, waiting for the file to be emptied.
+     */
+    @Override
+    public synchronized void clear() {
+        messages.clear();
+        try {
+            writer.await(log::clear);
+        }
+        catch (IOException ex) {
+            throw new RuntimeException("Failed to clear the local message store", ex);
+        }
+    }
+
+    /**
+     * Finishes the pending disk writes and closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+        log.close();
+    }
+
+    /**
+     * Returns the memory cache, for its statistics.
+     *
+     * @return the in-memory repository
+     */
+    public InMemoryMessageRepository getCache() {
+        return messages;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d messages cached, %d stored in %d bytes",
+                messages.getMessageCount(), log.size(), log.length());
+    }
+
+    private void compactIfNeeded() throws IOException {
+        final boolean overwritten = log.length() > 2 * log.liveLength();
+        final boolean evicted = log.size() > 2 * messages.getMessageCount();
+        if (log.length() > MIN_COMPACTION_BYTES && (overwritten || evicted)) {
+            log.compact(id -> messages.findById(id).isPresent());
+        }
+    }
+
+    private static byte[] encode(Message message) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(message.getChatId());
+        LocalStoreCodec.writeNullable(out, message.getSenderUserId());
+        LocalStoreCodec.writeNullable(out, message.getRepliedMessageId());
+        LocalStoreCodec.writeNullable(out, message.getContent());
+        out.writeLong(message.getTimestamp().getEpochSecond());
+        out.writeInt(message.getTimestamp().getNano());
+        final Map<String, String> reactions = message.getReactions();
+        out.writeInt(reactions.size());
+        for (Map.Entry<String, String> reaction : reactions.entrySet()) {
+            out.writeUTF(reaction.getKey());
+            out.writeUTF(reaction.getValue());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Message decode(String id, byte[] bytes) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        final String chatId = in.readUTF();
+        final String sender = LocalStoreCodec.readNullable(in);
+        final String repliedTo = LocalStoreCodec.readNullable(in);
+        final String content = LocalStoreCodec.readNullable(in);
+        final Instant timestamp = Instant.ofEpochSecond(in.readLong(), in.readInt());
+        final Message message = new Message(id, chatId, sender, repliedTo, content, timestamp);
+        final int reactions = in.readInt();
+        for (int i = 0; i < reactions; i++) {
+            message.addReaction(in.readUTF(), in.readUTF());
+        }
+        return message;
+    }
+}
@@ -0,0 +1,103 @@
+package dataaccess;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.WriteBatch;
+
+/**
+ * Helpers for the case-folded username field that user search queries against.
+ *
+ * <p>
+ * Every user document stores its username lower-cased under {@link #FIELD}, so a
+ * prefix search becomes an indexed range query instead of a scan of the whole
+ * {@code users} collection.
+ */
+public final class UserSearchIndex {
+
+    /**
+     * Name of the user document field holding the case-folded username.
+     */
+    public static final String FIELD = "usernameLower";
+
+    private static final String COLLECTION_NAME = "users";
+    private static final int BACKFILL_PAGE_SIZE = 500;
+
+    // Sorts after every character that can appear in a username, closing a prefix range.
+    private static final String PREFIX_END = "\uf8ff";
+
+    private UserSearchIndex() {
+    }
+
+    /**
+     * Case-folds a username or query the same way the index does.
+     *
+     * @param value the text to fold
+     * @return the lower-cased text
+     */
+    public static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the exclusive upper bound of the range matching the given folded prefix.
+     *
+     * @param prefix the folded prefix
+     * @return the end of the prefix range
+     */
+    public static String prefixEnd(String prefix) {
+        return prefix + PREFIX_END;
+    }
+
+    /**
+     * Writes {@link #FIELD} on every user document that is missing it or holds a stale value.
+     *
+     * @param db the Firestore instance
+     * @return the number of documents updated
+     * @throws RuntimeException if a read or write fails
+     */
+    public static int backfill(Firestore db) {
+        int updated = 0;
+        String lastId = null;
+        boolean more = true;
+        try {
+            while (more) {
+                Query page = db.collection(COLLECTION_NAME)
+                        .orderBy(FieldPath.documentId())
+                        .limit(BACKFILL_PAGE_SIZE);
+                if (lastId != null) {
+                    page = page.startAfter(lastId);
+                }
+                final List<QueryDocumentSnapshot> documents = page.get().get().getDocuments();
+
+                final WriteBatch batch = db.batch();
+                int pending = 0;
+                for (QueryDocumentSnapshot document : documents) {
+                    final String folded = normalize(document.getId());
+                    if (!folded.equals(document.getString(FIELD))) {
+                        batch.update(document.getReference(), FIELD, folded);
+                        pending++;
+                    }
+                }
+                if (pending > 0) {
+                    batch.commit().get();
+                    updated += pending;
+                }
+
+                more = documents.size() == BACKFILL_PAGE_SIZE;
+                if (!documents.isEmpty()) {
+                    lastId = documents.get(documents.size() - 1).getId();
+                }
+            }
+        }
+        catch (InterruptedException | ExecutionException ex) {
+            throw new RuntimeException("Failed to backfill user search index", ex);
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,344 @@
+package dataaccess;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects document writes and commits them in batches from a background thread.
+ *
+ * <p>
+ * Writes to the same document are folded together while they wait, so toggling a
+ * reaction or editing a counter several times costs one write. A write is only folded
+ * into an earlier one if no write related to it, such as one to the same chat or
+ * another of its messages, was queued in between. Pending writes are
+ * committed once {@code batchSize} documents are waiting or {@code flushDelayMillis}
+ * after the first one was queued, whichever comes first.
+ *
+ * <p>
+ * Batches are committed one at a time, in the order their documents were first
+ * queued, so the writes to a chat and its messages are never reordered. Writes
+ * submitted together with {@link #submitTogether(List)} always share a batch. If a
+ * batch is rejected its writes are retried one by one, or group by group, so a single
+ * bad document only fails its own callers.
+ */
+public class WriteBehindQueue implements AutoCloseable {
+
+    /**
+     * The most writes Firestore accepts in one batch.
+     */
+    public static final int MAX_BATCH_SIZE = 500;
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final long DEFAULT_FLUSH_DELAY_MILLIS = 50;
+
+    private final DocumentBatchStore store;
+    private final int batchSize;
+    private final long flushDelayMillis;
+    private final ScheduledExecutorService flusher;
+
+    private final Object lock = new Object();
+    private final List<DocumentWrite> pending = new ArrayList<>();
+    private final Map<String, DocumentWrite> latest = new HashMap<>();
+    // The pending write that last took a write for each related document
+    private final Map<String, DocumentWrite> lastRelated = new HashMap<>();
+    private boolean flushScheduled;
+    private long lastGroup;
+
+    private long operationCount;
+    private long writeCount;
+    private long batchCount;
+    private int largestBatch;
+
+    /**
+     * Constructs a {@code WriteBehindQueue} with the default thresholds.
+     *
+     * @param store the store the batches are committed to
+     */
+    public WriteBehindQueue(DocumentBatchStore store) {
+        this(store, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_DELAY_MILLIS);
+    }
+
+    /**
+     * Constructs a {@code WriteBehindQueue}.
+     *
+     * @param store            the store the batches are committed to
+     * @param batchSize        the number of pending documents that triggers a commit,
+     *                         at most {@link #MAX_BATCH_SIZE}
+     * @param flushDelayMillis how long the first pending write may wait for others
+     */
+    public WriteBehindQueue(DocumentBatchStore store, int batchSize, long flushDelayMillis) {
+        this.store = store;
+        this.batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        this.flushDelayMillis = flushDelayMillis;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a write that replaces a whole document.
+     *
+     * @param collection the collection of the document
+     * @param documentId the ID of the document
+     * @param data       the document fields
+     * @return a future completed once the write is committed
+     */
+    public CompletableFuture<Void> set(String collection, String documentId, Map<String, Object> data) {
+        return enqueue(DocumentWrite.set(collection, documentId, data));
+    }
+
+    /**
+     * Queues a change to some fields of an existing document.
+     *
+     * @param collection the collection of the document
+     * @param documentId the ID of the document
+     * @param update     the changes to apply
+     * @return a future completed once the change is committed
+     */
+    public CompletableFuture<Void> update(String collection, String documentId, DocumentUpdate update) {
+        return enqueue(DocumentWrite.update(collection, documentId, update));
+    }
+
+    /**
+     * Queues the deletion of a document.
+     *
+     * @param collection the collection of the document
+     * @param documentId the ID of the document
+     * @return a future completed once the deletion is committed
+     */
+    public CompletableFuture<Void> delete(String collection, String documentId) {
+        return enqueue(DocumentWrite.delete(collection, documentId));
+    }
+
+    /**
+     * Queues a write built by the caller.
+     *
+     * @param write the write
+     * @return a future completed once the write is committed
+     */
+    public CompletableFuture<Void> submit(DocumentWrite write) {
+        return enqueue(write);
+    }
+
+    /**
+     * Queues writes that must be applied together or not at all. They are committed in
+     * the same batch and are never folded into writes queued before them, nor are later
+     * writes folded into them, so a write queued after the group never fails with it.
+     *
+     * @param writes the writes, in order
+     * @return a future completed once all of the writes are committed
+     */
+    public CompletableFuture<Void> submitTogether(List<DocumentWrite> writes) {
+        final List<CompletableFuture<Void>> committed = new ArrayList<>();
+        synchronized (lock) {
+            lastGroup++;
+            for (DocumentWrite write : writes) {
+                write.setGroup(lastGroup);
+                committed.add(enqueue(write));
+            }
+        }
+        return CompletableFuture.allOf(committed.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private CompletableFuture<Void> enqueue(DocumentWrite write) {
+        final CompletableFuture<Void> committed = new CompletableFuture<>();
+        write.getWaiters().add(committed);
+        synchronized (lock) {
+            operationCount++;
+            final DocumentWrite previous = latest.get(write.path());
+            // Folding moves the write up to the previous one, so it must not pass a related write
+            final boolean inOrder = previous != null && lastRelated.get(write.relatedPath()) == previous;
+            if (!inOrder || !previous.absorb(write)) {
+                pending.add(write);
+                latest.put(write.path(), write);
+                lastRelated.put(write.relatedPath(), write);
+            }
+
+            if (pending.size() >= batchSize) {
+                flusher.execute(this::drain);
+            }
+            else if (!flushScheduled) {
+                flushScheduled = true;
+                flusher.schedule(this::drain, flushDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        return committed;
+    }
+
+    /**
+     * Commits every write queued so far and waits for it.
+     */
+    public void flush() {
+        try {
+            flusher.submit(this::drain).get();
+        }
+        catch (InterruptedException | ExecutionException ex) {
+            throw new RuntimeException("Failed to flush pending writes", ex);
+        }
+    }
+
+    /**
+     * Commits every pending write and stops the background thread. Closing twice does nothing.
+     */
+    @Override
+    public void close() {
+        if (!flusher.isShutdown()) {
+            flush();
+            flusher.shutdown();
+        }
+    }
+
+    private void drain() {
+        List<DocumentWrite> batch = takeBatch();
+        while (!batch.isEmpty()) {
+            commit(batch);
+            batch = takeBatch();
+        }
+    }
+
+    private List<DocumentWrite> takeBatch() {
+        synchronized (lock) {
+            int size = Math.min(batchSize, pending.size());
+            while (size > 0 && size < pending.size() && sameGroup(pending.get(size - 1), pending.get(size))) {
+                size++;
+            }
+            final List<DocumentWrite> batch = new ArrayList<>(pending.subList(0, size));
+            pending.subList(0, size).clear();
+            for (DocumentWrite write : batch) {
+                // Later writes to this document must not fold into a batch already on its way
+                latest.remove(write.path(), write);
+                lastRelated.remove(write.relatedPath(), write);
+            }
+            if (pending.isEmpty()) {
+                flushScheduled = false;
+            }
+            return batch;
+        }
+    }
+
+    private void commit(List<DocumentWrite> batch) {
+        try {
+            store.commit(batch);
+        }
+        catch (RuntimeException ex) {
+            final List<List<DocumentWrite>> units = splitIntoGroups(batch);
+            if (units.size() > 1) {
+                for (List<DocumentWrite> unit : units) {
+                    commit(unit);
+                }
+            }
+            else {
+                for (DocumentWrite write : batch) {
+                    for (CompletableFuture<Void> waiter : write.getWaiters()) {
+                        waiter.completeExceptionally(ex);
+                    }
+                }
+            }
+            return;
+        }
+
+        synchronized (lock) {
+            batchCount++;
+            writeCount += batch.size();
+            largestBatch = Math.max(largestBatch, batch.size());
+        }
+        for (DocumentWrite write : batch) {
+            for (CompletableFuture<Void> waiter : write.getWaiters()) {
+                waiter.complete(null);
+            }
+        }
+    }
+
+    private static boolean sameGroup(DocumentWrite first, DocumentWrite second) {
+        return first.getGroup() != 0 && first.getGroup() == second.getGroup();
+    }
+
+    private static List<List<DocumentWrite>> splitIntoGroups(List<DocumentWrite> batch) {
+        final List<List<DocumentWrite>> units = new ArrayList<>();
+        List<DocumentWrite> unit = new ArrayList<>();
+        for (DocumentWrite write : batch) {
+            if (!unit.isEmpty() && !sameGroup(unit.get(unit.size() - 1), write)) {
+                units.add(unit);
+                unit = new ArrayList<>();
+            }
+            unit.add(write);
+        }
+        if (!unit.isEmpty()) {
+            units.add(unit);
+        }
+        return units;
+    }
+
+    /**
+     * Returns the number of writes callers have queued.
+     *
+     * @return the number of queued operations
+     */
+    public long getOperationCount() {
+        synchronized (lock) {
+            return operationCount;
+        }
+    }
+
+    /**
+     * Returns the number of document writes committed, after folding.
+     *
+     * @return the number of committed writes
+     */
+    public long getWriteCount() {
+        synchronized (lock) {
+            return writeCount;
+        }
+    }
+
+    /**
+     * Returns the number of batches committed.
+     *
+     * @return the number of batches
+     */
+    public long getBatchCount() {
+        synchronized (lock) {
+            return batchCount;
+        }
+    }
+
+    /**
+     * Returns the size of the largest batch committed.
+     *
+     * @return the largest batch size
+     */
+    public int getLargestBatch() {
+        synchronized (lock) {
+            return largestBatch;
+        }
+    }
+
+    /**
+     * Returns the average number of writes per committed batch.
+     *
+     * @return the average batch size, or 0 if nothing was committed
+     */
+    public double getAverageBatchSize() {
+        synchronized (lock) {
+            double average = 0;
+            if (batchCount > 0) {
+                average = (double) writeCount / batchCount;
+            }
+            return average;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d operations sent as %d writes in %d batches (average %.1f, largest %d)",
+                getOperationCount(), getWriteCount(), getBatchCount(), getAverageBatchSize(), getLargestBatch());
+    }
+}
@@ -1,21 +1,34 @@
 package entity;
 
 import java.awt.Color;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 
 /**
  * Represents a chat entity containing participants, messages, and metadata.
+ *
+ * <p>
+ * Participant and message ID lists are copy-on-write, so they can be iterated on
+ * one thread while a sync adds to them on another.
  */
 public class Chat {
 
     private final String id;
-    private final List<String> participantUserIds = new ArrayList<>();
-    private final List<String> messageIds = new ArrayList<>();
-    private String groupName;
-    private Color backgroundColor;
-    private Instant lastMessage;
+    private final List<String> participantUserIds = new CopyOnWriteArrayList<>();
+    private volatile List<String> messageIds;
+    private volatile Supplier<List<String>> messageIdLoader;
+    private volatile long messageCount;
+    private volatile String lastMessageId;
+    private volatile String groupName;
+    private volatile Color backgroundColor;
+    private volatile Instant lastMessage;
 
     /**
      * Constructs a new Chat.
@@ -51,12 +64,114 @@ public class Chat {
     }
 
     /**
-     * Returns the list of message IDs.
+     * Returns the key of this chat's current set of participants.
+     *
+     * @return the participant key
+     * @see #participantKey(Collection)
+     */
+    public String getParticipantKey() {
+        return participantKey(participantUserIds);
+    }
+
+    /**
+     * Returns a key that identifies a set of participants: the same users give the
+     * same key in any order and with any repeats, and different users give different
+     * keys. The key is a fixed-length hex string, usable as a document ID.
+     *
+     * @param userIds the participant user IDs
+     * @return the participant key
+     */
+    public static String participantKey(Collection<String> userIds) {
+        final StringBuilder canonical = new StringBuilder();
+        for (String userId : new TreeSet<>(userIds)) {
+            // Length-prefixed, so no user ID can be mistaken for a separator
+            canonical.append(userId.length()).append(':').append(userId);
+        }
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(2 * digest.length);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Returns the list of message IDs, in the order the messages were sent.
+     * The list is fetched through the message ID loader on first access, so
+     * chats that are only listed never pay for it.
      *
      * @return list of message IDs
      */
     public List<String> getMessageIds() {
-        return messageIds;
+        List<String> ids = messageIds;
+        if (ids == null) {
+            // Fetch outside the lock so a slow load never holds up addMessage
+            final Supplier<List<String>> loader = messageIdLoader;
+            final List<String> loaded = new CopyOnWriteArrayList<>();
+            if (loader != null) {
+                loaded.addAll(loader.get());
+            }
+            synchronized (this) {
+                if (messageIds == null) {
+                    messageIds = loaded;
+                }
+                ids = messageIds;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Sets where the message IDs are fetched from when first requested.
+     *
+     * @param messageIdLoader supplies the IDs of the chat's messages
+     */
+    public synchronized void setMessageIdLoader(Supplier<List<String>> messageIdLoader) {
+        this.messageIdLoader = messageIdLoader;
+        this.messageIds = null;
+    }
+
+    /**
+     * Returns the number of messages in the chat.
+     *
+     * @return the message count
+     */
+    public long getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     * Sets the number of messages in the chat.
+     *
+     * @param messageCount the message count
+     */
+    public void setMessageCount(long messageCount) {
+        this.messageCount = messageCount;
+    }
+
+    /**
+     * Returns the ID of the most recent message.
+     *
+     * @return the last message ID, or null if the chat has no messages
+     */
+    public String getLastMessageId() {
+        return lastMessageId;
+    }
+
+    /**
+     * Sets the ID of the most recent message.
+     *
+     * @param lastMessageId the last message ID
+     */
+    public void setLastMessageId(String lastMessageId) {
+        this.lastMessageId = lastMessageId;
     }
 
     /**
@@ -96,12 +211,22 @@ public class Chat {
     }
 
     /**
-     * Adds a message to the chat.
+     * Adds a message to the chat. The message count and last message ID are updated
+     * without fetching the message IDs; the ID is only appended to the list if it was
+     * already fetched, otherwise the fetch will find it.
      *
      * @param messageId the message ID
      */
-    public void addMessage(String messageId) {
-        messageIds.add(messageId);
+    public synchronized void addMessage(String messageId) {
+        if (messageIds == null && messageIdLoader == null) {
+            // Nothing to fetch, so the list is just the messages added here
+            messageIds = new CopyOnWriteArrayList<>();
+        }
+        if (messageIds != null) {
+            messageIds.add(messageId);
+        }
+        messageCount++;
+        lastMessageId = messageId;
     }
 
     /**
@@ -1,11 +1,16 @@
 package entity;
 
 import java.time.Instant;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Represents a message in a chat.
+ *
+ * <p>
+ * Reactions are kept as an immutable snapshot that is replaced on every change, so
+ * a message can be read on one thread while a sync updates it on another.
  */
 public class Message {
 
@@ -16,7 +21,7 @@ public class Message {
     /**
      * Reactions to this message, mapping user ID to emoji.
      */
-    private final Map<String, String> reactions = new HashMap<>();
+    private volatile Map<String, String> reactions = Collections.emptyMap();
     private String content;
     private final Instant timestamp;
 
@@ -77,9 +82,10 @@ public class Message {
     }
 
     /**
-     * Returns the reactions on this message.
+     * Returns the reactions on this message. The map is a snapshot that later
+     * changes to the message do not affect.
      *
-     * @return a map from user ID to emoji
+     * @return an unmodifiable map from user ID to emoji
      */
     public Map<String, String> getReactions() {
         return reactions;
@@ -109,8 +115,23 @@ public class Message {
      * @param userId   the user ID
      * @param reaction the emoji reaction
      */
-    public void addReaction(String userId, String reaction) {
-        reactions.put(userId, reaction);
+    public synchronized void addReaction(String userId, String reaction) {
+        final Map<String, String> changed = new HashMap<>(reactions);
+        changed.put(userId, reaction);
+        reactions = Collections.unmodifiableMap(changed);
+    }
+
+    /**
+     * Removes a user's reaction, if they reacted.
+     *
+     * @param userId the user ID
+     */
+    public synchronized void removeReaction(String userId) {
+        if (reactions.containsKey(userId)) {
+            final Map<String, String> changed = new HashMap<>(reactions);
+            changed.remove(userId);
+            reactions = Collections.unmodifiableMap(changed);
+        }
     }
 }
 
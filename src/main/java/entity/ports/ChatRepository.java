@@ -1,5 +1,7 @@
 package entity.ports;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +28,23 @@ public interface ChatRepository {
      */
     Optional<Chat> findById(String chatId);
 
+    /**
+     * Finds the chats whose participants are exactly the given users, in any order.
+     *
+     * @param participantIds the participant user IDs
+     * @return the matching chats, empty if there are none
+     */
+    default List<Chat> findByParticipants(Collection<String> participantIds) {
+        final String key = Chat.participantKey(participantIds);
+        final List<Chat> result = new ArrayList<>();
+        for (Chat chat : findAll()) {
+            if (chat.getParticipantKey().equals(key)) {
+                result.add(chat);
+            }
+        }
+        return result;
+    }
+
     /**
      * Returns all chats.
      *
@@ -33,6 +52,13 @@ public interface ChatRepository {
      */
     List<Chat> findAll();
 
+    /**
+     * Removes the chat with the given id, if there is one.
+     *
+     * @param chatId the id of the chat
+     */
+    void deleteById(String chatId);
+
     /**
      * Removes all chats stored. Will be empty after this method is called.
      */
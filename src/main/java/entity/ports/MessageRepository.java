@@ -1,5 +1,8 @@
 package entity.ports;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,10 +33,30 @@ public interface MessageRepository {
      * Finds all messages that belong to the given chat.
      *
      * @param chatId the id of the chat
-     * @return a list of messages in the chat
+     * @return a list of messages in the chat, oldest first
      */
     List<Message> findByChatId(String chatId);
 
+    /**
+     * Finds the messages of the given chat sent in a time range.
+     *
+     * @param chatId the id of the chat
+     * @param from   the earliest send time included, or null for no lower bound
+     * @param to     the send time the range stops before, or null for no upper bound
+     * @return the messages in the range, oldest first
+     */
+    default List<Message> findByChatIdBetween(String chatId, Instant from, Instant to) {
+        final List<Message> range = new ArrayList<>();
+        for (Message message : findByChatId(chatId)) {
+            if ((from == null || !message.getTimestamp().isBefore(from))
+                    && (to == null || message.getTimestamp().isBefore(to))) {
+                range.add(message);
+            }
+        }
+        range.sort(Comparator.comparing(Message::getTimestamp));
+        return range;
+    }
+
     /**
      * Deletes the message with the given id.
      *
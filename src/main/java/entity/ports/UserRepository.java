@@ -1,5 +1,8 @@
 package entity.ports;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 import entity.User;
@@ -17,6 +20,20 @@ public interface UserRepository {
      */
     Optional<User> findByUsername(String username);
 
+    /**
+     * Finds several users by username in one call.
+     *
+     * @param usernames the usernames to look up
+     * @return the users found, keyed by the username they were looked up with, in request order
+     */
+    default Map<String, User> findAllByUsernames(Collection<String> usernames) {
+        final Map<String, User> found = new LinkedHashMap<>();
+        for (String username : usernames) {
+            findByUsername(username).ifPresent(user -> found.put(username, user));
+        }
+        return found;
+    }
+
     /**
      * Saves the given user.
      *
@@ -24,4 +41,13 @@ public interface UserRepository {
      * @return the saved user
      */
     User save(User user);
+
+    /**
+     * Tells the repository that the stored user has changed by other means, so any
+     * copy it keeps must be read again. Does nothing by default.
+     *
+     * @param username the username of the changed user
+     */
+    default void evict(String username) {
+    }
 }
@@ -1,16 +1,38 @@
 package entity.repo;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import entity.Chat;
 import entity.ports.ChatRepository;
 
+/**
+ * Keeps chats in memory, indexed by ID and by participant set.
+ *
+ * <p>
+ * The participant index is updated whenever a chat is saved, so a chat whose
+ * participants change must be saved again before it can be found by its new set.
+ *
+ * <p>
+ * Safe to use from several threads. Saves are applied one at a time, while lookups
+ * read the concurrent maps directly and never wait for a save.
+ */
 public class InMemoryChatRepository implements ChatRepository {
 
-    private final Map<String, Chat> chats = new HashMap<>();
+    private final Map<String, Chat> chats = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> chatIdsByParticipants = new ConcurrentHashMap<>();
+    private final Map<String, String> participantKeys = new ConcurrentHashMap<>();
 
     @Override
-    public Chat save(Chat chat) {
+    public synchronized Chat save(Chat chat) {
+        final String key = chat.getParticipantKey();
+        final String oldKey = participantKeys.put(chat.getId(), key);
+        if (!key.equals(oldKey)) {
+            chatIdsByParticipants.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(chat.getId());
+            if (oldKey != null) {
+                unindex(oldKey, chat.getId());
+            }
+        }
         chats.put(chat.getId(), chat);
         return chat;
     }
@@ -20,13 +42,49 @@ public class InMemoryChatRepository implements ChatRepository {
         return Optional.ofNullable(chats.get(chatId));
     }
 
+    /**
+     * Finds the chats of a participant set with one index lookup.
+     */
+    @Override
+    public List<Chat> findByParticipants(Collection<String> participantIds) {
+        final String key = Chat.participantKey(participantIds);
+        final List<Chat> result = new ArrayList<>();
+        for (String chatId : chatIdsByParticipants.getOrDefault(key, Collections.emptySet())) {
+            final Chat chat = chats.get(chatId);
+            // Skip chats whose participants changed after they were saved
+            if (chat != null && chat.getParticipantKey().equals(key)) {
+                result.add(chat);
+            }
+        }
+        return result;
+    }
+
     @Override
     public java.util.List<Chat> findAll() {
         return new java.util.ArrayList<>(chats.values());
     }
 
     @Override
-    public void clear() {
+    public synchronized void deleteById(String chatId) {
+        final Chat chat = chats.remove(chatId);
+        final String key = participantKeys.remove(chatId);
+        if (chat != null && key != null) {
+            unindex(key, chatId);
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
         chats.clear();
+        chatIdsByParticipants.clear();
+        participantKeys.clear();
+    }
+
+    private void unindex(String key, String chatId) {
+        final Set<String> chatIds = chatIdsByParticipants.get(key);
+        chatIds.remove(chatId);
+        if (chatIds.isEmpty()) {
+            chatIdsByParticipants.remove(key);
+        }
     }
-}
\ No newline at end of file
+}
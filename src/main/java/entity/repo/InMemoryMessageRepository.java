@@ -1,17 +1,78 @@
 package entity.repo;
 
+import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import entity.Message;
 import entity.ports.MessageRepository;
 
 /**
- * Will only store the messages of the current chat and will clear when not in use.
-*/
+ * Caches the messages of recently viewed chats, one segment per chat.
+ *
+ * <p>
+ * Each segment keeps its messages ordered by timestamp, so a chat's history and any
+ * time range of it are read in order without scanning other chats or sorting.
+ *
+ * <p>
+ * Segments are kept in least-recently-used order. When the cache holds more than
+ * {@code maxMessages} messages or about {@code maxBytes} of message data, whole
+ * segments of the chats used longest ago are evicted, so a cached chat is either
+ * complete for the pages loaded so far or absent. Cached messages are kept current
+ * by the live message sync rather than by clearing the cache.
+ *
+ * <p>
+ * Safe to use from several threads. Saves, deletes and evictions are applied one at
+ * a time; lookups read the concurrent indexes directly and never wait for them. A
+ * lookup that runs during a save sees the message either before or after it.
+ */
 public class InMemoryMessageRepository implements MessageRepository {
 
-    private final Map<String, Message> messages = new HashMap<>();
+    public static final int DEFAULT_MAX_MESSAGES = 5_000;
+    public static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024;
+
+    // Rough per-message cost of the object headers, timestamp and map entries
+    private static final int MESSAGE_OVERHEAD_BYTES = 160;
+    private static final int REACTION_OVERHEAD_BYTES = 64;
+
+    // Oldest first; the ID breaks ties so messages sent in the same instant are all kept
+    private static final Comparator<Message> TIME_ORDER = Comparator.comparing(Message::getTimestamp)
+            .thenComparing(Message::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final int maxMessages;
+    private final long maxBytes;
+    private final Map<String, Segment> segments = new ConcurrentHashMap<>();
+    private final Map<String, Message> messages = new ConcurrentHashMap<>();
+    // Ticks on every use of a chat; the segment with the lowest tick was used longest ago
+    private final AtomicLong useClock = new AtomicLong();
+    private final Object writeLock = new Object();
+    private volatile int messageCount;
+    private volatile long byteCount;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private volatile long evictionCount;
+
+    /**
+     * Constructs a cache with the default limits.
+     */
+    public InMemoryMessageRepository() {
+        this(DEFAULT_MAX_MESSAGES, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Constructs a cache with the given limits.
+     *
+     * @param maxMessages the most messages kept across all chats
+     * @param maxBytes    the most estimated bytes of message data kept across all chats
+     */
+    public InMemoryMessageRepository(int maxMessages, long maxBytes) {
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+    }
 
     @Override
     public Optional<Message> findById(String id) {
@@ -20,22 +81,210 @@ public class InMemoryMessageRepository implements MessageRepository {
 
     @Override
     public Message save(Message msg) {
-        messages.put(msg.getId(), msg);
+        synchronized (writeLock) {
+            final Message previous = messages.get(msg.getId());
+            if (previous != null && !previous.getChatId().equals(msg.getChatId())) {
+                deleteById(msg.getId());
+            }
+
+            final Segment segment = segments.computeIfAbsent(msg.getChatId(), chatId -> new Segment());
+            touch(segment);
+            final Integer oldSize = segment.sizes.put(msg.getId(), estimateBytes(msg));
+            if (oldSize == null) {
+                messageCount++;
+            }
+            else {
+                byteCount -= oldSize;
+                if (TIME_ORDER.compare(previous, msg) != 0) {
+                    segment.byTime.remove(previous);
+                }
+            }
+            // Replaces an equal entry in place, so readers never miss the message
+            segment.byTime.put(msg, msg);
+            byteCount += segment.sizes.get(msg.getId());
+            messages.put(msg.getId(), msg);
+
+            evictExcept(msg.getChatId());
+        }
         return msg;
     }
 
+    /**
+     * Returns the cached messages of a chat, oldest first, and marks the chat as recently
+     * used. A chat with no cached messages counts as a miss.
+     */
     @Override
     public List<Message> findByChatId(String chatId) {
-        return messages.values().stream()
-                .filter(m -> m.getChatId().equals(chatId))
-                .collect(Collectors.toList());
+        final Segment segment = lookUp(chatId);
+        final List<Message> result = new ArrayList<>();
+        if (segment != null) {
+            result.addAll(segment.byTime.values());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the cached messages of a chat sent in a time range, oldest first, reading
+     * only that range of the chat's index.
+     */
+    @Override
+    public List<Message> findByChatIdBetween(String chatId, Instant from, Instant to) {
+        final Segment segment = lookUp(chatId);
+        final List<Message> result = new ArrayList<>();
+        if (segment != null) {
+            NavigableMap<Message, Message> range = segment.byTime;
+            if (from != null) {
+                range = range.tailMap(probe(chatId, from), true);
+            }
+            if (to != null) {
+                range = range.headMap(probe(chatId, to), false);
+            }
+            result.addAll(range.values());
+        }
+        return result;
+    }
+
+    private Segment lookUp(String chatId) {
+        final Segment segment = segments.get(chatId);
+        if (segment == null) {
+            missCount.increment();
+        }
+        else {
+            hitCount.increment();
+            touch(segment);
+        }
+        return segment;
+    }
+
+    private void touch(Segment segment) {
+        segment.lastUsed = useClock.incrementAndGet();
+    }
+
+    /**
+     * Helper function that builds a search key ordered before every message sent at the given time.
+     */
+    private static Message probe(String chatId, Instant timestamp) {
+        return new Message(null, chatId, null, null, null, timestamp);
     }
 
     @Override
     public void deleteById(String id) {
-        messages.remove(id);
+        synchronized (writeLock) {
+            final Message removed = messages.remove(id);
+            if (removed != null) {
+                final Segment segment = segments.get(removed.getChatId());
+                byteCount -= segment.sizes.remove(id);
+                segment.byTime.remove(removed);
+                messageCount--;
+                if (segment.sizes.isEmpty()) {
+                    segments.remove(removed.getChatId());
+                }
+            }
+        }
     }
 
     @Override
-    public void clear() {this.messages.clear();}
+    public void clear() {
+        synchronized (writeLock) {
+            segments.clear();
+            messages.clear();
+            messageCount = 0;
+            byteCount = 0;
+        }
+    }
+
+    private void evictExcept(String keepChatId) {
+        while (messageCount > maxMessages || byteCount > maxBytes) {
+            Map.Entry<String, Segment> oldest = null;
+            for (Map.Entry<String, Segment> entry : segments.entrySet()) {
+                if (!entry.getKey().equals(keepChatId)
+                        && (oldest == null || entry.getValue().lastUsed < oldest.getValue().lastUsed)) {
+                    oldest = entry;
+                }
+            }
+            if (oldest == null) {
+                break;
+            }
+            segments.remove(oldest.getKey());
+            for (Map.Entry<String, Integer> size : oldest.getValue().sizes.entrySet()) {
+                messages.remove(size.getKey());
+                byteCount -= size.getValue();
+                messageCount--;
+            }
+            evictionCount++;
+        }
+    }
+
+    private static int estimateBytes(Message msg) {
+        int chars = length(msg.getId()) + length(msg.getChatId()) + length(msg.getSenderUserId())
+                + length(msg.getRepliedMessageId()) + length(msg.getContent());
+        int bytes = MESSAGE_OVERHEAD_BYTES;
+        if (msg.getReactions() != null) {
+            for (Map.Entry<String, String> reaction : msg.getReactions().entrySet()) {
+                chars += length(reaction.getKey()) + length(reaction.getValue());
+                bytes += REACTION_OVERHEAD_BYTES;
+            }
+        }
+        return bytes + 2 * chars;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * Returns the number of chat lookups answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of chat lookups that found nothing cached.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the number of chats evicted to stay within the limits.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of messages cached across all chats.
+     *
+     * @return the message count
+     */
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    /**
+     * Returns the estimated size of the cached message data.
+     *
+     * @return the estimated bytes
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * The cached messages of one chat ordered by timestamp, with the size each was estimated at
+     * and when the chat was last used.
+     */
+    private static final class Segment {
+        // Only read and written under the write lock
+        private final Map<String, Integer> sizes = new HashMap<>();
+        private final ConcurrentNavigableMap<Message, Message> byTime = new ConcurrentSkipListMap<>(TIME_ORDER);
+        private volatile long lastUsed;
+    }
 }
@@ -1,26 +1,71 @@
 package entity.repo;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import entity.User;
 import entity.ports.UserRepository;
 
+/**
+ * Keeps users in memory, indexed by exact name and by case-folded name.
+ *
+ * <p>
+ * Names are folded once when a user is saved, so a case-insensitive lookup is a
+ * single hash lookup instead of a comparison against every user. An exact match
+ * wins over a case-insensitive one when two names differ only in case.
+ *
+ * <p>
+ * Safe to use from several threads; lookups never wait for a save.
+ */
 public class InMemoryUserRepository implements UserRepository {
 
-    private final Map<String, User> users = new HashMap<>();
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private final Map<String, User> usersByFoldedName = new ConcurrentHashMap<>();
 
     @Override
     public Optional<User> findByUsername(String username) {
-        return users.values().stream()
-                .filter(u -> u.getName().equalsIgnoreCase(username))
-                .findFirst();
+        return Optional.ofNullable(lookUp(username));
+    }
+
+    @Override
+    public Map<String, User> findAllByUsernames(Collection<String> usernames) {
+        final Map<String, User> found = new LinkedHashMap<>();
+        for (String username : usernames) {
+            final User user = lookUp(username);
+            if (user != null) {
+                found.put(username, user);
+            }
+        }
+        return found;
     }
 
     @Override
     public User save(User user) {
         users.put(user.getName(), user);
+        usersByFoldedName.put(fold(user.getName()), user);
+        return user;
+    }
+
+    private User lookUp(String username) {
+        User user = null;
+        if (username != null) {
+            user = users.get(username);
+            if (user == null) {
+                user = usersByFoldedName.get(fold(username));
+            }
+        }
         return user;
     }
+
+    /**
+     * Helper function that case-folds a name. Upper-casing first folds characters whose
+     * lower-case forms differ, such as the final and medial Greek sigma.
+     */
+    private static String fold(String name) {
+        return name.toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
 }
@@ -0,0 +1,31 @@
+package interfaceadapter;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs presenter updates on the Swing event dispatch thread.
+ *
+ * <p>
+ * Use cases that wait on the database complete on whichever thread finished the
+ * call, while view models and the views listening to them may only be touched
+ * from the event thread.
+ */
+public final class EventThread {
+
+    private EventThread() {
+    }
+
+    /**
+     * Runs the update immediately when already on the event thread, otherwise queues it there.
+     *
+     * @param update the view model update to run
+     */
+    public static void run(Runnable update) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            update.run();
+        }
+        else {
+            SwingUtilities.invokeLater(update);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package interfaceadapter;
+
+import java.beans.PropertyChangeSupport;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+
+import javax.swing.Timer;
+
+/**
+ * Delivers the property change events of the view models on the Swing event dispatch
+ * thread, at most once per frame.
+ *
+ * <p>
+ * A reaction, a history sync and a sent message landing together would otherwise each
+ * make the chat view update and repaint. Instead, events may be posted from any thread;
+ * they are queued on the event thread until the next frame, and events for the same
+ * property of the same view model are merged into one while they wait: the latest value
+ * wins unless the poster gives a merge function. Each frame then fires what is pending
+ * in the order it was first posted. Events fired by listeners during a frame wait for
+ * the next one.
+ *
+ * <p>
+ * Counts the events posted, the events fired after merging and the frames that fired
+ * anything, so the saving can be checked.
+ */
+public final class FrameDispatcher {
+
+    /** The shortest time between two frames, about 60 per second. */
+    public static final int FRAME_MILLIS = 16;
+
+    private static final FrameDispatcher SHARED = new FrameDispatcher(FRAME_MILLIS);
+
+    private final int frameMillis;
+    private final Timer timer;
+
+    // Only touched on the event thread
+    private final Map<Key, Pending> pending = new LinkedHashMap<>();
+    private long lastFrameNanos;
+    private long received;
+    private long delivered;
+    private long frames;
+
+    /**
+     * Constructs a dispatcher with its own frame timer.
+     *
+     * @param frameMillis the shortest time between two frames in milliseconds
+     */
+    FrameDispatcher(int frameMillis) {
+        this.frameMillis = frameMillis;
+        this.timer = new Timer(frameMillis, event -> flush());
+        this.timer.setRepeats(false);
+        this.lastFrameNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(frameMillis);
+    }
+
+    /**
+     * Returns the dispatcher all view models post to.
+     *
+     * @return the shared dispatcher
+     */
+    public static FrameDispatcher shared() {
+        return SHARED;
+    }
+
+    /**
+     * Queues a property change for the next frame. A change still pending for the same
+     * property of the same support takes the new value and keeps its old one.
+     *
+     * @param support      the support whose listeners are told
+     * @param propertyName the property that changed
+     * @param oldValue     the value before the change, or null if not known
+     * @param newValue     the value after the change
+     */
+    public void post(PropertyChangeSupport support, String propertyName, Object oldValue, Object newValue) {
+        EventThread.run(() -> enqueue(support, propertyName, oldValue, newValue, (older, newer) -> newer));
+    }
+
+    /**
+     * Queues a property change for the next frame, combining its value with that of a
+     * change still pending for the same property of the same support.
+     *
+     * @param support      the support whose listeners are told
+     * @param propertyName the property that changed
+     * @param newValue     the value after the change
+     * @param merge        combines the pending value with the new one, in that order
+     * @param <T>          the type of the value
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void post(PropertyChangeSupport support, String propertyName, T newValue, BinaryOperator<T> merge) {
+        EventThread.run(() -> enqueue(support, propertyName, null, newValue,
+                (older, newer) -> merge.apply((T) older, (T) newer)));
+    }
+
+    /**
+     * Helper function that adds a change to the pending ones on the event thread and
+     * makes sure a frame is coming.
+     */
+    private void enqueue(PropertyChangeSupport support, String propertyName, Object oldValue, Object newValue,
+                         BinaryOperator<Object> merge) {
+        received++;
+        final Key key = new Key(support, propertyName);
+        final Pending earlier = pending.get(key);
+        if (earlier == null) {
+            pending.put(key, new Pending(oldValue, newValue));
+        }
+        else {
+            earlier.newValue = merge.apply(earlier.newValue, newValue);
+            if (oldValue == null) {
+                // A change with no old value always fires, so the merged one must too
+                earlier.oldValue = null;
+            }
+        }
+        if (!timer.isRunning()) {
+            // Right away after a quiet spell, otherwise one frame after the last one
+            final long sinceLastFrame = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastFrameNanos);
+            timer.setInitialDelay((int) Math.max(0, frameMillis - sinceLastFrame));
+            timer.start();
+        }
+    }
+
+    /**
+     * Fires every pending change now instead of waiting for the frame timer. Must be
+     * called on the event thread.
+     */
+    public void flush() {
+        timer.stop();
+        lastFrameNanos = System.nanoTime();
+        if (pending.isEmpty()) {
+            return;
+        }
+        final List<Map.Entry<Key, Pending>> due = new ArrayList<>(pending.entrySet());
+        pending.clear();
+        frames++;
+        for (Map.Entry<Key, Pending> change : due) {
+            delivered++;
+            change.getKey().support.firePropertyChange(change.getKey().propertyName,
+                    change.getValue().oldValue, change.getValue().newValue);
+        }
+    }
+
+    /**
+     * Returns the number of changes posted so far, before merging.
+     *
+     * @return the posted change count
+     */
+    public long getReceivedCount() {
+        return received;
+    }
+
+    /**
+     * Returns the number of changes fired to listeners so far, after merging.
+     *
+     * @return the fired change count
+     */
+    public long getDeliveredCount() {
+        return delivered;
+    }
+
+    /**
+     * Returns the number of frames that fired at least one change, which bounds how
+     * often the views were asked to repaint.
+     *
+     * @return the frame count
+     */
+    public long getFrameCount() {
+        return frames;
+    }
+
+    @Override
+    public String toString() {
+        return "FrameDispatcher{received=" + received + ", delivered=" + delivered + ", frames=" + frames + "}";
+    }
+
+    /**
+     * A property of one view model's support.
+     */
+    private static final class Key {
+        private final PropertyChangeSupport support;
+        private final String propertyName;
+
+        Key(PropertyChangeSupport support, String propertyName) {
+            this.support = support;
+            this.propertyName = propertyName;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            final Key that = (Key) other;
+            return support == that.support && Objects.equals(propertyName, that.propertyName);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(support) * 31 + Objects.hashCode(propertyName);
+        }
+    }
+
+    /**
+     * A change waiting for the next frame.
+     */
+    private static final class Pending {
+        private Object oldValue;
+        private Object newValue;
+
+        Pending(Object oldValue, Object newValue) {
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+    }
+}
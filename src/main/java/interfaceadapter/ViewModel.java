@@ -6,7 +6,9 @@ import java.beans.PropertyChangeSupport;
 /**
  * The ViewModel for our CA implementation.
  * This class delegates work to a PropertyChangeSupport object for
- * managing the property change events.
+ * managing the property change events, which are posted through the
+ * {@link FrameDispatcher} so listeners hear of them on the event thread,
+ * at most once per frame.
  *
  * @param <T> The type of state object contained in the model.
  */
@@ -38,7 +40,7 @@ public class ViewModel<T> {
      * Fires a property changed event for the state of this ViewModel.
      */
     public void firePropertyChange() {
-        this.support.firePropertyChange("state", null, this.state);
+        FrameDispatcher.shared().post(this.support, "state", null, this.state);
     }
 
     /**
@@ -51,7 +53,7 @@ public class ViewModel<T> {
      * @param propertyName the label for the property that was changed
      */
     public void firePropertyChange(String propertyName) {
-        this.support.firePropertyChange(propertyName, null, this.state);
+        FrameDispatcher.shared().post(this.support, propertyName, null, this.state);
     }
 
     /**
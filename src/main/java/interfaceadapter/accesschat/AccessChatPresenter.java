@@ -70,10 +70,6 @@ public class AccessChatPresenter implements AccessChatOutputBoundary {
             state.addParticipant(userId);
         }
 
-        for (String messageId : response.getMessageIds()) {
-            state.addMessageId(messageId);
-        }
-
         state.setSuccess(true);
         state.setError(null);
 
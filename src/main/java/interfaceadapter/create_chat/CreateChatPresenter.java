@@ -79,9 +79,6 @@ public class CreateChatPresenter implements CreateChatOutputBoundary {
         for (String userId : response.getUsers()) {
             state.addParticipant(userId);
         }
-        for (String messageId : response.getMessageIds()) {
-            state.addMessageId(messageId);
-        }
         state.setSuccess(true);
         state.setError(null);
 
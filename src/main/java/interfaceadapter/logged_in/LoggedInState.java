@@ -20,6 +20,7 @@ public class LoggedInState {
     private List<String> chatNames = new ArrayList<>();
     private HashMap<String, String> nameToChatIds = new HashMap<>();
     private String recentChatsError = null;
+    private boolean hasMoreChats = false;
 
     public LoggedInState(LoggedInState copy) {
         username = copy.username;
@@ -89,6 +90,14 @@ public class LoggedInState {
 
     public void clearNameToChatIds() {nameToChatIds.clear();}
 
+    public boolean hasMoreChats() {
+        return hasMoreChats;
+    }
+
+    public void setHasMoreChats(boolean hasMoreChats) {
+        this.hasMoreChats = hasMoreChats;
+    }
+
     public void setRecentChatsError(String recentChatsError) {
         this.recentChatsError = recentChatsError;
     }
@@ -1,5 +1,6 @@
 package interfaceadapter.logged_in;
 
+import interfaceadapter.FrameDispatcher;
 import interfaceadapter.ViewModel;
 
 import java.beans.PropertyChangeListener;
@@ -23,7 +24,7 @@ public class LoggedInViewModel extends ViewModel<LoggedInState> {
      * @param propertyName The name of the property that changed.
      */
     public void firePropertyChange(String propertyName) {
-        support.firePropertyChange(propertyName, null, this.getState());
+        FrameDispatcher.shared().post(support, propertyName, null, this.getState());
     }
 
     @Override
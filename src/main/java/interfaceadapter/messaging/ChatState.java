@@ -14,7 +14,6 @@ public class ChatState {
     private boolean isGroup;
     private String chatId;
     private final List<String> participants = new ArrayList<>();
-    private final List<String> messageIds = new ArrayList<>();
     private final List<String[]> messages = new ArrayList<>();
     // Key: messageId, Value: nested key: userId, nested value: reaction
     private final Map<String, Map<String, String>> messageToReaction = new HashMap<>();
@@ -23,6 +22,10 @@ public class ChatState {
     private String error;
     private String currentUserId;
     private Map<String, Map<String, String>> messageReactions = new HashMap<>();
+    private boolean hasOlderMessages;
+    private String searchNote;
+    // Key: replied-to message ID, value: the text replies to it show
+    private Map<String, String> replyPreviews = Map.of();
 
     public ChatState() {}
 
@@ -50,14 +53,6 @@ public class ChatState {
 
     public void removeParticipant(String participant) {this.participants.remove(participant);}
 
-    public List<String> getMessageIds() {return messageIds;}
-
-    public void addMessageId(String messageId) {messageIds.add(messageId);}
-
-    public void clearMessageIds() {
-        messageIds.clear();
-    }
-
     public List<String[]> getMessages() {return messages;}
 
     public void addMessage(String[] message) {messages.add(message);}
@@ -69,11 +64,8 @@ public class ChatState {
     public Map<String, Map<String, String>> getMessageToReaction() {return messageToReaction;}
 
     public void addReaction(String messageId, String userId, String reaction) {
-        // Update messageToReaction
-        Map<String, String> reactions = messageToReaction.get(messageId);
-        if (reactions == null) {
-            reactions = new HashMap<>();
-        }
+        // Reaction maps may be shared with the messages they came from, so change a copy
+        final Map<String, String> reactions = new HashMap<>(messageToReaction.getOrDefault(messageId, Map.of()));
         reactions.put(userId, reaction);
         messageToReaction.put(messageId, reactions);
 
@@ -81,20 +73,37 @@ public class ChatState {
         if (this.messageReactions == null) {
             this.messageReactions = new HashMap<>();
         }
-        if (!this.messageReactions.containsKey(messageId)) {
-            this.messageReactions.put(messageId, new HashMap<>());
-        }
-        this.messageReactions.get(messageId).put(userId, reaction);
+        final Map<String, String> shown = new HashMap<>(messageReactions.getOrDefault(messageId, Map.of()));
+        shown.put(userId, reaction);
+        this.messageReactions.put(messageId, shown);
     }
 
     public void removeReaction(String messageId, String userId, String reaction) {
         Map<String, String> reactions = messageToReaction.get(messageId);
         if (reactions != null && reactions.containsKey(userId) && reactions.get(userId).equals(reaction)) {
+            reactions = new HashMap<>(reactions);
             reactions.remove(userId, reaction);
         }
         messageToReaction.put(messageId, reactions);
     }
 
+    /**
+     * Replaces the reactions of every message. The per-message maps are kept, not
+     * copied, so they must not be changed afterwards; this state copies a message's
+     * map before changing it.
+     *
+     * @param reactions the reactions, keyed by message ID
+     */
+    public void setReactions(Map<String, Map<String, String>> reactions) {
+        messageToReaction.clear();
+        messageToReaction.putAll(reactions);
+        if (this.messageReactions == null) {
+            this.messageReactions = new HashMap<>();
+        }
+        messageReactions.clear();
+        messageReactions.putAll(reactions);
+    }
+
     /**
      * Updates the reactions for a specific message.
      *
@@ -113,13 +122,13 @@ public class ChatState {
      * Gets the reactions for a specific message.
      *
      * @param messageId the message ID
-     * @return map of userId -> emoji, or empty map if no reactions
+     * @return read-only map of userId -> emoji, or empty map if no reactions
      */
     public Map<String, String> getMessageReactions(String messageId) {
         if (messageReactions == null) {
-            return new HashMap<>();
+            return Map.of();
         }
-        return messageReactions.getOrDefault(messageId, new HashMap<>());
+        return messageReactions.getOrDefault(messageId, Map.of());
     }
 
     public void clearReactions() {
@@ -153,12 +162,29 @@ public class ChatState {
 
     public void setMessages(List<String[]> newMessages) { this.messages.clear(); this.messages.addAll(newMessages); }
 
-    public void setMessageIds(List<String> newMessageIds) {
-        this.messageIds.clear();
-        this.messageIds.addAll(newMessageIds);
-    }
-
     public String getCurrentUserId() { return currentUserId; }
 
     public void setCurrentUserId(String currentUserId) { this.currentUserId = currentUserId;}
+
+    /**
+     * Returns what replies to a message show of it.
+     *
+     * @param messageId the ID of the replied-to message
+     * @return the preview text, or null if nothing replies to it
+     */
+    public String getReplyPreview(String messageId) {
+        return replyPreviews.get(messageId);
+    }
+
+    public Map<String, String> getReplyPreviews() {return replyPreviews;}
+
+    public void setReplyPreviews(Map<String, String> replyPreviews) {this.replyPreviews = replyPreviews;}
+
+    public boolean hasOlderMessages() {return hasOlderMessages;}
+
+    public void setHasOlderMessages(boolean hasOlderMessages) {this.hasOlderMessages = hasOlderMessages;}
+
+    public String getSearchNote() {return searchNote;}
+
+    public void setSearchNote(String searchNote) {this.searchNote = searchNote;}
 }
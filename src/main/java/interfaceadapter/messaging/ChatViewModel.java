@@ -1,5 +1,6 @@
 package interfaceadapter.messaging;
 
+import interfaceadapter.FrameDispatcher;
 import interfaceadapter.ViewModel;
 
 import java.beans.PropertyChangeListener;
@@ -10,6 +11,9 @@ import java.beans.PropertyChangeSupport;
  */
 public class ChatViewModel extends ViewModel<ChatState> {
 
+    /** Property fired with a {@link MessageDiff} when only the messages or reactions changed. */
+    public static final String MESSAGES_PROPERTY = "messages";
+
     // Re-declare state field and PropertyChangeSupport to manage listeners
     private ChatState state = new ChatState();
     private final PropertyChangeSupport support = new PropertyChangeSupport(this);
@@ -27,13 +31,25 @@ public class ChatViewModel extends ViewModel<ChatState> {
     public void setState(ChatState state) {
         ChatState oldState = this.state;
         this.state = state;
-        support.firePropertyChange("state", oldState, this.state);
+        FrameDispatcher.shared().post(support, "state", oldState, this.state);
     }
 
-
-
+    @Override
     public void firePropertyChange() {
-        support.firePropertyChange("state", null, this.state);
+        FrameDispatcher.shared().post(support, "state", null, this.state);
+    }
+
+    /**
+     * Tells listeners which messages changed since the last update. The messages
+     * themselves are already in the state. Diffs published within one frame reach the
+     * listeners as one.
+     *
+     * @param diff the changed message IDs; not fired if empty
+     */
+    public void fireMessagesChanged(MessageDiff diff) {
+        if (!diff.isEmpty()) {
+            FrameDispatcher.shared().post(support, MESSAGES_PROPERTY, diff, MessageDiff::merge);
+        }
     }
 
     @Override
@@ -0,0 +1,188 @@
+package interfaceadapter.messaging;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * What changed between two versions of a chat's message list: which message IDs were
+ * inserted, removed, edited or had their reactions changed, and which replied-to
+ * messages now show a different preview in their replies.
+ *
+ * <p>
+ * Presenters compute it before replacing the messages in {@link ChatState} and publish
+ * it with {@link ChatViewModel#fireMessagesChanged(MessageDiff)}, so the view can
+ * update just those rows. The history use case passes unchanged rows and reaction maps
+ * on as the same objects, so comparing an unchanged message is usually a reference check.
+ */
+public final class MessageDiff {
+
+    private final Set<String> inserted;
+    private final Set<String> removed;
+    private final Set<String> edited;
+    private final Set<String> reactionsChanged;
+    private final Set<String> repliesChanged = new LinkedHashSet<>();
+
+    private MessageDiff(Set<String> inserted, Set<String> removed, Set<String> edited,
+                        Set<String> reactionsChanged) {
+        this.inserted = inserted;
+        this.removed = removed;
+        this.edited = edited;
+        this.reactionsChanged = reactionsChanged;
+    }
+
+    /**
+     * Compares two versions of a message list.
+     *
+     * @param oldRows      the rows shown so far; the first element of each row is the message ID
+     * @param oldReactions the reactions shown so far, by message ID
+     * @param newRows      the rows to show
+     * @param newReactions the reactions to show, by message ID
+     * @param oldPreviews  the reply previews shown so far, by replied-to message ID
+     * @param newPreviews  the reply previews to show, by replied-to message ID
+     * @return the differences, empty if the lists show the same thing
+     */
+    public static MessageDiff between(List<String[]> oldRows, Function<String, Map<String, String>> oldReactions,
+                                      List<String[]> newRows, Function<String, Map<String, String>> newReactions,
+                                      Map<String, String> oldPreviews, Map<String, String> newPreviews) {
+        final Set<String> inserted = new LinkedHashSet<>();
+        final Set<String> removed = new LinkedHashSet<>();
+        final Set<String> edited = new LinkedHashSet<>();
+        final Set<String> reactionsChanged = new LinkedHashSet<>();
+        final MessageDiff diff = new MessageDiff(inserted, removed, edited, reactionsChanged);
+
+        // Messages are usually added at either end, so match the common start and end by
+        // position and only look up IDs in the part between
+        int start = 0;
+        while (start < oldRows.size() && start < newRows.size()
+                && oldRows.get(start)[0].equals(newRows.get(start)[0])) {
+            diff.compare(oldRows.get(start), newRows.get(start), oldReactions, newReactions);
+            start++;
+        }
+        int oldEnd = oldRows.size();
+        int newEnd = newRows.size();
+        while (oldEnd > start && newEnd > start
+                && oldRows.get(oldEnd - 1)[0].equals(newRows.get(newEnd - 1)[0])) {
+            oldEnd--;
+            newEnd--;
+            diff.compare(oldRows.get(oldEnd), newRows.get(newEnd), oldReactions, newReactions);
+        }
+
+        final Map<String, String[]> before = new HashMap<>();
+        for (String[] row : oldRows.subList(start, oldEnd)) {
+            before.put(row[0], row);
+        }
+        for (String[] row : newRows.subList(start, newEnd)) {
+            final String[] old = before.remove(row[0]);
+            if (old == null) {
+                inserted.add(row[0]);
+            }
+            else {
+                diff.compare(old, row, oldReactions, newReactions);
+            }
+        }
+        // Whatever is left was not in the new list
+        removed.addAll(before.keySet());
+
+        for (Map.Entry<String, String> preview : newPreviews.entrySet()) {
+            if (!preview.getValue().equals(oldPreviews.get(preview.getKey()))) {
+                diff.repliesChanged.add(preview.getKey());
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Helper function that records whether a message kept in the list was edited or had
+     * its reactions changed.
+     */
+    private void compare(String[] old, String[] row, Function<String, Map<String, String>> oldReactions,
+                         Function<String, Map<String, String>> newReactions) {
+        if (old != row && !Arrays.equals(old, row)) {
+            edited.add(row[0]);
+        }
+        final Map<String, String> oldReaction = oldReactions.apply(row[0]);
+        final Map<String, String> newReaction = newReactions.apply(row[0]);
+        if (oldReaction != newReaction && !Objects.equals(oldReaction, newReaction)) {
+            reactionsChanged.add(row[0]);
+        }
+    }
+
+    /**
+     * Combines this diff with the one that follows it, for a view that has seen neither.
+     * A message named by either is named by the result, so a message inserted by this
+     * diff and removed by the later one is both inserted and removed.
+     *
+     * @param later the diff from this diff's new version to a newer one
+     * @return the changes from this diff's old version to the newer one
+     */
+    public MessageDiff merge(MessageDiff later) {
+        final MessageDiff merged = new MessageDiff(union(inserted, later.inserted), union(removed, later.removed),
+                union(edited, later.edited), union(reactionsChanged, later.reactionsChanged));
+        merged.repliesChanged.addAll(repliesChanged);
+        merged.repliesChanged.addAll(later.repliesChanged);
+        return merged;
+    }
+
+    private static Set<String> union(Set<String> first, Set<String> second) {
+        final Set<String> union = new LinkedHashSet<>(first);
+        union.addAll(second);
+        return union;
+    }
+
+    public Set<String> getInserted() {
+        return inserted;
+    }
+
+    public Set<String> getRemoved() {
+        return removed;
+    }
+
+    public Set<String> getEdited() {
+        return edited;
+    }
+
+    public Set<String> getReactionsChanged() {
+        return reactionsChanged;
+    }
+
+    public Set<String> getRepliesChanged() {
+        return repliesChanged;
+    }
+
+    /**
+     * Returns whether anything changed.
+     *
+     * @return true if both versions show the same messages and reactions
+     */
+    public boolean isEmpty() {
+        return inserted.isEmpty() && removed.isEmpty() && edited.isEmpty() && reactionsChanged.isEmpty()
+                && repliesChanged.isEmpty();
+    }
+
+    /**
+     * Returns every message ID the diff names: inserted, removed, edited, with changed
+     * reactions or with a changed preview in its replies.
+     *
+     * @return the affected message IDs
+     */
+    public Set<String> getAffected() {
+        final Set<String> affected = new LinkedHashSet<>(inserted);
+        affected.addAll(removed);
+        affected.addAll(edited);
+        affected.addAll(reactionsChanged);
+        affected.addAll(repliesChanged);
+        return affected;
+    }
+
+    @Override
+    public String toString() {
+        return "MessageDiff{inserted=" + inserted + ", removed=" + removed + ", edited=" + edited
+                + ", reactionsChanged=" + reactionsChanged + ", repliesChanged=" + repliesChanged + "}";
+    }
+}
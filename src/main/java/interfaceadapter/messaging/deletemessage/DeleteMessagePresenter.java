@@ -53,17 +53,8 @@ public class DeleteMessagePresenter implements DeleteMessageOutputBoundary {
             }
         }
 
-        // ---- filter messageIds ----
-        List<String> filteredIds = new ArrayList<>();
-        for (String id : state.getMessageIds()) {
-            if (!id.equals(deletedId)) {
-                filteredIds.add(id);
-            }
-        }
-
         // ---- replace in state ----
         state.setMessages(filteredMessages);
-        state.setMessageIds(filteredIds);
 
         // ---- clear error + notify view ----
         state.setError(null);
@@ -27,7 +27,6 @@ public class SearchChatHistoryPresenter implements SearchChatHistoryOutputBounda
     public void prepareSuccessView(SearchChatHistoryOutputData outputData) {
         final ChatState state = chatViewModel.getState();
         state.clearMessages();
-        state.clearMessageIds();
 
         final List<Message> messages = outputData.getMatchingMessages();
         for (Message m : messages) {
@@ -38,22 +37,34 @@ public class SearchChatHistoryPresenter implements SearchChatHistoryOutputBounda
                     formatTimestamp(m.getTimestamp()),
             };
             state.addMessage(formattedMessage);
-            state.addMessageId(m.getId());
         }
 
         state.setError(null);
+        state.setSearchNote(outputData.isPartial() ? partialNote(outputData) : null);
         chatViewModel.firePropertyChange();
     }
 
     @Override
-    public void prepareNoMatchesView(String chatId, String keyword) {
+    public void prepareNoMatchesView(String chatId, String keyword, SearchChatHistoryOutputData outputData) {
         final ChatState state = chatViewModel.getState();
         state.clearMessages();
-        state.clearMessageIds();
-        state.setError("No messages found containing keyword: \"" + keyword + "\".");
+        String error = "No messages found containing keyword: \"" + keyword + "\".";
+        if (outputData.isPartial()) {
+            error += " " + partialNote(outputData) + ".";
+        }
+        state.setError(error);
+        state.setSearchNote(null);
         chatViewModel.firePropertyChange();
     }
 
+    /**
+     * Helper function that tells the user older messages were not searched.
+     */
+    private static String partialNote(SearchChatHistoryOutputData outputData) {
+        return String.format("Searched the %,d loaded of %,d messages; scroll up to load older ones",
+                outputData.getSearchedCount(), outputData.getTotalCount());
+    }
+
     @Override
     public void prepareFailView(String errorMessage) {
         final ChatState state = chatViewModel.getState();
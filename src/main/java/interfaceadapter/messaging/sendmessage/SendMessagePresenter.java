@@ -1,5 +1,6 @@
 package interfaceadapter.messaging.sendmessage;
 
+import interfaceadapter.EventThread;
 import interfaceadapter.ViewManagerModel;
 import interfaceadapter.messaging.ChatState;
 import interfaceadapter.messaging.ChatViewModel;
@@ -39,11 +40,14 @@ public class SendMessagePresenter implements SendMessageOutputBoundary {
      */
     @Override
     public void prepareSuccessView(SendMessageOutputData outputData) {
+        EventThread.run(() -> showSuccessView(outputData));
+    }
+
+    private void showSuccessView(SendMessageOutputData outputData) {
         ChatState state = chatViewModel.getState();
         String[] msg = outputData.getMessage();
 
         state.addMessage(msg);
-        state.addMessageId(msg[0]);
         state.setError(null);
 
         chatViewModel.firePropertyChange();
@@ -61,6 +65,10 @@ public class SendMessagePresenter implements SendMessageOutputBoundary {
      */
     @Override
     public void prepareFailView(String errorMessage) {
+        EventThread.run(() -> showFailView(errorMessage));
+    }
+
+    private void showFailView(String errorMessage) {
         ChatState state = chatViewModel.getState();
         state.setError(errorMessage);
         chatViewModel.firePropertyChange();
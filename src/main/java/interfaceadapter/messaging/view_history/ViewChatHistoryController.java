@@ -13,8 +13,22 @@ public class ViewChatHistoryController {
         this.viewChatHistoryInteractor = viewChatHistoryInteractor;
     }
 
-    public void execute(String chatId, List<String> userIds, List<String> messageIds) {
-        ViewChatHistoryInputData inputData = new ViewChatHistoryInputData(chatId,  userIds, messageIds);
+    public void execute(String chatId, List<String> userIds) {
+        ViewChatHistoryInputData inputData = new ViewChatHistoryInputData(chatId, userIds);
         viewChatHistoryInteractor.execute(inputData);
     }
+
+    public void subscribe(String chatId, List<String> userIds) {
+        ViewChatHistoryInputData inputData = new ViewChatHistoryInputData(chatId, userIds);
+        viewChatHistoryInteractor.subscribe(inputData);
+    }
+
+    public void loadPreviousPage(String chatId, List<String> userIds) {
+        ViewChatHistoryInputData inputData = new ViewChatHistoryInputData(chatId, userIds);
+        viewChatHistoryInteractor.loadPreviousPage(inputData);
+    }
+
+    public void unsubscribe(String chatId) {
+        viewChatHistoryInteractor.unsubscribe(chatId);
+    }
 }
@@ -1,16 +1,23 @@
 package interfaceadapter.messaging.view_history;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import interfaceadapter.EventThread;
 import interfaceadapter.ViewManagerModel;
 import interfaceadapter.messaging.ChatState;
 import interfaceadapter.messaging.ChatViewModel;
+import interfaceadapter.messaging.MessageDiff;
+import usecase.messaging.view_history.ReplyPreview;
 import usecase.messaging.view_history.ViewChatHistoryOutputBoundary;
 import usecase.messaging.view_history.ViewChatHistoryOutputData;
 
-import java.util.List;
-import java.util.Map;
-
 public class ViewChatHistoryPresenter implements ViewChatHistoryOutputBoundary {
 
+    private static final String MISSING_REPLY = "Loading…";
+    private static final String DELETED_REPLY = "Deleted message";
+    private static final String UNAVAILABLE_REPLY = "Preview unavailable";
+
     private final ChatViewModel chatViewModel;
     private final ViewManagerModel viewManagerModel;
 
@@ -22,31 +29,73 @@ public class ViewChatHistoryPresenter implements ViewChatHistoryOutputBoundary {
 
     @Override
     public void prepareSuccessView(ViewChatHistoryOutputData outputData) {
+        EventThread.run(() -> showSuccessView(outputData));
+    }
+
+    private void showSuccessView(ViewChatHistoryOutputData outputData) {
         ChatState state = chatViewModel.getState();
 
-        state.clearMessageIds();
-        state.clearMessages();
-        state.clearReactions();
+        final boolean hadError = state.getError() != null;
+        final boolean olderChanged = state.hasOlderMessages() != outputData.hasOlderMessages();
+        final Map<String, Map<String, String>> reactions = outputData.getReactions();
+        final Map<String, String> replyPreviews = formatReplyPreviews(outputData.getReplyPreviews());
+        final MessageDiff diff = MessageDiff.between(state.getMessages(), state::getMessageReactions,
+                outputData.getMessages(), id -> reactions.getOrDefault(id, Map.of()),
+                state.getReplyPreviews(), replyPreviews);
+        if (diff.isEmpty() && !hadError && !olderChanged && !outputData.isPageLoaded()) {
+            // Nothing new since the last refresh
+            return;
+        }
+
         state.setError(null);
+        state.setHasOlderMessages(outputData.hasOlderMessages());
+
+        // The rows and reaction maps are immutable snapshots, so the state can keep them as they are
+        state.setMessages(outputData.getMessages());
+        state.setReactions(reactions);
+        state.setReplyPreviews(replyPreviews);
 
-        List<String[]> messages = outputData.getMessages();
-        for (String[] m : messages) {
-            state.addMessage(m);
+        if (hadError || diff.isEmpty()) {
+            // The error replaced the whole list, or the older page asked for changed nothing
+            // but the flag, or nothing at all, and the view must still hear back about it
+            chatViewModel.firePropertyChange();
         }
+        else {
+            chatViewModel.fireMessagesChanged(diff);
+        }
+    }
 
-        Map<String, Map<String, String>> msgToReaction = outputData.getReactions();
-        for (Map.Entry<String, Map<String, String>> entry : msgToReaction.entrySet()) {
-            String messageId = entry.getKey();
-            for (Map.Entry<String, String> reaction : entry.getValue().entrySet()) {
-                state.addReaction(messageId, reaction.getKey(), reaction.getValue());
+    /**
+     * Helper function that turns each reply preview into the text shown above replies.
+     */
+    private static Map<String, String> formatReplyPreviews(Map<String, ReplyPreview> previews) {
+        final Map<String, String> texts = new HashMap<>();
+        for (Map.Entry<String, ReplyPreview> preview : previews.entrySet()) {
+            final ReplyPreview reply = preview.getValue();
+            final String text;
+            if (reply.getStatus() == ReplyPreview.Status.FOUND) {
+                text = reply.getSenderId() + ": " + reply.getSnippet();
+            }
+            else if (reply.getStatus() == ReplyPreview.Status.DELETED) {
+                text = DELETED_REPLY;
             }
+            else if (reply.getStatus() == ReplyPreview.Status.UNAVAILABLE) {
+                text = UNAVAILABLE_REPLY;
+            }
+            else {
+                text = MISSING_REPLY;
+            }
+            texts.put(preview.getKey(), text);
         }
-
-        chatViewModel.firePropertyChange();
+        return texts;
     }
 
     @Override
     public void prepareNoMessagesView(String chatId) {
+        EventThread.run(() -> showNoMessagesView(chatId));
+    }
+
+    private void showNoMessagesView(String chatId) {
         ChatState state = chatViewModel.getState();
         state.clearMessages();
         state.setError(null);
@@ -55,6 +104,10 @@ public class ViewChatHistoryPresenter implements ViewChatHistoryOutputBoundary {
 
     @Override
     public void prepareFailView(String errorMessage) {
+        EventThread.run(() -> showFailView(errorMessage));
+    }
+
+    private void showFailView(String errorMessage) {
         ChatState state = chatViewModel.getState();
         state.setError(errorMessage);
         chatViewModel.firePropertyChange();
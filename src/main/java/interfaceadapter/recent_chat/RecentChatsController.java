@@ -15,4 +15,13 @@ public class RecentChatsController {
         final RecentChatsInputData recentChatsInputData = new RecentChatsInputData(userId);
         recentChatsInputBoundary.execute(recentChatsInputData);
     }
+
+    /**
+     * Loads the next page of older chats below the ones already listed.
+     * @param userId the current user
+     */
+    public void loadMore(String userId) {
+        final RecentChatsInputData recentChatsInputData = new RecentChatsInputData(userId, true);
+        recentChatsInputBoundary.execute(recentChatsInputData);
+    }
 }
@@ -1,5 +1,6 @@
 package interfaceadapter.recent_chat;
 
+import interfaceadapter.EventThread;
 import interfaceadapter.ViewManagerModel;
 import interfaceadapter.logged_in.LoggedInState;
 import interfaceadapter.logged_in.LoggedInViewModel;
@@ -25,12 +26,17 @@ public class RecentChatsPresenter implements RecentChatsOutputBoundary {
 
     @Override
     public void prepareSuccessView(RecentChatsOutputData outputData) {
+        EventThread.run(() -> showSuccessView(outputData));
+    }
+
+    private void showSuccessView(RecentChatsOutputData outputData) {
         // 从 LoggedInViewModel 中取出 state
         LoggedInState state = loggedInViewModel.getState();
 
         // 塞入最近聊天列表（我们在 RecentChatsOutputData 里实现了 getRecentChats）
         state.setChatNames(outputData.getChatNames());
         state.setNameToChatIds(outputData.getNameToChatIds());
+        state.setHasMoreChats(outputData.hasMore());
         state.setLoggedIn(true);
 
         // 更新 ViewModel
@@ -42,7 +48,6 @@ public class RecentChatsPresenter implements RecentChatsOutputBoundary {
 
         ChatState chatState = chatViewModel.getState();
         chatState.clearMessages();
-        chatState.clearMessageIds();
         chatState.clearReactions();
         chatState.chatViewStop();
         chatViewModel.setState(chatState);
@@ -55,6 +60,10 @@ public class RecentChatsPresenter implements RecentChatsOutputBoundary {
 
     @Override
     public void prepareFailView(String errorMessage) {
+        EventThread.run(() -> showFailView(errorMessage));
+    }
+
+    private void showFailView(String errorMessage) {
         LoggedInState state = loggedInViewModel.getState();
         state.setRecentChatsError(errorMessage);
         loggedInViewModel.setState(state);
@@ -22,4 +22,15 @@ public class SearchUserController {
         final SearchUserInputData inputData = new SearchUserInputData(user, query);
         searchUserInteractor.execute(inputData);
     }
+
+    /**
+     * Fetches the page of search results that follows the given cursor.
+     * @param user   the username of the currently logged-in user
+     * @param query  the search query entered by the user
+     * @param cursor the next-page cursor returned with the previous results
+     */
+    public void execute(String user, String query, String cursor) {
+        final SearchUserInputData inputData = new SearchUserInputData(user, query, cursor);
+        searchUserInteractor.execute(inputData);
+    }
 }
@@ -1,5 +1,8 @@
 package interfaceadapter.search_user;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import usecase.search_user.SearchUserOutputBoundary;
 import usecase.search_user.SearchUserOutputData;
 
@@ -13,7 +16,15 @@ public class SearchUserPresenter implements SearchUserOutputBoundary {
     @Override
     public void prepareSuccessView(SearchUserOutputData outputData) {
         final SearchUserState state = userSearchViewModel.getState();
-        state.setSearchResults(outputData.getUsernames());
+        if (outputData.isNextPage() && state.getSearchResults() != null) {
+            final List<String> results = new ArrayList<>(state.getSearchResults());
+            results.addAll(outputData.getUsernames());
+            state.setSearchResults(results);
+        }
+        else {
+            state.setSearchResults(outputData.getUsernames());
+        }
+        state.setNextCursor(outputData.getNextCursor());
         state.setSearchError(null);
         state.setCreateError(null);
         // Signal the view to update the list
@@ -24,6 +35,7 @@ public class SearchUserPresenter implements SearchUserOutputBoundary {
     public void prepareFailView(String error) {
         final SearchUserState state = userSearchViewModel.getState();
         state.setSearchResults(null);
+        state.setNextCursor(null);
         state.setSearchError(error);
         // Signal the view to display the error
         userSearchViewModel.firePropertyChanged();
@@ -4,6 +4,7 @@ import java.util.List;
 
 public class SearchUserState {
     private List<String> searchResults;
+    private String nextCursor;
     private String searchError = "";
     private String createError = "";
 
@@ -27,6 +28,14 @@ public class SearchUserState {
         return createError;
     }
 
+    /**
+     * Returns the cursor that fetches the results after the ones shown.
+     * @return the cursor, or null if every result is shown
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
     // Setters
     public void setSearchResults(List<String> searchResults) {
         this.searchResults = searchResults;
@@ -41,4 +50,8 @@ public class SearchUserState {
 
         this.createError = createError;
     }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
@@ -3,6 +3,7 @@ package interfaceadapter.search_user;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 
+import interfaceadapter.FrameDispatcher;
 import interfaceadapter.ViewModel;
 
 public class SearchUserViewModel extends ViewModel<SearchUserState> {
@@ -30,7 +31,7 @@ public class SearchUserViewModel extends ViewModel<SearchUserState> {
      * has changed by firing a property change event with the updated state.
      */
     public void firePropertyChanged() {
-        support.firePropertyChange("state", null, this.state);
+        FrameDispatcher.shared().post(support, "state", null, this.state);
     }
 
     @Override
@@ -0,0 +1,29 @@
+package usecase;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Helpers for reporting the failure of an asynchronous data-access call.
+ */
+public final class AsyncErrors {
+
+    private AsyncErrors() {
+    }
+
+    /**
+     * Returns the message of the exception that actually caused a future to fail,
+     * looking through the wrappers added by {@code CompletableFuture}.
+     *
+     * @param error the exception a future completed with
+     * @return the message of the underlying cause
+     */
+    public static String messageOf(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+}
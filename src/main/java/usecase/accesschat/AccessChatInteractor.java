@@ -52,7 +52,6 @@ public class AccessChatInteractor implements AccessChatInputBoundary {
                         chatId,
                         chat.getGroupName(),
                         chat.getParticipantUserIds(),
-                        chat.getMessageIds(),
                         currentUserId
                 );
                 accessChatPresenter.prepareSuccessView(outputData);
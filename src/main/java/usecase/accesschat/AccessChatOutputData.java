@@ -7,17 +7,14 @@ public class AccessChatOutputData {
     private final String chatId;
     private final String groupName;
     private final List<String> users;
-    private final List<String> messageIds;
     private final String currentUserId;
 
     public AccessChatOutputData(boolean isGroupChat, String chatId,
-                                String groupName, List<String> users,
-                                List<String> messageIds, String currentUserId) {
+                                String groupName, List<String> users, String currentUserId) {
         this.isGroupChat = isGroupChat;
         this.chatId = chatId;
         this.groupName = groupName;
         this.users = users;
-        this.messageIds = messageIds;
         this.currentUserId = currentUserId;
     }
 
@@ -37,10 +34,6 @@ public class AccessChatOutputData {
         return users;
     }
 
-    public List<String> getMessageIds() {
-        return messageIds;
-    }
-
     public String getCurrentUserId() {
         return currentUserId;
     }
@@ -3,9 +3,12 @@ package usecase.create_chat;
 import java.awt.Color;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import org.jetbrains.annotations.Nullable;
@@ -67,17 +70,16 @@ public class CreateChatInteractor implements CreateChatInputBoundary {
 
                 if (participantIds != null) {
                     // Find existing chat with all participants
-                    this.userDataAccessObject.updateChatRepository(currentUserOpt.get().getName());
-                    final List<Chat> allChats = chatRepository.findAll();
-                    final Chat chat = findOrMakeIndividualChat(allChats, participantIds, groupName);
+                    this.userDataAccessObject.loadChatsWithParticipants(
+                            currentUserOpt.get().getName(), participantIds);
+                    final Chat chat = findOrMakeIndividualChat(participantIds, groupName);
 
                     final String chatId = chat.getId();
                     final String chatName = chat.getGroupName();
                     final List<String> chatUsers = chat.getParticipantUserIds();
-                    final List<String> chatMessages = chat.getMessageIds();
-
+        
                     final CreateChatOutputData createChatOutputData = new CreateChatOutputData(
-                            false, chatId, chatName, chatUsers, chatMessages, true, null,
+                            false, chatId, chatName, chatUsers, true, null,
                             currentUserOpt.get().getName());
                     this.userPresenter.prepareSuccessView(createChatOutputData);
                 }
@@ -86,7 +88,7 @@ public class CreateChatInteractor implements CreateChatInputBoundary {
         catch (Exception ex) {
             // Handle any unexpected errors
             final CreateChatOutputData createChatOutputData = new CreateChatOutputData(
-                    false, null, null, null, null, false,
+                    false, null, null, null, false,
                     "Failed to create chat: " + ex.getMessage()
             );
             userPresenter.prepareFailView(createChatOutputData);
@@ -94,24 +96,18 @@ public class CreateChatInteractor implements CreateChatInputBoundary {
     }
 
     @Nullable
-    private Chat findOrMakeIndividualChat(List<Chat> allChats, List<String> participantIds, String groupName) {
+    private Chat findOrMakeIndividualChat(List<String> participantIds, String groupName) {
         Chat returnChat = null;
-        if (!allChats.isEmpty()) {
-            for (Chat chat : allChats) {
-                final List<String> participants = chat.getParticipantUserIds();
-                Collections.sort(participants);
-                Collections.sort(participantIds);
-                if (participants.size() == 2 && participantIds.size() == 2
-                        && participants.equals(participantIds)
-                        && groupName.equals(chat.getGroupName())) {
-                    returnChat = chat;
-                    break;
-                }
+        for (Chat chat : chatRepository.findByParticipants(participantIds)) {
+            if (chat.getParticipantUserIds().size() == 2 && participantIds.size() == 2
+                    && groupName.equals(chat.getGroupName())) {
+                returnChat = chat;
+                break;
             }
         }
         if (returnChat == null) {
             // No existing chat found, create new one
-            final String chatId = UUID.randomUUID().toString();
+            final String chatId = newChatId(participantIds, false);
             final Color backgroundColor = new Color(230, 230, 230);
             final Instant timeNow = Instant.now();
             final Chat newChat = new Chat(chatId, groupName, backgroundColor, timeNow);
@@ -134,41 +130,62 @@ public class CreateChatInteractor implements CreateChatInputBoundary {
 
         List<String> result = participantIds;
 
-        for (String username : participantUsernames) {
-            Optional<User> userOpt = userRepository.findByUsername(username);
-            if (userOpt.isEmpty()) {
-                final boolean load = this.userDataAccessObject.loadToEntity(username);
-                if (!load) {
-                    final CreateChatOutputData createChatOutputData = new CreateChatOutputData(
-                            isGroup, null, null, null, null, false,
-                            "Null user not found."
-                    );
-                    userPresenter.prepareFailView(createChatOutputData);
-                    result = null;
-                    break;
-                }
-                else {
-                    // After successful load, query the repository again to get the user
-                    userOpt = userRepository.findByUsername(username);
-                }
+        // Everyone already known is found in one lookup, and the rest are loaded together
+        final Map<String, User> found = new HashMap<>(userRepository.findAllByUsernames(participantUsernames));
+        final Set<String> missing = new LinkedHashSet<>(participantUsernames);
+        missing.removeAll(found.keySet());
+        if (!missing.isEmpty()) {
+            final Set<String> loaded = this.userDataAccessObject.loadAllToEntity(missing);
+            if (!loaded.containsAll(missing)) {
+                final CreateChatOutputData createChatOutputData = new CreateChatOutputData(
+                        isGroup, null, null, null, false,
+                        "Null user not found."
+                );
+                userPresenter.prepareFailView(createChatOutputData);
+                result = null;
+            }
+            else {
+                // After a successful load, query the repository again to get the users
+                found.putAll(userRepository.findAllByUsernames(missing));
             }
+        }
 
-            // Now userOpt should be present (either was already there, or just loaded)
-            if (userOpt.isPresent()) {
-                final String userId = userOpt.get().getName();
-                if (!participantIds.contains(userId)) {
-                    participantIds.add(userId);
+        if (result != null) {
+            for (String username : participantUsernames) {
+                final User user = found.get(username);
+                if (user != null && !participantIds.contains(user.getName())) {
+                    participantIds.add(user.getName());
                 }
             }
         }
         return result;
     }
 
+    /**
+     * Returns the ID for a new chat. A chat between two users is keyed by its
+     * participants, so both users always arrive at the same chat document; a group
+     * gets a random ID, since one set of users may share several named groups.
+     *
+     * @param participantIds the participant user IDs
+     * @param isGroup        whether the chat is a group chat
+     * @return the chat ID
+     */
+    protected static String newChatId(List<String> participantIds, boolean isGroup) {
+        final String chatId;
+        if (isGroup) {
+            chatId = UUID.randomUUID().toString();
+        }
+        else {
+            chatId = Chat.participantKey(participantIds);
+        }
+        return chatId;
+    }
+
     protected boolean validParticipantInput(List<String> participantUsernames) {
         final boolean isValid = participantUsernames != null && !participantUsernames.isEmpty();
         if (!isValid) {
             final CreateChatOutputData outputData = new CreateChatOutputData(
-                    false, null, null, null, null, false,
+                    false, null, null, null, false,
                     "No participants provided"
             );
             userPresenter.prepareFailView(outputData);
@@ -180,7 +197,7 @@ public class CreateChatInteractor implements CreateChatInputBoundary {
         final boolean isValid = groupName.isEmpty() && participantUsernames.size() == 1;
         if (!isValid) {
             final CreateChatOutputData outputData = new CreateChatOutputData(
-                    false, null, null, null, null, false,
+                    false, null, null, null, false,
                     "An error has occurred when initializing your chat");
             System.out.println(groupName + participantUsernames);
             this.userPresenter.prepareFailView(outputData);
@@ -195,7 +212,7 @@ public class CreateChatInteractor implements CreateChatInputBoundary {
 
         if (currentUserOpt.isEmpty()) {
             final CreateChatOutputData createChatOutputData = new CreateChatOutputData(
-                    false, null, null, null, null, false,
+                    false, null, null, null, false,
                     "Session error. Please log in again."
             );
             userPresenter.prepareFailView(createChatOutputData);
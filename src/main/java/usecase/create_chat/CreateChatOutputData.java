@@ -10,32 +10,27 @@ public class CreateChatOutputData {
     private final String chatId;
     private final String groupName;
     private final List<String> users;
-    private final List<String> messageIds;
     private final boolean success;
     private final String message;
     private final String currentUserId;
 
     public CreateChatOutputData(boolean isGroupChat, String chatId, String name,
-                                List<String> users, List<String> messageIds,
-                                boolean success, String message, String currentUserId) {
+                                List<String> users, boolean success, String message, String currentUserId) {
         this.isGroupChat = isGroupChat;
         this.chatId = chatId;
         this.groupName = name;
         this.users = users;
-        this.messageIds = messageIds;
         this.success = success;
         this.message = message;
         this.currentUserId = currentUserId;
     }
 
     public CreateChatOutputData(boolean isGroupChat, String chatId, String name,
-                                List<String> users, List<String> messageIds,
-                                boolean success, String message) {
+                                List<String> users, boolean success, String message) {
         this.isGroupChat = isGroupChat;
         this.chatId = chatId;
         this.groupName = name;
         this.users = users;
-        this.messageIds = messageIds;
         this.success = success;
         this.message = message;
         this.currentUserId = null;
@@ -53,10 +48,6 @@ public class CreateChatOutputData {
         return users;
     }
 
-    public List<String> getMessageIds() {
-        return messageIds;
-    }
-
     public boolean isSuccess() {
         return success;
     }
@@ -1,5 +1,9 @@
 package usecase.create_chat;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
 import entity.Chat;
 
 /**
@@ -14,6 +18,23 @@ public interface CreateChatUserDataAccessInterface {
      */
     boolean loadToEntity(String username);
 
+    /**
+     * Loads several user entities at once, reading the data store in one request
+     * where it can.
+     *
+     * @param usernames the usernames to load
+     * @return the usernames that were found and loaded
+     */
+    default Set<String> loadAllToEntity(Collection<String> usernames) {
+        final Set<String> loaded = new HashSet<>();
+        for (String username : usernames) {
+            if (loadToEntity(username)) {
+                loaded.add(username);
+            }
+        }
+        return loaded;
+    }
+
     /**
      * Updates the chat repository for a given user.
      *
@@ -21,6 +42,17 @@ public interface CreateChatUserDataAccessInterface {
      */
     void updateChatRepository(String username);
 
+    /**
+     * Loads the chats whose participants are exactly the given users into the chat
+     * repository. By default every chat of the user is loaded.
+     *
+     * @param username       the user creating the chat
+     * @param participantIds the participant user IDs, including the user
+     */
+    default void loadChatsWithParticipants(String username, Collection<String> participantIds) {
+        updateChatRepository(username);
+    }
+
     /**
      * Saves a chat to the data store.
      *
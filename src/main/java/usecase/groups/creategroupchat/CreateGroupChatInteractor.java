@@ -2,10 +2,8 @@ package usecase.groups.creategroupchat;
 
 import java.awt.Color;
 import java.time.Instant;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 import org.jetbrains.annotations.Nullable;
 
@@ -82,25 +80,23 @@ public class CreateGroupChatInteractor extends CreateChatInteractor {
 
             // Find existing chat with all participants
             Chat chat = null;
-            this.userDataAccessObject.updateChatRepository(currentUserId);
-            final List<Chat> allChats = chatRepository.findAll();
-            chat = findOrMakeChat(allChats, participantIds, groupName, isGroup);
+            this.userDataAccessObject.loadChatsWithParticipants(currentUserId, participantIds);
+            chat = findOrMakeChat(participantIds, groupName, isGroup);
             if (chat == null) {
                 return;
             }
             final String chatId = chat.getId();
             final String chatName = chat.getGroupName();
             final List<String> chatUsers = chat.getParticipantUserIds();
-            final List<String> chatMessages = chat.getMessageIds();
 
             final CreateChatOutputData createChatOutputData = new CreateChatOutputData(
-                    isGroup, chatId, chatName, chatUsers, chatMessages, true, null, currentUserId);
+                    isGroup, chatId, chatName, chatUsers, true, null, currentUserId);
             this.userPresenter.prepareSuccessView(createChatOutputData);
         }
         catch (IllegalArgumentException | IllegalStateException ex) {
             // Handle any unexpected errors
             final CreateChatOutputData createChatOutputData = new CreateChatOutputData(
-                    false, null, null, null, null, false,
+                    false, null, null, null, false,
                     "Failed to create chat: " + ex.getMessage()
             );
             userPresenter.prepareFailView(createChatOutputData);
@@ -113,14 +109,14 @@ public class CreateGroupChatInteractor extends CreateChatInteractor {
 
         if (groupName == null || groupName.trim().isEmpty()) {
             final CreateChatOutputData outputData = new CreateChatOutputData(
-                    true, null, null, null, null, false,
+                    true, null, null, null, false,
                     "Group name cannot be empty");
             this.userPresenter.prepareFailView(outputData);
             return false;
         }
         else if (groupName.length() > maxGroupName) {
             final CreateChatOutputData outputData = new CreateChatOutputData(
-                    true, null, null, null, null, false,
+                    true, null, null, null, false,
                     "Group name is too long (max 100 characters)"
             );
             userPresenter.prepareFailView(outputData);
@@ -128,7 +124,7 @@ public class CreateGroupChatInteractor extends CreateChatInteractor {
         }
         if (participantUsernames.size() < minGroupNum) {
             final CreateChatOutputData outputData = new CreateChatOutputData(
-                    true, null, null, null, null, false,
+                    true, null, null, null, false,
                     "Group chat requires at least 3 participants"
             );
             userPresenter.prepareFailView(outputData);
@@ -136,7 +132,7 @@ public class CreateGroupChatInteractor extends CreateChatInteractor {
         }
         else if (participantUsernames.size() > maxUsers) {
             final CreateChatOutputData outputData = new CreateChatOutputData(
-                    true, null, null, null, null, false,
+                    true, null, null, null, false,
                     "Group chat max participants is " + maxUsers
             );
             userPresenter.prepareFailView(outputData);
@@ -146,34 +142,25 @@ public class CreateGroupChatInteractor extends CreateChatInteractor {
     }
 
     @Nullable
-    private Chat findOrMakeChat(List<Chat> allChats, List<String> participantIds,
-            String groupName, boolean isGroup) {
+    private Chat findOrMakeChat(List<String> participantIds, String groupName, boolean isGroup) {
         Chat returnChat = null;
-        String chatName = null;
-        if (!allChats.isEmpty()) {
-            for (Chat chat : allChats) {
-                final java.util.List<String> participants = chat.getParticipantUserIds();
-                Collections.sort(participants);
-                Collections.sort(participantIds);
-                if (participants.size() == participantIds.size()
-                        && participants.equals(participantIds)
-                        && groupName.equals(chat.getGroupName())) {
-                    returnChat = chat;
-                    chatName = chat.getGroupName();
-                    break;
-                }
-            }
-            if (returnChat != null && isGroup) {
-                final CreateChatOutputData outputData = new CreateChatOutputData(
-                        isGroup, null, null, null, null,
-                        false, "Chat already exists by the name of: " + chatName);
-                userPresenter.prepareFailView(outputData);
-                return null;
+        for (Chat chat : chatRepository.findByParticipants(participantIds)) {
+            if (chat.getParticipantUserIds().size() == participantIds.size()
+                    && groupName.equals(chat.getGroupName())) {
+                returnChat = chat;
+                break;
             }
         }
+        if (returnChat != null && isGroup) {
+            final CreateChatOutputData outputData = new CreateChatOutputData(
+                    isGroup, null, null, null,
+                    false, "Chat already exists by the name of: " + returnChat.getGroupName());
+            userPresenter.prepareFailView(outputData);
+            return null;
+        }
         if (returnChat == null) {
             // No existing chat found, create new one
-            final String chatId = UUID.randomUUID().toString();
+            final String chatId = newChatId(participantIds, isGroup);
             final Color backgroundColor = new Color(230, 230, 230);
             final Instant timeNow = Instant.now();
             final Chat newChat = new Chat(chatId, groupName, backgroundColor, timeNow);
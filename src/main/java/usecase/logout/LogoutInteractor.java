@@ -1,6 +1,7 @@
 package usecase.logout;
 
 import entity.ports.ChatRepository;
+import entity.ports.MessageRepository;
 
 /**
  * The Logout Interactor.
@@ -9,13 +10,16 @@ public class LogoutInteractor implements LogoutInputBoundary {
     private final LogoutUserDataAccessInterface userDataAccessObject;
     private final LogoutOutputBoundary logoutPresenter;
     private final ChatRepository chatRepository;
+    private final MessageRepository messageRepository;
 
     public LogoutInteractor(LogoutUserDataAccessInterface userDataAccessInterface,
                             LogoutOutputBoundary logoutOutputBoundary,
-                            ChatRepository chatRepository) {
+                            ChatRepository chatRepository,
+                            MessageRepository messageRepository) {
         this.userDataAccessObject = userDataAccessInterface;
         this.logoutPresenter = logoutOutputBoundary;
         this.chatRepository = chatRepository;
+        this.messageRepository = messageRepository;
     }
 
     @Override
@@ -23,7 +27,9 @@ public class LogoutInteractor implements LogoutInputBoundary {
         // * set the current username to null in the DAO
         final String username = userDataAccessObject.getCurrentUsername();
         userDataAccessObject.setCurrentUsername(null);
+        // The repositories may be kept on disk, so the next user must not find this one's chats
         chatRepository.clear();
+        messageRepository.clear();
         // * instantiate the `LogoutOutputData`, which needs to contain the username.
         final LogoutOutputData logoutOutputData = new LogoutOutputData(username);
         // * tell the presenter to prepare a success view.
@@ -37,7 +37,7 @@ public class RemoveReactionInteractor implements RemoveReactionInputBoundary {
         else {
             final Message message = messageOpt.get();
 
-            message.getReactions().remove(userId);
+            message.removeReaction(userId);
             messageRepository.save(message);
 
             try {
@@ -2,13 +2,21 @@ package usecase.messaging.search_history;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
+import entity.Chat;
 import entity.Message;
 import entity.ports.ChatRepository;
 import entity.ports.MessageRepository;
 
 /**
  * Interactor for searching messages by keyword in a given chat.
+ *
+ * <p>
+ * Only the messages loaded into the message repository are searched: Firestore has no
+ * substring queries, and fetching the whole history for a search is what paging avoids.
+ * The output says how many of the chat's messages were searched, so the user can tell
+ * that older ones were not.
  */
 public class SearchChatHistoryInteractor implements SearchChatHistoryInputBoundary {
 
@@ -30,13 +38,15 @@ public class SearchChatHistoryInteractor implements SearchChatHistoryInputBounda
         final String rawKeyword = inputData.getKeyword();
 
         final String trimmedKeyword = rawKeyword == null ? "" : rawKeyword.trim();
+        final Optional<Chat> chat = chatRepository.findById(chatId);
 
         if (trimmedKeyword.isEmpty()) {
             presenter.prepareFailView("Search keyword must not be empty.");
-        } else if (chatRepository.findById(chatId).isEmpty()) {
+        } else if (chat.isEmpty()) {
             presenter.prepareFailView("Chat not found: " + chatId);
-        } 
-      else {
+        }
+        else {
+            final long totalCount = chat.get().getMessageCount();
             final List<Message> allMessages = messageRepository.findByChatId(chatId);
             final List<Message> matching = new ArrayList<>();
 
@@ -48,11 +58,11 @@ public class SearchChatHistoryInteractor implements SearchChatHistoryInputBounda
                 }
             }
 
+            final SearchChatHistoryOutputData outputData =
+                    new SearchChatHistoryOutputData(matching, allMessages.size(), totalCount);
             if (matching.isEmpty()) {
-                presenter.prepareNoMatchesView(chatId, trimmedKeyword);
+                presenter.prepareNoMatchesView(chatId, trimmedKeyword, outputData);
             } else {
-                final SearchChatHistoryOutputData outputData =
-                        new SearchChatHistoryOutputData(matching);
                 presenter.prepareSuccessView(outputData);
             }
         }
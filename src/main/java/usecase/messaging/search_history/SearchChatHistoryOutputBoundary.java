@@ -16,10 +16,11 @@ public interface SearchChatHistoryOutputBoundary {
     /**
      * Prepares the view model when no messages match the keyword.
      *
-     * @param chatId  the ID of the chat where the search was conducted
-     * @param keyword the keyword that was searched
+     * @param chatId     the ID of the chat where the search was conducted
+     * @param keyword    the keyword that was searched
+     * @param outputData the empty results, with how much of the history was searched
      */
-    void prepareNoMatchesView(String chatId, String keyword);
+    void prepareNoMatchesView(String chatId, String keyword, SearchChatHistoryOutputData outputData);
 
     /**
      * Prepares the view model for a failed search,
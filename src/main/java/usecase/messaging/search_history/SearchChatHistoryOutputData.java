@@ -6,9 +6,24 @@ import entity.Message;
 
 public class SearchChatHistoryOutputData {
     private final List<Message> matchingMessages;
+    private final int searchedCount;
+    private final long totalCount;
 
     public SearchChatHistoryOutputData(List<Message> matchingMessages) {
+        this(matchingMessages, matchingMessages.size(), matchingMessages.size());
+    }
+
+    /**
+     * Constructs the results of a search that only saw the messages loaded so far.
+     *
+     * @param matchingMessages the loaded messages that contain the keyword
+     * @param searchedCount    the number of loaded messages that were searched
+     * @param totalCount       the number of messages in the chat
+     */
+    public SearchChatHistoryOutputData(List<Message> matchingMessages, int searchedCount, long totalCount) {
         this.matchingMessages = matchingMessages;
+        this.searchedCount = searchedCount;
+        this.totalCount = totalCount;
     }
 
     public List<Message> getMatchingMessages() {
@@ -18,4 +33,21 @@ public class SearchChatHistoryOutputData {
     public List<Message> getMessages() {
         return matchingMessages;
     }
+
+    public int getSearchedCount() {
+        return searchedCount;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns whether older messages of the chat were not loaded and so not searched.
+     *
+     * @return true if only part of the history was searched
+     */
+    public boolean isPartial() {
+        return searchedCount < totalCount;
+    }
 }
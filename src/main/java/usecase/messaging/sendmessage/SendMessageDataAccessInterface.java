@@ -1,6 +1,7 @@
 package usecase.messaging.sendmessage;
 
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
 
 import entity.Message;
 
@@ -34,4 +35,60 @@ public interface SendMessageDataAccessInterface {
      * @param timestamp the time of the newly-sent message
      */
     void updateChat(String chatId, String messageId, Instant timestamp);
+
+    /**
+     * Persists the given message without blocking the caller.
+     *
+     * <p>
+     * The default implementation runs {@link #sendMessage(Message)} on the calling
+     * thread. Remote implementations override it so the network round trip does not
+     * block the Swing event thread.
+     *
+     * @param message the message to be saved
+     * @return a future completed with the saved message
+     */
+    default CompletableFuture<Message> sendMessageAsync(Message message) {
+        try {
+            return CompletableFuture.completedFuture(sendMessage(message));
+        }
+        catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    /**
+     * Updates the chat after a new message is sent, without blocking the caller.
+     *
+     * @param chatId    the chat that should be updated
+     * @param messageId the ID of the newly-sent message
+     * @param timestamp the time of the newly-sent message
+     * @return a future completed once the chat is updated
+     */
+    default CompletableFuture<Void> updateChatAsync(String chatId, String messageId, Instant timestamp) {
+        try {
+            updateChat(chatId, messageId, timestamp);
+            return CompletableFuture.completedFuture(null);
+        }
+        catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    /**
+     * Persists a message and records it as its chat's latest message in one atomic
+     * write, so a failure can never leave a message its chat does not count.
+     *
+     * <p>
+     * The default implementation calls {@link #sendMessageAsync(Message)} and then
+     * {@link #updateChatAsync(String, String, Instant)}, which is not atomic. Remote
+     * implementations override it to commit both documents in a single transaction.
+     *
+     * @param message the message to be saved; its timestamp becomes the chat's most recent activity
+     * @return a future completed with the saved message once both documents are written
+     */
+    default CompletableFuture<Message> postMessageAsync(Message message) {
+        return sendMessageAsync(message)
+                .thenCompose(saved -> updateChatAsync(message.getChatId(), message.getId(), message.getTimestamp())
+                        .thenApply(ignored -> saved));
+    }
 }
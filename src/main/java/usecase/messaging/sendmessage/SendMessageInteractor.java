@@ -4,6 +4,7 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,6 +14,7 @@ import entity.User;
 import entity.ports.ChatRepository;
 import entity.ports.MessageRepository;
 import entity.ports.UserRepository;
+import usecase.AsyncErrors;
 
 /**
  * Interactor for the send message use case.
@@ -59,8 +61,9 @@ public class SendMessageInteractor implements SendMessageInputBoundary {
      *     <li>Validate that the chat exists.</li>
      *     <li>Validate that the sender user exists.</li>
      *     <li>Create a new {@link Message} entity.</li>
-     *     <li>Persist the message and update the chat via {@link SendMessageDataAccessInterface}.</li>
-     *     <li>Build {@link SendMessageOutputData} and call the presenter.</li>
+     *     <li>Persist the message and update the chat in one atomic write via
+     *     {@link SendMessageDataAccessInterface}, without blocking the caller.</li>
+     *     <li>Once the write completes, build {@link SendMessageOutputData} and call the presenter.</li>
      * </ol>
      *
      * @param inputData input data for the use case, including chat ID,
@@ -93,28 +96,41 @@ public class SendMessageInteractor implements SendMessageInputBoundary {
                         senderId,
                         repliedMessageId,
                         content,
-                        Instant.now()
+                        // Firestore keeps milliseconds, so the echo of the send matches this copy
+                        Instant.now().truncatedTo(ChronoUnit.MILLIS)
                 );
 
-                chat.setLastMessage(Instant.now());
-                final Message saved = dataAccess.sendMessage(message);
-                dataAccess.updateChat(chatId, message.getId(), chat.getLastMessage());
-
-                // Array index order: [messageId, senderDisplayName, messageContent, messageTimestamp, repliedId]
+                chat.setLastMessage(message.getTimestamp());
                 final String senderName = senderOpt.get().getName();
-                final String[] msg = {
-                        saved.getId(), senderName,
-                        saved.getContent(),
-                        makeString(saved.getTimestamp()),
-                        saved.getRepliedMessageId(),
-                };
-
-                final SendMessageOutputData outputData = new SendMessageOutputData(chatId, msg);
-                presenter.prepareSuccessView(outputData);
+
+                // Persist without blocking; the message and the chat update are committed together
+                dataAccess.postMessageAsync(message)
+                        .whenComplete((saved, error) -> {
+                            if (error != null) {
+                                presenter.prepareFailView("Failed to send message: "
+                                        + AsyncErrors.messageOf(error));
+                            }
+                            else {
+                                presentSent(chatId, senderName, saved);
+                            }
+                        });
             }
         }
     }
 
+    private void presentSent(String chatId, String senderName, Message saved) {
+        // Array index order: [messageId, senderDisplayName, messageContent, messageTimestamp, repliedId]
+        final String[] msg = {
+                saved.getId(), senderName,
+                saved.getContent(),
+                makeString(saved.getTimestamp()),
+                saved.getRepliedMessageId(),
+        };
+
+        final SendMessageOutputData outputData = new SendMessageOutputData(chatId, msg);
+        presenter.prepareSuccessView(outputData);
+    }
+
     /**
      * Formats the message timestamp into a human-readable string.
      *
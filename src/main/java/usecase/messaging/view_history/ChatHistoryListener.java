@@ -0,0 +1,14 @@
+package usecase.messaging.view_history;
+
+/**
+ * Callback used by a chat history subscription to report that the messages of a chat
+ * in the {@link entity.ports.MessageRepository} have changed.
+ */
+public interface ChatHistoryListener {
+
+    /**
+     * Called after the repository has been updated with new, edited or removed messages.
+     * @param chatId the ID of the chat whose messages changed
+     */
+    void onHistoryChanged(String chatId);
+}
@@ -0,0 +1,26 @@
+package usecase.messaging.view_history;
+
+import java.time.Instant;
+
+/**
+ * Position in a chat's history, identifying the message a page starts after.
+ * Messages are ordered by timestamp, with the message ID breaking ties.
+ */
+public class HistoryCursor {
+
+    private final Instant timestamp;
+    private final String messageId;
+
+    public HistoryCursor(Instant timestamp, String messageId) {
+        this.timestamp = timestamp;
+        this.messageId = messageId;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+}
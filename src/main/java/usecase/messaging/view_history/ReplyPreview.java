@@ -0,0 +1,111 @@
+package usecase.messaging.view_history;
+
+import java.util.Objects;
+
+/**
+ * What a reply shows of the message it replies to: the start of its text and its
+ * sender, or why they are not known.
+ */
+public final class ReplyPreview {
+
+    /**
+     * Whether the replied-to message was found.
+     */
+    public enum Status {
+        /** The message was found; the snippet and sender are set. */
+        FOUND,
+        /** The message is outside the loaded pages and is being fetched. */
+        MISSING,
+        /** The message no longer exists. */
+        DELETED,
+        /** Fetching the message failed; it is asked for again on the next refresh. */
+        UNAVAILABLE
+    }
+
+    private static final ReplyPreview MISSING = new ReplyPreview(Status.MISSING, null, null);
+    private static final ReplyPreview DELETED = new ReplyPreview(Status.DELETED, null, null);
+    private static final ReplyPreview UNAVAILABLE = new ReplyPreview(Status.UNAVAILABLE, null, null);
+
+    private final Status status;
+    private final String snippet;
+    private final String senderId;
+
+    private ReplyPreview(Status status, String snippet, String senderId) {
+        this.status = status;
+        this.snippet = snippet;
+        this.senderId = senderId;
+    }
+
+    /**
+     * Returns the preview of a message that was found.
+     *
+     * @param snippet  the start of the message's text
+     * @param senderId the sender of the message
+     * @return the preview
+     */
+    public static ReplyPreview found(String snippet, String senderId) {
+        return new ReplyPreview(Status.FOUND, snippet, senderId);
+    }
+
+    /**
+     * Returns the preview of a message that is still being fetched.
+     *
+     * @return the preview
+     */
+    public static ReplyPreview missing() {
+        return MISSING;
+    }
+
+    /**
+     * Returns the preview of a message that no longer exists.
+     *
+     * @return the preview
+     */
+    public static ReplyPreview deleted() {
+        return DELETED;
+    }
+
+    /**
+     * Returns the preview of a message that could not be fetched.
+     *
+     * @return the preview
+     */
+    public static ReplyPreview unavailable() {
+        return UNAVAILABLE;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public String getSenderId() {
+        return senderId;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ReplyPreview)) {
+            return false;
+        }
+        final ReplyPreview that = (ReplyPreview) other;
+        return status == that.status && Objects.equals(snippet, that.snippet)
+                && Objects.equals(senderId, that.senderId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(status, snippet, senderId);
+    }
+
+    @Override
+    public String toString() {
+        return "ReplyPreview{" + status + ", " + senderId + ": " + snippet + "}";
+    }
+}
@@ -1,18 +1,86 @@
 package usecase.messaging.view_history;
 
+import entity.Message;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface ViewChatHistoryDataAccessInterface {
 
     /**
-     * Retrieves the message history for the specified chat and populates
-     * the provided lists with the associated user IDs and message IDs.
-     * @param chatId      the unique identifier of the chat whose history
-     *                    is being retrieved
-     * @param userIds     an output list that will be filled with the IDs
-     *                    of the users who sent the messages
-     * @param messageIds  an output list that will be filled with the IDs
-     *                    of the messages in the chat
+     * Loads one page of a chat's history into the message repository. Pages run
+     * from newest to oldest and are ordered by timestamp on the server, so the cost
+     * of a page does not depend on the length of the history.
+     * @param chatId  the ID of the chat whose history is being retrieved
+     * @param userIds if not empty, only messages sent by these users are kept
+     * @param before  the cursor returned with the previous page, or null for the newest page
+     * @param limit   the maximum number of messages in the page
+     * @return the cursor of the oldest message in the page, or null if there are no older messages
+     */
+    HistoryCursor loadHistoryPage(String chatId, List<String> userIds, HistoryCursor before, int limit);
+
+    /**
+     * Loads one page of a chat's history without blocking the caller. The future
+     * completes on the thread that owns the repositories. The default implementation
+     * runs {@link #loadHistoryPage} on the calling thread.
+     * @param chatId  the ID of the chat whose history is being retrieved
+     * @param userIds if not empty, only messages sent by these users are kept
+     * @param before  the cursor returned with the previous page, or null for the newest page
+     * @param limit   the maximum number of messages in the page
+     * @return a future completed with the cursor of the oldest message in the page,
+     *         or null if there are no older messages
+     */
+    default CompletableFuture<HistoryCursor> loadHistoryPageAsync(String chatId, List<String> userIds,
+                                                                  HistoryCursor before, int limit) {
+        try {
+            return CompletableFuture.completedFuture(loadHistoryPage(chatId, userIds, before, limit));
+        }
+        catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    /**
+     * Reads the given messages in one batch without saving them to the message
+     * repository, for replies to messages outside the loaded pages.
+     * @param messageIds the IDs of the messages to read
+     * @return the messages that exist, by ID; IDs of deleted messages are left out
+     */
+    Map<String, Message> loadMessages(Collection<String> messageIds);
+
+    /**
+     * Reads the given messages in one batch without blocking the caller. The future
+     * completes on the thread that owns the repositories. The default implementation
+     * runs {@link #loadMessages} on the calling thread.
+     * @param messageIds the IDs of the messages to read
+     * @return a future completed with the messages that exist, by ID
+     */
+    default CompletableFuture<Map<String, Message>> loadMessagesAsync(Collection<String> messageIds) {
+        try {
+            return CompletableFuture.completedFuture(loadMessages(messageIds));
+        }
+        catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    /**
+     * Starts streaming the messages of a chat into the message repository.
+     * The listener is called once the initial snapshot has been applied and
+     * afterwards only when a message is actually added, edited or removed.
+     * Subscribing again to the same chat replaces the previous subscription.
+     * @param chatId   the ID of the chat to listen to
+     * @param userIds  if not empty, only messages sent by these users are kept
+     * @param from     only messages at or after this cursor are streamed; null streams the whole chat
+     * @param listener notified after the repository has been updated
+     */
+    void subscribeToChat(String chatId, List<String> userIds, HistoryCursor from, ChatHistoryListener listener);
+
+    /**
+     * Stops streaming the messages of a chat. Does nothing if there is no subscription.
+     * @param chatId the ID of the chat to stop listening to
      */
-    void findChatMessages(String chatId, List<String> userIds, List<String> messageIds);
+    void unsubscribeFromChat(String chatId);
 }
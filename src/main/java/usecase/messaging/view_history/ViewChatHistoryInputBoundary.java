@@ -3,9 +3,29 @@ package usecase.messaging.view_history;
 public interface ViewChatHistoryInputBoundary {
 
     /**
-     * Executes the use case to retrieve the message history for a chat.
+     * Executes the use case to retrieve the newest page of the message history for a chat.
      * @param inputData the input data required to fetch the chat history,
      *                  such as the chat ID and any relevant filters
      */
     void execute(ViewChatHistoryInputData inputData);
+
+    /**
+     * Loads the page of messages just before the oldest one presented so far.
+     * Does nothing once the start of the history has been reached.
+     * @param inputData the input data identifying the chat and any relevant filters
+     */
+    void loadPreviousPage(ViewChatHistoryInputData inputData);
+
+    /**
+     * Subscribes to live updates of a chat. The newest page of the history is presented
+     * once it arrives and again every time a message in it or after it changes.
+     * @param inputData the input data identifying the chat and any relevant filters
+     */
+    void subscribe(ViewChatHistoryInputData inputData);
+
+    /**
+     * Stops the live updates of a chat.
+     * @param chatId the ID of the chat
+     */
+    void unsubscribe(String chatId);
 }
@@ -11,12 +11,9 @@ public class ViewChatHistoryInputData {
 
     private final List<String> userIds;
 
-    private final List<String> messageIds;
-
-    public ViewChatHistoryInputData(String chatId, List<String> userIds, List<String> messageIds) {
+    public ViewChatHistoryInputData(String chatId, List<String> userIds) {
         this.chatId = chatId;
         this.userIds = userIds;
-        this.messageIds = messageIds;
     }
 
     public String getChatId() {
@@ -26,8 +23,4 @@ public class ViewChatHistoryInputData {
     public List<String> getUserIds() {
         return userIds;
     }
-
-    public List<String> getMessageIds() {
-        return messageIds;
-    }
 }
@@ -4,34 +4,61 @@ import entity.Message;
 import entity.ports.ChatRepository;
 import entity.ports.MessageRepository;
 import entity.ports.UserRepository;
+import usecase.AsyncErrors;
 
 import java.time.Instant;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Use case: view the history of a given chat.
  */
 public class ViewChatHistoryInteractor implements ViewChatHistoryInputBoundary {
 
+    /**
+     * Number of messages loaded per history page.
+     */
+    public static final int PAGE_SIZE = 50;
+
     private static final int MESSAGE_DATA_SIZE = 5;
     private static final int INDEX_ID = 0;
     private static final int INDEX_SENDER = 1;
     private static final int INDEX_CONTENT = 2;
     private static final int INDEX_TIMESTAMP = 3;
     private static final int INDEX_REPLY_TO = 4;
+    private static final int REPLY_SNIPPET_LENGTH = 25;
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss").withZone(ZoneOffset.UTC);
 
     private final ChatRepository chatRepository;
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
     private final ViewChatHistoryOutputBoundary presenter;
     private final ViewChatHistoryDataAccessInterface dataAccess;
+    // Cursor of the oldest loaded page per chat; a null value means the whole history is loaded
+    private final Map<String, HistoryCursor> olderPages = new HashMap<>();
+    private final Set<String> subscribedChats = new HashSet<>();
+    // Presented row of each cached message. Rows only hold fields a message never changes, so
+    // a message keeps its row across refreshes; rows go when their messages leave the cache
+    private final Map<Message, String[]> rows = Collections.synchronizedMap(new WeakHashMap<>());
+    // Previews of replied-to messages outside the loaded pages, once fetched
+    private final Map<String, ReplyPreview> fetchedReplies = new HashMap<>();
+    // Replied-to messages being fetched, so each is asked for once
+    private final Set<String> fetchingReplies = new HashSet<>();
+    // Replied-to messages whose last fetch failed, shown as unavailable until fetched
+    private final Set<String> unavailableReplies = new HashSet<>();
+    // Set while presenting a failed fetch, so that presentation does not ask straight away
+    private boolean presentingFailedFetch;
 
     public ViewChatHistoryInteractor(ChatRepository chatRepository,
                                      MessageRepository messageRepository,
@@ -46,14 +73,12 @@ public class ViewChatHistoryInteractor implements ViewChatHistoryInputBoundary {
     }
 
     /**
-     * Load all messages for the given chat and send them to the presenter,
-     * sorted from oldest to newest.
+     * Load the newest page of messages for the given chat and send the loaded
+     * messages to the presenter, sorted from oldest to newest.
      */
     @Override
     public void execute(ViewChatHistoryInputData inputData) {
         final String chatId = inputData.getChatId();
-        final List<String> userIds = inputData.getUserIds();
-        final List<String> messageIds = inputData.getMessageIds();
 
         try {
             // 1) Check if Chat exists
@@ -62,50 +87,245 @@ public class ViewChatHistoryInteractor implements ViewChatHistoryInputBoundary {
                 return;
             }
 
-            // 2) Let dataAccess perform necessary pre-loading / validation
-            dataAccess.findChatMessages(chatId, userIds, messageIds);
+            // 2) Load the newest page into the repository, then present it
+            presentWhenLoaded(loadPage(chatId, inputData.getUserIds(), null), chatId);
+        } catch (Exception e) {
+            presenter.prepareFailView("Failed to load chat history: " + e.getMessage());
+        }
+    }
 
-            // 3) Retrieve all messages from the repository
-            final List<Message> messageList =
-                    new ArrayList<>(messageRepository.findByChatId(chatId));
+    /**
+     * Load the page before the oldest loaded message and present everything loaded so far,
+     * unless the chat was left while the page loaded.
+     */
+    @Override
+    public void loadPreviousPage(ViewChatHistoryInputData inputData) {
+        final String chatId = inputData.getChatId();
 
-            if (messageList.isEmpty()) {
-                presenter.prepareFailView("No messages in this chat: " + chatId);
+        final HistoryCursor before = olderPages.get(chatId);
+        if (before == null) {
+            // Start of the history already reached, or the first page not loaded yet
+            return;
+        }
+        loadPage(chatId, inputData.getUserIds(), before).whenComplete((oldest, error) -> {
+            if (!subscribedChats.contains(chatId)) {
+                // Another chat or search results are shown now; the page stays cached
                 return;
             }
+            if (error != null) {
+                presenter.prepareFailView("Failed to load chat history: " + AsyncErrors.messageOf(error));
+            }
+            else {
+                presentOrFail(chatId, true);
+            }
+        });
+    }
 
-            // 4) Sort from oldest to newest by timestamp
-            messageList.sort(Comparator.comparing(Message::getTimestamp));
-
-            // 5) Assemble data for the presenter
-            final List<String[]> messagesData = new ArrayList<>();
-            final Map<String, Map<String, String>> reactions = new HashMap<>();
+    /**
+     * Subscribe to the given chat so its history is presented whenever it changes.
+     * A chat still in the message cache is presented straight away and live updates
+     * start at its newest cached message, so reopening it reads only what was sent
+     * since; changes to the older cached messages are not read again. Otherwise only
+     * the newest page is loaded up front; live updates cover that page and everything
+     * sent after it.
+     */
+    @Override
+    public void subscribe(ViewChatHistoryInputData inputData) {
+        final String chatId = inputData.getChatId();
 
-            for (Message msg : messageList) {
-                final String[] data = new String[MESSAGE_DATA_SIZE];
-                data[INDEX_ID] = msg.getId();
-                data[INDEX_SENDER] = msg.getSenderUserId();
-                data[INDEX_CONTENT] = msg.getContent();
-                data[INDEX_TIMESTAMP] = makeString(msg.getTimestamp());
-                data[INDEX_REPLY_TO] =
-                        msg.getRepliedMessageId() != null ? msg.getRepliedMessageId() : "";
+        try {
+            if (chatRepository.findById(chatId).isEmpty()) {
+                presenter.prepareFailView("Chat not found: " + chatId);
+                return;
+            }
 
-                messagesData.add(data);
+            subscribedChats.add(chatId);
+            final List<Message> cached = messageRepository.findByChatId(chatId);
+            if (!cached.isEmpty()) {
+                final Message oldest = cached.get(0);
+                final Message newest = cached.get(cached.size() - 1);
+                // Older pages may exist even if the cache was filled by another path; a null
+                // cursor means the whole history is loaded, so it is kept
+                if (!olderPages.containsKey(chatId)) {
+                    olderPages.put(chatId, new HistoryCursor(oldest.getTimestamp(), oldest.getId()));
+                }
+                presentOrFail(chatId);
+                dataAccess.subscribeToChat(chatId, inputData.getUserIds(),
+                        new HistoryCursor(newest.getTimestamp(), newest.getId()), this::presentOrFail);
+                return;
+            }
 
-                if (msg.getReactions() != null && !msg.getReactions().isEmpty()) {
-                    reactions.put(msg.getId(), new HashMap<>(msg.getReactions()));
+            loadPage(chatId, inputData.getUserIds(), null).whenComplete((oldest, error) -> {
+                if (error != null) {
+                    presenter.prepareFailView("Failed to load chat history: " + AsyncErrors.messageOf(error));
+                }
+                else if (subscribedChats.contains(chatId)) {
+                    // Still wanted once the first page arrived
+                    dataAccess.subscribeToChat(chatId, inputData.getUserIds(), oldest, this::presentOrFail);
                 }
+            });
+        } catch (Exception e) {
+            presenter.prepareFailView("Failed to load chat history: " + e.getMessage());
+        }
+    }
+
+    private CompletableFuture<HistoryCursor> loadPage(String chatId, List<String> userIds, HistoryCursor before) {
+        return dataAccess.loadHistoryPageAsync(chatId, userIds, before, PAGE_SIZE)
+                .thenApply(oldest -> {
+                    olderPages.put(chatId, oldest);
+                    return oldest;
+                });
+    }
+
+    private void presentWhenLoaded(CompletableFuture<HistoryCursor> load, String chatId) {
+        load.whenComplete((oldest, error) -> {
+            if (error != null) {
+                presenter.prepareFailView("Failed to load chat history: " + AsyncErrors.messageOf(error));
             }
+            else {
+                presentOrFail(chatId);
+            }
+        });
+    }
 
-            final ViewChatHistoryOutputData outputData =
-                    new ViewChatHistoryOutputData(messagesData, reactions);
+    private void presentOrFail(String chatId) {
+        presentOrFail(chatId, false);
+    }
 
-            presenter.prepareSuccessView(outputData);
+    private void presentOrFail(String chatId, boolean pageLoaded) {
+        try {
+            presentHistory(chatId, pageLoaded);
         } catch (Exception e) {
             presenter.prepareFailView("Failed to load chat history: " + e.getMessage());
         }
     }
 
+    @Override
+    public void unsubscribe(String chatId) {
+        subscribedChats.remove(chatId);
+        dataAccess.unsubscribeFromChat(chatId);
+        // The loaded pages stay cached, and so does the cursor for the page before them
+    }
+
+    /**
+     * Send the messages of the chat currently in the repository to the presenter,
+     * sorted from oldest to newest. These are the loaded pages plus anything
+     * streamed in since.
+     * @param chatId the ID of the chat
+     * @param pageLoaded whether this answers a request for an older page
+     */
+    private void presentHistory(String chatId, boolean pageLoaded) {
+        // 3) Retrieve all messages from the repository, already ordered oldest to newest
+        final List<Message> messageList = messageRepository.findByChatId(chatId);
+
+        if (messageList.isEmpty()) {
+            presenter.prepareFailView("No messages in this chat: " + chatId);
+            return;
+        }
+
+        // 4) Assemble data for the presenter
+        final List<String[]> messagesData = new ArrayList<>();
+        final Map<String, Map<String, String>> reactions = new HashMap<>();
+
+        for (Message msg : messageList) {
+            messagesData.add(rows.computeIfAbsent(msg, this::toRow));
+
+            // Reaction maps are immutable snapshots, so they are passed on without copying
+            if (!msg.getReactions().isEmpty()) {
+                reactions.put(msg.getId(), msg.getReactions());
+            }
+        }
+
+        // 5) Resolve what each reply shows of the message it replies to, once per replied-to message
+        final Map<String, ReplyPreview> replyPreviews = new HashMap<>();
+        final Set<String> toFetch = new HashSet<>();
+        for (Message msg : messageList) {
+            final String repliedId = msg.getRepliedMessageId();
+            if (repliedId != null && !repliedId.isEmpty() && !replyPreviews.containsKey(repliedId)) {
+                replyPreviews.put(repliedId, resolveReply(repliedId, toFetch));
+            }
+        }
+
+        final ViewChatHistoryOutputData outputData = new ViewChatHistoryOutputData(messagesData, reactions,
+                olderPages.get(chatId) != null, replyPreviews, pageLoaded);
+
+        presenter.prepareSuccessView(outputData);
+
+        if (!toFetch.isEmpty()) {
+            fetchReplies(chatId, toFetch);
+        }
+    }
+
+    /**
+     * Helper function that finds the preview of a replied-to message: by ID in the
+     * message repository, then among the ones fetched earlier. A message found in
+     * neither is added to the IDs to fetch and shown as missing until then, or as
+     * unavailable if fetching it failed before.
+     */
+    private ReplyPreview resolveReply(String repliedId, Set<String> toFetch) {
+        final Optional<Message> loaded = messageRepository.findById(repliedId);
+        if (loaded.isPresent()) {
+            return previewOf(loaded.get());
+        }
+        final ReplyPreview fetched = fetchedReplies.get(repliedId);
+        if (fetched != null) {
+            return fetched;
+        }
+        if (!presentingFailedFetch && fetchingReplies.add(repliedId)) {
+            toFetch.add(repliedId);
+        }
+        return unavailableReplies.contains(repliedId) ? ReplyPreview.unavailable() : ReplyPreview.missing();
+    }
+
+    /**
+     * Helper function that reads the replied-to messages outside the loaded pages in one
+     * batch, then presents the history again with their previews. If the read fails they
+     * are presented as unavailable, and the next refresh of the chat asks again.
+     */
+    private void fetchReplies(String chatId, Set<String> messageIds) {
+        dataAccess.loadMessagesAsync(messageIds).whenComplete((found, error) -> {
+            fetchingReplies.removeAll(messageIds);
+            if (error != null) {
+                unavailableReplies.addAll(messageIds);
+            }
+            else {
+                unavailableReplies.removeAll(messageIds);
+                for (String messageId : messageIds) {
+                    final Message message = found.get(messageId);
+                    fetchedReplies.put(messageId, message == null ? ReplyPreview.deleted() : previewOf(message));
+                }
+            }
+            if (subscribedChats.contains(chatId)) {
+                presentingFailedFetch = error != null;
+                try {
+                    presentOrFail(chatId);
+                }
+                finally {
+                    presentingFailedFetch = false;
+                }
+            }
+        });
+    }
+
+    private static ReplyPreview previewOf(Message message) {
+        final String content = message.getContent() == null ? "" : message.getContent();
+        final String snippet = content.length() > REPLY_SNIPPET_LENGTH
+                ? content.substring(0, REPLY_SNIPPET_LENGTH) + "…"
+                : content;
+        return ReplyPreview.found(snippet, message.getSenderUserId());
+    }
+
+    private String[] toRow(Message msg) {
+        final String[] data = new String[MESSAGE_DATA_SIZE];
+        data[INDEX_ID] = msg.getId();
+        data[INDEX_SENDER] = msg.getSenderUserId();
+        data[INDEX_CONTENT] = msg.getContent();
+        data[INDEX_TIMESTAMP] = makeString(msg.getTimestamp());
+        data[INDEX_REPLY_TO] =
+                msg.getRepliedMessageId() != null ? msg.getRepliedMessageId() : "";
+        return data;
+    }
+
     /**
      * Converts an {@link Instant} timestamp into a formatted date-time string.
      *
@@ -117,10 +337,6 @@ public class ViewChatHistoryInteractor implements ViewChatHistoryInputBoundary {
      * {@code "dd-MM-yyyy HH:mm:ss"}
      */
     private String makeString(final Instant timestamp) {
-        final ZoneId zone = ZoneId.of("UTC");
-        final ZonedDateTime zdt = timestamp.atZone(zone);
-        final DateTimeFormatter formatter =
-                DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
-        return zdt.format(formatter);
+        return TIMESTAMP_FORMAT.format(timestamp);
     }
 }
\ No newline at end of file
@@ -6,11 +6,38 @@ import java.util.Map;
 public class ViewChatHistoryOutputData {
     private final List<String[]> messages;
     private final Map<String, Map<String, String>> reactions;
+    private final boolean hasOlderMessages;
+    private final Map<String, ReplyPreview> replyPreviews;
+    private final boolean pageLoaded;
 
     public ViewChatHistoryOutputData(List<String[]> messages,
                                      Map<String, Map<String, String>> reactions) {
+        this(messages, reactions, false);
+    }
+
+    public ViewChatHistoryOutputData(List<String[]> messages,
+                                     Map<String, Map<String, String>> reactions,
+                                     boolean hasOlderMessages) {
+        this(messages, reactions, hasOlderMessages, Map.of());
+    }
+
+    public ViewChatHistoryOutputData(List<String[]> messages,
+                                     Map<String, Map<String, String>> reactions,
+                                     boolean hasOlderMessages,
+                                     Map<String, ReplyPreview> replyPreviews) {
+        this(messages, reactions, hasOlderMessages, replyPreviews, false);
+    }
+
+    public ViewChatHistoryOutputData(List<String[]> messages,
+                                     Map<String, Map<String, String>> reactions,
+                                     boolean hasOlderMessages,
+                                     Map<String, ReplyPreview> replyPreviews,
+                                     boolean pageLoaded) {
         this.messages = messages;
         this.reactions = reactions;
+        this.hasOlderMessages = hasOlderMessages;
+        this.replyPreviews = replyPreviews;
+        this.pageLoaded = pageLoaded;
     }
 
     public List<String[]> getMessages() {
@@ -20,4 +47,28 @@ public class ViewChatHistoryOutputData {
     public Map<String, Map<String, String>> getReactions() {
         return reactions;
     }
+
+    public boolean hasOlderMessages() {
+        return hasOlderMessages;
+    }
+
+    /**
+     * Returns the preview of every message replied to in the history, by the ID of the
+     * replied-to message.
+     *
+     * @return the reply previews
+     */
+    public Map<String, ReplyPreview> getReplyPreviews() {
+        return replyPreviews;
+    }
+
+    /**
+     * Tells whether this history answers a request for an older page. The view waits
+     * for that answer even when the page changed nothing it shows.
+     *
+     * @return true if an older page was just loaded
+     */
+    public boolean isPageLoaded() {
+        return pageLoaded;
+    }
 }
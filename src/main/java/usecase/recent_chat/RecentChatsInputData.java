@@ -3,12 +3,22 @@ package usecase.recent_chat;
 public class RecentChatsInputData {
 
     private String userId;
+    private boolean loadMore;
 
     public RecentChatsInputData(String userId) {
+        this(userId, false);
+    }
+
+    public RecentChatsInputData(String userId, boolean loadMore) {
         this.userId = userId;
+        this.loadMore = loadMore;
     }
 
     public String getUserId() {
         return userId;
     }
+
+    public boolean isLoadMore() {
+        return loadMore;
+    }
 }
@@ -10,8 +10,14 @@ import entity.Chat;
 import entity.ports.ChatRepository;
 import entity.ports.MessageRepository;
 import entity.ports.UserRepository;
+import usecase.AsyncErrors;
 
 public class RecentChatsInteractor implements RecentChatsInputBoundary {
+    /**
+     * Number of chats fetched per page.
+     */
+    public static final int PAGE_SIZE = 30;
+
     private final RecentChatsOutputBoundary recentChatsPresenter;
     private final RecentChatsUserDataAccessInterface recentChatsUserDataAccess;
     private final MessageRepository messageRepository;
@@ -34,56 +40,83 @@ public class RecentChatsInteractor implements RecentChatsInputBoundary {
     public void execute(RecentChatsInputData recentChatsInputData) {
         try {
             final String currentUsername = recentChatsInputData.getUserId();
-            messageRepository.clear();
-            recentChatsUserDataAccess.updateChatRepository(currentUsername);
-            final List<Chat> allChats = chatRepository.findAll();
-            final List<Chat> myChats = new ArrayList<>();
-            for (Chat chat : allChats) {
-                final List<String> participants = chat.getParticipantUserIds();
-                if (participants.contains(currentUsername)) {
-                    myChats.add(chat);
+            final List<Chat> shown = findMyChats(currentUsername);
+            Chat oldest = null;
+            if (recentChatsInputData.isLoadMore()) {
+                // Continue after the oldest chat already shown
+                if (!shown.isEmpty()) {
+                    oldest = shown.get(shown.size() - 1);
                 }
             }
-
-            myChats.sort(new Comparator<Chat>() {
-                @Override
-                public int compare(Chat c1, Chat c2) {
-                    final Instant t1 = c1.getLastMessage();
-                    final Instant t2 = c2.getLastMessage();
-                    if (t1 == null && t2 == null) {
-                        return 0;
-                    }
-                    if (t1 == null) {
-                        return 1;
-                    }
-                    if (t2 == null) {
-                        return -1;
-                    }
-                    return t2.compareTo(t1);
-                }
-            });
-
-            final HashMap<String, String> nameToChatIds = new HashMap<>();
-            final List<String> chatNames = new ArrayList<>();
-            for (Chat chat : myChats) {
-                String name = chat.getGroupName();
-                if (chat.getParticipantUserIds().size() == 2) {
-                    final List<String> users = chat.getParticipantUserIds();
-                    name = users.get(0).equals(currentUsername) ? users.get(1) : users.get(0);
-                }
-                if (chatNames.contains(name)) {
-                    name = name + "(copy)";
-                }
-                nameToChatIds.put(name, chat.getId());
-                chatNames.add(name);
+            else if (!shown.isEmpty()) {
+                // Show the chats kept from the last session while the sync refreshes them
+                presentChats(currentUsername, shown, shown.size() >= PAGE_SIZE);
             }
+            // Cached messages are kept: the live sync refreshes a chat when it is opened again
 
-            final RecentChatsOutputData recentChatsOutputData = new RecentChatsOutputData(chatNames, nameToChatIds);
-            recentChatsPresenter.prepareSuccessView(recentChatsOutputData);
+            recentChatsUserDataAccess.loadRecentChatsAsync(currentUsername, oldest, PAGE_SIZE)
+                    .whenComplete((loaded, error) -> {
+                        if (error != null) {
+                            recentChatsPresenter.prepareFailView(AsyncErrors.messageOf(error));
+                        }
+                        else {
+                            presentChats(currentUsername, findMyChats(currentUsername), loaded >= PAGE_SIZE);
+                        }
+                    });
         }
         catch (Exception e) {
             recentChatsPresenter.prepareFailView(e.getMessage());
         }
 
     }
+
+    private void presentChats(String currentUsername, List<Chat> myChats, boolean hasMore) {
+        final HashMap<String, String> nameToChatIds = new HashMap<>();
+        final List<String> chatNames = new ArrayList<>();
+        for (Chat chat : myChats) {
+            String name = chat.getGroupName();
+            if (chat.getParticipantUserIds().size() == 2) {
+                final List<String> users = chat.getParticipantUserIds();
+                name = users.get(0).equals(currentUsername) ? users.get(1) : users.get(0);
+            }
+            if (chatNames.contains(name)) {
+                name = name + "(copy)";
+            }
+            nameToChatIds.put(name, chat.getId());
+            chatNames.add(name);
+        }
+
+        final RecentChatsOutputData recentChatsOutputData =
+                new RecentChatsOutputData(chatNames, nameToChatIds, hasMore);
+        recentChatsPresenter.prepareSuccessView(recentChatsOutputData);
+    }
+
+    private List<Chat> findMyChats(String currentUsername) {
+        final List<Chat> myChats = new ArrayList<>();
+        for (Chat chat : chatRepository.findAll()) {
+            final List<String> participants = chat.getParticipantUserIds();
+            if (participants.contains(currentUsername)) {
+                myChats.add(chat);
+            }
+        }
+
+        myChats.sort(new Comparator<Chat>() {
+            @Override
+            public int compare(Chat c1, Chat c2) {
+                final Instant t1 = c1.getLastMessage();
+                final Instant t2 = c2.getLastMessage();
+                if (t1 == null && t2 == null) {
+                    return 0;
+                }
+                if (t1 == null) {
+                    return 1;
+                }
+                if (t2 == null) {
+                    return -1;
+                }
+                return t2.compareTo(t1);
+            }
+        });
+        return myChats;
+    }
 }
@@ -6,10 +6,17 @@ import java.util.List;
 public class RecentChatsOutputData {
     private List<String> chatNames;
     private HashMap<String, String> nameToChatIds;
+    private boolean hasMore;
 
     public RecentChatsOutputData(List<String> chatNames, HashMap<String, String> nameToChatIds) {
+        this(chatNames, nameToChatIds, false);
+    }
+
+    public RecentChatsOutputData(List<String> chatNames, HashMap<String, String> nameToChatIds,
+                                 boolean hasMore) {
         this.chatNames = chatNames;
         this.nameToChatIds = nameToChatIds;
+        this.hasMore = hasMore;
     }
 
     public List<String> getChatNames() {
@@ -19,4 +26,8 @@ public class RecentChatsOutputData {
     public HashMap<String, String> getNameToChatIds() {
         return nameToChatIds;
     }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
 }
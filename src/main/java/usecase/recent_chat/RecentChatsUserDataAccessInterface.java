@@ -1,11 +1,35 @@
 package usecase.recent_chat;
 
+import java.util.concurrent.CompletableFuture;
+
+import entity.Chat;
+
 public interface RecentChatsUserDataAccessInterface {
 
     /**
-     * Updates the chat repository associated with the specified user.
-     * @param userId the unique identifier of the user whose chat data
-     *               needs to be updated
+     * Loads one page of the user's chats into the chat repository, most recent first.
+     * @param userId the unique identifier of the user whose chats are loaded
+     * @param olderThan the oldest chat of the previous page, or null for the first page
+     * @param limit the maximum number of chats to load
+     * @return the number of chats loaded; fewer than {@code limit} means there are no more
+     */
+    int loadRecentChats(String userId, Chat olderThan, int limit);
+
+    /**
+     * Loads one page of the user's chats without blocking the caller. The future
+     * completes on the thread that owns the repositories. The default implementation
+     * runs {@link #loadRecentChats} on the calling thread.
+     * @param userId the unique identifier of the user whose chats are loaded
+     * @param olderThan the oldest chat of the previous page, or null for the first page
+     * @param limit the maximum number of chats to load
+     * @return a future completed with the number of chats loaded
      */
-    void updateChatRepository(String userId);
+    default CompletableFuture<Integer> loadRecentChatsAsync(String userId, Chat olderThan, int limit) {
+        try {
+            return CompletableFuture.completedFuture(loadRecentChats(userId, olderThan, limit));
+        }
+        catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
 }
@@ -4,10 +4,13 @@ import java.util.List;
 
 public interface SearchUserDataAccessInterface {
     /**
-     * Finds users whose usernames contain the given query string.
+     * Finds one page of users whose usernames start with the given query string,
+     * ignoring case, in username order. The current user is never included.
      * @param userId The userID string.
      * @param query The search string.
+     * @param startAfter The last username of the previous page, or null for the first page.
+     * @param limit The maximum number of usernames to return.
      * @return A list of matching usernames (String).
      */
-    List<String> searchUsers(String userId, String query);
+    List<String> searchUsers(String userId, String query, String startAfter, int limit);
 }
@@ -3,10 +3,16 @@ package usecase.search_user;
 public class SearchUserInputData {
     private final String user;
     private final String query;
+    private final String cursor;
 
     public SearchUserInputData(String user, String query) {
+        this(user, query, null);
+    }
+
+    public SearchUserInputData(String user, String query, String cursor) {
         this.user = user;
         this.query = query;
+        this.cursor = cursor;
     }
 
     public String getQuery() {
@@ -16,4 +22,8 @@ public class SearchUserInputData {
     public String getUser() {
         return user;
     }
+
+    public String getCursor() {
+        return cursor;
+    }
 }
@@ -5,6 +5,11 @@ import java.util.List;
 import entity.ports.UserRepository;
 
 public class SearchUserInteractor implements SearchUserInputBoundary {
+    /**
+     * Maximum number of usernames returned per search page.
+     */
+    public static final int PAGE_SIZE = 20;
+
     /**
      * Interface for querying user data needed for search operations.
      */
@@ -63,14 +68,24 @@ public class SearchUserInteractor implements SearchUserInputBoundary {
 
         // Search for users, passing the current username to filter them out
         // No need to look up the user - we already have their username
-        final List<String> results =
-                userDataAccessObject.searchUsers(currentUsername, query);
+        final List<String> results = userDataAccessObject.searchUsers(
+                currentUsername, query, inputData.getCursor(), PAGE_SIZE);
+        final boolean nextPage = inputData.getCursor() != null;
 
-        if (results.isEmpty()) {
+        if (results.isEmpty() && nextPage) {
+            // The previous page was full but also the last one
+            userPresenter.prepareSuccessView(new SearchUserOutputData(results, null, true));
+        }
+        else if (results.isEmpty()) {
             userPresenter.prepareFailView("No users found matching: " + query);
         }
         else {
-            final SearchUserOutputData outputData = new SearchUserOutputData(results);
+            // A full page means there may be more results after the last one
+            String nextCursor = null;
+            if (results.size() >= PAGE_SIZE) {
+                nextCursor = results.get(results.size() - 1);
+            }
+            final SearchUserOutputData outputData = new SearchUserOutputData(results, nextCursor, nextPage);
             userPresenter.prepareSuccessView(outputData);
         }
     }
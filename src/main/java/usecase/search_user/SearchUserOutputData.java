@@ -4,12 +4,40 @@ import java.util.List;
 
 public class SearchUserOutputData {
     private final List<String> usernames;
+    private final String nextCursor;
+    private final boolean nextPage;
 
     public SearchUserOutputData(List<String> usernames) {
+        this(usernames, null);
+    }
+
+    public SearchUserOutputData(List<String> usernames, String nextCursor) {
+        this(usernames, nextCursor, false);
+    }
+
+    public SearchUserOutputData(List<String> usernames, String nextCursor, boolean nextPage) {
         this.usernames = usernames;
+        this.nextCursor = nextCursor;
+        this.nextPage = nextPage;
     }
 
     public List<String> getUsernames() {
         return usernames;
     }
+
+    /**
+     * Returns the cursor to pass back to fetch the next page.
+     * @return the cursor, or null if this was the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Returns whether these results continue an earlier page rather than start a search.
+     * @return true if the usernames follow the ones already shown
+     */
+    public boolean isNextPage() {
+        return nextPage;
+    }
 }
@@ -5,9 +5,7 @@ import java.awt.MouseInfo;
 import java.awt.event.*;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import javax.swing.*;
 
@@ -15,6 +13,7 @@ import interfaceadapter.ViewManagerModel;
 import interfaceadapter.logged_in.LoggedInViewModel;
 import interfaceadapter.messaging.ChatState;
 import interfaceadapter.messaging.ChatViewModel;
+import interfaceadapter.messaging.MessageDiff;
 import interfaceadapter.messaging.deletemessage.DeleteMessageController;
 import interfaceadapter.messaging.search_history.SearchChatHistoryController;
 import interfaceadapter.messaging.sendmessage.SendMessageController;
@@ -22,10 +21,14 @@ import interfaceadapter.messaging.view_history.ViewChatHistoryController;
 import interfaceadapter.recent_chat.RecentChatsController;
 import interfaceadapter.messaging.add_reaction.AddReactionController;
 import interfaceadapter.messaging.remove_reaction.RemoveReactionController;
+import view.components.MessageListPanel;
 import view.components.ReactionPickerPanel;
 
 public class ChatView extends JPanel implements ActionListener, PropertyChangeListener {
 
+    // Distance from the top, in pixels, at which the previous page of history is requested
+    private static final int LOAD_OLDER_THRESHOLD = 50;
+
     private final String viewName = "chat";
 
     private final ViewManagerModel viewManagerModel;
@@ -45,6 +48,7 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
     private String currentUserId;
     private boolean isGroupChat;
     private boolean isDisplayingSearchResults = false;
+    private boolean loadingOlderMessages = false;
 
     // Components
     private final JLabel chatPartnerLabel;
@@ -55,6 +59,7 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
     private final JButton settingButton;
     private final JButton searchHistoryButton;
     private final JButton clearSearchButton;
+    private final JLabel searchNoteLabel;
 
     // Reply preview
     private final JPanel replyPreviewBox;
@@ -63,14 +68,14 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
     private String replyingToMessageId = null;
 
     // Chat display
-    private final JPanel chatDisplayPanel;
+    private final MessageListPanel messageList;
+    private final JPanel placeholderPanel;
     private final JLabel initialPrompt;
     private final JScrollPane chatScrollPane;
 
-    // Time refresher
-    private Timer refreshTimer;
+    // Live history subscription
+    private String subscribedChatId;
     private List<String> currentUserIds;
-    private List<String> currentMessageIds;
 
     public ChatView(ViewManagerModel viewManagerModel,
                     ChatViewModel chatViewModel,
@@ -133,6 +138,12 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
             viewManagerModel.firePropertyChange();
         });
 
+        // Says when only the loaded part of the history was searched
+        searchNoteLabel = new JLabel();
+        searchNoteLabel.setFont(new Font("SansSerif", Font.ITALIC, 12));
+        searchNoteLabel.setForeground(Color.GRAY);
+        searchNoteLabel.setVisible(false);
+
         clearSearchButton = new JButton("Done");
         clearSearchButton.setFont(new Font("SansSerif", Font.PLAIN, 14));
         clearSearchButton.setFocusable(false);
@@ -142,12 +153,12 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
         clearSearchButton.addActionListener(evnt -> {
             isDisplayingSearchResults = false;
             finalClearSearchButton.setVisible(false);
-            // Refresh to show all messages again
-            if (viewChatHistoryController != null) {
-                viewChatHistoryController.execute(currentChatId, currentUserIds, currentMessageIds);
-            }
+            searchNoteLabel.setVisible(false);
+            // Resubscribe to show all messages again
+            startLiveUpdates();
         });
 
+        rightButtonPanel.add(searchNoteLabel);
         rightButtonPanel.add(searchHistoryButton);
         rightButtonPanel.add(clearSearchButton);
         rightButtonPanel.add(settingButton);
@@ -156,19 +167,43 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
         // ==========================
         // Chat display
         // ==========================
-        chatDisplayPanel = new JPanel();
-        chatDisplayPanel.setLayout(new BoxLayout(chatDisplayPanel, BoxLayout.Y_AXIS));
+        placeholderPanel = new JPanel();
+        placeholderPanel.setLayout(new BoxLayout(placeholderPanel, BoxLayout.Y_AXIS));
+        messageList = new MessageListPanel(new MessageListPanel.Listener() {
+            @Override
+            public void messageClicked(String[] message) {
+                startReply(message[0], message[2]);
+            }
+
+            @Override
+            public void actionClicked(String[] message, Component source, int x, int y) {
+                buildPopupMenu(message[1].equals(currentUserId), message[0], message[2]).show(source, x, y);
+            }
+        });
 
         initialPrompt = new JLabel("<html><div style='text-align: center;'>Send \""
                 + chatPartnerLabel.getText()
                 + "\" a message to start a chat!</div></html>");
         initialPrompt.setFont(new Font("SansSerif", Font.ITALIC, 16));
-        chatDisplayPanel.add(initialPrompt);
+        placeholderPanel.add(initialPrompt);
 
-        chatScrollPane = new JScrollPane(chatDisplayPanel);
+        chatScrollPane = new JScrollPane(placeholderPanel);
         chatScrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
         chatScrollPane.setBorder(BorderFactory.createEmptyBorder());
 
+        // Ask for the previous page of history when the user scrolls near the top
+        chatScrollPane.getVerticalScrollBar().addAdjustmentListener(e -> {
+            if (e.getValueIsAdjusting() || loadingOlderMessages || isDisplayingSearchResults) {
+                return;
+            }
+            final ChatState state = chatViewModel.getState();
+            if (e.getValue() <= LOAD_OLDER_THRESHOLD && state.hasOlderMessages()
+                    && subscribedChatId != null && viewChatHistoryController != null) {
+                loadingOlderMessages = true;
+                viewChatHistoryController.loadPreviousPage(currentChatId, currentUserIds);
+            }
+        });
+
         // ==========================
         // Reply preview + input
         // ==========================
@@ -226,6 +261,31 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
         this.add(inputPanel, BorderLayout.SOUTH);
     }
 
+    /**
+     * Helper function that shows a label in place of the message list.
+     */
+    private void showPlaceholder(JComponent label) {
+        placeholderPanel.removeAll();
+        placeholderPanel.add(label);
+        if (chatScrollPane.getViewport().getView() != placeholderPanel) {
+            chatScrollPane.setViewportView(placeholderPanel);
+        }
+        placeholderPanel.revalidate();
+        placeholderPanel.repaint();
+    }
+
+    /**
+     * Helper function that starts a reply to a message and shows its start above the input.
+     */
+    private void startReply(String messageId, String content) {
+        replyingToMessageId = messageId;
+        final String shortText = content.length() > 20
+                ? content.substring(0, 20) + "…"
+                : content;
+        replyPreviewText.setText("Replying to: " + shortText);
+        replyPreviewBox.setVisible(true);
+    }
+
     private void scrollToBottom() {
         SwingUtilities.invokeLater(() -> {
             final JScrollBar bar = chatScrollPane.getVerticalScrollBar();
@@ -270,9 +330,7 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
             return;
         }
 
-        if (refreshTimer != null) {
-            refreshTimer.stop();
-        }
+        stopLiveUpdates();
 
         isDisplayingSearchResults = true;
         searchChatHistoryController.execute(currentChatId, trimmed);
@@ -300,9 +358,7 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
             }
         }
         else if (evt.getSource().equals(backButton)) {
-            if (refreshTimer != null) {
-                refreshTimer.stop();
-            }
+            stopLiveUpdates();
 
             if (recentChatsController != null) {
                 recentChatsController.execute(currentUserId);
@@ -312,6 +368,12 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
 
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
+        if (ChatViewModel.MESSAGES_PROPERTY.equals(evt.getPropertyName())) {
+            final MessageDiff diff = (MessageDiff) evt.getNewValue();
+            final ChatState state = chatViewModel.getState();
+            updateKeepingScroll(() -> showMessages(state, diff));
+            return;
+        }
         if (!"state".equals(evt.getPropertyName())) {
             return;
         }
@@ -321,10 +383,6 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
 
         final ChatState state = (ChatState) evt.getNewValue();
 
-        JScrollBar verticalBar = chatScrollPane.getVerticalScrollBar();
-        int currentScrollValue = verticalBar.getValue();
-        boolean wasAtBottom = currentScrollValue + verticalBar.getVisibleAmount() >= verticalBar.getMaximum() - 50;
-
         if (!state.getFirst() && state.getChatId() != null && state.getGroupName() != null) {
             // Only set context if it's actually changing
             if (!state.getChatId().equals(currentChatId)
@@ -336,7 +394,6 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
                 setChatContext(
                         state.getChatId(),
                         state.getParticipants(),
-                        state.getMessageIds(),
                         loggedInViewModel.getState().getUsername(),
                         state.getGroupName(),
                         isGroup
@@ -345,169 +402,73 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
             return;
         }
 
-        chatDisplayPanel.removeAll();
-
-        if (state.getError() != null) {
-            final JLabel errorLabel = new JLabel(state.getError());
-            errorLabel.setForeground(Color.RED);
-            chatDisplayPanel.add(errorLabel);
-        }
-        else {
-
-            // DON'T update the label if we're just updating messages/reactions
-            // Only update it when first opening the chat
-            chatPartnerLabel.setText(state.getGroupName());
-
-            final List<String[]> messages = state.getMessages();
-
-            if (messages.isEmpty()) {
-                chatDisplayPanel.add(initialPrompt);
+        updateKeepingScroll(() -> {
+            if (state.getError() != null) {
+                final JLabel errorLabel = new JLabel(state.getError());
+                errorLabel.setForeground(Color.RED);
+                showPlaceholder(errorLabel);
             }
             else {
-                for (String[] msg : messages) {
-                    final String messageId = msg[0];
-                    final String senderId = msg[1];
-                    final String content = msg[2];
-                    final String timestamp = msg[3];
-
-                    final boolean fromCurrentUser = msg[1].equals(currentUserId);
-
-                    final String repliedMessageId = msg.length > 4 ? msg[4] : null;
-                    String repliedPreview = null;
-
-                    if (repliedMessageId != null && !repliedMessageId.isEmpty()) {
-                        for (String[] m : messages) {
-                            if (m[0].equals(repliedMessageId)) {
-                                final String original = m[2];
-                                repliedPreview = original.length() > 25
-                                        ? original.substring(0, 25) + "…"
-                                        : original;
-                                break;
-                            }
-                        }
-                    }
-
-                    final JPanel row = new JPanel();
-                    row.setLayout(new BoxLayout(row, BoxLayout.X_AXIS));
-                    row.setOpaque(false);
-                    row.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
-
-                    final int viewportWidth =
-                            chatDisplayPanel.getParent() == null
-                                    ? 600
-                                    : chatDisplayPanel.getParent().getWidth();
-                    final int maxBubbleWidth = (int) (viewportWidth * 0.66);
-
-                    final JPanel bubble = createWrappedBubble(content, timestamp, repliedPreview,
-                            fromCurrentUser, maxBubbleWidth, messageId);
-
-                    JPanel messageContent = bubble;
-                    if (isGroupChat && !fromCurrentUser) {
-                        final JPanel nameAndBubble = new JPanel();
-                        nameAndBubble.setLayout(new BoxLayout(nameAndBubble, BoxLayout.Y_AXIS));
-                        nameAndBubble.setOpaque(false);
-
-                        final JLabel senderLabel = new JLabel(senderId);
-                        senderLabel.setFont(new Font("SansSerif", Font.PLAIN, 11));
-                        senderLabel.setForeground(new Color(120, 120, 120));
-                        senderLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-                        nameAndBubble.add(senderLabel);
-                        nameAndBubble.add(Box.createVerticalStrut(2));
-                        nameAndBubble.add(bubble);
-
-                        messageContent = nameAndBubble;
-                    }
-
-                    final JButton actionButton = new JButton("⋯");
-                    actionButton.setFocusable(false);
-                    actionButton.setPreferredSize(new Dimension(28, 28));
-                    actionButton.setMaximumSize(new Dimension(28, 28));
-                    actionButton.setMinimumSize(new Dimension(28, 28));
-                    actionButton.setMargin(new Insets(0, 4, 0, 4));
-
-                    final JPopupMenu menu = buildPopupMenu(fromCurrentUser, messageId, content);
-                    actionButton.addActionListener(
-                            evnt -> menu.show(actionButton, 0, actionButton.getHeight())
-                    );
-
-                    bubble.addMouseListener(new MouseAdapter() {
-                        @Override
-                        public void mouseClicked(MouseEvent e) {
-                            replyingToMessageId = messageId;
-                            final String preview = content.length() > 20
-                                    ? content.substring(0, 20) + "…"
-                                    : content;
-                            replyPreviewText.setText("Replying to: " + preview);
-                            replyPreviewBox.setVisible(true);
-                        }
-                    });
-
-                    // Get reactions for this message
-                    final Map<String, String> reactions = chatViewModel.getState().getMessageReactions(messageId);
-
-                    // Layout based on who sent the message
-                    if (fromCurrentUser) {
-                        // YOUR MESSAGE: [glue] [reactions] [bubble] [space] [button]
-                        row.add(Box.createHorizontalGlue());
-
-                        if (reactions != null && !reactions.isEmpty()) {
-                            JPanel reactionsPanel = createReactionsPanel(reactions);
-
-                            // Wrap in a container to center vertically
-                            JPanel reactionContainer = new JPanel();
-                            reactionContainer.setLayout(new BoxLayout(reactionContainer, BoxLayout.Y_AXIS));
-                            reactionContainer.setOpaque(false);
-                            reactionContainer.add(Box.createVerticalGlue());
-                            reactionContainer.add(reactionsPanel);
-                            reactionContainer.add(Box.createVerticalGlue());
-
-                            row.add(reactionContainer);
-                            row.add(Box.createHorizontalStrut(5));
-                        }
-
-                        row.add(messageContent);
-                        row.add(Box.createHorizontalStrut(4));
-                        row.add(actionButton);
-
-                    }
-                    else {
-                        // THEIR MESSAGE: [button] [space] [bubble] [reactions] [glue]
-                        row.add(actionButton);
-                        row.add(Box.createHorizontalStrut(4));
-                        row.add(messageContent);
-
-                        if (reactions != null && !reactions.isEmpty()) {
-                            row.add(Box.createHorizontalStrut(5));
-
-                            JPanel reactionsPanel = createReactionsPanel(reactions);
 
-                            // Wrap in a container to center vertically
-                            JPanel reactionContainer = new JPanel();
-                            reactionContainer.setLayout(new BoxLayout(reactionContainer, BoxLayout.Y_AXIS));
-                            reactionContainer.setOpaque(false);
-                            reactionContainer.add(Box.createVerticalGlue());
-                            reactionContainer.add(reactionsPanel);
-                            reactionContainer.add(Box.createVerticalGlue());
-
-                            row.add(reactionContainer);
-                        }
-
-                        row.add(Box.createHorizontalGlue());
-                    }
+                // DON'T update the label if we're just updating messages/reactions
+                // Only update it when first opening the chat
+                chatPartnerLabel.setText(state.getGroupName());
+                showMessages(state, null);
+            }
 
-                    chatDisplayPanel.add(row);
-                }
+            if (isDisplayingSearchResults && state.getMessages() != null && !state.getMessages().isEmpty()) {
+                clearSearchButton.setVisible(true);
             }
-        }
+            searchNoteLabel.setText(state.getSearchNote());
+            searchNoteLabel.setVisible(isDisplayingSearchResults && state.getSearchNote() != null);
+        });
+    }
 
-        chatDisplayPanel.revalidate();
-        chatDisplayPanel.repaint();
+    /**
+     * Helper function that shows the messages of the state, or the prompt to start the
+     * chat if there are none. With a diff, only the rows it names are measured again.
+     */
+    private void showMessages(ChatState state, MessageDiff diff) {
+        final List<String[]> messages = state.getMessages();
+        if (messages.isEmpty()) {
+            showPlaceholder(initialPrompt);
+            return;
+        }
+        if (diff == null) {
+            messageList.setMessages(messages, state::getMessageReactions, state::getReplyPreview,
+                    currentUserId, isGroupChat);
+        }
+        else {
+            messageList.applyChanges(messages, state::getMessageReactions, state::getReplyPreview,
+                    currentUserId, isGroupChat, diff.getAffected());
+        }
+        if (chatScrollPane.getViewport().getView() != messageList) {
+            chatScrollPane.setViewportView(messageList);
+        }
+    }
 
-        if (isDisplayingSearchResults && state.getMessages() != null && !state.getMessages().isEmpty()) {
-            clearSearchButton.setVisible(true);
+    /**
+     * Helper function that runs an update of the message list, then keeps the newest
+     * message in view if it was, or keeps the same messages in view after older ones
+     * were loaded above them.
+     */
+    private void updateKeepingScroll(Runnable update) {
+        final JScrollBar verticalBar = chatScrollPane.getVerticalScrollBar();
+        final int currentScrollValue = verticalBar.getValue();
+        final boolean wasAtBottom =
+                currentScrollValue + verticalBar.getVisibleAmount() >= verticalBar.getMaximum() - 50;
+        final int distanceFromBottom = verticalBar.getMaximum() - currentScrollValue;
+
+        update.run();
+
+        if (loadingOlderMessages) {
+            // Older messages were added above; keep the same messages in view
+            SwingUtilities.invokeLater(() -> {
+                verticalBar.setValue(verticalBar.getMaximum() - distanceFromBottom);
+                loadingOlderMessages = false;
+            });
         }
-        if (wasAtBottom && !isDisplayingSearchResults) {
+        else if (wasAtBottom && !isDisplayingSearchResults) {
             scrollToBottom();
         }
     }
@@ -548,24 +509,14 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
 
             final JMenuItem replyItem = new JMenuItem("Reply");
             replyItem.addActionListener(evnt -> {
-                replyingToMessageId = messageId;
-                final String shortText = content.length() > 20
-                        ? content.substring(0, 20) + "…"
-                        : content;
-                replyPreviewText.setText("Replying to: " + shortText);
-                replyPreviewBox.setVisible(true);
+                startReply(messageId, content);
             });
             menu.add(replyItem);
         }
         else {
             final JMenuItem replyItem = new JMenuItem("Reply");
             replyItem.addActionListener(evnt -> {
-                replyingToMessageId = messageId;
-                final String shortText = content.length() > 20
-                        ? content.substring(0, 20) + "…"
-                        : content;
-                replyPreviewText.setText("Replying to: " + shortText);
-                replyPreviewBox.setVisible(true);
+                startReply(messageId, content);
             });
             menu.add(replyItem);
 
@@ -629,54 +580,31 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
         this.repaint();
     }
 
-    private void startAutoRefresh() {
-        if (refreshTimer != null) {
-            refreshTimer.stop();
-        }
+    private void startLiveUpdates() {
+        stopLiveUpdates();
 
         if (currentChatId == null || viewChatHistoryController == null
-                || currentUserIds == null || currentMessageIds == null) {
+                || currentUserIds == null) {
             return;
         }
 
-        refreshTimer = new Timer(1000, evnt -> {
-            if (!isDisplayingSearchResults) {
-                viewChatHistoryController.execute(currentChatId, currentUserIds, currentMessageIds);
-            }
-        });
-        refreshTimer.start();
+        subscribedChatId = currentChatId;
+        viewChatHistoryController.subscribe(currentChatId, currentUserIds);
     }
 
-    /**
-     * Gets the best available emoji font for the system.
-     * @param size the font size
-     * @return a Font that can display emojis
-     */
-    private Font getEmojiFont(int size) {
-        String[] fontNames = {
-                "Apple Color Emoji",    // macOS
-                "Segoe UI Emoji",       // Windows
-                "Noto Color Emoji",     // Linux
-                "Android Emoji",        // Android
-                "EmojiOne Color",       // Fallback
-                "Symbola"               // Universal fallback
-        };
-
-        // Try to find an emoji font
-        for (String fontName : fontNames) {
-            Font testFont = new Font(fontName, Font.PLAIN, size);
-            if (testFont.getFamily().equals(fontName)) {
-                return testFont;
-            }
+    private void stopLiveUpdates() {
+        if (subscribedChatId != null && viewChatHistoryController != null) {
+            viewChatHistoryController.unsubscribe(subscribedChatId);
         }
-
-        // Fallback to system default
-        return new Font(Font.SANS_SERIF, Font.PLAIN, size);
+        subscribedChatId = null;
+        // A page asked for in the chat left behind is no longer awaited, and the next
+        // chat says for itself whether it has older messages
+        loadingOlderMessages = false;
+        chatViewModel.getState().setHasOlderMessages(false);
     }
 
     public void setChatContext(String chatId,
                                List<String> userIds,
-                               List<String> messageIds,
                                String currentUser,
                                String groupName,
                                boolean isGroupChat) {
@@ -684,14 +612,10 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
         this.currentUserId = currentUser;
         this.isGroupChat = isGroupChat;
         this.currentUserIds = userIds;
-        this.currentMessageIds = messageIds;
 
         setChatPartner(groupName);
         settingButton.setVisible(isGroupChat);
-        if (viewChatHistoryController != null) {
-            viewChatHistoryController.execute(chatId, userIds, messageIds);
-        }
-        startAutoRefresh();
+        startLiveUpdates();
 
         // Default for group chats or if set correctly
         String displayName = groupName;
@@ -744,93 +668,4 @@ public class ChatView extends JPanel implements ActionListener, PropertyChangeLi
     public void setRemoveReactionController(RemoveReactionController controller) {
         this.removeReactionController = controller;
     }
-
-    private JPanel createReactionsPanel(Map<String, String> reactions) {
-        // Group reactions by emoji and count them
-        final Map<String, Integer> reactionCounts = new HashMap<>();
-        for (String emoji : reactions.values()) {
-            reactionCounts.put(emoji, reactionCounts.getOrDefault(emoji, 0) + 1);
-        }
-
-        // Create reactions panel
-        final JPanel reactionsPanel = new JPanel();
-        reactionsPanel.setLayout(new BoxLayout(reactionsPanel, BoxLayout.Y_AXIS));
-        reactionsPanel.setOpaque(false);
-
-        // CRITICAL: Set maximum width so it doesn't expand
-        reactionsPanel.setMaximumSize(new Dimension(60, 200));
-
-        for (Map.Entry<String, Integer> entry : reactionCounts.entrySet()) {
-            final String emoji = entry.getKey();
-            final int count = entry.getValue();
-
-            final JLabel reactionLabel = new JLabel(emoji + " " + count);
-            reactionLabel.setFont(getEmojiFont(12));
-            reactionLabel.setBorder(BorderFactory.createCompoundBorder(
-                    BorderFactory.createLineBorder(new Color(200, 200, 200), 1, true),
-                    BorderFactory.createEmptyBorder(2, 5, 2, 5)
-            ));
-            reactionLabel.setBackground(new Color(255, 255, 255, 180));
-            reactionLabel.setOpaque(true);
-            reactionLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-
-            reactionsPanel.add(reactionLabel);
-            reactionsPanel.add(Box.createVerticalStrut(2));
-        }
-
-        return reactionsPanel;
-    }
-
-    // --------------------------------------------------------
-    // PERFECT WRAPPED BUBBLE (this is the fixed version)
-    // --------------------------------------------------------
-
-    // ==========================
-    // Bubble builder
-    // ==========================
-    private JPanel createWrappedBubble(String text,
-                                       String time,
-                                       String repliedPreview,
-                                       boolean fromCurrentUser,
-                                       int maxWidth,
-                                       String messageId) {
-
-        final JPanel bubble = new JPanel();
-        bubble.setLayout(new BoxLayout(bubble, BoxLayout.Y_AXIS));
-        bubble.setBorder(BorderFactory.createEmptyBorder(6, 10, 6, 10));
-        bubble.setOpaque(true);
-        bubble.setBackground(fromCurrentUser
-                ? new Color(0x95EC69)
-                : new Color(230, 230, 230));
-
-        if (repliedPreview != null) {
-            final JLabel replyHeader = new JLabel("↪ " + repliedPreview);
-            replyHeader.setFont(new Font("SansSerif", Font.PLAIN, 11));
-            replyHeader.setForeground(new Color(100, 100, 100));
-            replyHeader.setAlignmentX(Component.LEFT_ALIGNMENT);
-            bubble.add(replyHeader);
-        }
-
-        final JLabel label = new JLabel("<html>" + text + "</html>");
-        label.setFont(new Font("SansSerif", Font.PLAIN, 14));
-        label.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        label.setSize(new Dimension(maxWidth, Integer.MAX_VALUE));
-        final Dimension preferred = label.getPreferredSize();
-
-        label.setMaximumSize(new Dimension(maxWidth, preferred.height + 10));
-        bubble.setMaximumSize(new Dimension(maxWidth + 20, preferred.height + 30));
-
-        bubble.add(label);
-
-        final JLabel timeLabel = new JLabel(time);
-        timeLabel.setFont(new Font("SansSerif", Font.PLAIN, 10));
-        timeLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-        timeLabel.setForeground(new Color(80, 80, 80));
-
-        bubble.add(Box.createVerticalStrut(3));
-        bubble.add(timeLabel);
-
-        return bubble;
-    }
 }
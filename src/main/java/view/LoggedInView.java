@@ -39,6 +39,7 @@ public class LoggedInView extends JPanel implements ActionListener, PropertyChan
     private final JButton profileButton;
     private final JButton newChatButton;
     private final JButton logOut;
+    private boolean loadingMoreChats;
 
     public LoggedInView(LoggedInViewModel loggedInViewModel, ViewManagerModel viewManagerModel) {
         this.loggedInViewModel = loggedInViewModel;
@@ -95,6 +96,18 @@ public class LoggedInView extends JPanel implements ActionListener, PropertyChan
         scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
 
+        // Fetch the next page of older chats once the list is scrolled to the bottom
+        scrollPane.getVerticalScrollBar().addAdjustmentListener(evnt -> {
+            final BoundedRangeModel range = scrollPane.getVerticalScrollBar().getModel();
+            final boolean atBottom = range.getValue() + range.getExtent() >= range.getMaximum();
+            final LoggedInState state = loggedInViewModel.getState();
+            if (atBottom && !evnt.getValueIsAdjusting() && !loadingMoreChats
+                    && state.hasMoreChats() && recentChatsController != null) {
+                loadingMoreChats = true;
+                recentChatsController.loadMore(state.getUsername());
+            }
+        });
+
         recentChatsList.addListSelectionListener(evnt -> {
             // Ignore extra "adjusting" events
             if (!evnt.getValueIsAdjusting() && accessChatController != null) {
@@ -187,6 +200,7 @@ public class LoggedInView extends JPanel implements ActionListener, PropertyChan
         }
 
         else if (evt.getPropertyName().equals("recentChats")) {
+            loadingMoreChats = false;
             recentChatsModel.clear();
             final LoggedInState state = (LoggedInState) evt.getNewValue();
             final List<String> chatNames = state.getChatNames();
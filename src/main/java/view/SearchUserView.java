@@ -37,6 +37,7 @@ public class SearchUserView extends JPanel implements ActionListener, PropertyCh
     private final JTextField searchInputField;
     private final JButton searchExitButton;
     private final JButton startChatButton;
+    private final JButton moreResultsButton;
     private JLabel selectionLabel;
 
     // JList and its model for displaying users
@@ -48,6 +49,10 @@ public class SearchUserView extends JPanel implements ActionListener, PropertyCh
     private String lastLoggedInUser = null;
     // Track if this view is currently displayed
     private boolean viewIsActive = false;
+    // The query the shown results are for, so more of them can be fetched
+    private String lastQuery = "";
+    // Set while more results are being fetched, so the selection is kept
+    private boolean loadingMore = false;
 
     public SearchUserView(ViewManagerModel viewManagerModel, SearchUserViewModel searchUserViewModel,
                           LoggedInViewModel loggedInViewModel) {
@@ -149,8 +154,14 @@ public class SearchUserView extends JPanel implements ActionListener, PropertyCh
             }
         });
 
+        // Shown while the search has more results than the list holds
+        moreResultsButton = new JButton("More results");
+        moreResultsButton.setVisible(false);
+        moreResultsButton.addActionListener(this);
+
         final JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         startChatButton.addActionListener(this);
+        buttonPanel.add(moreResultsButton);
         buttonPanel.add(startChatButton);
 
         // Assembly
@@ -174,6 +185,13 @@ public class SearchUserView extends JPanel implements ActionListener, PropertyCh
             viewManagerModel.setState("logged in");
             viewManagerModel.firePropertyChange();
         }
+        else if (evt.getSource().equals(moreResultsButton)) {
+            final String nextCursor = searchUserViewModel.getState().getNextCursor();
+            if (searchUserController != null && nextCursor != null) {
+                loadingMore = true;
+                searchUserController.execute(loggedInViewModel.getState().getUsername(), lastQuery, nextCursor);
+            }
+        }
         else if (evt.getSource().equals(startChatButton)) {
             final List<String> selectedUsernames = userList.getSelectedValuesList();
 
@@ -275,9 +293,13 @@ public class SearchUserView extends JPanel implements ActionListener, PropertyCh
             // Check if it's SearchUserState
             if (newValue instanceof SearchUserState) {
                 final SearchUserState state = (SearchUserState) newValue;
+                // Keep the selection when more results are added below it
+                final List<String> selected = loadingMore ? userList.getSelectedValuesList() : List.of();
+                loadingMore = false;
 
                 // Always clear the list before updating
                 userListModel.clear();
+                moreResultsButton.setVisible(state.getSearchError() == null && state.getNextCursor() != null);
 
                 if (state.getSearchError() != null) {
                     userListModel.addElement("Error: " + state.getSearchError());
@@ -309,6 +331,12 @@ public class SearchUserView extends JPanel implements ActionListener, PropertyCh
                     if (state.getSearchResults().isEmpty() || !usersAdded) {
                         userListModel.addElement("No users found.");
                     }
+                    for (String username : selected) {
+                        final int index = userListModel.indexOf(username);
+                        if (index >= 0) {
+                            userList.addSelectionInterval(index, index);
+                        }
+                    }
                 }
             }
             else if (newValue instanceof LoggedInState && !this.started) {
@@ -341,6 +369,7 @@ public class SearchUserView extends JPanel implements ActionListener, PropertyCh
      */
     public void findUsers(String username, String query) {
         if (this.searchUserController != null) {
+            this.lastQuery = query;
             this.searchUserController.execute(username, query);
         }
     }
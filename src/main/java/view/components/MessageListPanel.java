@@ -0,0 +1,353 @@
+package view.components;
+
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.swing.CellRendererPane;
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.UIManager;
+
+/**
+ * The message history of a chat as one scrollable component that only paints the rows
+ * in view.
+ *
+ * <p>
+ * Each row is measured once by a {@link MessageRowRenderer} and the measurement is
+ * reused on later updates as long as the message, its reply preview, its reactions and
+ * the list width stay the same, so a new message measures one row, not the whole
+ * history. A resize places every row again but keeps the wrapped text of the bubbles
+ * unless the width moves into another wrap bucket. The row tops are kept as running
+ * sums, so painting and clicks find their rows by binary search however long the
+ * history is. Meant to be the view of a {@link javax.swing.JScrollPane}; it always
+ * takes the width of the viewport.
+ */
+public class MessageListPanel extends JComponent implements Scrollable {
+
+    private static final int DEFAULT_WIDTH = 600;
+    private static final int UNIT_INCREMENT = 16;
+
+    private final MessageRowRenderer renderer = new MessageRowRenderer();
+    private final CellRendererPane stamps = new CellRendererPane();
+    private final Listener listener;
+
+    private List<String[]> messages = List.of();
+    private Function<String, Map<String, String>> reactions = messageId -> Map.of();
+    private Function<String, String> replyPreviews = messageId -> null;
+    private String currentUserId;
+    private boolean groupChat;
+
+    private MessageRowRenderer.RowLayout[] rows = new MessageRowRenderer.RowLayout[0];
+    // tops[i] is the y of row i; tops[rows.length] is the height of the list
+    private int[] tops = {0};
+    private int layoutWidth = -1;
+    // Message ID to its last layout
+    private Map<String, MessageRowRenderer.RowLayout> measured = new HashMap<>();
+
+    /**
+     * Constructs an empty list.
+     *
+     * @param listener told when a message bubble or action button is clicked
+     */
+    public MessageListPanel(Listener listener) {
+        this.listener = listener;
+        setOpaque(true);
+        setBackground(UIManager.getColor("Panel.background"));
+        add(stamps);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                handleClick(e);
+            }
+        });
+    }
+
+    /**
+     * Shows the given messages, measuring only the rows that changed since the last call.
+     *
+     * @param newMessages     the message rows, oldest first: ID, sender, content, time and
+     *                        optionally the replied-to message ID
+     * @param reactionsLookup the reactions of a message by its ID, user ID to emoji
+     * @param previewLookup   what replies to a message show of it, by the message's ID
+     * @param userId          the current user, whose messages are shown on the right
+     * @param isGroupChat     whether to show sender names
+     */
+    public void setMessages(List<String[]> newMessages, Function<String, Map<String, String>> reactionsLookup,
+                            Function<String, String> previewLookup, String userId, boolean isGroupChat) {
+        update(newMessages, reactionsLookup, previewLookup, userId, isGroupChat, null);
+    }
+
+    /**
+     * Shows a new version of the messages when it is known which ones changed. Other
+     * rows keep their layout without being compared; inserted or removed rows only shift
+     * the rows after them.
+     *
+     * @param newMessages     the message rows, oldest first
+     * @param reactionsLookup the reactions of a message by its ID
+     * @param previewLookup   what replies to a message show of it, by the message's ID
+     * @param userId          the current user
+     * @param isGroupChat     whether to show sender names
+     * @param affectedIds     the IDs of messages inserted, removed, edited, with changed
+     *                        reactions or a changed reply preview since the last update
+     */
+    public void applyChanges(List<String[]> newMessages, Function<String, Map<String, String>> reactionsLookup,
+                             Function<String, String> previewLookup, String userId, boolean isGroupChat,
+                             Set<String> affectedIds) {
+        update(newMessages, reactionsLookup, previewLookup, userId, isGroupChat, affectedIds);
+    }
+
+    private void update(List<String[]> newMessages, Function<String, Map<String, String>> reactionsLookup,
+                        Function<String, String> previewLookup, String userId, boolean isGroupChat,
+                        Set<String> affectedIds) {
+        if (!Objects.equals(userId, currentUserId) || isGroupChat != groupChat) {
+            measured.clear();
+        }
+        this.messages = newMessages;
+        this.reactions = reactionsLookup;
+        this.replyPreviews = previewLookup;
+        this.currentUserId = userId;
+        this.groupChat = isGroupChat;
+        renderer.trimBubbles(newMessages);
+        relayout(currentWidth(), affectedIds);
+    }
+
+    /**
+     * Helper function that measures the rows for the given width and recomputes the row
+     * tops. Without affected IDs or after a resize every row is checked against its last
+     * layout; otherwise only the affected rows and the rows replying to them are measured
+     * again.
+     */
+    private void relayout(int width, Set<String> affectedIds) {
+        final boolean resized = width != layoutWidth;
+        layoutWidth = width;
+        if (affectedIds == null || resized) {
+            measured = remeasure();
+        }
+        else {
+            measured.keySet().removeAll(affectedIds);
+        }
+
+        final MessageRowRenderer.RowLayout[] newRows = new MessageRowRenderer.RowLayout[messages.size()];
+        final int[] newTops = new int[messages.size() + 1];
+        for (int i = 0; i < newRows.length; i++) {
+            final String[] message = messages.get(i);
+            MessageRowRenderer.RowLayout row = measured.get(message[0]);
+            if (row == null || affectedIds != null && !resized && affectedIds.contains(repliedId(message))) {
+                final boolean fromCurrentUser = message[1].equals(currentUserId);
+                row = renderer.layout(message, replyPreview(message), reactions.apply(message[0]),
+                        fromCurrentUser, groupChat && !fromCurrentUser, width);
+                measured.put(message[0], row);
+            }
+            newRows[i] = row;
+            newTops[i + 1] = newTops[i] + row.getHeight();
+        }
+        final MessageRowRenderer.RowLayout[] oldRows = rows;
+        final int oldHeight = tops[tops.length - 1];
+        rows = newRows;
+        tops = newTops;
+
+        if (oldRows.length != newRows.length || oldHeight != newTops[newRows.length]) {
+            revalidate();
+            repaint();
+            return;
+        }
+        // Same rows and height: repaint just the span of rows that were measured again
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < newRows.length; i++) {
+            if (oldRows[i] != newRows[i]) {
+                first = first < 0 ? i : first;
+                last = i;
+            }
+        }
+        if (first >= 0) {
+            repaint(0, newTops[first], getWidth(), newTops[last + 1] - newTops[first]);
+        }
+    }
+
+    /**
+     * Helper function that keeps the layouts of the current messages that still fit them,
+     * fits those measured at another width to the current one, and drops the rest,
+     * including those of messages no longer shown.
+     */
+    private Map<String, MessageRowRenderer.RowLayout> remeasure() {
+        final Map<String, MessageRowRenderer.RowLayout> kept = new HashMap<>();
+        for (String[] message : messages) {
+            final MessageRowRenderer.RowLayout row = measured.get(message[0]);
+            if (row != null && row.isValidFor(message, replyPreview(message),
+                    reactions.apply(message[0]), row.getWidth())) {
+                kept.put(message[0], row.getWidth() == layoutWidth ? row : renderer.resize(row, layoutWidth));
+            }
+        }
+        return kept;
+    }
+
+    private static String repliedId(String[] message) {
+        return message.length > 4 ? message[4] : null;
+    }
+
+    /**
+     * Helper function that returns what a row shows of the message it replies to, or null
+     * if it replies to nothing.
+     */
+    private String replyPreview(String[] message) {
+        final String repliedMessageId = repliedId(message);
+        if (repliedMessageId == null || repliedMessageId.isEmpty()) {
+            return null;
+        }
+        return replyPreviews.apply(repliedMessageId);
+    }
+
+    private int currentWidth() {
+        if (getWidth() > 0) {
+            return getWidth();
+        }
+        if (getParent() instanceof JViewport && getParent().getWidth() > 0) {
+            return getParent().getWidth();
+        }
+        return DEFAULT_WIDTH;
+    }
+
+    @Override
+    public void setBounds(int x, int y, int width, int height) {
+        super.setBounds(x, y, width, height);
+        if (width > 0 && width != layoutWidth) {
+            // The viewport was resized; wrap every row again for the new width
+            relayout(width, null);
+        }
+    }
+
+    /**
+     * Returns the index of the row at the given y, clamped to the rows there are.
+     *
+     * @param y the y coordinate in this component
+     * @return the row index, or -1 if there are no rows
+     */
+    public int rowAt(int y) {
+        int low = 0;
+        int high = rows.length - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (tops[mid] <= y) {
+                low = mid;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+        return rows.length == 0 ? -1 : low;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        if (isOpaque()) {
+            g.setColor(getBackground());
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        }
+        final int first = rowAt(clip.y);
+        if (first < 0) {
+            return;
+        }
+        for (int i = first; i < rows.length && tops[i] < clip.y + clip.height; i++) {
+            final Graphics2D rowGraphics = (Graphics2D) g.create(0, tops[i], getWidth(), rows[i].getHeight());
+            renderer.paint(rowGraphics, rows[i], stamps, this);
+            rowGraphics.dispose();
+        }
+    }
+
+    private void handleClick(MouseEvent e) {
+        final int index = rowAt(e.getY());
+        if (index < 0 || e.getY() >= tops[rows.length]) {
+            return;
+        }
+        final MessageRowRenderer.RowLayout row = rows[index];
+        final int x = e.getX();
+        final int y = e.getY() - tops[index];
+        final Rectangle action = row.getAction();
+        if (action.contains(x, y)) {
+            listener.actionClicked(row.getMessage(), this, action.x, tops[index] + action.y + action.height);
+        }
+        else if (row.getBubble().contains(x, y)) {
+            listener.messageClicked(row.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of rows shown.
+     *
+     * @return the row count
+     */
+    public int getRowCount() {
+        return rows.length;
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        return new Dimension(layoutWidth > 0 ? layoutWidth : DEFAULT_WIDTH, tops[rows.length]);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return UNIT_INCREMENT;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    /**
+     * Receives clicks on the rows of a {@link MessageListPanel}.
+     */
+    public interface Listener {
+
+        /**
+         * Called when the bubble of a message is clicked.
+         *
+         * @param message the message row
+         */
+        void messageClicked(String[] message);
+
+        /**
+         * Called when the action button of a message is clicked.
+         *
+         * @param message the message row
+         * @param source  the list
+         * @param x       the x below the button, in the list's coordinates
+         * @param y       the y below the button, in the list's coordinates
+         */
+        void actionClicked(String[] message, Component source, int x, int y);
+    }
+}
@@ -0,0 +1,514 @@
+package view.components;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.swing.CellRendererPane;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+
+/**
+ * Measures and paints the rows of a {@link MessageListPanel}.
+ *
+ * <p>
+ * A row is the message bubble (reply header, wrapped text and send time), the sender's
+ * name in group chats, the "⋯" action button and the reaction counts, placed on the
+ * right for the current user's messages and on the left for everyone else's. Rows are
+ * painted directly rather than built from components, and the one action button is
+ * reused as a stamp for every row.
+ *
+ * <p>
+ * Wrapping the text is the costly part of measuring a row, so the wrapped bubble of
+ * each message is kept by message ID along with a hash of what it shows and the bucket
+ * of wrap widths it was wrapped for. Text is wrapped to the bottom of its bucket, so a
+ * resize within one bucket only places the rows again. Nothing is dropped on resize; a
+ * bubble from another bucket is replaced when its row is next measured.
+ */
+public class MessageRowRenderer {
+
+    private static final int ROW_PADDING_X = 10;
+    private static final int ROW_PADDING_Y = 5;
+    private static final int BUBBLE_PADDING_X = 10;
+    private static final int BUBBLE_PADDING_Y = 6;
+    private static final int ACTION_SIZE = 28;
+    private static final int ACTION_GAP = 4;
+    private static final int REACTIONS_GAP = 5;
+    private static final int REACTIONS_MAX_WIDTH = 60;
+    private static final int CHIP_PADDING_X = 5;
+    private static final int CHIP_PADDING_Y = 2;
+    private static final int CHIP_GAP = 2;
+    private static final int SENDER_GAP = 2;
+    private static final int TIME_GAP = 3;
+    private static final double MAX_BUBBLE_SHARE = 0.66;
+    private static final int WRAP_BUCKET = 16;
+
+    private static final Font TEXT_FONT = new Font("SansSerif", Font.PLAIN, 14);
+    private static final Font SMALL_FONT = new Font("SansSerif", Font.PLAIN, 11);
+    private static final Font TIME_FONT = new Font("SansSerif", Font.PLAIN, 10);
+    private static final Color OWN_BUBBLE = new Color(0x95EC69);
+    private static final Color OTHER_BUBBLE = new Color(230, 230, 230);
+    private static final Color SENDER_COLOR = new Color(120, 120, 120);
+    private static final Color REPLY_COLOR = new Color(100, 100, 100);
+    private static final Color TIME_COLOR = new Color(80, 80, 80);
+    private static final Color CHIP_BORDER = new Color(200, 200, 200);
+    private static final Color CHIP_BACKGROUND = new Color(255, 255, 255, 180);
+    private static final String[] EMOJI_FONT_NAMES = {
+        "Apple Color Emoji",
+        "Segoe UI Emoji",
+        "Noto Color Emoji",
+        "Android Emoji",
+        "EmojiOne Color",
+        "Symbola",
+    };
+    // Font size to the emoji font found for it
+    private static final Map<Integer, Font> EMOJI_FONTS = new ConcurrentHashMap<>();
+
+    private final JButton actionButton = new JButton("⋯");
+    private final FontMetrics textMetrics;
+    private final FontMetrics smallMetrics;
+    private final FontMetrics timeMetrics;
+    private final FontMetrics emojiMetrics;
+    private final int chipHeight;
+    // Message ID to its last wrapped bubble
+    private final Map<String, Bubble> bubbles = new HashMap<>();
+
+    /**
+     * Constructs a renderer.
+     */
+    public MessageRowRenderer() {
+        actionButton.setFocusable(false);
+        actionButton.setMargin(new Insets(0, 4, 0, 4));
+        final JLabel metricsSource = new JLabel();
+        textMetrics = metricsSource.getFontMetrics(TEXT_FONT);
+        smallMetrics = metricsSource.getFontMetrics(SMALL_FONT);
+        timeMetrics = metricsSource.getFontMetrics(TIME_FONT);
+        emojiMetrics = metricsSource.getFontMetrics(getEmojiFont(12));
+        chipHeight = emojiMetrics.getHeight() + 2 * CHIP_PADDING_Y + 2;
+    }
+
+    /**
+     * Measures one row.
+     *
+     * @param message         the message row: ID, sender, content, time and replied-to ID
+     * @param replyPreview    the start of the replied-to message, or null for none
+     * @param reactions       the reactions, user ID to emoji
+     * @param fromCurrentUser whether the current user sent the message
+     * @param showSender      whether to show the sender's name above the bubble
+     * @param width           the width of the list
+     * @return the layout of the row
+     */
+    public RowLayout layout(String[] message, String replyPreview, Map<String, String> reactions,
+                            boolean fromCurrentUser, boolean showSender, int width) {
+        // Group reactions by emoji and count them
+        final Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String reaction : reactions.values()) {
+            counts.merge(reaction, 1, Integer::sum);
+        }
+        final List<String> chips = new ArrayList<>();
+        int reactionsWidth = 0;
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            final String chip = count.getKey() + " " + count.getValue();
+            chips.add(chip);
+            reactionsWidth = Math.max(reactionsWidth, emojiMetrics.stringWidth(chip) + 2 * CHIP_PADDING_X + 2);
+        }
+        return place(message, replyPreview, reactions, fromCurrentUser, showSender, width, chips,
+                Math.min(REACTIONS_MAX_WIDTH, reactionsWidth));
+    }
+
+    /**
+     * Fits a measured row to a new list width. The reactions are not measured again and
+     * the text is only wrapped again if the width moved into another wrap bucket.
+     *
+     * @param row   the row measured at another width
+     * @param width the new width of the list
+     * @return the layout of the row at the new width
+     */
+    public RowLayout resize(RowLayout row, int width) {
+        return place(row.message, row.replyPreview, row.reactions, row.fromCurrentUser, row.showSender, width,
+                row.chips, row.reactionsBox.width);
+    }
+
+    /**
+     * Helper function that places the sender, bubble, action button and reactions of a
+     * row for the list width.
+     */
+    private RowLayout place(String[] message, String replyPreview, Map<String, String> reactions,
+                            boolean fromCurrentUser, boolean showSender, int width, List<String> chips,
+                            int reactionsWidth) {
+        final Bubble wrapped = bubbleFor(message, replyPreview, width);
+        final int bubbleWidth = wrapped.width;
+        final int bubbleHeight = wrapped.height;
+        final int senderHeight = showSender ? smallMetrics.getHeight() + SENDER_GAP : 0;
+        final int contentHeight = senderHeight + bubbleHeight;
+        final int reactionsHeight = chips.size() * (chipHeight + CHIP_GAP);
+
+        final int innerHeight = Math.max(contentHeight, Math.max(ACTION_SIZE, reactionsHeight));
+        final int contentY = ROW_PADDING_Y + (innerHeight - contentHeight) / 2;
+        final int actionY = ROW_PADDING_Y + (innerHeight - ACTION_SIZE) / 2;
+        final int reactionsY = ROW_PADDING_Y + (innerHeight - reactionsHeight) / 2;
+
+        final Rectangle action;
+        final Rectangle bubble;
+        final Rectangle reactionsBox;
+        if (fromCurrentUser) {
+            // [reactions] [bubble] [button], against the right edge
+            action = new Rectangle(width - ROW_PADDING_X - ACTION_SIZE, actionY, ACTION_SIZE, ACTION_SIZE);
+            bubble = new Rectangle(action.x - ACTION_GAP - bubbleWidth, contentY + senderHeight,
+                    bubbleWidth, bubbleHeight);
+            reactionsBox = new Rectangle(bubble.x - REACTIONS_GAP - reactionsWidth, reactionsY,
+                    reactionsWidth, reactionsHeight);
+        }
+        else {
+            // [button] [bubble] [reactions], against the left edge
+            action = new Rectangle(ROW_PADDING_X, actionY, ACTION_SIZE, ACTION_SIZE);
+            bubble = new Rectangle(action.x + ACTION_SIZE + ACTION_GAP, contentY + senderHeight,
+                    bubbleWidth, bubbleHeight);
+            reactionsBox = new Rectangle(bubble.x + bubbleWidth + REACTIONS_GAP, reactionsY,
+                    reactionsWidth, reactionsHeight);
+        }
+
+        return new RowLayout(message, replyPreview, reactions, fromCurrentUser, showSender, width,
+                innerHeight + 2 * ROW_PADDING_Y, bubble, action, reactionsBox, wrapped.lines, wrapped.replyHeader,
+                chips, chipHeight);
+    }
+
+    /**
+     * Helper function that returns the wrapped bubble of a message for a list width,
+     * wrapping it again only if its text, time or reply preview changed or the width is
+     * in another bucket than the one it was wrapped for.
+     */
+    private Bubble bubbleFor(String[] message, String replyPreview, int width) {
+        final String content = message[2] == null ? "" : message[2];
+        final int wrapWidth = Math.max(ACTION_SIZE, (int) (width * MAX_BUBBLE_SHARE) / WRAP_BUCKET * WRAP_BUCKET);
+        final int contentHash = (content.hashCode() * 31 + Objects.hashCode(message[3])) * 31
+                + Objects.hashCode(replyPreview);
+        final Bubble cached = bubbles.get(message[0]);
+        if (cached != null && cached.isFor(content, message[3], replyPreview, contentHash, wrapWidth)) {
+            return cached;
+        }
+
+        final List<String> lines = wrap(content, textMetrics, wrapWidth);
+        final String replyHeader = replyPreview == null ? null : "↪ " + replyPreview;
+        int innerWidth = timeMetrics.stringWidth(message[3]);
+        for (String line : lines) {
+            innerWidth = Math.max(innerWidth, textMetrics.stringWidth(line));
+        }
+        if (replyHeader != null) {
+            innerWidth = Math.max(innerWidth, Math.min(wrapWidth, smallMetrics.stringWidth(replyHeader)));
+        }
+        final int height = 2 * BUBBLE_PADDING_Y + (replyHeader == null ? 0 : smallMetrics.getHeight())
+                + lines.size() * textMetrics.getHeight() + TIME_GAP + timeMetrics.getHeight();
+        final Bubble bubble = new Bubble(content, message[3], replyPreview, contentHash, wrapWidth, lines,
+                replyHeader, innerWidth + 2 * BUBBLE_PADDING_X, height);
+        bubbles.put(message[0], bubble);
+        return bubble;
+    }
+
+    /**
+     * Forgets the wrapped bubbles of messages no longer shown, once they outnumber the
+     * messages that are.
+     *
+     * @param shown the message rows shown now
+     */
+    public void trimBubbles(List<String[]> shown) {
+        if (bubbles.size() <= 2 * shown.size()) {
+            return;
+        }
+        final Set<String> shownIds = new HashSet<>();
+        for (String[] message : shown) {
+            shownIds.add(message[0]);
+        }
+        bubbles.keySet().retainAll(shownIds);
+    }
+
+    /**
+     * Paints one row with its top left corner at the origin.
+     *
+     * @param g      the graphics to paint with
+     * @param row    the layout of the row
+     * @param stamps the renderer pane of the list, used to paint the action button
+     * @param list   the list the row belongs to
+     */
+    public void paint(Graphics2D g, RowLayout row, CellRendererPane stamps, Component list) {
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        final Rectangle bubble = row.getBubble();
+
+        if (row.isShowSender()) {
+            g.setFont(SMALL_FONT);
+            g.setColor(SENDER_COLOR);
+            final FontMetrics small = g.getFontMetrics();
+            g.drawString(row.getMessage()[1], bubble.x, bubble.y - SENDER_GAP - small.getDescent());
+        }
+
+        g.setColor(row.isFromCurrentUser() ? OWN_BUBBLE : OTHER_BUBBLE);
+        g.fillRect(bubble.x, bubble.y, bubble.width, bubble.height);
+
+        int y = bubble.y + BUBBLE_PADDING_Y;
+        final int x = bubble.x + BUBBLE_PADDING_X;
+        if (row.getReplyHeader() != null) {
+            g.setFont(SMALL_FONT);
+            g.setColor(REPLY_COLOR);
+            final FontMetrics small = g.getFontMetrics();
+            final Graphics2D clipped = (Graphics2D) g.create(x, y, bubble.width - 2 * BUBBLE_PADDING_X,
+                    small.getHeight());
+            clipped.drawString(row.getReplyHeader(), 0, small.getAscent());
+            clipped.dispose();
+            y += small.getHeight();
+        }
+
+        g.setFont(TEXT_FONT);
+        g.setColor(Color.BLACK);
+        final FontMetrics text = g.getFontMetrics();
+        for (String line : row.getLines()) {
+            g.drawString(line, x, y + text.getAscent());
+            y += text.getHeight();
+        }
+
+        g.setFont(TIME_FONT);
+        g.setColor(TIME_COLOR);
+        y += TIME_GAP;
+        g.drawString(row.getMessage()[3], x, y + g.getFontMetrics().getAscent());
+
+        final Rectangle action = row.getAction();
+        stamps.paintComponent(g, actionButton, (java.awt.Container) list,
+                action.x, action.y, action.width, action.height, true);
+
+        paintReactions(g, row);
+    }
+
+    private void paintReactions(Graphics2D g, RowLayout row) {
+        final Rectangle box = row.getReactionsBox();
+        g.setFont(getEmojiFont(12));
+        final FontMetrics emoji = g.getFontMetrics();
+        int y = box.y;
+        for (String chip : row.getChips()) {
+            final int chipWidth = Math.min(box.width, emoji.stringWidth(chip) + 2 * CHIP_PADDING_X + 2);
+            final int chipX = box.x + (box.width - chipWidth) / 2;
+            g.setColor(CHIP_BACKGROUND);
+            g.fillRoundRect(chipX, y, chipWidth, row.getChipHeight(), 6, 6);
+            g.setColor(CHIP_BORDER);
+            g.drawRoundRect(chipX, y, chipWidth - 1, row.getChipHeight() - 1, 6, 6);
+            g.setColor(Color.BLACK);
+            g.drawString(chip, chipX + CHIP_PADDING_X + 1, y + 1 + CHIP_PADDING_Y + emoji.getAscent());
+            y += row.getChipHeight() + CHIP_GAP;
+        }
+    }
+
+    /**
+     * Helper function that breaks text into lines no wider than the given width: at
+     * line breaks, then between words, and inside words that are wider on their own.
+     */
+    private static List<String> wrap(String content, FontMetrics metrics, int width) {
+        final List<String> lines = new ArrayList<>();
+        for (String paragraph : content.split("\n", -1)) {
+            final StringBuilder line = new StringBuilder();
+            for (String word : paragraph.split(" ", -1)) {
+                final String candidate = line.length() == 0 ? word : line + " " + word;
+                if (metrics.stringWidth(candidate) <= width) {
+                    line.setLength(0);
+                    line.append(candidate);
+                    continue;
+                }
+                if (line.length() > 0) {
+                    lines.add(line.toString());
+                    line.setLength(0);
+                }
+                // Break a word that does not fit on a line of its own
+                String rest = word;
+                while (metrics.stringWidth(rest) > width && rest.length() > 1) {
+                    int fits = 1;
+                    while (fits < rest.length() && metrics.stringWidth(rest.substring(0, fits + 1)) <= width) {
+                        fits++;
+                    }
+                    lines.add(rest.substring(0, fits));
+                    rest = rest.substring(fits);
+                }
+                line.append(rest);
+            }
+            lines.add(line.toString());
+        }
+        return Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * Gets the best available emoji font for the system, looking it up only once per size.
+     * @param size the font size
+     * @return a Font that can display emojis
+     */
+    private static Font getEmojiFont(int size) {
+        return EMOJI_FONTS.computeIfAbsent(size, MessageRowRenderer::findEmojiFont);
+    }
+
+    /**
+     * Helper function that tries the known emoji fonts in turn and falls back to the
+     * default sans serif font.
+     */
+    private static Font findEmojiFont(int size) {
+        // Try to find an emoji font
+        for (String fontName : EMOJI_FONT_NAMES) {
+            final Font testFont = new Font(fontName, Font.PLAIN, size);
+            if (testFont.getFamily().equals(fontName)) {
+                return testFont;
+            }
+        }
+
+        // Fallback to system default
+        return new Font(Font.SANS_SERIF, Font.PLAIN, size);
+    }
+
+    /**
+     * The wrapped text of a message bubble and its size, and what it was wrapped for.
+     */
+    private static final class Bubble {
+        private final String content;
+        private final String time;
+        private final String replyPreview;
+        private final int contentHash;
+        private final int wrapWidth;
+        private final List<String> lines;
+        private final String replyHeader;
+        private final int width;
+        private final int height;
+
+        Bubble(String content, String time, String replyPreview, int contentHash, int wrapWidth,
+               List<String> lines, String replyHeader, int width, int height) {
+            this.content = content;
+            this.time = time;
+            this.replyPreview = replyPreview;
+            this.contentHash = contentHash;
+            this.wrapWidth = wrapWidth;
+            this.lines = lines;
+            this.replyHeader = replyHeader;
+            this.width = width;
+            this.height = height;
+        }
+
+        boolean isFor(String nowContent, String nowTime, String nowReplyPreview, int nowHash, int nowWrapWidth) {
+            // The hash rules out most changes before the strings are compared
+            return contentHash == nowHash && wrapWidth == nowWrapWidth && content.equals(nowContent)
+                    && Objects.equals(time, nowTime) && Objects.equals(replyPreview, nowReplyPreview);
+        }
+    }
+
+    /**
+     * Where the parts of one measured row go, relative to the row's top left corner, and
+     * what the row was measured for.
+     */
+    public static final class RowLayout {
+        private final String[] message;
+        private final String replyPreview;
+        private final Map<String, String> reactions;
+        private final boolean fromCurrentUser;
+        private final boolean showSender;
+        private final int width;
+        private final int height;
+        private final Rectangle bubble;
+        private final Rectangle action;
+        private final Rectangle reactionsBox;
+        private final List<String> lines;
+        private final String replyHeader;
+        private final List<String> chips;
+        private final int chipHeight;
+
+        private RowLayout(String[] message, String replyPreview, Map<String, String> reactions,
+                          boolean fromCurrentUser, boolean showSender, int width, int height,
+                          Rectangle bubble, Rectangle action, Rectangle reactionsBox, List<String> lines,
+                          String replyHeader, List<String> chips, int chipHeight) {
+            this.message = message;
+            this.replyPreview = replyPreview;
+            this.reactions = reactions;
+            this.fromCurrentUser = fromCurrentUser;
+            this.showSender = showSender;
+            this.width = width;
+            this.height = height;
+            this.bubble = bubble;
+            this.action = action;
+            this.reactionsBox = reactionsBox;
+            this.lines = lines;
+            this.replyHeader = replyHeader;
+            this.chips = chips;
+            this.chipHeight = chipHeight;
+        }
+
+        /**
+         * Returns whether this layout still fits a row: the same message text, sender and
+         * time, the same reply preview and reactions, measured at the same width.
+         *
+         * @param nowMessage   the current message row
+         * @param preview      the current reply preview
+         * @param nowReactions the current reactions
+         * @param nowWidth     the current list width
+         * @return true if the row need not be measured again
+         */
+        public boolean isValidFor(String[] nowMessage, String preview, Map<String, String> nowReactions,
+                                  int nowWidth) {
+            return width == nowWidth && Arrays.equals(message, nowMessage) && reactions.equals(nowReactions)
+                    && Objects.equals(replyPreview, preview);
+        }
+
+        public String[] getMessage() {
+            return message;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public boolean isFromCurrentUser() {
+            return fromCurrentUser;
+        }
+
+        public boolean isShowSender() {
+            return showSender;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public Rectangle getBubble() {
+            return bubble;
+        }
+
+        public Rectangle getAction() {
+            return action;
+        }
+
+        public Rectangle getReactionsBox() {
+            return reactionsBox;
+        }
+
+        List<String> getLines() {
+            return lines;
+        }
+
+        String getReplyHeader() {
+            return replyHeader;
+        }
+
+        List<String> getChips() {
+            return chips;
+        }
+
+        int getChipHeight() {
+            return chipHeight;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package dataaccess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AppendOnlyLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reopenedLogHasTheLatestValueOfEveryLiveKey() throws IOException {
+        final Path file = dir.resolve("store.log");
+        try (AppendOnlyLog log = new AppendOnlyLog(file)) {
+            log.put("a", bytes("1"));
+            log.put("b", bytes("2"));
+            log.put("a", bytes("3"));
+            log.put("c", bytes("4"));
+            log.delete("b");
+        }
+
+        try (AppendOnlyLog log = new AppendOnlyLog(file)) {
+            assertEquals(Map.of("c", "4", "a", "3"), read(log));
+            // Ordered by last write
+            assertEquals(List.of("a", "c"), log.keys());
+        }
+    }
+
+    @Test
+    void tornTailIsDroppedAndLaterWritesFollowTheLastGoodRecord() throws IOException {
+        final Path file = dir.resolve("store.log");
+        final long goodLength;
+        try (AppendOnlyLog log = new AppendOnlyLog(file)) {
+            log.put("a", bytes("kept"));
+            goodLength = log.length();
+            log.put("b", bytes("torn by a crash"));
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            raw.setLength(raw.length() - 3);
+        }
+
+        try (AppendOnlyLog log = new AppendOnlyLog(file)) {
+            assertEquals(Map.of("a", "kept"), read(log));
+            assertEquals(goodLength, log.length());
+            log.put("c", bytes("after"));
+        }
+        try (AppendOnlyLog log = new AppendOnlyLog(file)) {
+            assertEquals(Map.of("a", "kept", "c", "after"), read(log));
+        }
+    }
+
+    @Test
+    void corruptedRecordEndsTheReplay() throws IOException {
+        final Path file = dir.resolve("store.log");
+        try (AppendOnlyLog log = new AppendOnlyLog(file)) {
+            log.put("a", bytes("first"));
+            log.put("b", bytes("second"));
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            // Flip the last byte of the second value
+            raw.seek(raw.length() - 1);
+            raw.write('X');
+        }
+
+        try (AppendOnlyLog log = new AppendOnlyLog(file)) {
+            assertEquals(Map.of("a", "first"), read(log));
+        }
+    }
+
+    @Test
+    void compactionKeepsOnlyChosenLiveRecords() throws IOException {
+        final Path file = dir.resolve("store.log");
+        try (AppendOnlyLog log = new AppendOnlyLog(file)) {
+            for (int i = 0; i < 100; i++) {
+                log.put("k" + i % 10, bytes("v" + i));
+            }
+            final long before = log.length();
+
+            log.compact(key -> !key.equals("k0"));
+
+            assertEquals(9, log.size());
+            assertEquals(log.liveLength(), log.length());
+            assertTrue(log.length() < before / 10);
+            assertEquals("v99", read(log).get("k9"));
+            log.put("k0", bytes("back"));
+        }
+        try (AppendOnlyLog log = new AppendOnlyLog(file)) {
+            assertEquals(10, log.size());
+            assertEquals("back", read(log).get("k0"));
+        }
+    }
+
+    @Test
+    void clearEmptiesTheFile() throws IOException {
+        final Path file = dir.resolve("store.log");
+        try (AppendOnlyLog log = new AppendOnlyLog(file)) {
+            log.put("a", bytes("1"));
+            log.clear();
+            assertEquals(0, log.length());
+        }
+        try (AppendOnlyLog log = new AppendOnlyLog(file)) {
+            assertTrue(read(log).isEmpty());
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> read(AppendOnlyLog log) throws IOException {
+        final Map<String, String> values = new LinkedHashMap<>();
+        log.replay((key, value) -> values.put(key, new String(value, StandardCharsets.UTF_8)));
+        return values;
+    }
+}
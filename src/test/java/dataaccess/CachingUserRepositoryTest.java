@@ -0,0 +1,165 @@
+package dataaccess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import entity.User;
+import entity.ports.UserRepository;
+
+class CachingUserRepositoryTest {
+
+    private static final long TTL_MILLIS = 1_000;
+    private static final long NEGATIVE_TTL_MILLIS = 100;
+
+    private final CountingRepository store = new CountingRepository();
+    private long now;
+
+    private CachingUserRepository cache(int maxSize) {
+        return new CachingUserRepository(store, TTL_MILLIS, NEGATIVE_TTL_MILLIS, maxSize, () -> now);
+    }
+
+    private void advanceMillis(long millis) {
+        now += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    void repeatedLookupsReadTheStoreOnce() {
+        store.users.put("alice", new User("alice", "pw"));
+        final CachingUserRepository cache = cache(10);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("alice", cache.findByUsername("alice").orElseThrow().getName());
+        }
+
+        assertEquals(1, store.reads);
+        assertEquals(4, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0.8, cache.getHitRatio(), 1e-9);
+    }
+
+    @Test
+    void entriesExpireAfterTheirTimeToLive() {
+        store.users.put("alice", new User("alice", "pw"));
+        final CachingUserRepository cache = cache(10);
+        cache.findByUsername("alice");
+
+        advanceMillis(TTL_MILLIS - 1);
+        cache.findByUsername("alice");
+        assertEquals(1, store.reads);
+
+        advanceMillis(1);
+        cache.findByUsername("alice");
+        assertEquals(2, store.reads);
+        assertEquals(1, cache.getExpirationCount());
+    }
+
+    @Test
+    void unknownNamesAreRememberedForAShorterTime() {
+        final CachingUserRepository cache = cache(10);
+
+        assertTrue(cache.findByUsername("ghost").isEmpty());
+        assertTrue(cache.findByUsername("ghost").isEmpty());
+        assertEquals(1, store.reads);
+
+        advanceMillis(NEGATIVE_TTL_MILLIS);
+        store.users.put("ghost", new User("ghost", "pw"));
+        assertTrue(cache.findByUsername("ghost").isPresent());
+        assertEquals(2, store.reads);
+    }
+
+    @Test
+    void saveAndEvictReplaceStaleEntries() {
+        store.users.put("alice", new User("alice", "old"));
+        final CachingUserRepository cache = cache(10);
+        cache.findByUsername("alice");
+
+        cache.save(new User("alice", "new"));
+        assertEquals("new", cache.findByUsername("alice").orElseThrow().getPassword());
+        assertEquals(1, store.reads);
+
+        // A password changed directly in the store
+        store.users.put("alice", new User("alice", "newer"));
+        cache.evict("alice");
+        assertEquals("newer", cache.findByUsername("alice").orElseThrow().getPassword());
+        assertEquals(2, store.reads);
+    }
+
+    @Test
+    void leastRecentlyUsedNameIsEvictedAtTheSizeLimit() {
+        final CachingUserRepository cache = cache(2);
+        cache.findByUsername("a");
+        cache.findByUsername("b");
+        // Using a makes b the least recently used
+        cache.findByUsername("a");
+
+        cache.findByUsername("c");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        cache.findByUsername("a");
+        assertEquals(3, store.reads);
+        cache.findByUsername("b");
+        assertEquals(4, store.reads);
+    }
+
+    @Test
+    void bulkLookupReadsOnlyTheMissesInOneCall() {
+        store.users.put("alice", new User("alice", "pw"));
+        store.users.put("bob", new User("bob", "pw"));
+        final CachingUserRepository cache = cache(10);
+        cache.findByUsername("alice");
+
+        final Map<String, User> found = cache.findAllByUsernames(List.of("alice", "bob", "ghost"));
+
+        assertEquals(List.of("alice", "bob"), List.copyOf(found.keySet()));
+        assertEquals(List.of(Set.of("bob", "ghost")), store.bulkReads);
+        // Both the found and the unknown name are now cached
+        cache.findAllByUsernames(List.of("bob", "ghost"));
+        assertEquals(1, store.bulkReads.size());
+    }
+
+    /**
+     * A map of users that counts how often it is read.
+     */
+    private static class CountingRepository implements UserRepository {
+        private final Map<String, User> users = new HashMap<>();
+        private int reads;
+        private final List<Set<String>> bulkReads = new ArrayList<>();
+
+        @Override
+        public Optional<User> findByUsername(String username) {
+            reads++;
+            return Optional.ofNullable(users.get(username));
+        }
+
+        @Override
+        public Map<String, User> findAllByUsernames(Collection<String> usernames) {
+            bulkReads.add(Set.copyOf(usernames));
+            final Map<String, User> found = new LinkedHashMap<>();
+            for (String username : usernames) {
+                if (users.containsKey(username)) {
+                    found.put(username, users.get(username));
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public User save(User user) {
+            users.put(user.getName(), user);
+            return user;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package dataaccess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.cloud.firestore.FieldValue;
+
+class ChatDocumentWriterTest {
+
+    private static final String CHAT_ID = "chat-1";
+    private static final int SENDERS = 8;
+    private static final int MESSAGES_PER_SENDER = 250;
+
+    private FakeChatStore store;
+    private ChatDocumentWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        store = new FakeChatStore();
+        store.create(CHAT_ID, List.of("alice", "bob"));
+        writer = new ChatDocumentWriter(store);
+    }
+
+    @Test
+    void parallelSendersLoseNoMessages() throws Exception {
+        runInParallel(sender -> {
+            for (int i = 0; i < MESSAGES_PER_SENDER; i++) {
+                writer.appendMessage(CHAT_ID, sender + "-" + i, Instant.now());
+            }
+        }, sender -> { });
+
+        assertEquals((long) SENDERS * MESSAGES_PER_SENDER,
+                store.field(CHAT_ID, ChatDocumentWriter.MESSAGE_COUNT));
+    }
+
+    @Test
+    void parallelSendersNeverMoveTheLatestMessageBack() throws Exception {
+        // Each sender's timestamps run backwards, so later writes carry earlier times
+        runInParallel(sender -> {
+            for (int i = MESSAGES_PER_SENDER - 1; i >= 0; i--) {
+                final long time = i * SENDERS + Long.parseLong(sender.substring("user".length()));
+                writer.appendMessage(CHAT_ID, "m" + time, Instant.ofEpochMilli(time));
+            }
+        }, sender -> { });
+
+        final long latest = (long) MESSAGES_PER_SENDER * SENDERS - 1;
+        assertEquals(latest, store.field(CHAT_ID, ChatDocumentWriter.RECENT));
+        assertEquals("m" + latest, store.field(CHAT_ID, ChatDocumentWriter.LAST_MESSAGE_ID));
+        assertEquals((long) SENDERS * MESSAGES_PER_SENDER,
+                store.field(CHAT_ID, ChatDocumentWriter.MESSAGE_COUNT));
+    }
+
+    @Test
+    void earlierMessageWrittenLastIsCountedButNotLatest() {
+        writer.appendMessage(CHAT_ID, "m2", Instant.ofEpochMilli(9));
+        writer.appendMessage(CHAT_ID, "m1", Instant.ofEpochMilli(5));
+
+        assertEquals(2L, store.field(CHAT_ID, ChatDocumentWriter.MESSAGE_COUNT));
+        assertEquals("m2", store.field(CHAT_ID, ChatDocumentWriter.LAST_MESSAGE_ID));
+        assertEquals(9L, store.field(CHAT_ID, ChatDocumentWriter.RECENT));
+    }
+
+    @Test
+    void parallelJoinsLoseNoParticipants() throws Exception {
+        final List<String> expected = new ArrayList<>(List.of("alice", "bob"));
+        runInParallel(sender -> writer.addParticipant(CHAT_ID, sender), expected::add);
+
+        assertEquals(new HashSet<>(expected),
+                new HashSet<>(store.array(CHAT_ID, ChatDocumentWriter.PARTICIPANTS)));
+    }
+
+    @Test
+    void removeParticipantLeavesOthers() {
+        writer.addParticipant(CHAT_ID, "carol");
+        writer.removeParticipant(CHAT_ID, "bob");
+
+        assertEquals(List.of("alice", "carol"), store.array(CHAT_ID, ChatDocumentWriter.PARTICIPANTS));
+    }
+
+    @Test
+    void appendCountsAndRemoveUncounts() {
+        writer.appendMessage(CHAT_ID, "m1", Instant.ofEpochMilli(5));
+        writer.appendMessage(CHAT_ID, "m2", Instant.ofEpochMilli(9));
+        writer.removeMessage(CHAT_ID, "m1");
+
+        assertEquals(1L, store.field(CHAT_ID, ChatDocumentWriter.MESSAGE_COUNT));
+        assertEquals("m2", store.field(CHAT_ID, ChatDocumentWriter.LAST_MESSAGE_ID));
+        assertEquals(9L, store.field(CHAT_ID, ChatDocumentWriter.RECENT));
+    }
+
+    @Test
+    void missingChatIsReported() {
+        assertFalse(writer.appendMessage("nope", "m1", Instant.now()));
+        assertFalse(writer.addParticipant("nope", "carol"));
+        assertTrue(writer.addParticipant(CHAT_ID, "carol"));
+    }
+
+    @Test
+    void firestorePayloadUsesArrayTransforms() {
+        final Map<String, Object> updates = new DocumentUpdate()
+                .increment(ChatDocumentWriter.MESSAGE_COUNT, 1)
+                .arrayRemove(ChatDocumentWriter.PARTICIPANTS, "bob")
+                .set(ChatDocumentWriter.RECENT, 1L)
+                .toFirestore();
+
+        assertInstanceOf(FieldValue.class, updates.get(ChatDocumentWriter.MESSAGE_COUNT));
+        assertInstanceOf(FieldValue.class, updates.get(ChatDocumentWriter.PARTICIPANTS));
+        assertEquals(1L, updates.get(ChatDocumentWriter.RECENT));
+    }
+
+    private static void runInParallel(SenderTask task, SenderTask record) throws Exception {
+        final ExecutorService pool = Executors.newFixedThreadPool(SENDERS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>();
+        for (int s = 0; s < SENDERS; s++) {
+            final String sender = "user" + s;
+            record.run(sender);
+            futures.add(pool.submit(() -> {
+                start.await();
+                task.run(sender);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @FunctionalInterface
+    private interface SenderTask {
+        void run(String sender);
+    }
+
+    /**
+     * Stand-in for Firestore that applies each update to a document atomically, the way
+     * the server applies a single write with field transforms or a transaction.
+     */
+    private static final class FakeChatStore implements ChatDocumentStore {
+        private final Map<String, Map<String, Object>> documents = new ConcurrentHashMap<>();
+
+        void create(String chatId, List<String> participants) {
+            final Map<String, Object> document = new HashMap<>();
+            document.put(ChatDocumentWriter.PARTICIPANTS, new ArrayList<Object>(participants));
+            documents.put(chatId, document);
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Object> array(String chatId, String field) {
+            synchronized (documents.get(chatId)) {
+                return new ArrayList<>((List<Object>) documents.get(chatId).get(field));
+            }
+        }
+
+        Object field(String chatId, String field) {
+            synchronized (documents.get(chatId)) {
+                return documents.get(chatId).get(field);
+            }
+        }
+
+        @Override
+        public boolean update(String chatId, DocumentUpdate update) {
+            final Map<String, Object> document = documents.get(chatId);
+            if (document == null) {
+                return false;
+            }
+            synchronized (document) {
+                update.applyTo(document);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean updateIfLater(String chatId, String field, long value, DocumentUpdate update) {
+            final Map<String, Object> document = documents.get(chatId);
+            if (document == null) {
+                return false;
+            }
+            synchronized (document) {
+                final Object current = document.get(field);
+                if (current == null || ((Number) current).longValue() < value) {
+                    update.applyTo(document);
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package dataaccess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import entity.Message;
+import entity.ports.MessageRepository;
+import entity.repo.InMemoryMessageRepository;
+
+class LiveMessageSyncTest {
+
+    private static final String CHAT_ID = "chat-1";
+    private static final Instant SENT = Instant.parse("2024-01-01T10:00:00Z");
+
+    private InMemoryMessageFeed feed;
+    private MessageRepository messageRepository;
+    private LiveMessageSync sync;
+    private List<String> notifications;
+
+    @BeforeEach
+    void setUp() {
+        feed = new InMemoryMessageFeed();
+        messageRepository = new InMemoryMessageRepository();
+        sync = new LiveMessageSync(feed, messageRepository);
+        notifications = new ArrayList<>();
+    }
+
+    @Test
+    void initialSnapshotLoadsHistoryAndNotifiesOnce() {
+        feed.publish(message("m1", "hello"));
+        feed.publish(message("m2", "hi"));
+
+        sync.start(CHAT_ID, null, null, notifications::add);
+
+        assertEquals(List.of(CHAT_ID), notifications);
+        assertEquals(2, messageRepository.findByChatId(CHAT_ID).size());
+    }
+
+    @Test
+    void emptyInitialSnapshotStillNotifies() {
+        sync.start(CHAT_ID, null, null, notifications::add);
+
+        assertEquals(1, notifications.size());
+    }
+
+    @Test
+    void addedModifiedAndRemovedMessagesReachRepository() {
+        sync.start(CHAT_ID, null, null, notifications::add);
+
+        feed.publish(message("m1", "hello"));
+        assertEquals("hello", messageRepository.findById("m1").orElseThrow().getContent());
+
+        final Message reacted = message("m1", "hello");
+        reacted.addReaction("bob", "👍");
+        feed.publish(reacted);
+        assertEquals("👍", messageRepository.findById("m1").orElseThrow().getReactions().get("bob"));
+
+        feed.remove("m1");
+        assertTrue(messageRepository.findById("m1").isEmpty());
+
+        assertEquals(4, notifications.size());
+    }
+
+    @Test
+    void echoOfKnownMessageDoesNotNotify() {
+        sync.start(CHAT_ID, null, null, notifications::add);
+        // Our own send path already saved the message locally
+        messageRepository.save(message("m1", "hello"));
+
+        feed.publish(message("m1", "hello"));
+
+        assertEquals(1, notifications.size());
+    }
+
+    @Test
+    void echoAtMillisecondPrecisionOfKnownMessageDoesNotNotify() {
+        sync.start(CHAT_ID, null, null, notifications::add);
+        final Instant sent = SENT.plusNanos(123_456_789);
+        messageRepository.save(new Message("m1", CHAT_ID, "alice", null, "hello", sent));
+
+        feed.publish(new Message("m1", CHAT_ID, "alice", null, "hello", sent.truncatedTo(ChronoUnit.MILLIS)));
+
+        assertEquals(1, notifications.size());
+    }
+
+    @Test
+    void removalOfUnknownMessageDoesNotNotify() {
+        feed.publish(message("m1", "hello"));
+        sync.start(CHAT_ID, List.of("someone-else"), null, notifications::add);
+
+        feed.remove("m1");
+
+        assertEquals(1, notifications.size());
+        assertTrue(messageRepository.findByChatId(CHAT_ID).isEmpty());
+    }
+
+    @Test
+    void otherChatsAreNotDelivered() {
+        sync.start(CHAT_ID, null, null, notifications::add);
+
+        feed.publish(new Message("x1", "chat-2", "bob", null, "elsewhere", SENT));
+
+        assertEquals(1, notifications.size());
+        assertTrue(messageRepository.findById("x1").isEmpty());
+    }
+
+    @Test
+    void stopEndsDelivery() {
+        sync.start(CHAT_ID, null, null, notifications::add);
+        sync.stop(CHAT_ID);
+
+        feed.publish(message("m1", "hello"));
+
+        assertEquals(1, notifications.size());
+        assertTrue(messageRepository.findById("m1").isEmpty());
+    }
+
+    @Test
+    void startFromSkipsOlderMessages() {
+        feed.publish(message("m1", "old"));
+        feed.publish(new Message("m2", CHAT_ID, "alice", null, "new", SENT.plusSeconds(60)));
+
+        sync.start(CHAT_ID, null, SENT.plusSeconds(60), notifications::add);
+        feed.publish(message("m1", "old, edited"));
+
+        assertTrue(messageRepository.findById("m1").isEmpty());
+        assertTrue(messageRepository.findById("m2").isPresent());
+        assertEquals(1, notifications.size());
+    }
+
+    @Test
+    void resubscribeDropsCachedMessagesDeletedWhileAway() {
+        feed.publish(message("m1", "kept"));
+        feed.publish(message("m2", "deleted later"));
+        sync.start(CHAT_ID, null, null, notifications::add);
+        sync.stop(CHAT_ID);
+
+        // Deleted by someone else while the chat was not listened to
+        feed.remove("m2");
+        messageRepository.save(new Message("m0", CHAT_ID, "alice", null, "before the range", SENT.minusSeconds(60)));
+
+        sync.start(CHAT_ID, null, SENT, notifications::add);
+
+        assertTrue(messageRepository.findById("m1").isPresent());
+        assertTrue(messageRepository.findById("m2").isEmpty());
+        // Outside the subscribed range, so the initial batch says nothing about it
+        assertTrue(messageRepository.findById("m0").isPresent());
+        assertEquals(2, notifications.size());
+    }
+
+    private static Message message(String id, String content) {
+        return new Message(id, CHAT_ID, "alice", null, content, SENT);
+    }
+}
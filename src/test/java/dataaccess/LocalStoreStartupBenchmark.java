@@ -0,0 +1,65 @@
+package dataaccess;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import entity.Chat;
+import entity.Message;
+
+/**
+ * Measures how long the local chat and message stores take to open when they are full,
+ * which is the time before the recent chats list and a cached chat's history can render.
+ *
+ * <p>
+ * Not a unit test; run it by hand after {@code mvn test-compile}:
+ * {@code java -cp target/classes:target/test-classes dataaccess.LocalStoreStartupBenchmark}
+ */
+public final class LocalStoreStartupBenchmark {
+
+    private static final int CHATS = 500;
+    private static final int ROUNDS = 5;
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private LocalStoreStartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        final Path dir = Files.createTempDirectory("gochat-bench");
+        final Path chats = dir.resolve("chats.log");
+        final Path messages = dir.resolve("messages.log");
+        try (PersistentChatRepository chatStore = new PersistentChatRepository(chats);
+             PersistentMessageRepository messageStore = new PersistentMessageRepository(messages)) {
+            for (int c = 0; c < CHATS; c++) {
+                final Chat chat = new Chat("chat" + c, "group " + c, Color.BLUE, START.plusSeconds(c));
+                chat.addParticipant("alice");
+                chat.addParticipant("user" + c);
+                chat.addParticipant("user" + (c + 1));
+                chatStore.save(chat);
+            }
+            // Fill the default message cache: 100 chats of 50 messages
+            for (int i = 0; i < 5_000; i++) {
+                messageStore.save(new Message("m" + i, "chat" + i % 100, "alice", null,
+                        "message number " + i + " with some typical text in it", START.plusSeconds(i)));
+            }
+            System.out.printf("Stored %d chats in %,d bytes and %s%n", CHATS, Files.size(chats), messageStore);
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            final long start = System.nanoTime();
+            try (PersistentChatRepository chatStore = new PersistentChatRepository(chats)) {
+                final int listed = chatStore.findAll().size();
+                final long chatsOpen = System.nanoTime();
+                try (PersistentMessageRepository messageStore = new PersistentMessageRepository(messages)) {
+                    final int history = messageStore.findByChatId("chat7").size();
+                    final long end = System.nanoTime();
+                    System.out.printf("Open #%d: chats %.1f ms (%d), messages %.1f ms (%d in chat7), total %.1f ms%n",
+                            round + 1, (chatsOpen - start) / 1e6, listed, (end - chatsOpen) / 1e6, history,
+                            (end - start) / 1e6);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package dataaccess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import entity.Message;
+import entity.ports.MessageRepository;
+import entity.repo.InMemoryMessageRepository;
+
+/**
+ * Compares the heap retained by one chat of a million messages in the heap repository
+ * and in the memory-mapped one, and how long reading the newest page takes from each.
+ *
+ * <p>
+ * Not a unit test; run it by hand after {@code mvn test-compile}, with enough heap for
+ * the heap repository:
+ * {@code java -Xmx2g -cp target/classes:target/test-classes dataaccess.MappedMessageHeapBenchmark}
+ */
+public final class MappedMessageHeapBenchmark {
+
+    private static final int MESSAGES = 1_000_000;
+    private static final int PAGE = 50;
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private MappedMessageHeapBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        final long baseline = usedHeap();
+        final InMemoryMessageRepository heap = new InMemoryMessageRepository(Integer.MAX_VALUE, Long.MAX_VALUE);
+        fill(heap);
+        System.out.printf("Heap repository:   %,d bytes retained, newest page %.1f us%n",
+                usedHeap() - baseline, pageMicros(heap));
+        heap.clear();
+
+        final Path dir = Files.createTempDirectory("gochat-mapped");
+        final long mappedBaseline = usedHeap();
+        try (MappedMessageRepository mapped = new MappedMessageRepository(dir)) {
+            fill(mapped);
+            System.out.printf("Mapped repository: %,d bytes retained, newest page %.1f us%n",
+                    usedHeap() - mappedBaseline, pageMicros(mapped));
+        }
+        try (MappedMessageRepository reopened = new MappedMessageRepository(dir)) {
+            System.out.printf("Reopened mapped:   %,d bytes retained, %,d messages indexed%n",
+                    usedHeap() - mappedBaseline, reopened.getMessageCount());
+        }
+    }
+
+    private static void fill(MessageRepository repository) {
+        for (int i = 0; i < MESSAGES; i++) {
+            final Message message = new Message("message-" + i, "big-chat", "alice", null,
+                    "message number " + i + " with some typical text in it", START.plusSeconds(i));
+            if (i % 10 == 0) {
+                message.addReaction("bob", "👍");
+            }
+            repository.save(message);
+        }
+    }
+
+    private static double pageMicros(MessageRepository repository) {
+        final int rounds = 1_000;
+        final long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            final List<Message> page = repository.findByChatIdBetween("big-chat",
+                    START.plusSeconds(MESSAGES - PAGE - round), START.plusSeconds(MESSAGES - round));
+            for (Message message : page) {
+                message.getContent();
+            }
+        }
+        return (System.nanoTime() - start) / 1_000.0 / rounds;
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,232 @@
+package dataaccess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import entity.Message;
+import entity.repo.InMemoryMessageRepository;
+
+class MappedMessageRepositoryTest {
+
+    private static final Instant SENT = Instant.parse("2024-01-01T10:00:00Z");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void historyIsOrderedByTimestampAndSurvivesReopening() throws IOException {
+        try (MappedMessageRepository repository = new MappedMessageRepository(dir)) {
+            repository.save(new Message("late", "a", "alice", null, "3", SENT.plusSeconds(20)));
+            repository.save(new Message("early", "a", "alice", null, "1", SENT));
+            repository.save(new Message("tie-b", "a", "alice", null, "2b", SENT.plusSeconds(10)));
+            repository.save(new Message("tie-a", "a", "bob", "early", "2a", SENT.plusSeconds(10)));
+            repository.save(new Message("other", "b", "alice", null, null, SENT.plusNanos(1)));
+
+            assertEquals(List.of("early", "tie-a", "tie-b", "late"), ids(repository.findByChatId("a")));
+        }
+
+        try (MappedMessageRepository repository = new MappedMessageRepository(dir)) {
+            assertEquals(List.of("early", "tie-a", "tie-b", "late"), ids(repository.findByChatId("a")));
+            final Message reply = repository.findById("tie-a").orElseThrow();
+            assertEquals("a", reply.getChatId());
+            assertEquals("bob", reply.getSenderUserId());
+            assertEquals("early", reply.getRepliedMessageId());
+            assertEquals("2a", reply.getContent());
+            assertEquals(SENT.plusSeconds(10), reply.getTimestamp());
+            final Message other = repository.findById("other").orElseThrow();
+            assertNull(other.getContent());
+            assertEquals(SENT.plusNanos(1), other.getTimestamp());
+            assertEquals(5, repository.getMessageCount());
+        }
+    }
+
+    @Test
+    void resavedMessageReplacesTheStoredOne() throws IOException {
+        try (MappedMessageRepository repository = new MappedMessageRepository(dir)) {
+            repository.save(new Message("m1", "a", "alice", null, "hi", SENT));
+            final Message message = repository.findById("m1").orElseThrow();
+            message.addReaction("bob", "👍");
+            repository.save(message);
+            // A copy was returned, so only the saved change counts
+            repository.findById("m1").orElseThrow().addReaction("carol", "😂");
+
+            assertEquals(Map.of("bob", "👍"), repository.findById("m1").orElseThrow().getReactions());
+            assertEquals(1, repository.findByChatId("a").size());
+        }
+
+        try (MappedMessageRepository repository = new MappedMessageRepository(dir)) {
+            assertEquals(Map.of("bob", "👍"), repository.findByChatId("a").get(0).getReactions());
+        }
+    }
+
+    @Test
+    void deletedAndMovedMessagesAreGoneAfterReopening() throws IOException {
+        try (MappedMessageRepository repository = new MappedMessageRepository(dir)) {
+            repository.save(new Message("m1", "a", "alice", null, "one", SENT));
+            repository.save(new Message("m2", "a", "alice", null, "two", SENT.plusSeconds(1)));
+            repository.save(new Message("m3", "a", "alice", null, "three", SENT.plusSeconds(2)));
+            repository.deleteById("m2");
+            repository.save(new Message("m3", "b", "alice", null, "three", SENT.plusSeconds(2)));
+        }
+
+        try (MappedMessageRepository repository = new MappedMessageRepository(dir)) {
+            assertEquals(List.of("m1"), ids(repository.findByChatId("a")));
+            assertEquals(List.of("m3"), ids(repository.findByChatId("b")));
+            assertTrue(repository.findById("m2").isEmpty());
+        }
+    }
+
+    @Test
+    void tornRecordEndsTheScanWhenReopening() throws IOException {
+        final Path segment;
+        try (MappedMessageRepository repository = new MappedMessageRepository(dir)) {
+            fill(repository, "a", 3);
+            try (Stream<Path> files = Files.list(dir)) {
+                segment = files.findFirst().orElseThrow();
+            }
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Claim more was written than there is: a zero length follows the last record
+            final ByteBuffer end = ByteBuffer.allocate(4);
+            channel.read(end, 4);
+            end.flip();
+            final int written = end.getInt();
+            channel.write(ByteBuffer.allocate(4).putInt(written + 100).flip(), 4);
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            try (MappedMessageRepository repository = new MappedMessageRepository(dir)) {
+                assertEquals(List.of("a0", "a1", "a2"), ids(repository.findByChatId("a")));
+                repository.save(new Message("m4", "a", "alice", null, "after", SENT.plusSeconds(100)));
+            }
+            try (MappedMessageRepository repository = new MappedMessageRepository(dir)) {
+                assertEquals(List.of("a0", "a1", "a2", "m4"), ids(repository.findByChatId("a")));
+            }
+        });
+    }
+
+    @Test
+    void listReadEarlierKeepsItsSnapshot() throws IOException {
+        try (MappedMessageRepository repository = new MappedMessageRepository(dir)) {
+            fill(repository, "a", 10);
+            final List<Message> before = repository.findByChatId("a");
+
+            repository.save(new Message("new", "a", "alice", null, "newest", SENT.plusSeconds(100)));
+            repository.save(new Message("old", "a", "alice", null, "oldest", SENT.minusSeconds(100)));
+            repository.deleteById("a5");
+
+            assertEquals(10, before.size());
+            assertEquals("a0", before.get(0).getId());
+            assertEquals("a5", before.get(5).getId());
+            assertEquals(11, repository.findByChatId("a").size());
+        }
+    }
+
+    @Test
+    void listReadEarlierKeepsItsSnapshotWhenAMessageIsResaved() throws IOException {
+        try (MappedMessageRepository repository = new MappedMessageRepository(dir)) {
+            fill(repository, "a", 3);
+            final List<Message> before = repository.findByChatId("a");
+
+            final Message edited = repository.findById("a1").orElseThrow();
+            edited.addReaction("bob", "👍");
+            repository.save(edited);
+
+            assertEquals(Map.of(), before.get(1).getReactions());
+            assertEquals(Map.of("bob", "👍"), repository.findByChatId("a").get(1).getReactions());
+        }
+    }
+
+    @Test
+    void clearEmptiesAndDeletesTheSegments() throws IOException {
+        try (MappedMessageRepository repository = new MappedMessageRepository(dir)) {
+            fill(repository, "a", 3);
+            fill(repository, "b", 2);
+
+            repository.clear();
+
+            assertTrue(repository.findByChatId("a").isEmpty());
+            assertTrue(repository.findById("b0").isEmpty());
+            repository.save(new Message("m1", "a", "alice", null, "next user", SENT));
+        }
+        try (MappedMessageRepository repository = new MappedMessageRepository(dir)) {
+            assertEquals(List.of("m1"), ids(repository.findByChatId("a")));
+            assertEquals(1, repository.getMessageCount());
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void matchesTheHeapRepositoryForShuffledSavesAndRanges() throws IOException {
+        final Random random = new Random(42);
+        final InMemoryMessageRepository expected = new InMemoryMessageRepository(Integer.MAX_VALUE, Long.MAX_VALUE);
+        try (MappedMessageRepository repository = new MappedMessageRepository(dir)) {
+            for (int i = 0; i < 3_000; i++) {
+                // Few distinct times, so many messages tie and are ordered by ID
+                final Message message = new Message("m" + random.nextInt(2_000), "c" + random.nextInt(3),
+                        "alice", null, "message " + i, SENT.plusSeconds(random.nextInt(500)));
+                expected.save(message);
+                repository.save(message);
+                if (i % 7 == 0) {
+                    final String id = "m" + random.nextInt(2_000);
+                    expected.deleteById(id);
+                    repository.deleteById(id);
+                }
+            }
+            assertSameContents(expected, repository);
+        }
+
+        try (MappedMessageRepository repository = new MappedMessageRepository(dir)) {
+            assertSameContents(expected, repository);
+        }
+    }
+
+    private static void assertSameContents(InMemoryMessageRepository expected, MappedMessageRepository actual) {
+        for (String chatId : List.of("c0", "c1", "c2")) {
+            assertEquals(ids(expected.findByChatId(chatId)), ids(actual.findByChatId(chatId)));
+            for (int from = 0; from < 500; from += 37) {
+                final Instant start = SENT.plusSeconds(from);
+                final Instant end = start.plusSeconds(53);
+                assertEquals(ids(expected.findByChatIdBetween(chatId, start, end)),
+                        ids(actual.findByChatIdBetween(chatId, start, end)));
+            }
+            assertEquals(ids(expected.findByChatIdBetween(chatId, null, SENT.plusSeconds(100))),
+                    ids(actual.findByChatIdBetween(chatId, null, SENT.plusSeconds(100))));
+        }
+    }
+
+    private static List<String> ids(List<Message> messages) {
+        final List<String> ids = new ArrayList<>();
+        for (Message message : messages) {
+            ids.add(message.getId());
+        }
+        return ids;
+    }
+
+    private static void fill(MappedMessageRepository repository, String chatId, int count) {
+        for (int i = 0; i < count; i++) {
+            repository.save(new Message(chatId + i, chatId, "alice", null, "message " + i, SENT.plusSeconds(i)));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package dataaccess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import entity.Chat;
+import entity.Message;
+import entity.repo.InMemoryMessageRepository;
+
+class PersistentRepositoriesTest {
+
+    private static final Instant SENT = Instant.parse("2024-01-01T10:00:00.123456789Z");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void chatsSurviveARestart() throws IOException {
+        final Path file = dir.resolve("chats.log");
+        try (PersistentChatRepository repository = new PersistentChatRepository(file)) {
+            final Chat group = new Chat("g1", "Study group", new Color(10, 20, 30), SENT);
+            group.addParticipant("alice");
+            group.addParticipant("bob");
+            group.addParticipant("carol");
+            group.setMessageCount(42);
+            group.setLastMessageId("m42");
+            repository.save(group);
+            final Chat direct = new Chat("d1", null, Color.WHITE, SENT.plusSeconds(5));
+            direct.addParticipant("alice");
+            direct.addParticipant("bob");
+            repository.save(direct);
+            // Saving again replaces the stored chat
+            group.setGroupName("Renamed");
+            repository.save(group);
+        }
+
+        try (PersistentChatRepository repository = new PersistentChatRepository(file)) {
+            assertEquals(2, repository.findAll().size());
+            final Chat group = repository.findById("g1").orElseThrow();
+            assertEquals("Renamed", group.getGroupName());
+            assertEquals(new Color(10, 20, 30), group.getBackgroundColor());
+            assertEquals(SENT.toEpochMilli(), group.getLastMessage().toEpochMilli());
+            assertEquals(List.of("alice", "bob", "carol"), group.getParticipantUserIds());
+            assertEquals(42, group.getMessageCount());
+            assertEquals("m42", group.getLastMessageId());
+            assertNull(repository.findById("d1").orElseThrow().getGroupName());
+            assertEquals("d1", repository.findByParticipants(List.of("bob", "alice")).get(0).getId());
+        }
+    }
+
+    @Test
+    void clearingChatsEmptiesTheStore() throws IOException {
+        final Path file = dir.resolve("chats.log");
+        try (PersistentChatRepository repository = new PersistentChatRepository(file)) {
+            repository.save(new Chat("c1", "name", Color.WHITE, SENT));
+            repository.clear();
+        }
+
+        try (PersistentChatRepository repository = new PersistentChatRepository(file)) {
+            assertTrue(repository.findAll().isEmpty());
+        }
+    }
+
+    @Test
+    void deletedChatsStayDeletedAfterARestart() throws IOException {
+        final Path file = dir.resolve("chats.log");
+        try (PersistentChatRepository repository = new PersistentChatRepository(file)) {
+            final Chat left = new Chat("c1", null, Color.WHITE, SENT);
+            left.addParticipant("alice");
+            left.addParticipant("bob");
+            repository.save(left);
+            repository.save(new Chat("c2", "name", Color.WHITE, SENT));
+            repository.deleteById("c1");
+            assertTrue(repository.findByParticipants(List.of("alice", "bob")).isEmpty());
+        }
+
+        try (PersistentChatRepository repository = new PersistentChatRepository(file)) {
+            assertEquals(1, repository.findAll().size());
+            assertTrue(repository.findById("c1").isEmpty());
+        }
+    }
+
+    @Test
+    void messagesSurviveARestartInOrder() throws IOException {
+        final Path file = dir.resolve("messages.log");
+        try (PersistentMessageRepository repository = new PersistentMessageRepository(file)) {
+            repository.save(new Message("m2", "c1", "bob", "m1", "reply", SENT.plusSeconds(1)));
+            final Message first = new Message("m1", "c1", "alice", null, "héllo 👋\n" + "x".repeat(70_000), SENT);
+            repository.save(first);
+            first.addReaction("bob", "👍");
+            repository.save(first);
+            repository.save(new Message("gone", "c1", "alice", null, "deleted", SENT.plusSeconds(2)));
+            repository.deleteById("gone");
+        }
+
+        try (PersistentMessageRepository repository = new PersistentMessageRepository(file)) {
+            final List<Message> history = repository.findByChatId("c1");
+            assertEquals(2, history.size());
+            final Message first = history.get(0);
+            assertEquals("m1", first.getId());
+            assertEquals(SENT, first.getTimestamp());
+            assertTrue(first.getContent().startsWith("héllo 👋\n"));
+            assertEquals(70_009, first.getContent().length());
+            assertNull(first.getRepliedMessageId());
+            assertEquals(Map.of("bob", "👍"), first.getReactions());
+            assertEquals("m1", history.get(1).getRepliedMessageId());
+            assertTrue(repository.findById("gone").isEmpty());
+        }
+    }
+
+    @Test
+    void compactionDropsMessagesTheCacheEvicted() throws IOException {
+        final Path file = dir.resolve("messages.log");
+        final InMemoryMessageRepository cache = new InMemoryMessageRepository(100, Long.MAX_VALUE);
+        try (PersistentMessageRepository repository = new PersistentMessageRepository(file, cache)) {
+            for (int chat = 0; chat < 100; chat++) {
+                for (int i = 0; i < 50; i++) {
+                    repository.save(new Message("c" + chat + "m" + i, "c" + chat, "alice", null,
+                            "message " + "x".repeat(200), SENT.plusSeconds(i)));
+                }
+            }
+        }
+
+        final InMemoryMessageRepository restored = new InMemoryMessageRepository(100, Long.MAX_VALUE);
+        try (PersistentMessageRepository repository = new PersistentMessageRepository(file, restored)) {
+            // Only a small multiple of what the cache holds is left on disk
+            assertTrue(file.toFile().length() < 1024 * 1024);
+            assertEquals(50, repository.findByChatId("c99").size());
+            assertTrue(repository.findByChatId("c0").isEmpty());
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package dataaccess;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class WriteBehindQueueTest {
+
+    private static final String MESSAGES = "messages";
+    private static final String CHATS = "chats";
+    private static final long NEVER = TimeUnit.HOURS.toMillis(1);
+
+    private final FakeBatchStore store = new FakeBatchStore();
+    private WriteBehindQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        queue.close();
+    }
+
+    @Test
+    void reactionToggledBackAndForthIsOneWrite() {
+        queue = new WriteBehindQueue(store, 10, NEVER);
+        store.create(MESSAGES, "m1", Map.of("content", "hi", "reactions", Map.of("bob", "👍")));
+
+        queue.update(MESSAGES, "m1", new DocumentUpdate().set("reactions.alice", "❤"));
+        queue.update(MESSAGES, "m1", new DocumentUpdate().delete("reactions.alice"));
+        queue.update(MESSAGES, "m1", new DocumentUpdate().set("reactions.alice", "😂"));
+        queue.update(MESSAGES, "m1", new DocumentUpdate().delete("reactions.alice"));
+        queue.flush();
+
+        assertEquals(List.of(1), store.batchSizes());
+        assertEquals(Map.of("bob", "👍"), store.document(MESSAGES, "m1").get("reactions"));
+        assertEquals(4, queue.getOperationCount());
+        assertEquals(1, queue.getWriteCount());
+    }
+
+    @Test
+    void reactionAddedAndRemovedBeforeMessageIsSentCancelsOut() {
+        queue = new WriteBehindQueue(store, 10, NEVER);
+
+        queue.set(MESSAGES, "m1", Map.of("content", "hi", "reactions", Map.of()));
+        queue.update(MESSAGES, "m1", new DocumentUpdate().set("reactions.alice", "❤"));
+        queue.update(MESSAGES, "m1", new DocumentUpdate().delete("reactions.alice"));
+        queue.flush();
+
+        final DocumentWrite write = store.batches.get(0).get(0);
+        assertEquals(DocumentWrite.Kind.SET, write.getKind());
+        assertEquals(Map.of(), write.getData().get("reactions"));
+    }
+
+    @Test
+    void countersFoldAndMembershipChangesKeepTheirOrder() {
+        queue = new WriteBehindQueue(store, 10, NEVER);
+        store.create(CHATS, "c1", Map.of("messageCount", 0L, "participants", List.of("alice")));
+
+        for (int i = 0; i < 5; i++) {
+            queue.update(CHATS, "c1", new DocumentUpdate().increment("messageCount", 1).set("lastMessageId", "m" + i));
+        }
+        queue.update(CHATS, "c1", new DocumentUpdate().arrayUnion("participants", "bob"));
+        queue.update(CHATS, "c1", new DocumentUpdate().arrayRemove("participants", "bob"));
+        queue.flush();
+
+        // The union and the removal cannot share one write, so they are sent separately in order
+        assertEquals(List.of(2), store.batchSizes());
+        assertEquals(5L, store.document(CHATS, "c1").get("messageCount"));
+        assertEquals("m4", store.document(CHATS, "c1").get("lastMessageId"));
+        assertEquals(List.of("alice"), store.document(CHATS, "c1").get("participants"));
+    }
+
+    @Test
+    void sizeThresholdSplitsBatchesInQueueOrder() {
+        queue = new WriteBehindQueue(store, 3, NEVER);
+
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            futures.add(queue.set(MESSAGES, "m" + i, Map.of("content", "message " + i)));
+        }
+        CompletableFuture.allOf(futures.subList(0, 6).toArray(new CompletableFuture<?>[0])).join();
+        queue.flush();
+
+        assertEquals(List.of(3, 3, 1), store.batchSizes());
+        final List<String> committed = new ArrayList<>();
+        for (List<DocumentWrite> batch : store.batches) {
+            for (DocumentWrite write : batch) {
+                committed.add(write.getDocumentId());
+            }
+        }
+        assertEquals(List.of("m0", "m1", "m2", "m3", "m4", "m5", "m6"), committed);
+        assertEquals(3, queue.getBatchCount());
+        assertEquals(3, queue.getLargestBatch());
+        assertEquals(7.0 / 3, queue.getAverageBatchSize(), 1e-9);
+    }
+
+    @Test
+    void timeThresholdCommitsWithoutFlush() throws Exception {
+        queue = new WriteBehindQueue(store, 100, 20);
+
+        queue.set(MESSAGES, "m1", Map.of("content", "hi")).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(1), store.batchSizes());
+    }
+
+    @Test
+    void messageSentAfterDeleteIsNotReordered() {
+        queue = new WriteBehindQueue(store, 10, NEVER);
+        store.create(MESSAGES, "m1", Map.of("content", "old"));
+
+        queue.delete(MESSAGES, "m1");
+        queue.set(MESSAGES, "m1", Map.of("content", "new"));
+        queue.flush();
+
+        assertEquals("new", store.document(MESSAGES, "m1").get("content"));
+    }
+
+    @Test
+    void rejectedBatchOnlyFailsTheBadWrite() {
+        queue = new WriteBehindQueue(store, 10, NEVER);
+        store.create(CHATS, "c1", Map.of("messageCount", 0L));
+
+        final CompletableFuture<Void> message = queue.set(MESSAGES, "m1", Map.of("content", "hi"));
+        final CompletableFuture<Void> missingChat =
+                queue.update(CHATS, "gone", new DocumentUpdate().increment("messageCount", 1));
+        final CompletableFuture<Void> chat =
+                queue.update(CHATS, "c1", new DocumentUpdate().increment("messageCount", 1));
+        queue.flush();
+
+        message.join();
+        chat.join();
+        final CompletionException error = assertThrows(CompletionException.class, missingChat::join);
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertEquals(1L, store.document(CHATS, "c1").get("messageCount"));
+        assertFalse(store.documents.containsKey(CHATS + "/gone"));
+        assertEquals(2, queue.getBatchCount());
+    }
+
+    @Test
+    void groupIsNeverSplitAcrossBatches() {
+        queue = new WriteBehindQueue(store, 2, NEVER);
+        store.create(CHATS, "c1", Map.of("messageCount", 0L));
+
+        queue.set(MESSAGES, "m0", Map.of("content", "first"));
+        queue.submitTogether(List.of(
+                DocumentWrite.set(MESSAGES, "m1", Map.of("content", "second")),
+                DocumentWrite.update(CHATS, "c1", new DocumentUpdate().increment("messageCount", 1))));
+        queue.flush();
+
+        assertEquals(List.of(3), store.batchSizes());
+    }
+
+    @Test
+    void rejectedGroupWritesNothing() {
+        queue = new WriteBehindQueue(store, 10, NEVER);
+
+        final CompletableFuture<Void> other = queue.set(MESSAGES, "m0", Map.of("content", "unrelated"));
+        final CompletableFuture<Void> group = queue.submitTogether(List.of(
+                DocumentWrite.set(MESSAGES, "m1", Map.of("content", "orphan?")),
+                DocumentWrite.update(CHATS, "gone", new DocumentUpdate().increment("messageCount", 1))));
+        queue.flush();
+
+        other.join();
+        assertThrows(CompletionException.class, group::join);
+        assertFalse(store.documents.containsKey(MESSAGES + "/m1"));
+        assertTrue(store.documents.containsKey(MESSAGES + "/m0"));
+    }
+
+    @Test
+    void laterWriteIsNotFoldedIntoAGroup() {
+        queue = new WriteBehindQueue(store, 10, NEVER);
+
+        final CompletableFuture<Void> group = queue.submitTogether(List.of(
+                DocumentWrite.set(MESSAGES, "m1", Map.of("content", "first try")),
+                DocumentWrite.update(CHATS, "gone", new DocumentUpdate().increment("messageCount", 1))));
+        final CompletableFuture<Void> retry = queue.set(MESSAGES, "m1", Map.of("content", "second try"));
+        queue.flush();
+
+        // The rejected group must not take the write queued after it down too
+        assertThrows(CompletionException.class, group::join);
+        retry.join();
+        assertEquals("second try", store.document(MESSAGES, "m1").get("content"));
+    }
+
+    @Test
+    void writeIsNotFoldedPastARelatedWrite() {
+        queue = new WriteBehindQueue(store, 10, NEVER);
+        store.create(CHATS, "c1", Map.of("messageCount", 0L));
+
+        queue.update(CHATS, "c1", new DocumentUpdate().increment("messageCount", 1));
+        // A write to another chat's message in between does not stop the fold
+        queue.set(MESSAGES, "x1", Map.of("content", "elsewhere"));
+        queue.update(CHATS, "c1", new DocumentUpdate().increment("messageCount", 1));
+        // A message of this chat in between does
+        queue.submit(DocumentWrite.set(MESSAGES, "m1", Map.of("content", "hi")).relatedTo(CHATS, "c1"));
+        queue.update(CHATS, "c1", new DocumentUpdate().set("lastMessageId", "m1"));
+        queue.flush();
+
+        final List<String> committed = new ArrayList<>();
+        for (DocumentWrite write : store.batches.get(0)) {
+            committed.add(write.getDocumentId());
+        }
+        assertEquals(List.of("c1", "x1", "m1", "c1"), committed);
+        assertEquals(2L, store.document(CHATS, "c1").get("messageCount"));
+        assertEquals("m1", store.document(CHATS, "c1").get("lastMessageId"));
+    }
+
+    @Test
+    void closeCommitsPendingWrites() {
+        queue = new WriteBehindQueue(store, 10, NEVER);
+        final CompletableFuture<Void> write = queue.set(MESSAGES, "m1", Map.of("content", "hi"));
+
+        queue.close();
+
+        assertTrue(write.isDone());
+        assertEquals("hi", store.document(MESSAGES, "m1").get("content"));
+    }
+
+    /**
+     * In-memory stand-in for Firestore batches: a batch is applied only if every update
+     * targets an existing document.
+     */
+    private static class FakeBatchStore implements DocumentBatchStore {
+        private final Map<String, Map<String, Object>> documents = new HashMap<>();
+        private final List<List<DocumentWrite>> batches = new ArrayList<>();
+
+        synchronized void create(String collection, String id, Map<String, Object> fields) {
+            documents.put(collection + "/" + id, new HashMap<>(fields));
+        }
+
+        synchronized Map<String, Object> document(String collection, String id) {
+            return documents.get(collection + "/" + id);
+        }
+
+        synchronized List<Integer> batchSizes() {
+            final List<Integer> sizes = new ArrayList<>();
+            for (List<DocumentWrite> batch : batches) {
+                sizes.add(batch.size());
+            }
+            return sizes;
+        }
+
+        @Override
+        public synchronized void commit(List<DocumentWrite> writes) {
+            final Map<String, Map<String, Object>> result = new HashMap<>(documents);
+            for (DocumentWrite write : writes) {
+                final String path = write.getCollection() + "/" + write.getDocumentId();
+                switch (write.getKind()) {
+                    case SET:
+                        result.put(path, new HashMap<>(write.getData()));
+                        break;
+                    case UPDATE:
+                        if (!result.containsKey(path)) {
+                            throw new IllegalStateException("No document to update: " + path);
+                        }
+                        final Map<String, Object> fields = new HashMap<>(result.get(path));
+                        write.getUpdate().applyTo(fields);
+                        result.put(path, fields);
+                        break;
+                    default:
+                        result.remove(path);
+                        break;
+                }
+            }
+            documents.clear();
+            documents.putAll(result);
+            batches.add(List.copyOf(writes));
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package entity.repo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import entity.Chat;
+import entity.Message;
+import entity.User;
+
+/**
+ * Runs sync-style writers and UI-style readers against the repositories at the same
+ * time. Readers check that every view they get is consistent, and the totals are
+ * checked once the writers are done.
+ */
+class ConcurrentRepositoriesStressTest {
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int WRITES_PER_WRITER = 5_000;
+    private static final int CHATS = 8;
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean writing = new AtomicBoolean(true);
+
+    @Test
+    void readersSeeConsistentStateWhileSyncWrites() throws InterruptedException {
+        final InMemoryMessageRepository messages = new InMemoryMessageRepository(Integer.MAX_VALUE, Long.MAX_VALUE);
+        final InMemoryChatRepository chats = new InMemoryChatRepository();
+        final InMemoryUserRepository users = new InMemoryUserRepository();
+        final List<Chat> chatList = new ArrayList<>();
+        for (int c = 0; c < CHATS; c++) {
+            final Chat chat = new Chat("chat" + c, "", Color.GRAY, START);
+            chat.addParticipant("alice");
+            chat.addParticipant("user-owner" + c);
+            chatList.add(chats.save(chat));
+        }
+
+        run(writer -> {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < WRITES_PER_WRITER; i++) {
+                final String id = "w" + writer + "-" + i;
+                final Chat chat = chatList.get(random.nextInt(CHATS));
+                final Message message = new Message(id, chat.getId(), "alice", null, "hi",
+                        START.plusMillis(random.nextInt(1_000_000)));
+                messages.save(message);
+                chat.addMessage(id);
+                message.addReaction("user" + random.nextInt(5), "👍");
+                messages.save(message);
+                if (random.nextInt(10) == 0) {
+                    message.removeReaction("user0");
+                    messages.deleteById(id);
+                    chat.getMessageIds().remove(id);
+                }
+                if (random.nextInt(50) == 0) {
+                    chat.addParticipant("user" + writer + "-" + i);
+                    chats.save(chat);
+                }
+                users.save(new User("User" + writer + "-" + i, "pw"));
+            }
+        }, reader -> {
+            for (Chat chat : chats.findAll()) {
+                checkSorted(messages.findByChatId(chat.getId()));
+                for (String participant : chat.getParticipantUserIds()) {
+                    assertTrue(participant.startsWith("alice") || participant.startsWith("user"));
+                }
+                for (String messageId : chat.getMessageIds()) {
+                    assertTrue(messageId.startsWith("w"));
+                }
+                assertTrue(chats.findByParticipants(chat.getParticipantUserIds()).size() <= 1);
+            }
+            checkSorted(messages.findByChatIdBetween("chat0", START.plusMillis(250_000), START.plusMillis(750_000)));
+            for (Message message : messages.findByChatId("chat1")) {
+                for (Map.Entry<String, String> reaction : message.getReactions().entrySet()) {
+                    assertEquals("👍", reaction.getValue());
+                }
+            }
+            users.findByUsername("user0-" + ThreadLocalRandom.current().nextInt(WRITES_PER_WRITER));
+        });
+
+        int cached = 0;
+        for (int c = 0; c < CHATS; c++) {
+            final List<Message> history = messages.findByChatId("chat" + c);
+            checkSorted(history);
+            cached += history.size();
+            // Every surviving message was added to its chat, and every deleted one removed
+            assertEquals(chatList.get(c).getMessageIds().size(), history.size());
+        }
+        assertEquals(messages.getMessageCount(), cached);
+        assertTrue(users.findByUsername("user3-4999").isPresent());
+    }
+
+    @Test
+    void evictionKeepsTotalsExactUnderConcurrentReads() throws InterruptedException {
+        final InMemoryMessageRepository messages = new InMemoryMessageRepository(500, Long.MAX_VALUE);
+
+        run(writer -> {
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < WRITES_PER_WRITER; i++) {
+                messages.save(new Message("w" + writer + "-" + i, "chat" + random.nextInt(CHATS * 4), "alice",
+                        null, "hi", START.plusMillis(i)));
+                if (random.nextInt(10) == 0) {
+                    messages.deleteById("w" + writer + "-" + random.nextInt(i + 1));
+                }
+            }
+        }, reader -> checkSorted(messages.findByChatId("chat" + ThreadLocalRandom.current().nextInt(CHATS * 4))));
+
+        int cached = 0;
+        for (int c = 0; c < CHATS * 4; c++) {
+            cached += messages.findByChatId("chat" + c).size();
+        }
+        assertEquals(messages.getMessageCount(), cached);
+        assertTrue(messages.getMessageCount() <= 500 + WRITES_PER_WRITER);
+        assertTrue(messages.getEvictionCount() > 0);
+    }
+
+    private void run(Worker writer, Worker reader) throws InterruptedException {
+        final ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch writersDone = new CountDownLatch(WRITERS);
+        for (int w = 0; w < WRITERS; w++) {
+            final int id = w;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    writer.run(id);
+                }
+                catch (Throwable ex) {
+                    failures.add(ex);
+                }
+                finally {
+                    writersDone.countDown();
+                }
+            });
+        }
+        for (int r = 0; r < READERS; r++) {
+            final int id = r;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    while (writing.get()) {
+                        reader.run(id);
+                    }
+                }
+                catch (Throwable ex) {
+                    failures.add(ex);
+                }
+            });
+        }
+
+        start.countDown();
+        assertTrue(writersDone.await(60, TimeUnit.SECONDS), "writers did not finish");
+        writing.set(false);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS), "readers did not finish");
+        if (!failures.isEmpty()) {
+            throw new AssertionError("Concurrent access failed", failures.peek());
+        }
+    }
+
+    private static void checkSorted(List<Message> history) {
+        for (int i = 1; i < history.size(); i++) {
+            assertTrue(!history.get(i).getTimestamp().isBefore(history.get(i - 1).getTimestamp()),
+                    "history out of order");
+        }
+    }
+
+    /**
+     * One thread's share of the work.
+     */
+    private interface Worker {
+        void run(int id) throws Exception;
+    }
+}
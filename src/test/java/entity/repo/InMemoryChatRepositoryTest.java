@@ -0,0 +1,85 @@
+package entity.repo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import entity.Chat;
+
+class InMemoryChatRepositoryTest {
+
+    @Test
+    void participantKeyIgnoresOrderAndRepeatsButNotBoundaries() {
+        assertEquals(Chat.participantKey(List.of("alice", "bob")), Chat.participantKey(List.of("bob", "alice")));
+        assertEquals(Chat.participantKey(List.of("alice", "bob")),
+                Chat.participantKey(List.of("bob", "alice", "bob")));
+        assertNotEquals(Chat.participantKey(List.of("a", "bc")), Chat.participantKey(List.of("ab", "c")));
+        assertEquals(64, Chat.participantKey(List.of("alice")).length());
+    }
+
+    @Test
+    void addMessageDoesNotFetchTheMessageIds() {
+        final Chat chat = new Chat("c1", "", Color.WHITE, Instant.EPOCH);
+        final int[] loads = new int[1];
+        chat.setMessageIdLoader(() -> {
+            loads[0]++;
+            return List.of("m1", "m2");
+        });
+
+        chat.addMessage("m2");
+
+        assertEquals(0, loads[0]);
+        assertEquals(1, chat.getMessageCount());
+        assertEquals("m2", chat.getLastMessageId());
+        // The fetch already has the message, so it is not listed twice
+        assertEquals(List.of("m1", "m2"), chat.getMessageIds());
+        chat.addMessage("m3");
+        assertEquals(List.of("m1", "m2", "m3"), chat.getMessageIds());
+        assertEquals(1, loads[0]);
+    }
+
+    @Test
+    void findsChatsByParticipantSetInAnyOrder() {
+        final InMemoryChatRepository repository = new InMemoryChatRepository();
+        final Chat direct = repository.save(chat("c1", "", "alice", "bob"));
+        final Chat study = repository.save(chat("c2", "study", "alice", "bob", "carol"));
+        final Chat games = repository.save(chat("c3", "games", "carol", "alice", "bob"));
+
+        assertEquals(List.of(direct), repository.findByParticipants(List.of("bob", "alice")));
+        final List<Chat> groups = repository.findByParticipants(List.of("carol", "bob", "alice"));
+        assertEquals(2, groups.size());
+        assertTrue(groups.contains(study) && groups.contains(games));
+        assertTrue(repository.findByParticipants(List.of("alice")).isEmpty());
+    }
+
+    @Test
+    void resavingAChatMovesItToItsNewParticipantSet() {
+        final InMemoryChatRepository repository = new InMemoryChatRepository();
+        final Chat chat = repository.save(chat("c1", "study", "alice", "bob", "carol"));
+
+        chat.addParticipant("dave");
+        // Not found under either set until it is saved again
+        assertTrue(repository.findByParticipants(List.of("alice", "bob", "carol")).isEmpty());
+        assertTrue(repository.findByParticipants(List.of("alice", "bob", "carol", "dave")).isEmpty());
+
+        repository.save(chat);
+        assertEquals(List.of(chat), repository.findByParticipants(List.of("alice", "bob", "carol", "dave")));
+
+        repository.clear();
+        assertTrue(repository.findByParticipants(List.of("alice", "bob", "carol", "dave")).isEmpty());
+    }
+
+    private static Chat chat(String id, String name, String... participants) {
+        final Chat chat = new Chat(id, name, Color.GRAY, Instant.EPOCH);
+        for (String participant : participants) {
+            chat.addParticipant(participant);
+        }
+        return chat;
+    }
+}
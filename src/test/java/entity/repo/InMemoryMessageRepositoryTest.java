@@ -0,0 +1,126 @@
+package entity.repo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import entity.Message;
+
+class InMemoryMessageRepositoryTest {
+
+    private static final Instant SENT = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Test
+    void keepsSeveralChatsAndCountsHitsAndMisses() {
+        final InMemoryMessageRepository repository = new InMemoryMessageRepository();
+        fill(repository, "a", 3);
+        fill(repository, "b", 2);
+
+        assertEquals(3, repository.findByChatId("a").size());
+        assertEquals(2, repository.findByChatId("b").size());
+        assertTrue(repository.findByChatId("c").isEmpty());
+
+        assertEquals(2, repository.getHitCount());
+        assertEquals(1, repository.getMissCount());
+        assertEquals(5, repository.getMessageCount());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedChatByMessageCount() {
+        final InMemoryMessageRepository repository = new InMemoryMessageRepository(10, Long.MAX_VALUE);
+        fill(repository, "a", 4);
+        fill(repository, "b", 4);
+        // Reading chat a makes b the least recently used
+        repository.findByChatId("a");
+
+        fill(repository, "c", 4);
+
+        assertEquals(4, repository.findByChatId("a").size());
+        assertTrue(repository.findByChatId("b").isEmpty());
+        assertTrue(repository.findById("b0").isEmpty());
+        assertEquals(4, repository.findByChatId("c").size());
+        assertEquals(8, repository.getMessageCount());
+        assertEquals(1, repository.getEvictionCount());
+    }
+
+    @Test
+    void evictsByEstimatedBytes() {
+        final InMemoryMessageRepository repository = new InMemoryMessageRepository(Integer.MAX_VALUE, 2_000);
+        repository.save(new Message("a0", "a", "alice", null, "x".repeat(600), SENT));
+        repository.save(new Message("b0", "b", "alice", null, "y".repeat(600), SENT));
+
+        assertTrue(repository.findById("a0").isEmpty());
+        assertTrue(repository.findById("b0").isPresent());
+        assertTrue(repository.getByteCount() <= 2_000);
+    }
+
+    @Test
+    void chatBeingFilledIsNeverEvicted() {
+        final InMemoryMessageRepository repository = new InMemoryMessageRepository(3, Long.MAX_VALUE);
+
+        fill(repository, "a", 5);
+
+        assertEquals(5, repository.findByChatId("a").size());
+    }
+
+    @Test
+    void resavingAndDeletingKeepTotalsExact() {
+        final InMemoryMessageRepository repository = new InMemoryMessageRepository();
+        final Message message = new Message("a0", "a", "alice", null, "hello", SENT);
+        repository.save(message);
+        final long bytes = repository.getByteCount();
+
+        message.addReaction("bob", "👍");
+        repository.save(message);
+        assertEquals(1, repository.getMessageCount());
+        assertTrue(repository.getByteCount() > bytes);
+
+        repository.deleteById("a0");
+        assertEquals(0, repository.getMessageCount());
+        assertEquals(0, repository.getByteCount());
+        assertTrue(repository.findByChatId("a").isEmpty());
+    }
+
+    @Test
+    void historyIsOrderedByTimestampWhateverTheSaveOrder() {
+        final InMemoryMessageRepository repository = new InMemoryMessageRepository();
+        repository.save(new Message("late", "a", "alice", null, "3", SENT.plusSeconds(20)));
+        repository.save(new Message("early", "a", "alice", null, "1", SENT));
+        repository.save(new Message("tie-b", "a", "alice", null, "2b", SENT.plusSeconds(10)));
+        repository.save(new Message("tie-a", "a", "alice", null, "2a", SENT.plusSeconds(10)));
+
+        assertEquals(List.of("early", "tie-a", "tie-b", "late"), ids(repository.findByChatId("a")));
+    }
+
+    @Test
+    void rangeQueryReturnsHalfOpenInterval() {
+        final InMemoryMessageRepository repository = new InMemoryMessageRepository();
+        fill(repository, "a", 10);
+        fill(repository, "b", 10);
+
+        assertEquals(List.of("a3", "a4", "a5"),
+                ids(repository.findByChatIdBetween("a", SENT.plusSeconds(3), SENT.plusSeconds(6))));
+        assertEquals(List.of("a8", "a9"), ids(repository.findByChatIdBetween("a", SENT.plusSeconds(8), null)));
+        assertEquals(List.of("a0", "a1"), ids(repository.findByChatIdBetween("a", null, SENT.plusSeconds(2))));
+        assertTrue(repository.findByChatIdBetween("c", null, null).isEmpty());
+    }
+
+    private static List<String> ids(List<Message> messages) {
+        final List<String> ids = new ArrayList<>();
+        for (Message message : messages) {
+            ids.add(message.getId());
+        }
+        return ids;
+    }
+
+    private static void fill(InMemoryMessageRepository repository, String chatId, int count) {
+        for (int i = 0; i < count; i++) {
+            repository.save(new Message(chatId + i, chatId, "alice", null, "message " + i, SENT.plusSeconds(i)));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package entity.repo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import entity.User;
+
+class InMemoryUserRepositoryTest {
+
+    @Test
+    void findsUsersWhateverTheCase() {
+        final InMemoryUserRepository repository = new InMemoryUserRepository();
+        final User alice = repository.save(new User("Alice", "pw"));
+
+        assertSame(alice, repository.findByUsername("alice").orElseThrow());
+        assertSame(alice, repository.findByUsername("ALICE").orElseThrow());
+        assertTrue(repository.findByUsername("bob").isEmpty());
+        assertTrue(repository.findByUsername(null).isEmpty());
+    }
+
+    @Test
+    void exactNameWinsOverCaseInsensitiveMatch() {
+        final InMemoryUserRepository repository = new InMemoryUserRepository();
+        final User lower = repository.save(new User("sam", "pw"));
+        final User upper = repository.save(new User("SAM", "pw"));
+
+        assertSame(lower, repository.findByUsername("sam").orElseThrow());
+        assertSame(upper, repository.findByUsername("SAM").orElseThrow());
+    }
+
+    @Test
+    void foldsCharactersWithSeveralLowerCaseForms() {
+        final InMemoryUserRepository repository = new InMemoryUserRepository();
+        final User user = repository.save(new User("ΟΔΥΣΣΕΥΣ", "pw"));
+
+        // Final and medial sigma both fold to the same key
+        assertSame(user, repository.findByUsername("οδυσσευς").orElseThrow());
+        assertSame(user, repository.findByUsername("οδυσσευσ").orElseThrow());
+    }
+
+    @Test
+    void bulkLookupReturnsFoundUsersInRequestOrder() {
+        final InMemoryUserRepository repository = new InMemoryUserRepository();
+        final User alice = repository.save(new User("alice", "pw"));
+        final User bob = repository.save(new User("bob", "pw"));
+
+        final Map<String, User> found = repository.findAllByUsernames(Arrays.asList("BOB", "carol", "alice"));
+
+        assertEquals(List.of("BOB", "alice"), List.copyOf(found.keySet()));
+        assertSame(bob, found.get("BOB"));
+        assertSame(alice, found.get("alice"));
+    }
+}
@@ -0,0 +1,89 @@
+package entity.repo;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import entity.Message;
+
+/**
+ * Compares reading one chat's ordered history from the indexed repository against the
+ * previous scan-filter-sort approach.
+ *
+ * <p>
+ * Not a unit test; run it by hand after {@code mvn test-compile}:
+ * {@code java -cp target/classes:target/test-classes entity.repo.MessageRepositoryBenchmark}
+ */
+public final class MessageRepositoryBenchmark {
+
+    private static final int CHATS = 100;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private MessageRepositoryBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        for (int total : new int[] {10_000, 1_000_000}) {
+            final InMemoryMessageRepository indexed =
+                    new InMemoryMessageRepository(Integer.MAX_VALUE, Long.MAX_VALUE);
+            final ScanningRepository scanning = new ScanningRepository();
+            for (int i = 0; i < total; i++) {
+                // Interleave chats and shuffle send times so nothing arrives pre-sorted
+                final Message message = new Message("m" + i, "chat" + (i % CHATS), "alice", null,
+                        "message " + i, START.plusSeconds((i * 7919L) % total));
+                indexed.save(message);
+                scanning.save(message);
+            }
+
+            final double scanMicros = time(() -> scanning.findSorted("chat42"));
+            final double indexMicros = time(() -> indexed.findByChatId("chat42"));
+            final double pageMicros = time(() -> indexed.findByChatIdBetween("chat42",
+                    START.plusSeconds(total / 2), START.plusSeconds(total / 2 + 50 * CHATS)));
+            System.out.printf("%,d messages, %,d per chat: scan+sort %.1f us, index %.1f us (%.0fx), "
+                            + "50-message range %.1f us%n",
+                    total, total / CHATS, scanMicros, indexMicros, scanMicros / indexMicros, pageMicros);
+        }
+    }
+
+    private static double time(Runnable read) {
+        final int callsPerRound = 20;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (int call = 0; call < callsPerRound; call++) {
+                read.run();
+            }
+        }
+        final long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            for (int call = 0; call < callsPerRound; call++) {
+                read.run();
+            }
+        }
+        return (System.nanoTime() - start) / 1_000.0 / (MEASURED_ROUNDS * callsPerRound);
+    }
+
+    /**
+     * The previous repository: one map of every message, filtered per call, with the
+     * caller sorting the result.
+     */
+    private static final class ScanningRepository {
+        private final Map<String, Message> messages = new HashMap<>();
+
+        void save(Message message) {
+            messages.put(message.getId(), message);
+        }
+
+        List<Message> findSorted(String chatId) {
+            final List<Message> result = new ArrayList<>(messages.values().stream()
+                    .filter(m -> m.getChatId().equals(chatId))
+                    .collect(Collectors.toList()));
+            result.sort(Comparator.comparing(Message::getTimestamp));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package entity.repo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import entity.User;
+
+/**
+ * Compares case-insensitive username lookups in the indexed repository against the
+ * previous scan over every user.
+ *
+ * <p>
+ * Not a unit test; run it by hand after {@code mvn test-compile}:
+ * {@code java -cp target/classes:target/test-classes entity.repo.UserRepositoryBenchmark}
+ */
+public final class UserRepositoryBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int GROUP_SIZE = 20;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private UserRepositoryBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        final InMemoryUserRepository indexed = new InMemoryUserRepository();
+        final ScanningRepository scanning = new ScanningRepository();
+        for (int i = 0; i < USERS; i++) {
+            final User user = new User("User" + i, "pw");
+            indexed.save(user);
+            scanning.save(user);
+        }
+
+        // A group spread over the whole population, typed in a different case
+        final List<String> group = new ArrayList<>();
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            group.add("user" + (i * (USERS / GROUP_SIZE) + USERS / GROUP_SIZE / 2));
+        }
+
+        final double scanMicros = time(() -> group.forEach(scanning::findByUsername));
+        final double indexMicros = time(() -> group.forEach(indexed::findByUsername));
+        final double bulkMicros = time(() -> indexed.findAllByUsernames(group));
+        System.out.printf("%,d users, %d-member group: scan %.1f us, index %.2f us (%.0fx), bulk %.2f us%n",
+                USERS, GROUP_SIZE, scanMicros, indexMicros, scanMicros / indexMicros, bulkMicros);
+    }
+
+    private static double time(Runnable lookUp) {
+        final int callsPerRound = 20;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (int call = 0; call < callsPerRound; call++) {
+                lookUp.run();
+            }
+        }
+        final long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            for (int call = 0; call < callsPerRound; call++) {
+                lookUp.run();
+            }
+        }
+        return (System.nanoTime() - start) / 1_000.0 / (MEASURED_ROUNDS * callsPerRound);
+    }
+
+    /**
+     * The previous repository: users keyed by exact name, with case-insensitive
+     * lookups comparing against every user.
+     */
+    private static final class ScanningRepository {
+        private final Map<String, User> users = new HashMap<>();
+
+        void save(User user) {
+            users.put(user.getName(), user);
+        }
+
+        Optional<User> findByUsername(String username) {
+            return users.values().stream()
+                    .filter(user -> user.getName().equalsIgnoreCase(username))
+                    .findFirst();
+        }
+    }
+}
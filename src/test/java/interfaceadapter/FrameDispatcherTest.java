@@ -0,0 +1,157 @@
+package interfaceadapter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeSupport;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.jupiter.api.Test;
+
+import interfaceadapter.messaging.MessageDiff;
+
+class FrameDispatcherTest {
+
+    private final FrameDispatcher dispatcher = new FrameDispatcher(FrameDispatcher.FRAME_MILLIS);
+    private final PropertyChangeSupport chat = new PropertyChangeSupport(this);
+    private final PropertyChangeSupport viewManager = new PropertyChangeSupport(this);
+    private final List<PropertyChangeEvent> events = new ArrayList<>();
+
+    @Test
+    void changesToOnePropertyInOneFrameFireOnceWithTheLatestValue() throws Exception {
+        chat.addPropertyChangeListener(events::add);
+
+        SwingUtilities.invokeAndWait(() -> {
+            dispatcher.post(chat, "state", null, "first");
+            dispatcher.post(chat, "state", null, "second");
+            dispatcher.post(chat, "state", null, "third");
+            assertTrue(events.isEmpty());
+            dispatcher.flush();
+        });
+
+        assertEquals(1, events.size());
+        assertEquals("third", events.get(0).getNewValue());
+        assertEquals(3, dispatcher.getReceivedCount());
+        assertEquals(1, dispatcher.getDeliveredCount());
+        assertEquals(1, dispatcher.getFrameCount());
+    }
+
+    @Test
+    void differentPropertiesFireInTheOrderFirstPosted() throws Exception {
+        chat.addPropertyChangeListener(events::add);
+        viewManager.addPropertyChangeListener(events::add);
+
+        SwingUtilities.invokeAndWait(() -> {
+            dispatcher.post(chat, "state", null, "history");
+            dispatcher.post(viewManager, "state", null, "chat");
+            dispatcher.post(chat, "messages", null, "diff");
+            dispatcher.post(chat, "state", null, "sent");
+            dispatcher.flush();
+        });
+
+        assertEquals(3, events.size());
+        assertEquals("sent", events.get(0).getNewValue());
+        assertEquals("chat", events.get(1).getNewValue());
+        assertEquals("diff", events.get(2).getNewValue());
+        assertEquals(1, dispatcher.getFrameCount());
+    }
+
+    @Test
+    void mergedChangeKeepsFiringWhenALaterPostHasNoOldValue() throws Exception {
+        chat.addPropertyChangeListener(events::add);
+        final Object state = new Object();
+
+        SwingUtilities.invokeAndWait(() -> {
+            // Setting the same state fires nothing, but the explicit fire after it must
+            dispatcher.post(chat, "state", state, state);
+            dispatcher.post(chat, "state", null, state);
+            dispatcher.flush();
+        });
+
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    void messageDiffsInOneFrameAreMerged() throws Exception {
+        chat.addPropertyChangeListener(events::add);
+        final MessageDiff reaction = diff(List.<String[]>of(row("m1")), List.<String[]>of(row("m1")), "👍");
+        final MessageDiff sent = diff(List.<String[]>of(row("m1")), List.of(row("m1"), row("m2")), null);
+
+        SwingUtilities.invokeAndWait(() -> {
+            dispatcher.post(chat, "messages", reaction, MessageDiff::merge);
+            dispatcher.post(chat, "messages", sent, MessageDiff::merge);
+            dispatcher.flush();
+        });
+
+        assertEquals(1, events.size());
+        final MessageDiff merged = (MessageDiff) events.get(0).getNewValue();
+        assertEquals(Set.of("m1"), merged.getReactionsChanged());
+        assertEquals(Set.of("m2"), merged.getInserted());
+        assertEquals(Set.of("m1", "m2"), merged.getAffected());
+    }
+
+    @Test
+    void changesPostedOffTheEventThreadArriveOnItWithinAFrame() throws Exception {
+        final CountDownLatch fired = new CountDownLatch(1);
+        final boolean[] onEventThread = new boolean[1];
+        chat.addPropertyChangeListener(evt -> {
+            onEventThread[0] = SwingUtilities.isEventDispatchThread();
+            events.add(evt);
+            fired.countDown();
+        });
+
+        for (int i = 0; i < 10; i++) {
+            dispatcher.post(chat, "state", null, i);
+        }
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        // Let a second frame pass in case the posts were split across two
+        Thread.sleep(FrameDispatcher.FRAME_MILLIS * 4L);
+        SwingUtilities.invokeAndWait(() -> { });
+        assertTrue(onEventThread[0]);
+        assertEquals(9, events.get(events.size() - 1).getNewValue());
+        assertEquals(10, dispatcher.getReceivedCount());
+        assertEquals(events.size(), dispatcher.getDeliveredCount());
+        assertTrue(dispatcher.getFrameCount() <= 2);
+    }
+
+    @Test
+    void listenerChangesWaitForTheNextFrame() throws Exception {
+        chat.addPropertyChangeListener(evt -> {
+            events.add(evt);
+            if ("state".equals(evt.getPropertyName())) {
+                dispatcher.post(viewManager, "state", null, "from listener");
+            }
+        });
+        final List<Object> later = new ArrayList<>();
+        viewManager.addPropertyChangeListener(evt -> later.add(evt.getNewValue()));
+
+        SwingUtilities.invokeAndWait(() -> {
+            dispatcher.post(chat, "state", null, "history");
+            dispatcher.flush();
+            assertTrue(later.isEmpty());
+            dispatcher.flush();
+        });
+
+        assertEquals(List.of("from listener"), later);
+        assertEquals(2, dispatcher.getFrameCount());
+    }
+
+    private static MessageDiff diff(List<String[]> oldRows, List<String[]> newRows, String newReaction) {
+        return MessageDiff.between(oldRows, id -> null, newRows,
+                id -> newReaction == null ? null : Map.of("bob", newReaction),
+                Map.of(), Map.of());
+    }
+
+    private static String[] row(String id) {
+        return new String[] {id, "alice", "hi", "2024-01-01 10:00", ""};
+    }
+}
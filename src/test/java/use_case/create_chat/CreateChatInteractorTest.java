@@ -9,10 +9,13 @@ import java.awt.Color;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.Collections;
 
@@ -68,6 +71,26 @@ class CreateChatInteractorTest {
         assertFalse(outputBoundary.failCalled);
     }
 
+    @Test
+    void testValidateUsers_MissingParticipantsAreLoadedTogether() throws Exception {
+        userRepository.addUser(new User("alice", "pass123"));
+        userRepository.addUser(new User("bob", "pass456"));
+        dataAccess.storedUsers.put("carol", new User("carol", "pass789"));
+        dataAccess.storedUsers.put("dave", new User("dave", "pass000"));
+
+        Method m = CreateChatInteractor.class.getDeclaredMethod(
+                "validateUsers", String.class, List.class, boolean.class);
+        m.setAccessible(true);
+
+        @SuppressWarnings("unchecked")
+        List<String> result = (List<String>) m.invoke(
+                interactor, "alice", Arrays.asList("bob", "carol", "dave"), true);
+
+        assertEquals(Arrays.asList("alice", "bob", "carol", "dave"), result);
+        assertEquals(List.of(Set.of("carol", "dave")), dataAccess.bulkLoads);
+        assertFalse(outputBoundary.failCalled);
+    }
+
     @Test
     void testValidateUsers_ResultNotNullButUserStillMissing() throws Exception {
         User alice = new User("alice", "pass123");
@@ -97,7 +120,7 @@ class CreateChatInteractorTest {
     @Test
     void testFindOrMakeIndividualChat_ParticipantSize2_ButIdsSize1() throws Exception {
         Method m = CreateChatInteractor.class.getDeclaredMethod(
-                "findOrMakeIndividualChat", List.class, List.class, String.class);
+                "findOrMakeIndividualChat", List.class, String.class);
         m.setAccessible(true);
 
         Chat existingChat = new Chat(
@@ -109,17 +132,31 @@ class CreateChatInteractorTest {
         existingChat.addParticipant("u1");
         existingChat.addParticipant("u2");
 
-        List<Chat> allChats = new ArrayList<>();
-        allChats.add(existingChat);
+        chatRepository.save(existingChat);
 
         List<String> participantIds = new ArrayList<>();
         participantIds.add("u1");
 
-        Object result = m.invoke(interactor, allChats, participantIds, "g");
+        Object result = m.invoke(interactor, participantIds, "g");
 
         assertNotNull(result);
     }
 
+    @Test
+    void testExecute_IndividualChatIdDependsOnlyOnParticipants() {
+        userRepository.addUser(new User("alice", "pass123"));
+        userRepository.addUser(new User("bob", "pass456"));
+
+        interactor.execute(new CreateChatInputData("alice", Arrays.asList("bob"), ""));
+        final String aliceChatId = outputBoundary.successData.getChatId();
+        chatRepository.clear();
+        interactor.execute(new CreateChatInputData("bob", Arrays.asList("alice"), ""));
+
+        // Both users arrive at the same chat document, even without seeing each other's chats
+        assertEquals(aliceChatId, outputBoundary.successData.getChatId());
+        assertEquals(Chat.participantKey(List.of("alice", "bob")), aliceChatId);
+    }
+
     @Test
     void testExecute_Success_NewIndividualChat() {
         // Arrange
@@ -472,32 +509,29 @@ class CreateChatInteractorTest {
     void testOutputData_AllGetters() {
         // Test all getters of CreateChatOutputData for coverage
         List<String> users = Arrays.asList("alice", "bob");
-        List<String> messageIds = Arrays.asList("msg1", "msg2");
 
         // Test constructor with currentUserId
         CreateChatOutputData outputData1 = new CreateChatOutputData(
-                true, "chat123", "GroupName", users, messageIds, true, null, "alice"
+                true, "chat123", "GroupName", users, true, null, "alice"
         );
 
         assertEquals(true, outputData1.isGroupChat());
         assertEquals("chat123", outputData1.getChatId());
         assertEquals("GroupName", outputData1.getGroupName());
         assertEquals(users, outputData1.getUsers());
-        assertEquals(messageIds, outputData1.getMessageIds());
         assertEquals(true, outputData1.isSuccess());
         assertEquals(null, outputData1.getMessage());
         assertEquals("alice", outputData1.getCurrentUserId());
 
         // Test constructor without currentUserId
         CreateChatOutputData outputData2 = new CreateChatOutputData(
-                false, "chat456", "IndividualChat", users, messageIds, false, "Error message"
+                false, "chat456", "IndividualChat", users, false, "Error message"
         );
 
         assertEquals(false, outputData2.isGroupChat());
         assertEquals("chat456", outputData2.getChatId());
         assertEquals("IndividualChat", outputData2.getGroupName());
         assertEquals(users, outputData2.getUsers());
-        assertEquals(messageIds, outputData2.getMessageIds());
         assertEquals(false, outputData2.isSuccess());
         assertEquals("Error message", outputData2.getMessage());
         assertEquals(null, outputData2.getCurrentUserId());
@@ -815,6 +849,11 @@ class CreateChatInteractorTest {
             return new ArrayList<>(chats.values());
         }
 
+        @Override
+        public void deleteById(String chatId) {
+            chats.remove(chatId);
+        }
+
         @Override
         public void clear() {
             chats.clear();
@@ -867,6 +906,8 @@ class CreateChatInteractorTest {
         boolean throwExceptionOnSave = false;
         boolean saveChatCalled = false;
         User userToLoad = null;
+        final Map<String, User> storedUsers = new HashMap<>();
+        final List<Set<String>> bulkLoads = new ArrayList<>();
 
         TestDataAccess(ChatRepository chatRepository, UserRepository userRepository) {
             this.chatRepository = chatRepository;
@@ -881,6 +922,10 @@ class CreateChatInteractorTest {
             if (loadShouldFail) {
                 return false;
             }
+            if (storedUsers.containsKey(username)) {
+                userRepository.save(storedUsers.get(username));
+                return true;
+            }
             if (userToLoad != null) {
                 userRepository.save(userToLoad);
                 return true;
@@ -888,6 +933,12 @@ class CreateChatInteractorTest {
             return true;
         }
 
+        @Override
+        public Set<String> loadAllToEntity(Collection<String> usernames) {
+            bulkLoads.add(new LinkedHashSet<>(usernames));
+            return CreateChatUserDataAccessInterface.super.loadAllToEntity(usernames);
+        }
+
         @Override
         public void updateChatRepository(String username) {
             // No-op for test - in real implementation, loads chats from database
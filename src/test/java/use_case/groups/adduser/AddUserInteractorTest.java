@@ -269,6 +269,11 @@ class AddUserInteractorTest {
             return new ArrayList<>(chats.values());
         }
 
+        @Override
+        public void deleteById(String chatId) {
+            chats.remove(chatId);
+        }
+
         @Override
         public void clear() {
             chats.clear();
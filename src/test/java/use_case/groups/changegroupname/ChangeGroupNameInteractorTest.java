@@ -237,6 +237,11 @@ class ChangeGroupNameInteractorTest {
             return new ArrayList<>(chats.values());
         }
 
+        @Override
+        public void deleteById(String chatId) {
+            chats.remove(chatId);
+        }
+
         @Override
         public void clear() {
             chats.clear();
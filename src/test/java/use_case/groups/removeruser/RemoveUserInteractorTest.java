@@ -362,6 +362,11 @@ class RemoveUserInteractorTest {
             return new ArrayList<>(chats.values());
         }
 
+        @Override
+        public void deleteById(String chatId) {
+            chats.remove(chatId);
+        }
+
         @Override
         public void clear() {
             chats.clear();
@@ -4,6 +4,7 @@ import dataaccess.InMemoryUserDataAccessObject;
 import entity.UserFactory;
 import entity.User;
 import entity.Chat;
+import entity.Message;
 import entity.ports.ChatRepository;
 import org.junit.jupiter.api.Test;
 import usecase.logout.LogoutInputBoundary;
@@ -12,7 +13,10 @@ import usecase.logout.LogoutOutputBoundary;
 import usecase.logout.LogoutOutputData;
 import entity.ports.ChatRepository;
 import entity.repo.InMemoryChatRepository;
+import entity.repo.InMemoryMessageRepository;
 
+import java.awt.Color;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -28,6 +32,9 @@ class LogoutInteractorTest {
     void successTest() {
         InMemoryUserDataAccessObject userRepository = new InMemoryUserDataAccessObject();
         FakeChatRepository chatRepository = new FakeChatRepository();
+        InMemoryMessageRepository messageRepository = new InMemoryMessageRepository();
+        chatRepository.save(new Chat("c1", "", Color.WHITE, Instant.EPOCH));
+        messageRepository.save(new Message("m1", "c1", "Paul", null, "secret", Instant.EPOCH));
 
         // For the success test, we need to add Paul to the data access repository before we log in.
         UserFactory factory = new UserFactory();
@@ -44,9 +51,14 @@ class LogoutInteractorTest {
             }
         };
 
-        LogoutInputBoundary interactor = new LogoutInteractor(userRepository, successPresenter, chatRepository);
+        LogoutInputBoundary interactor = new LogoutInteractor(userRepository, successPresenter, chatRepository,
+                messageRepository);
         interactor.execute();
         assertNull(userRepository.getCurrentUsername());
+        // Nothing of Paul's chats is left for the next user on this machine
+        assertTrue(chatRepository.findAll().isEmpty());
+        assertTrue(messageRepository.findById("m1").isEmpty());
+        assertTrue(messageRepository.findByChatId("c1").isEmpty());
     }
 
     // Fake ChatRepository for testing
@@ -69,6 +81,11 @@ class LogoutInteractorTest {
             return new ArrayList<>(chats.values());
         }
 
+        @Override
+        public void deleteById(String chatId) {
+            chats.remove(chatId);
+        }
+
         @Override
         public void clear() {
             chats.clear();
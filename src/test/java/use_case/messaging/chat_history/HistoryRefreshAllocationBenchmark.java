@@ -0,0 +1,111 @@
+package use_case.messaging.chat_history;
+
+import java.awt.Color;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.SwingUtilities;
+
+import entity.Chat;
+import entity.Message;
+import entity.repo.InMemoryChatRepository;
+import entity.repo.InMemoryMessageRepository;
+import entity.repo.InMemoryUserRepository;
+import interfaceadapter.ViewManagerModel;
+import interfaceadapter.messaging.ChatViewModel;
+import interfaceadapter.messaging.view_history.ViewChatHistoryPresenter;
+import usecase.messaging.view_history.ChatHistoryListener;
+import usecase.messaging.view_history.HistoryCursor;
+import usecase.messaging.view_history.ViewChatHistoryDataAccessInterface;
+import usecase.messaging.view_history.ViewChatHistoryInputData;
+import usecase.messaging.view_history.ViewChatHistoryInteractor;
+
+/**
+ * Measures the bytes allocated by one history refresh, from the repository through
+ * the interactor and presenter into the chat state.
+ *
+ * <p>
+ * Not a unit test; run it by hand after {@code mvn test-compile}:
+ * {@code java -cp target/classes:target/test-classes
+ * use_case.messaging.chat_history.HistoryRefreshAllocationBenchmark}
+ */
+public final class HistoryRefreshAllocationBenchmark {
+
+    private static final String CHAT_ID = "chat";
+    private static final int MESSAGES = 500;
+    private static final int WARMUP_REFRESHES = 2_000;
+    private static final int MEASURED_REFRESHES = 2_000;
+
+    private HistoryRefreshAllocationBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final InMemoryChatRepository chats = new InMemoryChatRepository();
+        final InMemoryMessageRepository messages = new InMemoryMessageRepository();
+        final Chat chat = new Chat(CHAT_ID, "", Color.GRAY, Instant.EPOCH);
+        chat.addParticipant("alice");
+        chat.addParticipant("bob");
+        chats.save(chat);
+        for (int i = 0; i < MESSAGES; i++) {
+            final Message message = new Message("m" + i, CHAT_ID, i % 2 == 0 ? "alice" : "bob",
+                    i % 10 == 0 && i > 0 ? "m" + (i - 1) : null, "message number " + i, Instant.EPOCH.plusSeconds(i));
+            if (i % 3 == 0) {
+                message.addReaction("alice", "👍");
+                message.addReaction("bob", "❤");
+            }
+            messages.save(message);
+        }
+
+        final ViewChatHistoryInteractor interactor = new ViewChatHistoryInteractor(chats, messages,
+                new InMemoryUserRepository(), new ViewChatHistoryPresenter(new ChatViewModel(), new ViewManagerModel()),
+                new LocalHistory());
+        final ViewChatHistoryInputData input = new ViewChatHistoryInputData(CHAT_ID, chat.getParticipantUserIds());
+
+        // On the event thread, so the presenter updates the state inline
+        SwingUtilities.invokeAndWait(() -> {
+            final com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            final long thread = Thread.currentThread().getId();
+            for (int i = 0; i < WARMUP_REFRESHES; i++) {
+                interactor.execute(input);
+            }
+            final long before = threads.getThreadAllocatedBytes(thread);
+            final long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_REFRESHES; i++) {
+                interactor.execute(input);
+            }
+            final long elapsed = System.nanoTime() - start;
+            final long allocated = threads.getThreadAllocatedBytes(thread) - before;
+            System.out.printf("%d messages: %,d bytes (%.0f per message) and %.1f us per refresh%n",
+                    MESSAGES, allocated / MEASURED_REFRESHES, (double) allocated / MEASURED_REFRESHES / MESSAGES,
+                    elapsed / 1_000.0 / MEASURED_REFRESHES);
+        });
+    }
+
+    /**
+     * Everything is already in the repository, so loading a page finds nothing older.
+     */
+    private static final class LocalHistory implements ViewChatHistoryDataAccessInterface {
+        @Override
+        public HistoryCursor loadHistoryPage(String chatId, List<String> userIds, HistoryCursor before, int limit) {
+            return null;
+        }
+
+        @Override
+        public Map<String, Message> loadMessages(Collection<String> messageIds) {
+            return Map.of();
+        }
+
+        @Override
+        public void subscribeToChat(String chatId, List<String> userIds, HistoryCursor from,
+                                    ChatHistoryListener listener) {
+        }
+
+        @Override
+        public void unsubscribeFromChat(String chatId) {
+        }
+    }
+}
@@ -184,6 +184,23 @@ public class SearchChatHistoryInteractorTest {
         assertEquals(2, messages.size());
     }
 
+    /**
+     * Only the loaded messages are searched → the output says how many of the chat's were.
+     */
+    @Test
+    public void searchReportsWhenOlderMessagesWereNotLoaded() {
+        chatRepository.findById("chat-1").orElseThrow().setMessageCount(500);
+
+        interactor.execute(new SearchChatHistoryInputData("chat-1", "hello"));
+        final SearchChatHistoryOutputData found = presenter.getLastSuccessOutput();
+        assertTrue(found.isPartial());
+        assertEquals(3, found.getSearchedCount());
+        assertEquals(500, found.getTotalCount());
+
+        interactor.execute(new SearchChatHistoryInputData("chat-1", "xyz"));
+        assertTrue(presenter.lastNoMatchesOutput.isPartial());
+    }
+
     // ------------------ Capturing Presenter ------------------
 
     private static class CapturingPresenter implements SearchChatHistoryOutputBoundary {
@@ -192,6 +209,7 @@ public class SearchChatHistoryInteractorTest {
         private String lastFailError;
         private String lastNoMatchesChatId;
         private String lastNoMatchesKeyword;
+        private SearchChatHistoryOutputData lastNoMatchesOutput;
 
         @Override
         public void prepareSuccessView(final SearchChatHistoryOutputData outputData) {
@@ -199,9 +217,11 @@ public class SearchChatHistoryInteractorTest {
         }
 
         @Override
-        public void prepareNoMatchesView(final String chatId, final String keyword) {
+        public void prepareNoMatchesView(final String chatId, final String keyword,
+                                         final SearchChatHistoryOutputData outputData) {
             this.lastNoMatchesChatId = chatId;
             this.lastNoMatchesKeyword = keyword;
+            this.lastNoMatchesOutput = outputData;
         }
 
         @Override
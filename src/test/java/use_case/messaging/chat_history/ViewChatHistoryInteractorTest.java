@@ -10,6 +10,9 @@ import entity.repo.InMemoryMessageRepository;
 import entity.repo.InMemoryUserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import usecase.messaging.view_history.ChatHistoryListener;
+import usecase.messaging.view_history.HistoryCursor;
+import usecase.messaging.view_history.ReplyPreview;
 import usecase.messaging.view_history.ViewChatHistoryDataAccessInterface;
 import usecase.messaging.view_history.ViewChatHistoryInputData;
 import usecase.messaging.view_history.ViewChatHistoryInteractor;
@@ -19,6 +22,8 @@ import usecase.messaging.view_history.ViewChatHistoryOutputData;
 import java.awt.Color;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -35,6 +40,8 @@ public class ViewChatHistoryInteractorTest {
     private static final String CHAT_WITH_MESSAGES_ID = "chat-with-messages";
     private static final String EMPTY_CHAT_ID = "empty-chat";
     private static final String UNKNOWN_CHAT_ID = "unknown-chat";
+    private static final String LONG_CHAT_ID = "long-chat";
+    private static final int LONG_CHAT_SIZE = 120;
 
     private ChatRepository chatRepository;
     private MessageRepository messageRepository;
@@ -42,6 +49,12 @@ public class ViewChatHistoryInteractorTest {
 
     private ViewChatHistoryInteractor interactor;
     private CapturingPresenter presenter;
+    private String subscribedChatId;
+    private HistoryCursor subscribedFrom;
+    private List<Message> remoteHistory;
+    private int pagesLoaded;
+    private List<List<String>> replyBatches;
+    private boolean repliesFail;
 
     @BeforeEach
     void setUp() {
@@ -49,6 +62,7 @@ public class ViewChatHistoryInteractorTest {
         messageRepository = new InMemoryMessageRepository();
         userRepository = new InMemoryUserRepository();
         presenter = new CapturingPresenter();
+        replyBatches = new ArrayList<>();
 
         // 先往内存仓库里塞好数据
         populateChatsAndMessages();
@@ -57,10 +71,62 @@ public class ViewChatHistoryInteractorTest {
         ViewChatHistoryDataAccessInterface dataAccessStub =
                 new ViewChatHistoryDataAccessInterface() {
                     @Override
-                    public void findChatMessages(String chatId,
-                                                 List<String> userIds,
-                                                 List<String> messageIds) {
-                        // no-op
+                    public HistoryCursor loadHistoryPage(String chatId,
+                                                         List<String> userIds,
+                                                         HistoryCursor before,
+                                                         int limit) {
+                        // Only the long chat is paged; the others are already in the repository
+                        if (!LONG_CHAT_ID.equals(chatId)) {
+                            return null;
+                        }
+                        pagesLoaded++;
+                        int from = 0;
+                        if (before != null) {
+                            while (!remoteHistory.get(from).getId().equals(before.getMessageId())) {
+                                from++;
+                            }
+                            from++;
+                        }
+                        final int to = Math.min(from + limit, remoteHistory.size());
+                        for (Message message : remoteHistory.subList(from, to)) {
+                            messageRepository.save(message);
+                        }
+                        if (to - from < limit) {
+                            return null;
+                        }
+                        final Message oldest = remoteHistory.get(to - 1);
+                        return new HistoryCursor(oldest.getTimestamp(), oldest.getId());
+                    }
+
+                    @Override
+                    public Map<String, Message> loadMessages(Collection<String> messageIds) {
+                        replyBatches.add(new ArrayList<>(messageIds));
+                        if (repliesFail) {
+                            throw new IllegalStateException("offline");
+                        }
+                        final Map<String, Message> found = new HashMap<>();
+                        for (Message message : remoteHistory) {
+                            if (messageIds.contains(message.getId())) {
+                                found.put(message.getId(), message);
+                            }
+                        }
+                        return found;
+                    }
+
+                    @Override
+                    public void subscribeToChat(String chatId,
+                                                List<String> userIds,
+                                                HistoryCursor from,
+                                                ChatHistoryListener listener) {
+                        // Deliver the "initial snapshot" straight away
+                        subscribedChatId = chatId;
+                        subscribedFrom = from;
+                        listener.onHistoryChanged(chatId);
+                    }
+
+                    @Override
+                    public void unsubscribeFromChat(String chatId) {
+                        subscribedChatId = null;
                     }
                 };
 
@@ -76,17 +142,13 @@ public class ViewChatHistoryInteractorTest {
 
     @Test
     void successChatHasMessages() {
-        // userIds / messageIds 只是给 dataAccessStub 用，这里随便给一个合理的 List
+        // userIds 只是给 dataAccessStub 用，这里随便给一个合理的 List
         List<String> userIds = new ArrayList<>();
         userIds.add("u1");
         userIds.add("u2");
 
-        List<String> messageIds = new ArrayList<>();
-        messageIds.add("m1");
-        messageIds.add("m2");
-
         ViewChatHistoryInputData inputData =
-                new ViewChatHistoryInputData(CHAT_WITH_MESSAGES_ID, userIds, messageIds);
+                new ViewChatHistoryInputData(CHAT_WITH_MESSAGES_ID, userIds);
 
         interactor.execute(inputData);
 
@@ -106,15 +168,31 @@ public class ViewChatHistoryInteractorTest {
         assertTrue(reactions.isEmpty());
     }
 
+    @Test
+    void refreshPassesSnapshotsOnWithoutCopying() {
+        final Message m1 = messageRepository.findById("m1").orElseThrow();
+        m1.addReaction("u2", "👍");
+        final ViewChatHistoryInputData input =
+                new ViewChatHistoryInputData(CHAT_WITH_MESSAGES_ID, List.of("u1", "u2"));
+
+        interactor.execute(input);
+        final ViewChatHistoryOutputData first = presenter.outputData;
+        interactor.execute(input);
+        final ViewChatHistoryOutputData second = presenter.outputData;
+
+        // An unchanged message keeps its row, and its reactions are the message's own snapshot
+        assertSame(first.getMessages().get(0), second.getMessages().get(0));
+        assertSame(m1.getReactions(), second.getReactions().get("m1"));
+        assertEquals("01-01-2024 10:00:00", second.getMessages().get(0)[3]);
+    }
+
     @Test
     void failNoMessagesInChat() {
         List<String> userIds = new ArrayList<>();
         userIds.add("u1");
 
-        List<String> messageIds = new ArrayList<>();
-
         ViewChatHistoryInputData inputData =
-                new ViewChatHistoryInputData(EMPTY_CHAT_ID, userIds, messageIds);
+                new ViewChatHistoryInputData(EMPTY_CHAT_ID, userIds);
 
         interactor.execute(inputData);
 
@@ -126,10 +204,8 @@ public class ViewChatHistoryInteractorTest {
     @Test
     void failChatNotFound() {
         List<String> userIds = new ArrayList<>();
-        List<String> messageIds = new ArrayList<>();
-
         ViewChatHistoryInputData inputData =
-                new ViewChatHistoryInputData(UNKNOWN_CHAT_ID, userIds, messageIds);
+                new ViewChatHistoryInputData(UNKNOWN_CHAT_ID, userIds);
 
         interactor.execute(inputData);
 
@@ -138,6 +214,206 @@ public class ViewChatHistoryInteractorTest {
         assertTrue(presenter.errorMessage.contains("Chat not found: " + UNKNOWN_CHAT_ID));
     }
 
+    @Test
+    void subscribePresentsHistoryOnInitialSnapshot() {
+        ViewChatHistoryInputData inputData =
+                new ViewChatHistoryInputData(CHAT_WITH_MESSAGES_ID, new ArrayList<>());
+
+        interactor.subscribe(inputData);
+
+        assertEquals(CHAT_WITH_MESSAGES_ID, subscribedChatId);
+        assertTrue(presenter.successCalled);
+        assertEquals(2, presenter.outputData.getMessages().size());
+
+        interactor.unsubscribe(CHAT_WITH_MESSAGES_ID);
+        assertNull(subscribedChatId);
+    }
+
+    @Test
+    void subscribeFailsForUnknownChat() {
+        ViewChatHistoryInputData inputData =
+                new ViewChatHistoryInputData(UNKNOWN_CHAT_ID, new ArrayList<>());
+
+        interactor.subscribe(inputData);
+
+        assertNull(subscribedChatId);
+        assertTrue(presenter.failCalled);
+        assertTrue(presenter.errorMessage.contains("Chat not found: " + UNKNOWN_CHAT_ID));
+    }
+
+    @Test
+    void subscribeLoadsOnlyNewestPage() {
+        ViewChatHistoryInputData inputData =
+                new ViewChatHistoryInputData(LONG_CHAT_ID, new ArrayList<>());
+
+        interactor.subscribe(inputData);
+
+        List<String[]> messages = presenter.outputData.getMessages();
+        assertEquals(ViewChatHistoryInteractor.PAGE_SIZE, messages.size());
+        assertEquals("msg" + (LONG_CHAT_SIZE - 1), messages.get(messages.size() - 1)[2]);
+        assertTrue(presenter.outputData.hasOlderMessages());
+        // Live updates start at the oldest message of the first page
+        assertEquals(messages.get(0)[0], subscribedFrom.getMessageId());
+    }
+
+    @Test
+    void loadPreviousPageWalksBackToStart() {
+        ViewChatHistoryInputData inputData =
+                new ViewChatHistoryInputData(LONG_CHAT_ID, new ArrayList<>());
+
+        interactor.subscribe(inputData);
+        assertFalse(presenter.outputData.isPageLoaded());
+        interactor.loadPreviousPage(inputData);
+        assertEquals(2 * ViewChatHistoryInteractor.PAGE_SIZE, presenter.outputData.getMessages().size());
+        assertTrue(presenter.outputData.hasOlderMessages());
+        // Marked as the answer to the page request, so the view hears back even if it changed nothing
+        assertTrue(presenter.outputData.isPageLoaded());
+
+        interactor.loadPreviousPage(inputData);
+        assertEquals(LONG_CHAT_SIZE, presenter.outputData.getMessages().size());
+        assertEquals("msg0", presenter.outputData.getMessages().get(0)[2]);
+        assertFalse(presenter.outputData.hasOlderMessages());
+
+        // Nothing older is left, so no further page is requested
+        interactor.loadPreviousPage(inputData);
+        assertEquals(3, pagesLoaded);
+    }
+
+    @Test
+    void olderPageOfALeftChatIsNotPresented() {
+        ViewChatHistoryInputData longChat =
+                new ViewChatHistoryInputData(LONG_CHAT_ID, new ArrayList<>());
+        ViewChatHistoryInputData otherChat =
+                new ViewChatHistoryInputData(CHAT_WITH_MESSAGES_ID, new ArrayList<>());
+        interactor.subscribe(longChat);
+        interactor.unsubscribe(LONG_CHAT_ID);
+        interactor.subscribe(otherChat);
+        ViewChatHistoryOutputData shown = presenter.outputData;
+
+        // The page requested before the switch arrives after it
+        interactor.loadPreviousPage(longChat);
+
+        assertEquals(2, pagesLoaded);
+        assertSame(shown, presenter.outputData);
+    }
+
+    @Test
+    void loadPreviousPageBeforeTheFirstPageDoesNothing() {
+        ViewChatHistoryInputData inputData =
+                new ViewChatHistoryInputData(LONG_CHAT_ID, new ArrayList<>());
+
+        interactor.loadPreviousPage(inputData);
+
+        assertEquals(0, pagesLoaded);
+        assertNull(presenter.outputData);
+    }
+
+    @Test
+    void switchingBackToCachedChatDoesNotReloadIt() {
+        ViewChatHistoryInputData longChat =
+                new ViewChatHistoryInputData(LONG_CHAT_ID, new ArrayList<>());
+        ViewChatHistoryInputData otherChat =
+                new ViewChatHistoryInputData(CHAT_WITH_MESSAGES_ID, new ArrayList<>());
+
+        interactor.subscribe(longChat);
+        interactor.unsubscribe(LONG_CHAT_ID);
+        interactor.subscribe(otherChat);
+        interactor.unsubscribe(CHAT_WITH_MESSAGES_ID);
+        interactor.subscribe(longChat);
+
+        assertEquals(1, pagesLoaded);
+        assertEquals(LONG_CHAT_ID, subscribedChatId);
+        assertEquals(ViewChatHistoryInteractor.PAGE_SIZE, presenter.outputData.getMessages().size());
+        assertTrue(presenter.outputData.hasOlderMessages());
+        // Live updates resume from the newest cached message, so the cached pages are not read again
+        List<String[]> cached = presenter.outputData.getMessages();
+        assertEquals(cached.get(cached.size() - 1)[0], subscribedFrom.getMessageId());
+
+        // Paging continues where the first visit stopped
+        interactor.loadPreviousPage(longChat);
+        assertEquals(2 * ViewChatHistoryInteractor.PAGE_SIZE, presenter.outputData.getMessages().size());
+    }
+
+    @Test
+    void switchingBackToFullyLoadedChatKeepsItFullyLoaded() {
+        ViewChatHistoryInputData longChat =
+                new ViewChatHistoryInputData(LONG_CHAT_ID, new ArrayList<>());
+
+        interactor.subscribe(longChat);
+        interactor.loadPreviousPage(longChat);
+        interactor.loadPreviousPage(longChat);
+        interactor.unsubscribe(LONG_CHAT_ID);
+        interactor.subscribe(longChat);
+
+        assertEquals(LONG_CHAT_SIZE, presenter.outputData.getMessages().size());
+        assertFalse(presenter.outputData.hasOlderMessages());
+        interactor.loadPreviousPage(longChat);
+        assertEquals(3, pagesLoaded);
+    }
+
+    @Test
+    void replyToLoadedMessageIsResolvedFromRepository() {
+        messageRepository.save(new Message("m3", CHAT_WITH_MESSAGES_ID, "u2", "m1",
+                "a reply that quotes the first message", Instant.parse("2024-01-01T10:00:20Z")));
+        ViewChatHistoryInputData inputData =
+                new ViewChatHistoryInputData(CHAT_WITH_MESSAGES_ID, new ArrayList<>());
+
+        interactor.subscribe(inputData);
+
+        final ReplyPreview preview = presenter.outputData.getReplyPreviews().get("m1");
+        assertEquals(ReplyPreview.Status.FOUND, preview.getStatus());
+        assertEquals("hello", preview.getSnippet());
+        assertEquals("u1", preview.getSenderId());
+        assertEquals(1, presenter.outputData.getReplyPreviews().size());
+        assertTrue(replyBatches.isEmpty(), "A loaded message should not be fetched");
+    }
+
+    @Test
+    void repliesOutsideLoadedPageAreFetchedInOneBatch() {
+        final Instant newest = remoteHistory.get(0).getTimestamp();
+        remoteHistory.set(0, new Message("long119", LONG_CHAT_ID, "u1", "long0", "msg119", newest));
+        remoteHistory.set(1, new Message("long118", LONG_CHAT_ID, "u1", "gone", "msg118", newest.minusSeconds(1)));
+        remoteHistory.set(2, new Message("long117", LONG_CHAT_ID, "u1", "long0", "msg117", newest.minusSeconds(2)));
+        ViewChatHistoryInputData inputData =
+                new ViewChatHistoryInputData(LONG_CHAT_ID, new ArrayList<>());
+
+        interactor.subscribe(inputData);
+
+        // Both replied-to messages are before the first page and are asked for together, once
+        assertEquals(1, replyBatches.size());
+        assertEquals(2, replyBatches.get(0).size());
+        final Map<String, ReplyPreview> previews = presenter.outputData.getReplyPreviews();
+        assertEquals(ReplyPreview.found("msg0", "u1"), previews.get("long0"));
+        assertEquals(ReplyPreview.deleted(), previews.get("gone"));
+        assertEquals(ViewChatHistoryInteractor.PAGE_SIZE, presenter.outputData.getMessages().size());
+
+        // Later refreshes reuse what was fetched
+        interactor.loadPreviousPage(inputData);
+        assertEquals(1, replyBatches.size());
+        assertEquals(ReplyPreview.deleted(), presenter.outputData.getReplyPreviews().get("gone"));
+    }
+
+    @Test
+    void failedReplyFetchShowsUnavailableAndIsAskedForAgain() {
+        final Instant newest = remoteHistory.get(0).getTimestamp();
+        remoteHistory.set(0, new Message("long119", LONG_CHAT_ID, "u1", "long0", "msg119", newest));
+        ViewChatHistoryInputData inputData =
+                new ViewChatHistoryInputData(LONG_CHAT_ID, new ArrayList<>());
+        repliesFail = true;
+
+        interactor.subscribe(inputData);
+
+        // Presented again once the fetch failed, without asking again straight away
+        assertEquals(1, replyBatches.size());
+        assertEquals(ReplyPreview.unavailable(), presenter.outputData.getReplyPreviews().get("long0"));
+
+        // The next refresh of the chat asks again
+        repliesFail = false;
+        interactor.loadPreviousPage(inputData);
+        assertEquals(2, replyBatches.size());
+        assertEquals(ReplyPreview.found("msg0", "u1"), presenter.outputData.getReplyPreviews().get("long0"));
+    }
+
     /**
      * 在内存仓库里构造：
      * - 一个有两条消息的 chat
@@ -185,6 +461,15 @@ public class ViewChatHistoryInteractorTest {
 
         messageRepository.save(m1);
         messageRepository.save(m2);
+
+        // A long chat whose messages are only on the "server", newest first
+        Chat longChat = new Chat(LONG_CHAT_ID, "Busy Group", Color.GREEN, t2);
+        longChat.getParticipantUserIds().add("u1");
+        chatRepository.save(longChat);
+        remoteHistory = new ArrayList<>();
+        for (int i = LONG_CHAT_SIZE - 1; i >= 0; i--) {
+            remoteHistory.add(new Message("long" + i, LONG_CHAT_ID, "u1", null, "msg" + i, t1.plusSeconds(i)));
+        }
     }
 
     /**
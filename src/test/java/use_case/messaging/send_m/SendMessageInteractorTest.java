@@ -12,6 +12,10 @@ import usecase.messaging.sendmessage.*;
 import java.awt.Color;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -39,6 +43,11 @@ class SendMessageInteractorTest {
             return new ArrayList<>(data.values());
         }
 
+        @Override
+        public void deleteById(String chatId) {
+            data.remove(chatId);
+        }
+
         @Override
         public void clear() {
             data.clear();
@@ -121,19 +130,55 @@ class SendMessageInteractorTest {
         }
     }
 
+    // -------- Slow DAO: each write completes after a simulated round trip --------
+    static class SlowSendDao extends FakeSendDao {
+        static final long ROUND_TRIP_MILLIS = 300;
+
+        final Executor network =
+                CompletableFuture.delayedExecutor(ROUND_TRIP_MILLIS, TimeUnit.MILLISECONDS);
+
+        @Override
+        public CompletableFuture<Message> sendMessageAsync(Message message) {
+            return CompletableFuture.supplyAsync(() -> sendMessage(message), network);
+        }
+
+        @Override
+        public CompletableFuture<Void> updateChatAsync(String chatId, String messageId, Instant timestamp) {
+            return CompletableFuture.runAsync(() -> updateChat(chatId, messageId, timestamp), network);
+        }
+    }
+
+    // -------- Slow DAO that commits the message and the chat update in one transaction --------
+    static class SlowTransactionalSendDao extends SlowSendDao {
+        volatile boolean chatRead;
+
+        @Override
+        public CompletableFuture<Message> postMessageAsync(Message message) {
+            // The transaction reads the chat, then commits both documents
+            return CompletableFuture.runAsync(() -> chatRead = true, network)
+                    .thenApplyAsync(read -> {
+                        updateChat(message.getChatId(), message.getId(), message.getTimestamp());
+                        return sendMessage(message);
+                    }, network);
+        }
+    }
+
     // -------- Presenter --------
     static class FakePresenter implements SendMessageOutputBoundary {
-        SendMessageOutputData success;
-        String fail;
+        volatile SendMessageOutputData success;
+        volatile String fail;
+        final CountDownLatch presented = new CountDownLatch(1);
 
         @Override
         public void prepareSuccessView(SendMessageOutputData outputData) {
             success = outputData;
+            presented.countDown();
         }
 
         @Override
         public void prepareFailView(String errorMessage) {
             fail = errorMessage;
+            presented.countDown();
         }
     }
 
@@ -232,4 +277,95 @@ class SendMessageInteractorTest {
         assertTrue(presenter.fail.contains("Sender not found"));
         assertNull(dao.sent);
     }
+
+    @Test
+    void executeDoesNotWaitForSlowWrites() throws InterruptedException {
+        FakeChatRepo chatRepo = new FakeChatRepo();
+        FakeUserRepo userRepo = new FakeUserRepo();
+        FakeMessageRepo messageRepo = new FakeMessageRepo();
+        SlowSendDao dao = new SlowSendDao();
+        FakePresenter presenter = new FakePresenter();
+
+        chatRepo.put(new Chat("chat-1", "group", Color.GRAY, Instant.now()));
+        userRepo.put(new User("alice", "pw"));
+
+        SendMessageInteractor interactor =
+                new SendMessageInteractor(chatRepo, messageRepo, userRepo, presenter, dao);
+
+        long start = System.nanoTime();
+        interactor.execute(new SendMessageInputData("chat-1", "alice", null, "hello"));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Two sequential round trips are still in flight when execute returns
+        assertTrue(elapsedMillis < SlowSendDao.ROUND_TRIP_MILLIS,
+                "execute blocked for " + elapsedMillis + " ms");
+        assertNull(presenter.success);
+
+        assertTrue(presenter.presented.await(5, TimeUnit.SECONDS));
+        assertNull(presenter.fail);
+        assertEquals("hello", presenter.success.getMessage()[2]);
+        assertEquals(dao.sent.getId(), dao.updatedMsgId);
+    }
+
+    @Test
+    void postingInOneTransactionCostsAReadAndACommit() throws InterruptedException {
+        SlowTransactionalSendDao dao = new SlowTransactionalSendDao();
+        long chained = timeUntilPresented(new SlowSendDao());
+        long atomic = timeUntilPresented(dao);
+
+        // Separate message and chat writes pay for two round trips; the transaction also pays
+        // for two, the read of the chat and the commit, but nothing more
+        assertTrue(chained >= 2 * SlowSendDao.ROUND_TRIP_MILLIS, "chained send took " + chained + " ms");
+        assertTrue(dao.chatRead);
+        assertTrue(atomic >= 2 * SlowSendDao.ROUND_TRIP_MILLIS, "transactional send took " + atomic + " ms");
+        assertTrue(atomic < 3 * SlowSendDao.ROUND_TRIP_MILLIS, "transactional send took " + atomic + " ms");
+    }
+
+    private long timeUntilPresented(SlowSendDao dao) throws InterruptedException {
+        FakeChatRepo chatRepo = new FakeChatRepo();
+        FakeUserRepo userRepo = new FakeUserRepo();
+        FakePresenter presenter = new FakePresenter();
+        chatRepo.put(new Chat("chat-1", "group", Color.GRAY, Instant.now()));
+        userRepo.put(new User("alice", "pw"));
+
+        SendMessageInteractor interactor =
+                new SendMessageInteractor(chatRepo, new FakeMessageRepo(), userRepo, presenter, dao);
+
+        long start = System.nanoTime();
+        interactor.execute(new SendMessageInputData("chat-1", "alice", null, "hello"));
+        assertTrue(presenter.presented.await(5, TimeUnit.SECONDS));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertNull(presenter.fail);
+        assertEquals("chat-1", dao.updatedChatId);
+        assertEquals(dao.sent.getTimestamp(), dao.timestamp);
+        // Stored by Firestore in milliseconds, so nothing finer may be sent
+        assertEquals(0, dao.sent.getTimestamp().getNano() % 1_000_000);
+        return elapsedMillis;
+    }
+
+    @Test
+    void failedWriteReachesFailView() {
+        FakeChatRepo chatRepo = new FakeChatRepo();
+        FakeUserRepo userRepo = new FakeUserRepo();
+        FakeMessageRepo messageRepo = new FakeMessageRepo();
+        FakePresenter presenter = new FakePresenter();
+        FakeSendDao dao = new FakeSendDao() {
+            @Override
+            public Message sendMessage(Message message) {
+                throw new RuntimeException("network down");
+            }
+        };
+
+        chatRepo.put(new Chat("chat-1", "group", Color.GRAY, Instant.now()));
+        userRepo.put(new User("alice", "pw"));
+
+        SendMessageInteractor interactor =
+                new SendMessageInteractor(chatRepo, messageRepo, userRepo, presenter, dao);
+        interactor.execute(new SendMessageInputData("chat-1", "alice", null, "hello"));
+
+        assertNull(presenter.success);
+        assertEquals("Failed to send message: network down", presenter.fail);
+        assertNull(dao.updatedChatId);
+    }
 }
@@ -47,7 +47,6 @@ public class AccessChatInteractorTest {
                 assertEquals("chat1", outputData.getChatId());
                 assertEquals("", outputData.getGroupName());
                 assertEquals(new ArrayList<>(List.of("Miles1", "Miles2")), outputData.getUsers());
-                assertEquals(new ArrayList<>(), outputData.getMessageIds());
                 assertEquals("Miles1", outputData.getCurrentUserId());
             }
 
@@ -88,7 +87,6 @@ public class AccessChatInteractorTest {
                 assertEquals("chat1", outputData.getChatId());
                 assertEquals("groupChat", outputData.getGroupName());
                 assertEquals(new ArrayList<>(List.of("Miles1", "Miles2", "Miles3")), outputData.getUsers());
-                assertEquals(new ArrayList<>(), outputData.getMessageIds());
                 assertEquals("Miles1", outputData.getCurrentUserId());
             }
 
@@ -179,16 +177,14 @@ public class AccessChatInteractorTest {
     @Test
     void testOutputDataGetters() {
         final List<String> users = new ArrayList<>(List.of("user1", "user2"));
-        final List<String> messageIds = new ArrayList<>(List.of("msg1", "msg2"));
         final AccessChatOutputData outputData = new AccessChatOutputData(
-                true, "chat123", "Test Group", users, messageIds, "user1"
+                true, "chat123", "Test Group", users, "user1"
         );
 
         assertEquals(true, outputData.isGroupChat());
         assertEquals("chat123", outputData.getChatId());
         assertEquals("Test Group", outputData.getGroupName());
         assertEquals(users, outputData.getUsers());
-        assertEquals(messageIds, outputData.getMessageIds());
         assertEquals("user1", outputData.getCurrentUserId());
     }
 }
\ No newline at end of file
@@ -1,12 +1,15 @@
 package use_case.recent_chats;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.awt.*;
 import java.time.Instant;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
@@ -80,10 +83,11 @@ public class RecentChatsInteractorTest {
         final RecentChatsInputData inputData = new RecentChatsInputData("Miles");
         final RecentChatsUserDataAccessInterface dao = new InMemoryUserDataAccessObject() {
             @Override
-            public void updateChatRepository(String username) {
+            public int loadRecentChats(String username, Chat olderThan, int limit) {
                 final Stream<Integer> s = Stream.of(1,2,3);
                 s.count();
                 s.count();
+                return 0;
             }
         };
         final MessageRepository messageRepository = new InMemoryMessageRepository();
@@ -262,4 +266,104 @@ public class RecentChatsInteractorTest {
                 dao, messageRepository, userRepository, chatRepository);
         interactor.execute(inputData);
     }
+
+    @Test
+    void pagingTest() {
+        final MessageRepository messageRepository = new InMemoryMessageRepository();
+        final UserRepository userRepository = new InMemoryUserRepository();
+        final ChatRepository chatRepository = new InMemoryChatRepository();
+        userRepository.save(userFactory.create("Miles1", "123"));
+
+        // Stand-in for the remote store, newest first like the participant query
+        final int total = RecentChatsInteractor.PAGE_SIZE + 15;
+        final List<Chat> remoteChats = new ArrayList<>();
+        final Instant now = Instant.now();
+        for (int i = 0; i < total; i++) {
+            final Chat chat = new Chat("chat" + i, "group" + i, Color.BLUE, now.minusSeconds(i));
+            chat.addParticipant("Miles1");
+            chat.addParticipant("Miles2");
+            chat.addParticipant("Miles3");
+            remoteChats.add(chat);
+        }
+        final RecentChatsUserDataAccessInterface dao = new InMemoryUserDataAccessObject() {
+            @Override
+            public int loadRecentChats(String username, Chat olderThan, int limit) {
+                final int from = olderThan == null ? 0 : remoteChats.indexOf(olderThan) + 1;
+                final int to = Math.min(from + limit, remoteChats.size());
+                for (Chat chat : remoteChats.subList(from, to)) {
+                    chatRepository.save(chat);
+                }
+                return to - from;
+            }
+        };
+
+        final List<RecentChatsOutputData> pages = new ArrayList<>();
+        final RecentChatsOutputBoundary presenter = new RecentChatsOutputBoundary() {
+            @Override
+            public void prepareSuccessView(RecentChatsOutputData outputData) {
+                pages.add(outputData);
+            }
+
+            @Override
+            public void prepareFailView(String error) {
+                fail("Use case failure is unexpected.");
+            }
+        };
+
+        final RecentChatsInputBoundary interactor = new RecentChatsInteractor(presenter,
+                dao, messageRepository, userRepository, chatRepository);
+        interactor.execute(new RecentChatsInputData("Miles1"));
+        assertEquals(RecentChatsInteractor.PAGE_SIZE, pages.get(0).getChatNames().size());
+        assertEquals("group0", pages.get(0).getChatNames().get(0));
+        assertTrue(pages.get(0).hasMore());
+
+        interactor.execute(new RecentChatsInputData("Miles1", true));
+        assertEquals(total, pages.get(1).getChatNames().size());
+        assertEquals("group" + (total - 1), pages.get(1).getChatNames().get(total - 1));
+        assertFalse(pages.get(1).hasMore());
+    }
+
+    @Test
+    void chatsKeptFromLastSessionAreShownBeforeTheSyncAnswers() {
+        final ChatRepository chatRepository = new InMemoryChatRepository();
+        final Chat kept = new Chat("kept", "Kept group", Color.BLUE, Instant.now());
+        kept.addParticipant("Miles1");
+        kept.addParticipant("Miles2");
+        kept.addParticipant("Miles3");
+        chatRepository.save(kept);
+
+        final CompletableFuture<Integer> sync = new CompletableFuture<>();
+        final RecentChatsUserDataAccessInterface dao = new InMemoryUserDataAccessObject() {
+            @Override
+            public CompletableFuture<Integer> loadRecentChatsAsync(String userId, Chat olderThan, int limit) {
+                return sync;
+            }
+        };
+        final List<RecentChatsOutputData> shown = new ArrayList<>();
+        final RecentChatsOutputBoundary presenter = new RecentChatsOutputBoundary() {
+            @Override
+            public void prepareSuccessView(RecentChatsOutputData outputData) {
+                shown.add(outputData);
+            }
+
+            @Override
+            public void prepareFailView(String error) {
+                fail("Use case failure is unexpected.");
+            }
+        };
+
+        new RecentChatsInteractor(presenter, dao, new InMemoryMessageRepository(), new InMemoryUserRepository(),
+                chatRepository).execute(new RecentChatsInputData("Miles1"));
+        assertEquals(1, shown.size());
+        assertEquals(List.of("Kept group"), shown.get(0).getChatNames());
+
+        final Chat fresh = new Chat("fresh", "Fresh group", Color.BLUE, Instant.now().plusSeconds(1));
+        fresh.addParticipant("Miles1");
+        fresh.addParticipant("Miles2");
+        fresh.addParticipant("Miles3");
+        chatRepository.save(fresh);
+        sync.complete(2);
+        assertEquals(2, shown.size());
+        assertEquals(List.of("Fresh group", "Kept group"), shown.get(1).getChatNames());
+    }
 }
@@ -38,7 +38,7 @@ class SearchUserInteractorTest {
         // Mock DataAccessInterface
         SearchUserDataAccessInterface mockDataAccess = new SearchUserDataAccessInterface() {
             @Override
-            public List<String> searchUsers(String userId, String query) {
+            public List<String> searchUsers(String userId, String query, String startAfter, int limit) {
                 // Simulate finding users matching "Bob"
                 List<String> results = new ArrayList<>();
                 results.add("Bobby");
@@ -90,7 +90,7 @@ class SearchUserInteractorTest {
 
         SearchUserDataAccessInterface mockDataAccess = new SearchUserDataAccessInterface() {
             @Override
-            public List<String> searchUsers(String userId, String query) {
+            public List<String> searchUsers(String userId, String query, String startAfter, int limit) {
                 // Return all users when query is empty
                 List<String> results = new ArrayList<>();
                 results.add("Bob");
@@ -142,7 +142,7 @@ class SearchUserInteractorTest {
 
         SearchUserDataAccessInterface mockDataAccess = new SearchUserDataAccessInterface() {
             @Override
-            public List<String> searchUsers(String userId, String query) {
+            public List<String> searchUsers(String userId, String query, String startAfter, int limit) {
                 // Verify that null query was converted to empty string
                 assertEquals("", query);
                 List<String> results = new ArrayList<>();
@@ -188,7 +188,7 @@ class SearchUserInteractorTest {
 
         SearchUserDataAccessInterface mockDataAccess = new SearchUserDataAccessInterface() {
             @Override
-            public List<String> searchUsers(String userId, String query) {
+            public List<String> searchUsers(String userId, String query, String startAfter, int limit) {
                 // This will be called due to missing return statement in interactor
                 // Return empty to trigger the "No users found" error
                 return new ArrayList<>();
@@ -234,7 +234,7 @@ class SearchUserInteractorTest {
 
         SearchUserDataAccessInterface mockDataAccess = new SearchUserDataAccessInterface() {
             @Override
-            public List<String> searchUsers(String userId, String query) {
+            public List<String> searchUsers(String userId, String query, String startAfter, int limit) {
                 // This will be called due to missing return statement in interactor
                 return new ArrayList<>();
             }
@@ -281,7 +281,7 @@ class SearchUserInteractorTest {
 
         SearchUserDataAccessInterface mockDataAccess = new SearchUserDataAccessInterface() {
             @Override
-            public List<String> searchUsers(String userId, String query) {
+            public List<String> searchUsers(String userId, String query, String startAfter, int limit) {
                 // Return empty list - no users found
                 return new ArrayList<>();
             }
@@ -326,7 +326,7 @@ class SearchUserInteractorTest {
 
         SearchUserDataAccessInterface mockDataAccess = new SearchUserDataAccessInterface() {
             @Override
-            public List<String> searchUsers(String userId, String query) {
+            public List<String> searchUsers(String userId, String query, String startAfter, int limit) {
                 List<String> results = new ArrayList<>();
                 results.add("Bob");
                 return results;
@@ -351,6 +351,90 @@ class SearchUserInteractorTest {
         interactor.execute(inputData);
     }
 
+    @Test
+    void pagingTest() {
+        // 25 users match; the first page is full and hands back a cursor for the rest
+        List<String> allMatches = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            allMatches.add(String.format("bob%02d", i));
+        }
+
+        UserRepository mockUserRepository = new UserRepository() {
+            @Override
+            public Optional<User> findByUsername(String username) {
+                return Optional.of(new User(username, "password"));
+            }
+
+            @Override
+            public User save(User user) {
+                return user;
+            }
+        };
+
+        SearchUserDataAccessInterface mockDataAccess = new SearchUserDataAccessInterface() {
+            @Override
+            public List<String> searchUsers(String userId, String query, String startAfter, int limit) {
+                int from = startAfter == null ? 0 : allMatches.indexOf(startAfter) + 1;
+                return new ArrayList<>(allMatches.subList(from, Math.min(from + limit, allMatches.size())));
+            }
+        };
+
+        List<SearchUserOutputData> pages = new ArrayList<>();
+        SearchUserOutputBoundary presenter = new SearchUserOutputBoundary() {
+            @Override
+            public void prepareSuccessView(SearchUserOutputData outputData) {
+                pages.add(outputData);
+            }
+
+            @Override
+            public void prepareFailView(String error) {
+                fail("Use case failure is unexpected.");
+            }
+        };
+
+        SearchUserInputBoundary interactor = new SearchUserInteractor(
+                mockDataAccess, presenter, mockUserRepository);
+        interactor.execute(new SearchUserInputData("Alice", "bob"));
+        assertEquals(SearchUserInteractor.PAGE_SIZE, pages.get(0).getUsernames().size());
+        assertEquals("bob19", pages.get(0).getNextCursor());
+
+        interactor.execute(new SearchUserInputData("Alice", "bob", pages.get(0).getNextCursor()));
+        assertEquals(List.of("bob20", "bob21", "bob22", "bob23", "bob24"), pages.get(1).getUsernames());
+        assertNull(pages.get(1).getNextCursor());
+        assertFalse(pages.get(0).isNextPage());
+        assertTrue(pages.get(1).isNextPage());
+    }
+
+    @Test
+    void emptyNextPageEndsTheResultsTest() {
+        // Exactly one full page matches, so the cursor it hands back finds nothing more
+        SearchUserDataAccessInterface mockDataAccess = new SearchUserDataAccessInterface() {
+            @Override
+            public List<String> searchUsers(String userId, String query, String startAfter, int limit) {
+                return new ArrayList<>();
+            }
+        };
+
+        List<SearchUserOutputData> pages = new ArrayList<>();
+        SearchUserOutputBoundary presenter = new SearchUserOutputBoundary() {
+            @Override
+            public void prepareSuccessView(SearchUserOutputData outputData) {
+                pages.add(outputData);
+            }
+
+            @Override
+            public void prepareFailView(String error) {
+                fail("An empty next page is not a failed search.");
+            }
+        };
+
+        SearchUserInputBoundary interactor = new SearchUserInteractor(mockDataAccess, presenter, null);
+        interactor.execute(new SearchUserInputData("Alice", "bob", "bob19"));
+        assertTrue(pages.get(0).getUsernames().isEmpty());
+        assertTrue(pages.get(0).isNextPage());
+        assertNull(pages.get(0).getNextCursor());
+    }
+
     @Test
     void testInputDataGetters() {
         SearchUserInputData inputData = new SearchUserInputData("testUser", "testQuery");
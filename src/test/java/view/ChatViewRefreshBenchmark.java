@@ -0,0 +1,165 @@
+package view;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.SwingUtilities;
+
+import interfaceadapter.FrameDispatcher;
+import interfaceadapter.ViewManagerModel;
+import interfaceadapter.logged_in.LoggedInViewModel;
+import interfaceadapter.messaging.ChatViewModel;
+import interfaceadapter.messaging.view_history.ViewChatHistoryPresenter;
+import usecase.messaging.view_history.ReplyPreview;
+import usecase.messaging.view_history.ViewChatHistoryOutputData;
+
+/**
+ * Measures how long the event dispatch thread is busy for one history refresh of the
+ * chat view: the presenter updating the view model, the view handling the change,
+ * laying out and painting one screen. Also counts the change events an unchanged
+ * refresh fires, and compares a reaction, a history sync and a sent message arriving in
+ * one frame when each is delivered on its own and when the {@link FrameDispatcher}
+ * merges them.
+ *
+ * <p>
+ * Not a unit test; run it by hand after {@code mvn test-compile}:
+ * {@code java -Djava.awt.headless=true -cp target/classes:target/test-classes view.ChatViewRefreshBenchmark}
+ */
+public final class ChatViewRefreshBenchmark {
+
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 800;
+    private static final int WARMUP_REFRESHES = 5;
+    private static final int MEASURED_REFRESHES = 10;
+    private static final Map<String, Map<String, String>> REACTIONS = Map.of("m3", Map.of("bob", "👍"));
+
+    private ChatViewRefreshBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int size : new int[] {100, 1_000, 10_000}) {
+            final double[] result = new double[5];
+            final int[] events = new int[1];
+            final int[] unchangedEvents = new int[1];
+            SwingUtilities.invokeAndWait(() -> {
+                final ChatViewModel chatViewModel = new ChatViewModel();
+                final ChatView view = new ChatView(new ViewManagerModel(), chatViewModel, new LoggedInViewModel());
+                view.setChatContext("chat", List.of("alice", "bob", "carol"), "alice", "group", true);
+                view.setSize(WIDTH, HEIGHT);
+                final ViewChatHistoryPresenter presenter =
+                        new ViewChatHistoryPresenter(chatViewModel, new ViewManagerModel());
+                final BufferedImage screen = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+
+                final List<String[]> rows = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    rows.add(row(i));
+                }
+                presenter.prepareSuccessView(output(rows));
+                FrameDispatcher.shared().flush();
+
+                // A full redraw, as when the chat is opened
+                result[0] = time(view, screen, true, chatViewModel::firePropertyChange);
+                // The history sync with nothing new since the last refresh
+                chatViewModel.addPropertyChangeListener(evt -> events[0]++);
+                // Nothing asks Swing to lay out or paint here, so neither does the benchmark
+                result[1] = time(view, screen, false, () -> presenter.prepareSuccessView(
+                        output(rows)));
+                unchangedEvents[0] = events[0];
+                // The history sync with one more message each time
+                result[2] = time(view, screen, true, () -> {
+                    rows.add(row(rows.size()));
+                    presenter.prepareSuccessView(output(rows));
+                });
+                // A reaction, a sync with nothing new and a sent message in one frame
+                result[3] = time(view, screen, true, () -> burst(presenter, rows, true));
+                result[4] = time(view, screen, true, () -> burst(presenter, rows, false));
+            });
+            System.out.printf("%,6d messages: %.2f ms full refresh, %.2f ms unchanged (%d events),"
+                            + " %.2f ms new message, burst of 3: %.2f ms delivered one by one,"
+                            + " %.2f ms in one frame%n",
+                    size, result[0], result[1], unchangedEvents[0], result[2], result[3], result[4]);
+        }
+        System.out.println(FrameDispatcher.shared());
+        System.exit(0);
+    }
+
+    /**
+     * Runs three presenter updates back to back, either ending a frame after each one,
+     * as when every event reached the view at once, or once after all of them.
+     */
+    private static void burst(ViewChatHistoryPresenter presenter, List<String[]> rows, boolean framePerUpdate) {
+        final String last = rows.get(rows.size() - 1)[0];
+        presenter.prepareSuccessView(output(rows, Map.of(last, Map.of("bob", "❤"))));
+        if (framePerUpdate) {
+            FrameDispatcher.shared().flush();
+        }
+        presenter.prepareSuccessView(output(rows, Map.of(last, Map.of("bob", "❤"))));
+        if (framePerUpdate) {
+            FrameDispatcher.shared().flush();
+        }
+        rows.add(row(rows.size()));
+        presenter.prepareSuccessView(output(rows));
+    }
+
+    private static ViewChatHistoryOutputData output(List<String[]> rows) {
+        return output(rows, REACTIONS);
+    }
+
+    private static ViewChatHistoryOutputData output(List<String[]> rows,
+                                                    Map<String, Map<String, String>> reactions) {
+        final Map<String, ReplyPreview> previews = new HashMap<>();
+        for (String[] row : rows) {
+            if (!row[4].isEmpty()) {
+                previews.put(row[4], ReplyPreview.found("message " + row[4].substring(1), "bob"));
+            }
+        }
+        return new ViewChatHistoryOutputData(new ArrayList<>(rows), reactions, false, previews);
+    }
+
+    private static double time(ChatView view, BufferedImage screen, boolean redraw, Runnable refresh) {
+        long total = 0;
+        for (int i = 0; i < WARMUP_REFRESHES + MEASURED_REFRESHES; i++) {
+            final long start = System.nanoTime();
+            refresh.run();
+            FrameDispatcher.shared().flush();
+            if (redraw) {
+                layOut(view);
+                final Graphics2D g = screen.createGraphics();
+                view.paint(g);
+                g.dispose();
+            }
+            if (i >= WARMUP_REFRESHES) {
+                total += System.nanoTime() - start;
+            }
+        }
+        return total / 1e6 / MEASURED_REFRESHES;
+    }
+
+    /**
+     * Lays out a component tree the way validate() would on screen; a headless component
+     * has no peer, so validate() does nothing.
+     */
+    private static void layOut(Component component) {
+        if (component instanceof Container) {
+            final Container container = (Container) component;
+            container.doLayout();
+            for (Component child : container.getComponents()) {
+                layOut(child);
+            }
+        }
+    }
+
+    private static String[] row(int i) {
+        final String sender = i % 3 == 0 ? "alice" : "bob";
+        final String text = i % 5 == 0
+                ? "a longer message number " + i + " that has to wrap over more than one line of the bubble"
+                : "message " + i;
+        return new String[] {"m" + i, sender, text, "2024-01-01 10:00", i % 7 == 0 ? "m" + (i - 1) : ""};
+    }
+}
@@ -0,0 +1,118 @@
+package view;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+import javax.swing.SwingUtilities;
+
+import view.components.MessageListPanel;
+
+/**
+ * Measures frame times of the message list of a 2,000-message chat: painting one screen
+ * while scrolling, dragging the window edge a pixel at a time, and a new message
+ * arriving. Every fourth message has reactions, so the emoji font is used by most frames.
+ *
+ * <p>
+ * Not a unit test; run it by hand after {@code mvn test-compile}:
+ * {@code java -Djava.awt.headless=true -cp target/classes:target/test-classes view.MessageListFrameBenchmark}
+ */
+public final class MessageListFrameBenchmark {
+
+    private static final int MESSAGES = 2_000;
+    private static final int WIDTH = 600;
+    private static final int HEIGHT = 800;
+    private static final int WARMUP_FRAMES = 100;
+    private static final int MEASURED_FRAMES = 200;
+
+    private MessageListFrameBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            final MessageListPanel list = new MessageListPanel(new MessageListPanel.Listener() {
+                @Override
+                public void messageClicked(String[] message) {
+                }
+
+                @Override
+                public void actionClicked(String[] message, java.awt.Component source, int x, int y) {
+                }
+            });
+            final List<String[]> rows = new ArrayList<>();
+            final Map<String, Map<String, String>> reactions = new HashMap<>();
+            for (int i = 0; i < MESSAGES; i++) {
+                add(rows, reactions);
+            }
+            final Map<String, String> previews = new HashMap<>();
+            for (String[] row : rows) {
+                if (!row[4].isEmpty()) {
+                    previews.put(row[4], "bob: message " + row[4].substring(1));
+                }
+            }
+            list.setBounds(0, 0, WIDTH, HEIGHT);
+            list.setMessages(rows, id -> reactions.getOrDefault(id, Map.of()), previews::get, "alice", true);
+            list.setBounds(0, 0, WIDTH, list.getPreferredSize().height);
+            final BufferedImage screen = new BufferedImage(WIDTH + 100, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+
+            final double scroll = time(frame -> paint(list, screen, frame * 37 % (list.getHeight() - HEIGHT)));
+            final double resize = time(frame -> {
+                // Drag the edge out and back by a pixel a frame
+                final int width = WIDTH + Math.abs(frame % 160 - 80);
+                list.setBounds(0, 0, width, list.getPreferredSize().height);
+                paint(list, screen, list.getHeight() - HEIGHT);
+            });
+            list.setBounds(0, 0, WIDTH, list.getPreferredSize().height);
+            final double arrival = time(frame -> {
+                final List<String[]> more = new ArrayList<>(rows);
+                add(more, reactions);
+                rows.add(more.get(more.size() - 1));
+                list.setMessages(more, id -> reactions.getOrDefault(id, Map.of()), previews::get, "alice", true);
+                list.setBounds(0, 0, WIDTH, list.getPreferredSize().height);
+                paint(list, screen, list.getHeight() - HEIGHT);
+            });
+            System.out.printf("%,d messages: %.3f ms scroll frame, %.3f ms resize frame, %.3f ms new message frame%n",
+                    MESSAGES, scroll, resize, arrival);
+        });
+        System.exit(0);
+    }
+
+    private static double time(IntConsumer frame) {
+        long total = 0;
+        for (int i = 0; i < WARMUP_FRAMES + MEASURED_FRAMES; i++) {
+            final long start = System.nanoTime();
+            frame.accept(i);
+            if (i >= WARMUP_FRAMES) {
+                total += System.nanoTime() - start;
+            }
+        }
+        return total / 1e6 / MEASURED_FRAMES;
+    }
+
+    /**
+     * Paints the screen of the list that starts at the given y, as a scroll pane would.
+     */
+    private static void paint(MessageListPanel list, BufferedImage screen, int top) {
+        final Graphics2D g = screen.createGraphics();
+        g.translate(0, -top);
+        g.setClip(0, top, list.getWidth(), HEIGHT);
+        list.paint(g);
+        g.dispose();
+    }
+
+    private static void add(List<String[]> rows, Map<String, Map<String, String>> reactions) {
+        final int i = rows.size();
+        final String sender = i % 3 == 0 ? "alice" : "bob";
+        final String text = i % 5 == 0
+                ? "a longer message number " + i + " that has to wrap over more than one line of the bubble"
+                : "message " + i;
+        rows.add(new String[] {"m" + i, sender, text, "2024-01-01 10:00", i % 7 == 0 && i > 0 ? "m" + (i - 1) : ""});
+        if (i % 4 == 0) {
+            reactions.put("m" + i, Map.of("bob", "👍", "carol", i % 8 == 0 ? "❤" : "👍"));
+        }
+    }
+}